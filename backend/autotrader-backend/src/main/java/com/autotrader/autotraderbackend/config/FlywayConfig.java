@@ -0,0 +1,38 @@
+package com.autotrader.autotraderbackend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+/**
+ * Runs Flyway migrations after Hibernate has updated the schema.
+ * <p>
+ * Tables are still created by {@code spring.jpa.hibernate.ddl-auto}, so migrations that
+ * add indexes on them cannot run at Spring Boot's default point (before the
+ * EntityManagerFactory). The default migration is turned into a no-op and performed
+ * once the EntityManagerFactory is up.
+ */
+@Configuration
+@Slf4j
+@ConditionalOnProperty(name = "spring.flyway.enabled", havingValue = "true", matchIfMissing = true)
+public class FlywayConfig {
+
+    @Bean
+    public FlywayMigrationStrategy deferredFlywayMigrationStrategy() {
+        return flyway -> log.debug("Deferring Flyway migrations until the JPA schema update has run");
+    }
+
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public InitializingBean flywayMigrationAfterJpa(Flyway flyway) {
+        return () -> {
+            int applied = flyway.migrate().migrationsExecuted;
+            log.info("Flyway applied {} migration(s)", applied);
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.autotrader.autotraderbackend.config;
+
+import com.autotrader.autotraderbackend.service.ListingCatalogLinker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Links listings that are not linked to the brand / model catalog yet on startup.
+ * Runs before the application is ready, so the in-memory search index is built from
+ * the linked rows.
+ */
+@Component
+@Order(3) // Run after DataInitializer and LocationSeeder
+@ConditionalOnProperty(name = "app.listings.catalog-backfill.on-startup", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ListingCatalogBackfillRunner implements ApplicationRunner {
+
+    private final ListingCatalogLinker listingCatalogLinker;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            listingCatalogLinker.backfill();
+        } catch (RuntimeException e) {
+            // Unlinked listings are still found by the text filters; the backfill can be re-run by an admin
+            log.error("Catalog backfill failed", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.autotrader.autotraderbackend.config;
+
+import com.autotrader.autotraderbackend.datasource.ReadWriteRoutingDataSource;
+import com.autotrader.autotraderbackend.datasource.ReadYourWritesTracker;
+import com.autotrader.autotraderbackend.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to read replicas when {@code app.datasource.replicas.enabled}
+ * is true; otherwise Spring Boot's single data source is used as before.
+ * <p>
+ * The primary is configured with the usual {@code spring.datasource.*} properties, the
+ * replicas with {@code app.datasource.replicas.nodes[i].*}. Writes, reads outside
+ * transactions, Flyway and the schema update always use the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@Slf4j
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaDataSourceProperties properties) {
+        if (properties.getNodes().isEmpty()) {
+            throw new IllegalStateException("app.datasource.replicas.enabled is set but no replica is configured.");
+        }
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < properties.getNodes().size(); i++) {
+            ReplicaDataSourceProperties.Node node = properties.getNodes().get(i);
+            String name = StringUtils.hasText(node.getName()) ? node.getName() : "replica-" + i;
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(node.getUrl())
+                    .username(node.getUsername())
+                    .password(node.getPassword())
+                    .build();
+            replica.setPoolName(name);
+            replica.setMaximumPoolSize(properties.getMaximumPoolSize());
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicas, properties.getLagQuery(), properties.getMaxLagMs());
+        monitor.refresh();
+        log.info("Routing read-only transactions to {} of {} replica(s)", monitor.healthyReplicas().size(), replicas.size());
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor,
+                                 ReplicaDataSourceProperties properties) {
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(
+                Duration.ofMillis(properties.getStickyWindowMs()), Clock.systemUTC());
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+                primaryDataSource, replicaLagMonitor, tracker, ReplicaDataSourceConfig::currentUsername));
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
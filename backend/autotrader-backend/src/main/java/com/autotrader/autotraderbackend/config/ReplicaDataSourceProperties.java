@@ -0,0 +1,44 @@
+package com.autotrader.autotraderbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas that read-only transactions are routed to (see {@link ReplicaDataSourceConfig}).
+ */
+@ConfigurationProperties(prefix = "app.datasource.replicas")
+@Data
+public class ReplicaDataSourceProperties {
+
+    private boolean enabled = false;
+    private List<Node> nodes = new ArrayList<>();
+    /**
+     * Replicas further behind the primary than this are skipped.
+     */
+    private long maxLagMs = 2000;
+    private long lagCheckIntervalMs = 1000;
+    /**
+     * How long a user's reads stay on the primary after they commit a write. Should exceed
+     * the maximum lag plus the lag check interval.
+     */
+    private long stickyWindowMs = 5000;
+    /**
+     * Returns the lag of a replica in milliseconds. The default is for PostgreSQL streaming
+     * replication: 0 when all received WAL is replayed, otherwise the age of the last replayed
+     * transaction.
+     */
+    private String lagQuery = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+    private int maximumPoolSize = 10;
+
+    @Data
+    public static class Node {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+    }
+}
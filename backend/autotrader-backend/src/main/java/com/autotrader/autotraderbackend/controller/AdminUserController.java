@@ -0,0 +1,63 @@
+package com.autotrader.autotraderbackend.controller;
+
+import com.autotrader.autotraderbackend.payload.response.UserStatusResponse;
+import com.autotrader.autotraderbackend.service.UserActivationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/users")
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "User Management", description = "Activate and deactivate user accounts (Admin only)")
+public class AdminUserController {
+
+    private final UserActivationService userActivationService;
+
+    @PostMapping("/{id}/deactivate")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+        summary = "Deactivate a user account (Admin only)",
+        description = "Blocks sign-in and existing tokens of the user and hides all of the user's listings from public queries. "
+                + "Calling it again for a deactivated user completes hiding listings left over by an interrupted run.",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "User deactivated", content = @Content(schema = @Schema(implementation = UserStatusResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required"),
+            @ApiResponse(responseCode = "404", description = "User not found")
+        }
+    )
+    public ResponseEntity<UserStatusResponse> deactivateUser(
+            @Parameter(description = "ID of the user", required = true) @PathVariable("id") Long id) {
+        log.info("Admin requested deactivation of user ID {}", id);
+        return ResponseEntity.ok(userActivationService.setActive(id, false));
+    }
+
+    @PostMapping("/{id}/activate")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+        summary = "Activate a user account (Admin only)",
+        description = "Allows the user to sign in again and shows the user's listings again, except those the user paused.",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "User activated", content = @Content(schema = @Schema(implementation = UserStatusResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required"),
+            @ApiResponse(responseCode = "404", description = "User not found")
+        }
+    )
+    public ResponseEntity<UserStatusResponse> activateUser(
+            @Parameter(description = "ID of the user", required = true) @PathVariable("id") Long id) {
+        log.info("Admin requested activation of user ID {}", id);
+        return ResponseEntity.ok(userActivationService.setActive(id, true));
+    }
+}
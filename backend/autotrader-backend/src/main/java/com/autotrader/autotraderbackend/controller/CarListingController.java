@@ -2,12 +2,27 @@ package com.autotrader.autotraderbackend.controller;
 
 import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
 import com.autotrader.autotraderbackend.exception.StorageException;
+import com.autotrader.autotraderbackend.model.ListingStatus;
+import com.autotrader.autotraderbackend.payload.request.BulkCreateListingsRequest;
 import com.autotrader.autotraderbackend.payload.request.CreateListingRequest;
 import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
 import com.autotrader.autotraderbackend.payload.request.UpdateListingRequest;
 import com.autotrader.autotraderbackend.payload.response.CarListingResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingClustersResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingSummaryResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingViewDayResponse;
+import com.autotrader.autotraderbackend.payload.response.MyListingsResponse;
 import com.autotrader.autotraderbackend.payload.response.PageResponse;
+import com.autotrader.autotraderbackend.payload.response.ValuationResponse;
 import com.autotrader.autotraderbackend.service.CarListingService;
+import com.autotrader.autotraderbackend.service.export.ListingExportFormat;
+import com.autotrader.autotraderbackend.service.paging.CountStrategy;
+import com.autotrader.autotraderbackend.service.paging.CursorPage;
+import com.autotrader.autotraderbackend.service.search.ListingValuations;
+import com.autotrader.autotraderbackend.service.search.TrendingListings;
+import com.autotrader.autotraderbackend.service.views.ListingViewCounter;
+import com.autotrader.autotraderbackend.service.views.ListingViewStats;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,18 +31,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -41,7 +64,17 @@ import java.util.Map;
 @Tag(name = "Listings", description = "Manage car listings (create, view, filter, etc.)")
 public class CarListingController {
 
+    private static final String CURSOR_PAGING_NOTE = "Pass 'after' (empty for the first page, then the previous response's nextCursor) to use keyset paging: "
+            + "the page number is ignored, totals are reported as -1, and deep pages cost the same as the first one.";
+    private static final String AFTER_PARAM_DESCRIPTION = "Opaque keyset cursor. Empty to start cursor paging, otherwise the nextCursor of the previous page.";
+    private static final String COUNT_PARAM_DESCRIPTION = "Count strategy for offset paging: 'exact' (default) runs a count query, "
+            + "'approximate' reports a cached estimate (approximateTotal=true), 'none' skips counting and reports totals as -1. Ignored with 'after'.";
+
     private final CarListingService carListingService;
+    private final ListingViewCounter listingViewCounter;
+    private final ListingViewStats listingViewStats;
+    private final TrendingListings trendingListings;
+    private final ListingValuations listingValuations;
 
     @PutMapping("/{id}/pause")
     @PreAuthorize("isAuthenticated()")
@@ -136,6 +169,28 @@ public class CarListingController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping(value = "/bulk", consumes = "application/json")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(
+        summary = "Create several car listings",
+        description = "Creates up to " + BulkCreateListingsRequest.MAX_LISTINGS + " listings for the authenticated seller in one transaction. Either all listings are created or none. Authentication required.",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "201", description = "Listings created successfully, in request order"),
+            @ApiResponse(responseCode = "400", description = "Invalid input, too many listings or a trim of another model"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "404", description = "A location or trim was not found")
+        }
+    )
+    public ResponseEntity<List<CarListingResponse>> createListings(
+            @Valid @RequestBody BulkCreateListingsRequest bulkRequest,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        log.info("Received request to create {} listings from user: {}", bulkRequest.getListings().size(), userDetails.getUsername());
+        List<CarListingResponse> responses = carListingService.createListings(bulkRequest.getListings(), userDetails.getUsername());
+        return ResponseEntity.status(HttpStatus.CREATED).body(responses);
+    }
+
     @PostMapping(value = "/with-image", consumes = "multipart/form-data")
     @PreAuthorize("isAuthenticated()")
     @Operation(
@@ -233,23 +288,26 @@ public class CarListingController {
     @GetMapping
     @Operation(
         summary = "Get all approved, unsold, and unarchived car listings",
-        description = "Returns a paginated list of all approved, unsold, and unarchived car listings (approved=true, sold=false, archived=false). Each listing includes an array of its associated media items (images/videos).",
+        description = "Returns a paginated list of all approved, unsold, and unarchived car listings (approved=true, sold=false, archived=false). Each listing includes an array of its associated media items (images/videos). " + CURSOR_PAGING_NOTE,
         responses = {
-            @ApiResponse(responseCode = "200", description = "List of car listings, including media details", content = @Content(schema = @Schema(implementation = PageResponse.class)))
+            @ApiResponse(responseCode = "200", description = "List of car listings, including media details", content = @Content(schema = @Schema(implementation = PageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, count strategy or sort field")
         }
     )
     public ResponseEntity<PageResponse<CarListingResponse>> getAllListings(
+            @Parameter(description = AFTER_PARAM_DESCRIPTION) @RequestParam(required = false) String after,
+            @Parameter(description = COUNT_PARAM_DESCRIPTION) @RequestParam(required = false) String count,
             @PageableDefault(size = 10, sort = "createdAt", direction = org.springframework.data.domain.Sort.Direction.DESC) Pageable pageable) {
-        log.info("Received request to get all approved listings. Pageable: {}", pageable);
-        Page<CarListingResponse> listingPage = carListingService.getAllApprovedListings(pageable);
-        PageResponse<CarListingResponse> response = new PageResponse<>(
-            listingPage.getContent(),
-            listingPage.getNumber(),
-            listingPage.getSize(),
-            listingPage.getTotalElements(),
-            listingPage.getTotalPages(),
-            listingPage.isLast()
-        );
+        log.info("Received request to get all approved listings. Pageable: {}, cursor: {}", pageable, after != null);
+        CountStrategy countStrategy = CountStrategy.fromParam(count);
+        PageResponse<CarListingResponse> response;
+        if (after != null) {
+            response = toPageResponse(carListingService.getAllApprovedListingsByCursor(after, pageable));
+        } else if (countStrategy == CountStrategy.EXACT) {
+            response = toPageResponse(carListingService.getAllApprovedListings(pageable));
+        } else {
+            response = toPageResponse(carListingService.getAllApprovedListings(pageable, countStrategy));
+        }
         log.info("Returning {} approved listings", response.getContent().size());
         return ResponseEntity.ok(response);
     }
@@ -257,24 +315,19 @@ public class CarListingController {
     @PostMapping("/filter")
     @Operation(
         summary = "Filter car listings (POST)",
-        description = "Returns a paginated list of car listings matching the provided filter criteria in the request body. By default, only listings with approved=true, sold=false, and archived=false are returned unless explicitly overridden in the request. Each listing includes an array of its associated media items.",
+        description = "Returns a paginated list of car listings matching the provided filter criteria in the request body. By default, only listings with approved=true, sold=false, and archived=false are returned unless explicitly overridden in the request. Each listing includes an array of its associated media items. " + CURSOR_PAGING_NOTE,
         responses = {
-            @ApiResponse(responseCode = "200", description = "Filtered list of car listings, including media details", content = @Content(schema = @Schema(implementation = PageResponse.class)))
+            @ApiResponse(responseCode = "200", description = "Filtered list of car listings, including media details", content = @Content(schema = @Schema(implementation = PageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid filter, cursor, count strategy or sort field")
         }
     )
     public ResponseEntity<PageResponse<CarListingResponse>> getFilteredListings(
             @Valid @RequestBody ListingFilterRequest filterRequest,
+            @Parameter(description = AFTER_PARAM_DESCRIPTION) @RequestParam(required = false) String after,
+            @Parameter(description = COUNT_PARAM_DESCRIPTION) @RequestParam(required = false) String count,
             @PageableDefault(size = 10, sort = "createdAt", direction = org.springframework.data.domain.Sort.Direction.DESC) Pageable pageable) {
-        log.info("Received request to filter listings. Filter: {}, Pageable: {}", filterRequest, pageable);
-        Page<CarListingResponse> listingPage = carListingService.getFilteredListings(filterRequest, pageable);
-        PageResponse<CarListingResponse> response = new PageResponse<>(
-            listingPage.getContent(),
-            listingPage.getNumber(),
-            listingPage.getSize(),
-            listingPage.getTotalElements(),
-            listingPage.getTotalPages(),
-            listingPage.isLast()
-        );
+        log.info("Received request to filter listings. Filter: {}, Pageable: {}, cursor: {}", filterRequest, pageable, after != null);
+        PageResponse<CarListingResponse> response = findFiltered(filterRequest, after, count, pageable);
         log.info("Returning {} filtered listings", response.getContent().size());
         return ResponseEntity.ok(response);
     }
@@ -282,52 +335,209 @@ public class CarListingController {
     @GetMapping("/filter")
     @Operation(
         summary = "Filter car listings by query parameters (GET)",
-        description = "Returns a paginated list of car listings matching the provided filter criteria as query parameters. By default, only listings with approved=true, sold=false, and archived=false are returned unless explicitly overridden in the request. Each listing includes an array of its associated media items.",
+        description = "Returns a paginated list of car listings matching the provided filter criteria as query parameters. By default, only listings with approved=true, sold=false, and archived=false are returned unless explicitly overridden in the request. Each listing includes an array of its associated media items. " + CURSOR_PAGING_NOTE,
         responses = {
-            @ApiResponse(responseCode = "200", description = "Filtered list of car listings, including media details", content = @Content(schema = @Schema(implementation = PageResponse.class)))
+            @ApiResponse(responseCode = "200", description = "Filtered list of car listings, including media details", content = @Content(schema = @Schema(implementation = PageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid filter, cursor, count strategy or sort field")
         }
     )
     public ResponseEntity<PageResponse<CarListingResponse>> getFilteredListingsByParams(
             @Parameter(description = "Brand filter") @RequestParam(required = false) String brand,
             @Parameter(description = "Model filter") @RequestParam(required = false) String model,
+            @Parameter(description = "Catalog brand ids (repeat or comma-separate for several)") @RequestParam(required = false) List<Long> brandIds,
+            @Parameter(description = "Catalog brand slugs (repeat or comma-separate for several)") @RequestParam(required = false) List<String> brandSlugs,
+            @Parameter(description = "Catalog model ids (repeat or comma-separate for several)") @RequestParam(required = false) List<Long> modelIds,
+            @Parameter(description = "Catalog model slugs (repeat or comma-separate for several)") @RequestParam(required = false) List<String> modelSlugs,
+            @Parameter(description = "Catalog trim ids (repeat or comma-separate for several)") @RequestParam(required = false) List<Long> trimIds,
             @Parameter(description = "Minimum year") @RequestParam(required = false) Integer minYear,
             @Parameter(description = "Maximum year") @RequestParam(required = false) Integer maxYear,
             @Parameter(description = "Location (slug or name)") @RequestParam(required = false) String location,
             @Parameter(description = "Location ID") @RequestParam(required = false) Long locationId,
+            @Parameter(description = "Latitude of the centre of a radius search (with nearLon and radiusKm)") @RequestParam(required = false) Double nearLat,
+            @Parameter(description = "Longitude of the centre of a radius search") @RequestParam(required = false) Double nearLon,
+            @Parameter(description = "Radius in kilometres around nearLat/nearLon") @RequestParam(required = false) Double radiusKm,
+            @Parameter(description = "Southern edge of a bounding box (with maxLat, minLon, maxLon)") @RequestParam(required = false) Double minLat,
+            @Parameter(description = "Northern edge of a bounding box") @RequestParam(required = false) Double maxLat,
+            @Parameter(description = "Western edge of a bounding box") @RequestParam(required = false) Double minLon,
+            @Parameter(description = "Eastern edge of a bounding box") @RequestParam(required = false) Double maxLon,
             @Parameter(description = "Minimum price") @RequestParam(required = false) BigDecimal minPrice,
             @Parameter(description = "Maximum price") @RequestParam(required = false) BigDecimal maxPrice,
             @Parameter(description = "Minimum mileage") @RequestParam(required = false) Integer minMileage,
             @Parameter(description = "Maximum mileage") @RequestParam(required = false) Integer maxMileage,
             @Parameter(description = "Show sold listings") @RequestParam(required = false) Boolean isSold,
             @Parameter(description = "Show archived listings") @RequestParam(required = false) Boolean isArchived,
+            @Parameter(description = "Free-text keyword (Arabic or English); combine with sort=relevance to rank by relevance") @RequestParam(required = false) String keyword,
+            @Parameter(description = AFTER_PARAM_DESCRIPTION) @RequestParam(required = false) String after,
+            @Parameter(description = COUNT_PARAM_DESCRIPTION) @RequestParam(required = false) String count,
             @PageableDefault(size = 10, sort = "createdAt", direction = org.springframework.data.domain.Sort.Direction.DESC) Pageable pageable) {
         log.debug("Received GET request to filter listings. Pageable: {}", pageable);
         ListingFilterRequest filterRequest = new ListingFilterRequest();
         filterRequest.setBrand(brand);
         filterRequest.setModel(model);
+        filterRequest.setBrandIds(brandIds);
+        filterRequest.setBrandSlugs(brandSlugs);
+        filterRequest.setModelIds(modelIds);
+        filterRequest.setModelSlugs(modelSlugs);
+        filterRequest.setTrimIds(trimIds);
         filterRequest.setMinYear(minYear);
         filterRequest.setMaxYear(maxYear);
         filterRequest.setLocation(location);
         filterRequest.setLocationId(locationId);
+        filterRequest.setNearLat(nearLat);
+        filterRequest.setNearLon(nearLon);
+        filterRequest.setRadiusKm(radiusKm);
+        filterRequest.setMinLat(minLat);
+        filterRequest.setMaxLat(maxLat);
+        filterRequest.setMinLon(minLon);
+        filterRequest.setMaxLon(maxLon);
         filterRequest.setMinPrice(minPrice);
         filterRequest.setMaxPrice(maxPrice);
         filterRequest.setMinMileage(minMileage);
         filterRequest.setMaxMileage(maxMileage);
         filterRequest.setIsSold(isSold);
         filterRequest.setIsArchived(isArchived);
-        Page<CarListingResponse> listingPage = carListingService.getFilteredListings(filterRequest, pageable);
-        PageResponse<CarListingResponse> response = new PageResponse<>(
-            listingPage.getContent(),
-            listingPage.getNumber(),
-            listingPage.getSize(),
-            listingPage.getTotalElements(),
-            listingPage.getTotalPages(),
-            listingPage.isLast()
-        );
+        filterRequest.setKeyword(keyword);
+        PageResponse<CarListingResponse> response = findFiltered(filterRequest, after, count, pageable);
         log.debug("Returning {} filtered listings", response.getContent().size());
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/summaries")
+    @Operation(
+        summary = "Filter car listings as lightweight summaries (GET)",
+        description = "Returns a paginated list of listing summaries for result cards (title, brand, model, year, price, mileage, location, seller and a primary image URL). "
+            + "Accepts the same filter query parameters, defaults and sort fields as GET /api/listings/filter, but skips the description and the full media list.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Page of listing summaries", content = @Content(schema = @Schema(implementation = PageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid filter or sort field")
+        }
+    )
+    public ResponseEntity<PageResponse<ListingSummaryResponse>> getListingSummaries(
+            @Valid @ParameterObject ListingFilterRequest filterRequest,
+            @PageableDefault(size = 10, sort = "createdAt", direction = org.springframework.data.domain.Sort.Direction.DESC) Pageable pageable) {
+        log.debug("Received request for listing summaries. Pageable: {}", pageable);
+        PageResponse<ListingSummaryResponse> response = toPageResponse(carListingService.getFilteredListingSummaries(filterRequest, pageable));
+        log.debug("Returning {} listing summaries", response.getContent().size());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/facets")
+    @Operation(
+        summary = "Count filter facets for the current filter",
+        description = "Returns how many listings matching the filter fall into each brand, model, location, model-year range and price range, computed in one pass. "
+            + "Accepts the same filter query parameters and defaults as GET /api/listings/filter. The response carries a version stamp read from the database, also sent as ETag; "
+            + "send it back in If-None-Match to get 304 Not Modified while no listing has changed or expired.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Facet counts", content = @Content(schema = @Schema(implementation = ListingFacetsResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Listings unchanged since the version in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter")
+        }
+    )
+    public ResponseEntity<ListingFacetsResponse> getListingFacets(
+            @Valid @ParameterObject ListingFilterRequest filterRequest,
+            WebRequest webRequest) {
+        log.debug("Received request for listing facets with filter: {}", filterRequest);
+        if (webRequest.checkNotModified(carListingService.getListingDataVersion())) {
+            log.debug("Listing facets not modified");
+            return null;
+        }
+        ListingFacetsResponse facets = carListingService.getListingFacets(filterRequest);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(facets.version())
+                .body(facets);
+    }
+
+    @GetMapping("/clusters")
+    @Operation(
+        summary = "Cluster listings on a map",
+        description = "Returns the number of listings matching the filter per geohash cell, with the count-weighted centroid of each cell, for a map view at the given zoom level. "
+            + "Accepts the same filter query parameters and defaults as GET /api/listings/filter; pass the viewport as minLat/maxLat/minLon/maxLon. "
+            + "Counts are precomputed per location and rolled up into cells, so individual listings are not read.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Clusters, largest first", content = @Content(schema = @Schema(implementation = ListingClustersResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid filter or zoom level")
+        }
+    )
+    public ResponseEntity<ListingClustersResponse> getListingClusters(
+            @Valid @ParameterObject ListingFilterRequest filterRequest,
+            @Parameter(description = "Map zoom level, 0 (world) to 22") @RequestParam(defaultValue = "6") int zoom) {
+        log.debug("Received request for listing clusters at zoom {} with filter: {}", zoom, filterRequest);
+        return ResponseEntity.ok(carListingService.getListingClusters(filterRequest, zoom));
+    }
+
+    @GetMapping("/trending")
+    @Operation(
+        summary = "Get trending listings",
+        description = "Returns the public listings with the highest time-decayed score, optionally only those of a location and / or catalog brand. "
+            + "A listing scores for being new and for every detail page view, and both count half as much every half-life (24 hours by default). "
+            + "The ranking is kept in memory and refreshed every minute by default, so only the listings returned are read from the database. "
+            + "Unknown slugs give an empty list.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Trending listings, highest score first", content = @Content(array = @io.swagger.v3.oas.annotations.media.ArraySchema(schema = @Schema(implementation = CarListingResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "size is out of range")
+        }
+    )
+    public ResponseEntity<List<CarListingResponse>> getTrendingListings(
+            @Parameter(description = "Location slug") @RequestParam(required = false) String location,
+            @Parameter(description = "Catalog brand slug") @RequestParam(required = false) String brand,
+            @Parameter(description = "Number of listings, 1 to 100 by default") @RequestParam(defaultValue = "20") int size) {
+        log.debug("Received request for {} trending listings in location '{}' of brand '{}'", size, location, brand);
+        return ResponseEntity.ok(carListingService.getTrendingListings(location, brand, size));
+    }
+
+    @GetMapping("/valuation")
+    @Operation(
+        summary = "Estimate what a car is worth",
+        description = "Returns the count, median and quartiles of the asking prices of comparable approved listings, for sale or sold: same brand and model (ignoring case), "
+            + "same model year and mileage band (25,000 km by default). While fewer than 5 listings match, one more year and band on each side are included, at most twice. "
+            + "Prices are kept in precomputed per-cell sketches, accurate to 1%, so no listings are read.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Price statistics and the year and mileage range they cover", content = @Content(schema = @Schema(implementation = ValuationResponse.class))),
+            @ApiResponse(responseCode = "400", description = "brand, model or year missing, or negative mileage")
+        }
+    )
+    public ResponseEntity<ValuationResponse> getValuation(
+            @Parameter(description = "Brand, e.g. Toyota", required = true) @RequestParam(required = false) String brand,
+            @Parameter(description = "Model, e.g. Corolla", required = true) @RequestParam(required = false) String model,
+            @Parameter(description = "Model year", required = true) @RequestParam(required = false) Integer year,
+            @Parameter(description = "Mileage in km; any mileage if omitted") @RequestParam(required = false) Integer mileage) {
+        log.debug("Received valuation request for {} {} {} with {} km", brand, model, year, mileage);
+        return ResponseEntity.ok(listingValuations.estimate(brand, model, year, mileage));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(
+        summary = "Export listings as NDJSON or CSV",
+        description = "Streams every listing matching the filter, in ascending id order, as newline-delimited JSON (default) or CSV. "
+            + "Accepts the same filter query parameters and defaults as GET /api/listings/filter; paging parameters are not used. "
+            + "Rows are read through a database cursor and written as they arrive, so exports of any size use constant memory. "
+            + "To resume an interrupted export, pass the last id received as 'after'. Media and seller details are not included.",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "The exported listings"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter or format"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+        }
+    )
+    public ResponseEntity<StreamingResponseBody> exportListings(
+            @Valid @ParameterObject ListingFilterRequest filterRequest,
+            @Parameter(description = "Output format: 'ndjson' (default) or 'csv'") @RequestParam(required = false) String format,
+            @Parameter(description = "Last listing id already received; only listings with a greater id are exported") @RequestParam(required = false) Long after) {
+        ListingExportFormat exportFormat = ListingExportFormat.fromParam(format);
+        log.info("Received request to export listings as {} after id {}. Filter: {}", exportFormat, after, filterRequest);
+        StreamingResponseBody body = carListingService.prepareExport(filterRequest, exportFormat, after);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("listings." + exportFormat.getFileExtension())
+                        .build()
+                        .toString())
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(
         summary = "Get car listing by ID",
@@ -341,6 +551,8 @@ public class CarListingController {
         log.debug("Request received for listing ID: {}", id);
         // Service method handles not found exception
         CarListingResponse listing = carListingService.getListingById(id);
+        listingViewCounter.record(id);
+        trendingListings.recordView(id);
         log.debug("Returning listing details for ID: {}", id);
         return ResponseEntity.ok(listing);
     }
@@ -363,6 +575,81 @@ public class CarListingController {
         return ResponseEntity.ok(myListings);
     }
 
+    @GetMapping("/my-listings/dashboard")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(
+        summary = "Get a page of the current user's listings with per-status counts",
+        description = "Returns one page of the listings created by the currently authenticated user, optionally only those with a status "
+            + "(active, paused, sold, archived or pending), together with the number of their listings in each status "
+            + "and the detail page views of each listing on the page over the last 30 days. "
+            + "Always uses keyset paging: pass the previous response's nextCursor as 'after' for the next page.",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Page of the user's listings and counts per status", content = @Content(schema = @Schema(implementation = MyListingsResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown status, invalid cursor or sort field"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+        }
+    )
+    public ResponseEntity<MyListingsResponse> getMyListingsDashboard(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "Only listings with this status: active, paused, sold, archived or pending") @RequestParam(required = false) String status,
+            @Parameter(description = AFTER_PARAM_DESCRIPTION) @RequestParam(required = false) String after,
+            @PageableDefault(size = 20, sort = "createdAt", direction = org.springframework.data.domain.Sort.Direction.DESC) Pageable pageable) {
+        log.debug("Request received for {} listings owned by user: {}", status != null ? status : "all", userDetails.getUsername());
+        ListingStatus listingStatus = ListingStatus.fromParam(status);
+        PageResponse<CarListingResponse> page = toPageResponse(
+                carListingService.getMyListings(userDetails.getUsername(), listingStatus, after, pageable));
+        Map<ListingStatus, Long> counts = carListingService.getMyListingCounts(userDetails.getUsername());
+        Map<Long, Long> views = listingViewStats.countRecentViews(
+                page.getContent().stream().map(CarListingResponse::getId).toList());
+        return ResponseEntity.ok(new MyListingsResponse(page, counts, views));
+    }
+
+    @GetMapping("/my-listings/{id}/views")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(
+        summary = "Get the daily views of one of the current user's listings",
+        description = "Returns the number of detail page views of the listing per day over the last 'days' days (today included, oldest first). "
+            + "Views are counted in memory and written periodically, so the latest ones show after up to one flush interval (30 seconds by default).",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Views per day", content = @Content(array = @io.swagger.v3.oas.annotations.media.ArraySchema(schema = @Schema(implementation = ListingViewDayResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "days is not between 1 and 365"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "The listing belongs to another user"),
+            @ApiResponse(responseCode = "404", description = "Listing not found")
+        }
+    )
+    public ResponseEntity<List<ListingViewDayResponse>> getMyListingViews(
+            @Parameter(description = "ID of the listing", required = true) @PathVariable("id") Long id,
+            @Parameter(description = "Number of days, 1 to 365") @RequestParam(defaultValue = "30") int days,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        log.debug("Request received for the views of listing ID {} by user: {}", id, userDetails.getUsername());
+        try {
+            return ResponseEntity.ok(listingViewStats.getDailyViews(id, userDetails.getUsername(), days));
+        } catch (SecurityException e) {
+            throw new AccessDeniedException(e.getMessage());
+        }
+    }
+
+    @PostMapping("/admin/catalog-backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+        summary = "Link listings to the brand / model catalog (Admin only)",
+        description = "Links every listing whose brand / model text matches a catalog brand / model but is not linked yet, e.g. after adding brands or models. "
+            + "Linked listings can be filtered by brandIds/brandSlugs and modelIds/modelSlugs. Also runs on startup.",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Number of links set"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+        }
+    )
+    public ResponseEntity<Map<String, Integer>> backfillCatalogLinks() {
+        log.info("Admin requested catalog backfill");
+        int linked = carListingService.backfillCatalogLinks();
+        return ResponseEntity.ok(Map.of("linked", linked));
+    }
+
     // Changed back to POST as it modifies state
     @RequestMapping(value = "/{id}/approve", method = {RequestMethod.POST, RequestMethod.PUT})
     @PreAuthorize("hasRole('ADMIN')")
@@ -403,7 +690,8 @@ public class CarListingController {
             @ApiResponse(responseCode = "400", description = "Invalid input"),
             @ApiResponse(responseCode = "401", description = "Unauthorized"),
             @ApiResponse(responseCode = "403", description = "Forbidden"),
-            @ApiResponse(responseCode = "404", description = "Listing not found")
+            @ApiResponse(responseCode = "404", description = "Listing not found"),
+            @ApiResponse(responseCode = "409", description = "The listing changed since the version sent, or during the update")
         }
     )
     public ResponseEntity<CarListingResponse> updateListing(
@@ -690,6 +978,58 @@ public class CarListingController {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
         }
     }
-}
 
+    private PageResponse<CarListingResponse> findFiltered(ListingFilterRequest filterRequest, String after, String count, Pageable pageable) {
+        CountStrategy countStrategy = CountStrategy.fromParam(count);
+        if (after != null) {
+            return toPageResponse(carListingService.getFilteredListingsByCursor(filterRequest, after, pageable));
+        }
+        if (countStrategy == CountStrategy.EXACT) {
+            return toPageResponse(carListingService.getFilteredListings(filterRequest, pageable));
+        }
+        return toPageResponse(carListingService.getFilteredListings(filterRequest, pageable, countStrategy));
+    }
 
+    private static <T> PageResponse<T> toPageResponse(Page<T> page) {
+        return new PageResponse<>(
+            page.getContent(),
+            page.getNumber(),
+            page.getSize(),
+            page.getTotalElements(),
+            page.getTotalPages(),
+            page.isLast()
+        );
+    }
+
+    /**
+     * Converts the result of a non-exact count strategy: an approximate page keeps its
+     * (estimated) totals, a plain slice reports -1 totals like cursor paging.
+     */
+    private static <T> PageResponse<T> toPageResponse(Slice<T> slice) {
+        if (slice instanceof Page<T> page) {
+            PageResponse<T> response = toPageResponse(page);
+            response.setApproximateTotal(true);
+            return response;
+        }
+        return new PageResponse<>(
+            slice.getContent(),
+            slice.getNumber(),
+            slice.getSize(),
+            -1,
+            -1,
+            !slice.hasNext()
+        );
+    }
+
+    private static <T> PageResponse<T> toPageResponse(CursorPage<T> page) {
+        return new PageResponse<>(
+            page.getContent(),
+            0,
+            page.getSize(),
+            -1,
+            -1,
+            !page.hasNext(),
+            page.getNextCursor()
+        );
+    }
+}
@@ -0,0 +1,62 @@
+package com.autotrader.autotraderbackend.controller;
+
+import com.autotrader.autotraderbackend.payload.response.InventoryFeedSyncResponse;
+import com.autotrader.autotraderbackend.service.feed.InventoryFeedFormat;
+import com.autotrader.autotraderbackend.service.feed.InventoryFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/inventory-feed")
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Inventory Feed", description = "Sync a dealer's listings with the full inventory feed of their own system")
+public class InventoryFeedController {
+
+    private final InventoryFeedService inventoryFeedService;
+
+    @PostMapping(consumes = "multipart/form-data")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(
+        summary = "Sync an inventory feed",
+        description = "Applies a full inventory feed (JSON or CSV, one car per row keyed by stockNumber, or vin without a stock number) to the current user's listings. "
+                + "New rows create listings pending approval and have their imageUrls fetched, changed rows update their listing, unchanged rows are not written, "
+                + "and feed-managed listings missing from the feed are archived. Invalid rows are skipped and reported; a malformed feed changes nothing.",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Feed synced", content = @Content(schema = @Schema(implementation = InventoryFeedSyncResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Empty or malformed feed, or unknown format"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+        }
+    )
+    public ResponseEntity<?> syncFeed(
+            @Parameter(description = "The feed file", required = true, schema = @Schema(type = "string", format = "binary"))
+            @RequestPart("file") MultipartFile file,
+            @Parameter(description = "Feed format: 'json' or 'csv'. Defaults to csv for .csv files and json otherwise.")
+            @RequestParam(value = "format", required = false) String format,
+            @Parameter(hidden = true)
+            @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Feed file is required and cannot be empty."));
+        }
+        InventoryFeedFormat feedFormat = InventoryFeedFormat.fromParam(format, file.getOriginalFilename());
+        InventoryFeedSyncResponse response = inventoryFeedService.syncFeed(userDetails.getUsername(), feedFormat, file.getInputStream());
+        return ResponseEntity.ok(response);
+    }
+}
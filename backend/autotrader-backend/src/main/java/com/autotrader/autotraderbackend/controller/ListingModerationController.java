@@ -0,0 +1,49 @@
+package com.autotrader.autotraderbackend.controller;
+
+import com.autotrader.autotraderbackend.payload.request.BulkModerationRequest;
+import com.autotrader.autotraderbackend.payload.response.BulkModerationResponse;
+import com.autotrader.autotraderbackend.service.moderation.ListingModerationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/listings/admin/moderation")
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Listing Moderation", description = "Approve, archive, unarchive or mark as sold many listings at once (Admin only)")
+public class ListingModerationController {
+
+    private final ListingModerationService listingModerationService;
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+        summary = "Moderate listings in bulk (Admin only)",
+        description = "Applies an action (approve, archive, unarchive or mark-sold) to the listings with the given ids, "
+                + "or to every listing matching the filter (sellerId, locationId, createdBefore) that the action would change. "
+                + "Returns the ids grouped by outcome: updated, unchanged (already in the target state), conflict "
+                + "(e.g. archived listings to mark as sold) and notFound. Approved listings are matched against saved searches.",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Action applied", content = @Content(schema = @Schema(implementation = BulkModerationResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown action, both or neither ids and a filter, or too many listings selected"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required")
+        }
+    )
+    public ResponseEntity<BulkModerationResponse> moderate(@Valid @RequestBody BulkModerationRequest request) {
+        log.info("Admin requested bulk {} of {}", request.getAction(),
+                request.getIds() != null ? request.getIds().size() + " listings" : "filtered listings");
+        return ResponseEntity.ok(listingModerationService.moderate(request));
+    }
+}
@@ -3,6 +3,7 @@ package com.autotrader.autotraderbackend.controller;
 import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
 import com.autotrader.autotraderbackend.payload.request.LocationRequest;
 import com.autotrader.autotraderbackend.payload.response.LocationResponse;
+import com.autotrader.autotraderbackend.payload.response.NearbyLocationResponse;
 import com.autotrader.autotraderbackend.payload.response.PageResponse;
 import com.autotrader.autotraderbackend.service.LocationService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -144,6 +145,28 @@ public class LocationController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/nearest")
+    @Operation(
+        summary = "Get nearest locations",
+        description = "Returns the active locations nearest to a point, nearest first, with their distance in kilometres.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Nearest locations retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Coordinates or limit out of range")
+        }
+    )
+    public ResponseEntity<List<NearbyLocationResponse>> getNearestLocations(
+            @Parameter(description = "Latitude of the point (-90 to 90)", required = true)
+            @RequestParam double lat,
+            @Parameter(description = "Longitude of the point (-180 to 180)", required = true)
+            @RequestParam double lon,
+            @Parameter(description = "Maximum number of locations (1 to 50)")
+            @RequestParam(defaultValue = "5") int limit) {
+        log.debug("Request received to get {} locations nearest to ({}, {})", limit, lat, lon);
+        List<NearbyLocationResponse> locations = locationService.getNearestLocations(lat, lon, limit);
+        log.debug("Returning {} nearest locations", locations.size());
+        return ResponseEntity.ok(locations);
+    }
+
     // Admin-only endpoints
 
     @PostMapping
@@ -0,0 +1,100 @@
+package com.autotrader.autotraderbackend.controller;
+
+import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
+import com.autotrader.autotraderbackend.payload.request.SavedSearchRequest;
+import com.autotrader.autotraderbackend.payload.response.SavedSearchResponse;
+import com.autotrader.autotraderbackend.service.SavedSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/saved-searches")
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Saved Searches", description = "Save listing filters and get notified of new matching listings")
+public class SavedSearchController {
+
+    private final SavedSearchService savedSearchService;
+
+    @PostMapping
+    @PreAuthorize("isAuthenticated()")
+    @Operation(
+        summary = "Save a search",
+        description = "Saves a listing filter for the current user. Newly approved listings matching it are queued and delivered in a periodic digest. "
+                + "Location and brand/model slugs are resolved to ids when saving.",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "201", description = "Search saved", content = @Content(schema = @Schema(implementation = SavedSearchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid filter or unknown slug"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "409", description = "Saved search limit reached")
+        }
+    )
+    public ResponseEntity<?> createSavedSearch(
+            @Valid @RequestBody SavedSearchRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            SavedSearchResponse response = savedSearchService.createSavedSearch(request, userDetails.getUsername());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IllegalStateException e) {
+            log.warn("Saving search failed for user {}: {}", userDetails.getUsername(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    @PreAuthorize("isAuthenticated()")
+    @Operation(
+        summary = "Get my saved searches",
+        description = "Returns the current user's saved searches, newest first.",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Saved searches retrieved successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+        }
+    )
+    public ResponseEntity<List<SavedSearchResponse>> getSavedSearches(@AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(savedSearchService.getSavedSearches(userDetails.getUsername()));
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(
+        summary = "Delete a saved search",
+        description = "Deletes one of the current user's saved searches together with its undelivered matches.",
+        security = @io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearer-token"),
+        responses = {
+            @ApiResponse(responseCode = "204", description = "Saved search deleted"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "404", description = "Saved search not found")
+        }
+    )
+    public ResponseEntity<?> deleteSavedSearch(
+            @Parameter(description = "ID of the saved search", required = true) @PathVariable("id") Long id,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            savedSearchService.deleteSavedSearch(id, userDetails.getUsername());
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFoundException e) {
+            log.warn("Deleting saved search {} failed: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.autotrader.autotraderbackend.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections of read-only transactions to a read replica and everything else to
+ * the primary.
+ * <p>
+ * A read-only transaction goes to the primary instead when no replica is within the allowed
+ * lag ({@link ReplicaLagMonitor}), or when the current user committed a write less than the
+ * stickiness window ago ({@link ReadYourWritesTracker}), so users always see their own
+ * changes. Replicas are used in turn.
+ * <p>
+ * The read-only flag of a transaction is only known once it has begun, after the transaction
+ * manager has asked for a connection. This data source must therefore be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which only asks
+ * it for a connection when the first statement runs.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final Supplier<String> currentUser;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * @param primary               The primary.
+     * @param lagMonitor            The replicas and which of them are healthy.
+     * @param readYourWritesTracker The users who wrote recently.
+     * @param currentUser           The user of the current thread, or null if anonymous.
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaLagMonitor lagMonitor,
+                                      ReadYourWritesTracker readYourWritesTracker, Supplier<String> currentUser) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.currentUser = currentUser;
+        Map<Object, Object> targets = new HashMap<>(lagMonitor.getReplicas());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriteOnCommit();
+            return PRIMARY;
+        }
+        if (readYourWritesTracker.isSticky(currentUser.get())) {
+            return PRIMARY;
+        }
+        List<String> healthy = lagMonitor.healthyReplicas();
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(nextReplica.getAndIncrement(), healthy.size()));
+    }
+
+    /**
+     * Keeps the user's reads on the primary for a while once their read-write transaction
+     * commits. Reads made outside transactions are not tracked.
+     */
+    private void rememberWriteOnCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        String user = currentUser.get();
+        if (user == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWritesTracker.recordWrite(user);
+            }
+        });
+    }
+}
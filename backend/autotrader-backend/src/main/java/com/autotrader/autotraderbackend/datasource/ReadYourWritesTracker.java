@@ -0,0 +1,60 @@
+package com.autotrader.autotraderbackend.datasource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers which users committed a write recently, so their reads can stay on the primary
+ * until replicas have caught up with it. Kept in memory, per instance.
+ */
+public class ReadYourWritesTracker {
+
+    /**
+     * Expired entries are dropped on lookup; past this many entries, on writes as well.
+     */
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final Duration window;
+    private final Clock clock;
+    private final ConcurrentMap<String, Instant> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    /**
+     * Records that the user just committed a write. Does nothing for a null user.
+     */
+    public void recordWrite(String user) {
+        if (user == null) {
+            return;
+        }
+        Instant now = clock.instant();
+        lastWrites.put(user, now);
+        if (lastWrites.size() > PRUNE_THRESHOLD) {
+            lastWrites.values().removeIf(written -> !written.plus(window).isAfter(now));
+        }
+    }
+
+    /**
+     * @return true if the user committed a write less than the window ago.
+     */
+    public boolean isSticky(String user) {
+        if (user == null) {
+            return false;
+        }
+        Instant written = lastWrites.get(user);
+        if (written == null) {
+            return false;
+        }
+        if (written.plus(window).isAfter(clock.instant())) {
+            return true;
+        }
+        lastWrites.remove(user, written);
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package com.autotrader.autotraderbackend.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the replication lag of each read replica and keeps the list of replicas that are
+ * reachable and at most {@code app.datasource.replicas.max-lag-ms} behind the primary.
+ * Reads only go to those; with none left they go to the primary.
+ * <p>
+ * The lag is read with {@code app.datasource.replicas.lag-query}, which must return the lag in
+ * milliseconds as a single number. A replica whose query fails counts as lagging.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final int QUERY_TIMEOUT_SECONDS = 2;
+
+    private final Map<String, DataSource> replicas;
+    private final Map<String, JdbcTemplate> lagQueries = new LinkedHashMap<>();
+    private final String lagQuery;
+    private final long maxLagMs;
+    private volatile List<String> healthyReplicas = Collections.emptyList();
+
+    public ReplicaLagMonitor(Map<String, DataSource> replicas, String lagQuery, long maxLagMs) {
+        this.replicas = Collections.unmodifiableMap(new LinkedHashMap<>(replicas));
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+        replicas.forEach((name, dataSource) -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            lagQueries.put(name, jdbcTemplate);
+        });
+    }
+
+    /**
+     * @return The replicas by name.
+     */
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * @return The names of the replicas reads may go to, as of the last check.
+     */
+    public List<String> healthyReplicas() {
+        return healthyReplicas;
+    }
+
+    /**
+     * Measures the lag of every replica and updates the list of healthy ones.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.lag-check-interval-ms:1000}")
+    public void refresh() {
+        List<String> healthy = new ArrayList<>();
+        for (Map.Entry<String, JdbcTemplate> replica : lagQueries.entrySet()) {
+            String name = replica.getKey();
+            boolean wasHealthy = healthyReplicas.contains(name);
+            try {
+                Number lag = replica.getValue().queryForObject(lagQuery, Number.class);
+                long lagMs = lag != null ? lag.longValue() : 0L;
+                if (lagMs <= maxLagMs) {
+                    healthy.add(name);
+                    if (!wasHealthy) {
+                        log.info("Read replica {} is {} ms behind; routing reads to it", name, lagMs);
+                    }
+                } else if (wasHealthy) {
+                    log.warn("Read replica {} is {} ms behind (max {} ms); routing its reads to the primary", name, lagMs, maxLagMs);
+                }
+            } catch (RuntimeException e) {
+                if (wasHealthy) {
+                    log.warn("Could not read the lag of replica {}; routing its reads to the primary", name, e);
+                } else {
+                    log.debug("Could not read the lag of replica {}: {}", name, e.getMessage());
+                }
+            }
+        }
+        healthyReplicas = List.copyOf(healthy);
+    }
+
+    /**
+     * Closes the replica pools.
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : replicas.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.autotrader.autotraderbackend.exception;
 import com.autotrader.autotraderbackend.payload.response.MessageResponse;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticationException;
@@ -84,6 +85,16 @@ public class GlobalExceptionHandler {
         return buildResponse(ex.getMessage(), "Bad Request", HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * A concurrent change won over this request: the client should reload the resource
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        log.warn("OptimisticLockingFailureException: {}", ex.getMessage());
+        return buildResponse("The resource was changed by another request. Please reload it and try again.",
+                "Conflict", HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleAllExceptions(Exception ex) {
         log.error("Unexpected exception", ex);
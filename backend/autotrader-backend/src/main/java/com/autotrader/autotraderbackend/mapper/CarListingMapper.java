@@ -3,6 +3,7 @@ package com.autotrader.autotraderbackend.mapper;
 import com.autotrader.autotraderbackend.model.CarListing;
 import com.autotrader.autotraderbackend.payload.response.CarListingResponse;
 import com.autotrader.autotraderbackend.payload.response.ListingMediaResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingSummaryResponse;
 import com.autotrader.autotraderbackend.payload.response.LocationResponse;
 import com.autotrader.autotraderbackend.service.storage.StorageService;
 import lombok.RequiredArgsConstructor;
@@ -42,6 +43,10 @@ public class CarListingMapper {
             response.setTitle(carListing.getTitle());
             response.setBrand(carListing.getBrand());
             response.setModel(carListing.getModel());
+            // Reading the ids does not initialize the lazy catalog proxies
+            response.setBrandId(carListing.getCarBrand() != null ? carListing.getCarBrand().getId() : null);
+            response.setModelId(carListing.getCarModel() != null ? carListing.getCarModel().getId() : null);
+            response.setTrimId(carListing.getCarTrim() != null ? carListing.getCarTrim().getId() : null);
             response.setModelYear(carListing.getModelYear());
             response.setPrice(carListing.getPrice());
             response.setMileage(carListing.getMileage());
@@ -60,6 +65,7 @@ public class CarListingMapper {
             // Map isSold and isArchived fields
             response.setIsSold(carListing.getSold());
             response.setIsArchived(carListing.getArchived());
+            response.setVersion(carListing.getVersion());
 
             if (carListing.getSeller() != null) {
                 response.setSellerId(carListing.getSeller().getId());
@@ -159,6 +165,7 @@ public class CarListingMapper {
                 log.warn("Error setting isArchived for listing ID {}, defaulting to false", carListing.getId());
                 response.setIsArchived(false);
             }
+            response.setVersion(carListing.getVersion());
 
             // Set seller info safely
             try {
@@ -208,6 +215,20 @@ public class CarListingMapper {
         }
     }
     
+    /**
+     * Completes a projected listing summary with the signed URL of its card image.
+     *
+     * @param summary  The summary produced by the projection query.
+     * @param imageKey The storage key of the card image, or null if the listing has no image.
+     * @return The summary with its primary image URL set (null if none could be generated).
+     */
+    public ListingSummaryResponse withPrimaryImage(ListingSummaryResponse summary, String imageKey) {
+        if (summary == null) {
+            return null;
+        }
+        return summary.withPrimaryImageUrl(generateSignedUrl(summary.id(), imageKey));
+    }
+
     /**
      * Maps all media items from a car listing to ListingMediaResponse DTOs.
      * Handles generating signed URLs for each media item.
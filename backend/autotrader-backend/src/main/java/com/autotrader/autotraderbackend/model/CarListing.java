@@ -6,6 +6,8 @@ import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Min;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -17,13 +19,36 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "car_listings")
+@NamedEntityGraph(
+    name = CarListing.DETAILS_GRAPH,
+    attributeNodes = {
+        @NamedAttributeNode("seller"),
+        @NamedAttributeNode("location"),
+        @NamedAttributeNode("media")
+    }
+)
 @Getter
 @Setter
 @NoArgsConstructor
 public class CarListing {
 
+    /**
+     * Entity graph loading everything {@code CarListingMapper} reads: seller, location and media.
+     */
+    public static final String DETAILS_GRAPH = "CarListing.details";
+
+    /**
+     * Ids reserved per sequence call for listings, media, users and locations; matches
+     * {@code hibernate.jdbc.batch_size} so a full insert batch needs one sequence call.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Pooled sequence id, so Hibernate can batch inserts; an IDENTITY column rules that out.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_listings_seq")
+    @SequenceGenerator(name = "car_listings_seq", sequenceName = "car_listings_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank
@@ -41,6 +66,31 @@ public class CarListing {
     @Column(name = "model", nullable = false, length = 50)
     private String model;
 
+    /**
+     * Catalog brand the {@link #brand} text refers to; null if it matches no catalog brand.
+     * Linked on save and by the backfill in {@code ListingCatalogLinker}.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "brand_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private CarBrand carBrand;
+
+    /**
+     * Catalog model of {@link #carBrand} the {@link #model} text refers to; null if unmatched.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "model_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private CarModel carModel;
+
+    /**
+     * Optional trim of {@link #carModel}, chosen by the seller.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "trim_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private CarTrim carTrim;
+
     @Column(name = "model_year", nullable = false)
     @Min(value = 1920, message = "Year must be 1920 or later")
     @CurrentYearOrEarlier(message = "Year must not be later than the current year")
@@ -61,6 +111,14 @@ public class CarListing {
     @Column(name = "stock_number", length = 50)
     private String stockNumber;
 
+    /**
+     * Hash of the inventory feed row this listing was last synced from; null if the listing
+     * is not managed by a dealer feed. See {@code InventoryFeedSync}.
+     */
+    @Size(max = 64)
+    @Column(name = "feed_hash", length = 64)
+    private String feedHash;
+
     @Size(max = 50)
     @Column(name = "exterior_color", length = 50)
     private String exteriorColor;
@@ -96,9 +154,14 @@ public class CarListing {
     @Column(name = "archived", nullable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
     private Boolean archived = false;
 
+    /** False while the owner has paused the listing or the owner's account is deactivated. */
     @Column(name = "is_user_active", nullable = false, columnDefinition = "BOOLEAN DEFAULT TRUE")
     private Boolean isUserActive = true;
 
+    /** Whether the owner paused the listing; it stays hidden when the owner's account is reactivated. */
+    @Column(name = "paused_by_owner", nullable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
+    private Boolean pausedByOwner = false;
+
     @Column(name = "expiration_date")
     private LocalDateTime expirationDate;
 
@@ -112,6 +175,14 @@ public class CarListing {
     @Column(name = "updated_at", columnDefinition = "TIMESTAMP")
     private LocalDateTime updatedAt;
 
+    /**
+     * Optimistic lock. Incremented by every entity update and by the conditional UPDATE
+     * statements that change listing flags, so a stale copy can no longer overwrite them.
+     */
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     @OneToMany(mappedBy = "carListing", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ListingMedia> media = new ArrayList<>();
     
@@ -0,0 +1,46 @@
+package com.autotrader.autotraderbackend.model;
+
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link ListingFilterRequest} as JSON, omitting unset criteria. Unknown
+ * properties are ignored when reading, so criteria can be removed from the request
+ * without breaking stored filters.
+ */
+@Converter
+public class ListingFilterJsonConverter implements AttributeConverter<ListingFilterRequest, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Override
+    public String convertToDatabaseColumn(ListingFilterRequest filter) {
+        if (filter == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(filter);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Listing filter cannot be stored as JSON", e);
+        }
+    }
+
+    @Override
+    public ListingFilterRequest convertToEntityAttribute(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(json, ListingFilterRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored listing filter is not valid JSON: " + json, e);
+        }
+    }
+}
@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class ListingMedia {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "listing_media_seq")
+    @SequenceGenerator(name = "listing_media_seq", sequenceName = "listing_media_seq", allocationSize = CarListing.ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "listing_id", nullable = false, insertable = false, updatable = false)
@@ -0,0 +1,68 @@
+package com.autotrader.autotraderbackend.model;
+
+import java.util.Locale;
+
+/**
+ * The status a seller sees for one of their listings, derived from its flags. Every listing
+ * has exactly one: archived wins over sold, sold over pending approval, and pending over
+ * paused.
+ */
+public enum ListingStatus {
+    /**
+     * Approved, not sold, not archived and shown.
+     */
+    ACTIVE,
+    /**
+     * Approved, not sold and not archived, but hidden by its owner (or a deactivated account).
+     */
+    PAUSED,
+    /**
+     * Sold and not archived.
+     */
+    SOLD,
+    /**
+     * Archived, whether sold or not.
+     */
+    ARCHIVED,
+    /**
+     * Not approved yet, neither sold nor archived.
+     */
+    PENDING;
+
+    /**
+     * Classifies a listing by its flags; a missing flag counts as false, except
+     * {@code isUserActive}, which defaults to true.
+     *
+     * @return The status of a listing with these flags.
+     */
+    public static ListingStatus of(Boolean approved, Boolean sold, Boolean archived, Boolean userActive) {
+        if (Boolean.TRUE.equals(archived)) {
+            return ARCHIVED;
+        }
+        if (Boolean.TRUE.equals(sold)) {
+            return SOLD;
+        }
+        if (!Boolean.TRUE.equals(approved)) {
+            return PENDING;
+        }
+        return Boolean.FALSE.equals(userActive) ? PAUSED : ACTIVE;
+    }
+
+    /**
+     * Parses a request parameter value, case-insensitively. Null or blank means no status filter.
+     *
+     * @param value The raw request parameter.
+     * @return The matching status, or null.
+     * @throws IllegalArgumentException if the value is not a known status.
+     */
+    public static ListingStatus fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown listing status '" + value + "'. Use active, paused, sold, archived or pending.");
+        }
+    }
+}
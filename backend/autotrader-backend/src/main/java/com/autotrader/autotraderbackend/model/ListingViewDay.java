@@ -0,0 +1,56 @@
+package com.autotrader.autotraderbackend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * The number of views of a listing's detail page on one day, added to by
+ * {@code ListingViewCounter} from counts buffered in memory.
+ * <p>
+ * The listing is referenced by id only, so deleting a listing does not have to touch its
+ * stats. The primary key (listing, day) also serves the reads, which are always for given
+ * listings from a given day on.
+ */
+@Entity
+@Table(name = "listing_view_days")
+@IdClass(ListingViewDay.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class ListingViewDay {
+
+    @Id
+    @Column(name = "listing_id")
+    private Long listingId;
+
+    @Id
+    @Column(name = "view_date")
+    private LocalDate viewDate;
+
+    @Column(name = "views", nullable = false)
+    private long views;
+
+    public ListingViewDay(Long listingId, LocalDate viewDate, long views) {
+        this.listingId = listingId;
+        this.viewDate = viewDate;
+        this.views = views;
+    }
+
+    /** Primary key of {@link ListingViewDay}. */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long listingId;
+        private LocalDate viewDate;
+    }
+}
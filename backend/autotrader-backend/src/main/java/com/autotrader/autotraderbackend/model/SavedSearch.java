@@ -0,0 +1,51 @@
+package com.autotrader.autotraderbackend.model;
+
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A listing filter saved by a user, who is notified of newly approved listings matching it.
+ * <p>
+ * The filter is stored with location and catalog slugs already resolved to ids, so it can
+ * be matched without further lookups.
+ */
+@Entity
+@Table(name = "saved_searches", indexes = {
+    @Index(name = "idx_saved_searches_user", columnList = "user_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class SavedSearch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, insertable = false, updatable = false)
+    private Long userId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Convert(converter = ListingFilterJsonConverter.class)
+    @Column(name = "criteria", nullable = false, length = 10000)
+    private ListingFilterRequest criteria;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
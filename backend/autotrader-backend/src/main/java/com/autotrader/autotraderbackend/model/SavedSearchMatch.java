@@ -0,0 +1,68 @@
+package com.autotrader.autotraderbackend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A newly approved listing matching a saved search, queued until its owner is notified.
+ * <p>
+ * The listing is referenced by id only, so deleting a listing does not have to touch the
+ * queue; deliveries skip listings that no longer exist.
+ * <p>
+ * A match whose delivery fails is retried after a delay, and given up (kept with
+ * {@code failedAt} set, for inspection) once its attempts run out.
+ */
+@Entity
+@Table(name = "saved_search_matches", indexes = {
+    @Index(name = "idx_saved_search_matches_pending", columnList = "delivered_at, id"),
+    @Index(name = "idx_saved_search_matches_search", columnList = "saved_search_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class SavedSearchMatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "saved_search_id", nullable = false)
+    private SavedSearch savedSearch;
+
+    @Column(name = "listing_id", nullable = false)
+    private Long listingId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /** When the owner was notified; null while the match is queued. */
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+
+    /** Failed delivery attempts so far. */
+    @Column(name = "attempts", nullable = false, columnDefinition = "INTEGER DEFAULT 0")
+    private Integer attempts = 0;
+
+    /** Not delivered before this time, after a failed attempt; null if none failed. */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    /** When delivery was given up after the last allowed attempt; null while it is retried. */
+    @Column(name = "failed_at")
+    private LocalDateTime failedAt;
+
+    public SavedSearchMatch(SavedSearch savedSearch, Long listingId) {
+        this.savedSearch = savedSearch;
+        this.listingId = listingId;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
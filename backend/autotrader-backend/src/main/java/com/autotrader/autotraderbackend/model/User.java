@@ -19,7 +19,8 @@ import java.util.Set;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = CarListing.ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank
@@ -45,6 +46,13 @@ public class User {
     )
     private Set<Role> roles = new HashSet<>();
 
+    /**
+     * Whether the account may sign in and its listings are shown. Mirrored onto the
+     * {@code is_user_active} flag of the user's listings by {@code UserActivationService}.
+     */
+    @Column(name = "is_active", nullable = false, columnDefinition = "BOOLEAN DEFAULT TRUE")
+    private Boolean active = true;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
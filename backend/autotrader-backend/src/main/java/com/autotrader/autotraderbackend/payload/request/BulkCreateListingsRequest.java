@@ -0,0 +1,23 @@
+package com.autotrader.autotraderbackend.payload.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request DTO for creating several listings in one call
+ */
+@Data
+public class BulkCreateListingsRequest {
+
+    /** Maximum number of listings per bulk request. */
+    public static final int MAX_LISTINGS = 500;
+
+    @Valid
+    @NotEmpty(message = "At least one listing is required")
+    @Size(max = MAX_LISTINGS, message = "At most " + MAX_LISTINGS + " listings can be created at once")
+    private List<CreateListingRequest> listings;
+}
@@ -0,0 +1,34 @@
+package com.autotrader.autotraderbackend.payload.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Request DTO for applying a moderation action to many listings: either the listings with the
+ * given ids, or every listing matching the filter that the action would change.
+ */
+@Data
+public class BulkModerationRequest {
+
+    @NotBlank(message = "Action is required")
+    private String action;
+
+    /** The listings to moderate; mutually exclusive with the filter fields. */
+    private List<Long> ids;
+
+    /** Filter: listings of this seller. */
+    private Long sellerId;
+
+    /** Filter: listings at this location. */
+    private Long locationId;
+
+    /** Filter: listings created before this time. */
+    private LocalDateTime createdBefore;
+
+    public boolean hasFilter() {
+        return sellerId != null || locationId != null || createdBefore != null;
+    }
+}
@@ -34,6 +34,11 @@ public class CreateListingRequest {
     @NotBlank(message = "Model is required")
     private String model;
 
+    /**
+     * ID of the catalog trim. Optional; must belong to the catalog model matching {@link #model}.
+     */
+    private Long trimId;
+
     /**
      * The model year of the car. Required. Must be a 4-digit integer, not earlier than 1920,
      * and not later than the current year.
@@ -83,6 +88,7 @@ public class CreateListingRequest {
     public String getTitle() { return title; }
     public String getBrand() { return brand; }
     public String getModel() { return model; }
+    public Long getTrimId() { return trimId; }
     public Integer getModelYear() { return modelYear; }
     public Integer getMileage() { return mileage; }
     public BigDecimal getPrice() { return price; }
@@ -95,6 +101,7 @@ public class CreateListingRequest {
     public void setTitle(String title) { this.title = title; }
     public void setBrand(String brand) { this.brand = brand; }
     public void setModel(String model) { this.model = model; }
+    public void setTrimId(Long trimId) { this.trimId = trimId; }
     public void setModelYear(Integer modelYear) { this.modelYear = modelYear; }
     public void setMileage(Integer mileage) { this.mileage = mileage; }
     public void setPrice(BigDecimal price) { this.price = price; }
@@ -1,13 +1,21 @@
 package com.autotrader.autotraderbackend.payload.request;
 
 import com.autotrader.autotraderbackend.validation.CurrentYearOrEarlier;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
 
 /**
  * Request object for filtering car listings.
@@ -35,6 +43,38 @@ public class ListingFilterRequest {
      */
     private String model;
 
+    /**
+     * Filter by catalog brand ids (multi-select). Optional. Combined with {@link #brandSlugs};
+     * a listing matches if it is linked to any of them. Unlike {@link #brand}, this is an
+     * indexed equality match.
+     */
+    @Size(max = 50, message = "At most 50 brand ids can be selected")
+    private List<Long> brandIds;
+
+    /**
+     * Filter by catalog brand slugs (multi-select), e.g. "toyota". Optional. Unknown slugs are ignored.
+     */
+    @Size(max = 50, message = "At most 50 brand slugs can be selected")
+    private List<String> brandSlugs;
+
+    /**
+     * Filter by catalog model ids (multi-select). Optional. Combined with {@link #modelSlugs}.
+     */
+    @Size(max = 50, message = "At most 50 model ids can be selected")
+    private List<Long> modelIds;
+
+    /**
+     * Filter by catalog model slugs (multi-select), e.g. "toyota-camry". Optional. Unknown slugs are ignored.
+     */
+    @Size(max = 50, message = "At most 50 model slugs can be selected")
+    private List<String> modelSlugs;
+
+    /**
+     * Filter by catalog trim ids (multi-select). Optional.
+     */
+    @Size(max = 50, message = "At most 50 trim ids can be selected")
+    private List<Long> trimIds;
+
     /**
      * Minimum model year for filtering. Optional. Must be a 4-digit integer and not earlier than 1920.
      */
@@ -62,6 +102,57 @@ public class ListingFilterRequest {
      */
     private Long locationId;
 
+    /**
+     * Latitude of the centre of a radius search. Optional; requires {@link #nearLon} and
+     * {@link #radiusKm}. Matches listings whose location lies within the radius.
+     */
+    @DecimalMin(value = "-90", message = "Latitude must be at least -90")
+    @DecimalMax(value = "90", message = "Latitude must be at most 90")
+    private Double nearLat;
+
+    /**
+     * Longitude of the centre of a radius search. Optional; requires {@link #nearLat} and {@link #radiusKm}.
+     */
+    @DecimalMin(value = "-180", message = "Longitude must be at least -180")
+    @DecimalMax(value = "180", message = "Longitude must be at most 180")
+    private Double nearLon;
+
+    /**
+     * Radius of a radius search in kilometres. Optional; requires {@link #nearLat} and {@link #nearLon}.
+     */
+    @DecimalMin(value = "0", inclusive = false, message = "Radius must be positive")
+    @DecimalMax(value = "1000", message = "Radius must be at most 1000 km")
+    private Double radiusKm;
+
+    /**
+     * Southern edge of a bounding-box search (e.g. the visible map area). Optional; the four
+     * box edges must be given together. Matches listings whose location lies inside the box.
+     */
+    @DecimalMin(value = "-90", message = "Latitude must be at least -90")
+    @DecimalMax(value = "90", message = "Latitude must be at most 90")
+    private Double minLat;
+
+    /**
+     * Northern edge of a bounding-box search. Optional.
+     */
+    @DecimalMin(value = "-90", message = "Latitude must be at least -90")
+    @DecimalMax(value = "90", message = "Latitude must be at most 90")
+    private Double maxLat;
+
+    /**
+     * Western edge of a bounding-box search. Optional.
+     */
+    @DecimalMin(value = "-180", message = "Longitude must be at least -180")
+    @DecimalMax(value = "180", message = "Longitude must be at most 180")
+    private Double minLon;
+
+    /**
+     * Eastern edge of a bounding-box search. Optional.
+     */
+    @DecimalMin(value = "-180", message = "Longitude must be at least -180")
+    @DecimalMax(value = "180", message = "Longitude must be at most 180")
+    private Double maxLon;
+
     /**
      * Minimum price for filtering. Optional. Must be positive or zero.
      */
@@ -94,7 +185,105 @@ public class ListingFilterRequest {
 
     /**
      * Filter by archived status. Optional.
-     * If true, only archived listings are returned; if false, only active listings.
+     * If true, only archived listings are returned, whatever their expiration date; otherwise
+     * only active listings that have not expired.
      */
     private Boolean isArchived;
+
+    /**
+     * Free-text search over title, brand, model, year, transmission, color and description,
+     * in Arabic and/or English. Optional. Every word must match; combine with
+     * {@code sort=relevance} to rank the results by relevance.
+     */
+    @Size(max = 200, message = "Keyword must be at most 200 characters")
+    private String keyword;
+
+    /**
+     * Builds a stable key identifying this filter, used to cache per-filter results such as counts.
+     * Only non-null criteria are included; text criteria are trimmed and lower-cased so that
+     * requests differing only in case map to the same key.
+     *
+     * @return The canonical key, e.g. {@code "brand=toyota;minPrice=10000"}.
+     */
+    public String canonicalKey() {
+        StringJoiner key = new StringJoiner(";");
+        appendKeyPart(key, "brand", normalize(brand));
+        appendKeyPart(key, "model", normalize(model));
+        appendKeyPart(key, "brandIds", normalizeList(brandIds));
+        appendKeyPart(key, "brandSlugs", normalizeList(brandSlugs));
+        appendKeyPart(key, "modelIds", normalizeList(modelIds));
+        appendKeyPart(key, "modelSlugs", normalizeList(modelSlugs));
+        appendKeyPart(key, "trimIds", normalizeList(trimIds));
+        appendKeyPart(key, "minYear", minYear);
+        appendKeyPart(key, "maxYear", maxYear);
+        appendKeyPart(key, "location", normalize(location));
+        appendKeyPart(key, "locationId", locationId);
+        appendKeyPart(key, "nearLat", nearLat);
+        appendKeyPart(key, "nearLon", nearLon);
+        appendKeyPart(key, "radiusKm", radiusKm);
+        appendKeyPart(key, "minLat", minLat);
+        appendKeyPart(key, "maxLat", maxLat);
+        appendKeyPart(key, "minLon", minLon);
+        appendKeyPart(key, "maxLon", maxLon);
+        appendKeyPart(key, "minPrice", minPrice != null ? minPrice.stripTrailingZeros().toPlainString() : null);
+        appendKeyPart(key, "maxPrice", maxPrice != null ? maxPrice.stripTrailingZeros().toPlainString() : null);
+        appendKeyPart(key, "minMileage", minMileage);
+        appendKeyPart(key, "maxMileage", maxMileage);
+        appendKeyPart(key, "isSold", isSold);
+        appendKeyPart(key, "isArchived", isArchived);
+        appendKeyPart(key, "keyword", normalize(keyword));
+        return key.toString();
+    }
+
+    /**
+     * @return true if a radius or bounding-box criterion is given (possibly incomplete).
+     */
+    public boolean hasGeoFilter() {
+        return nearLat != null || nearLon != null || radiusKm != null
+                || minLat != null || maxLat != null || minLon != null || maxLon != null;
+    }
+
+    /**
+     * @return true if a criterion other than the location, the geo area and the default
+     *         sold / archived state is given, i.e. if the filter selects listings by their own
+     *         attributes rather than only by where they are.
+     */
+    public boolean hasListingCriteria() {
+        return normalize(brand) != null || normalize(model) != null
+                || normalizeList(brandIds) != null || normalizeList(brandSlugs) != null
+                || normalizeList(modelIds) != null || normalizeList(modelSlugs) != null || normalizeList(trimIds) != null
+                || minYear != null || maxYear != null || minPrice != null || maxPrice != null
+                || minMileage != null || maxMileage != null
+                || Boolean.TRUE.equals(isSold) || Boolean.TRUE.equals(isArchived)
+                || normalize(keyword) != null;
+    }
+
+    private static void appendKeyPart(StringJoiner key, String name, Object value) {
+        if (value != null) {
+            key.add(name + "=" + value);
+        }
+    }
+
+    /**
+     * @return The distinct non-null values, normalized and sorted, comma-separated; null if there are none.
+     */
+    private static String normalizeList(List<?> values) {
+        if (values == null) {
+            return null;
+        }
+        String joined = values.stream()
+                .map(value -> value instanceof String text ? normalize(text) : Objects.toString(value, null))
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
+        return joined.isEmpty() ? null : joined;
+    }
+
+    private static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
 }
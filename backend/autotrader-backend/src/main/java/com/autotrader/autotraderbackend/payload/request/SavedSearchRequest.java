@@ -0,0 +1,22 @@
+package com.autotrader.autotraderbackend.payload.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * Request DTO for saving a listing search
+ */
+@Data
+public class SavedSearchRequest {
+
+    @NotBlank(message = "Name is required")
+    @Size(max = 100, message = "Name must be at most 100 characters")
+    private String name;
+
+    @Valid
+    @NotNull(message = "Filter is required")
+    private ListingFilterRequest filter;
+}
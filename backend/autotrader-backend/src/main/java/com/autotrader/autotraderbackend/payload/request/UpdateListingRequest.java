@@ -18,6 +18,11 @@ public class UpdateListingRequest {
     private String brand;
     
     private String model;
+
+    /**
+     * ID of the catalog trim; must belong to the catalog model matching the listing's model
+     */
+    private Long trimId;
     
     @Min(value = 1920, message = "Year must be 1920 or later")
     @CurrentYearOrEarlier(message = "Year must not be later than the current year")
@@ -42,10 +47,17 @@ public class UpdateListingRequest {
     private Boolean isSold;
     private Boolean isArchived;
 
+    /**
+     * Version of the listing the update is based on, as returned in CarListingResponse; if set,
+     * the update is rejected when the listing has changed since
+     */
+    private Long version;
+
     // Explicit getters and setters
     public String getTitle() { return title; }
     public String getBrand() { return brand; }
     public String getModel() { return model; }
+    public Long getTrimId() { return trimId; }
     public Integer getModelYear() { return modelYear; }
     public Integer getMileage() { return mileage; }
     public BigDecimal getPrice() { return price; }
@@ -56,10 +68,12 @@ public class UpdateListingRequest {
     public String getTransmission() { return transmission; }
     public Boolean getIsSold() { return isSold; }
     public Boolean getIsArchived() { return isArchived; }
+    public Long getVersion() { return version; }
 
     public void setTitle(String title) { this.title = title; }
     public void setBrand(String brand) { this.brand = brand; }
     public void setModel(String model) { this.model = model; }
+    public void setTrimId(Long trimId) { this.trimId = trimId; }
     public void setModelYear(Integer modelYear) { this.modelYear = modelYear; }
     public void setMileage(Integer mileage) { this.mileage = mileage; }
     public void setPrice(BigDecimal price) { this.price = price; }
@@ -70,4 +84,5 @@ public class UpdateListingRequest {
     public void setTransmission(String transmission) { this.transmission = transmission; }
     public void setIsSold(Boolean isSold) { this.isSold = isSold; }
     public void setIsArchived(Boolean isArchived) { this.isArchived = isArchived; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,20 @@
+package com.autotrader.autotraderbackend.payload.response;
+
+import java.util.List;
+
+/**
+ * Per-listing outcome of a bulk moderation action, as ids grouped by outcome.
+ *
+ * @param action    The action applied.
+ * @param updated   Listings the action changed.
+ * @param unchanged Listings already in the target state; nothing was written for them.
+ * @param conflict  Listings the action does not apply to, e.g. archived listings to mark as sold.
+ * @param notFound  Ids without a listing.
+ */
+public record BulkModerationResponse(
+        String action,
+        List<Long> updated,
+        List<Long> unchanged,
+        List<Long> conflict,
+        List<Long> notFound) {
+}
@@ -20,6 +20,12 @@ public class CarListingResponse {
     private String title;
     private String brand;
     private String model;
+    /**
+     * Catalog brand, model and trim ids; null if the listing is not linked to the catalog
+     */
+    private Long brandId;
+    private Long modelId;
+    private Long trimId;
     private Integer modelYear;
     private Integer mileage;
     private BigDecimal price;
@@ -41,6 +47,10 @@ public class CarListingResponse {
     private Boolean isSold;
     private Boolean isArchived;
     private Boolean isUserActive; // Added field
+    /**
+     * Optimistic lock version; send it back with an update to reject it if the listing changed since
+     */
+    private Long version;
 
     // Explicit Getters
     public Long getId() { return id; }
@@ -62,6 +72,7 @@ public class CarListingResponse {
     public Boolean getIsSold() { return isSold; }
     public Boolean getIsArchived() { return isArchived; }
     public Boolean getIsUserActive() { return isUserActive; } // Added getter
+    public Long getVersion() { return version; }
 
     // Explicit Setters (Add if needed, currently only getters seem required by errors)
     public void setId(Long id) { this.id = id; }
@@ -83,4 +94,5 @@ public class CarListingResponse {
     public void setIsSold(Boolean isSold) { this.isSold = isSold; }
     public void setIsArchived(Boolean isArchived) { this.isArchived = isArchived; }
     public void setIsUserActive(Boolean isUserActive) { this.isUserActive = isUserActive; } // Added setter
+    public void setVersion(Long version) { this.version = version; }
 }
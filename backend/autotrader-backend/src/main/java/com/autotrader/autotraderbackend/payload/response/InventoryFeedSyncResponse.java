@@ -0,0 +1,24 @@
+package com.autotrader.autotraderbackend.payload.response;
+
+import java.util.List;
+
+/**
+ * Outcome of syncing a dealer inventory feed against the dealer's listings.
+ *
+ * @param inserted      Rows that created a listing.
+ * @param updated       Rows that changed a listing, or brought back an archived one.
+ * @param unchanged     Rows identical to their listing; nothing was written for them.
+ * @param archived      Feed-managed listings missing from the feed, now archived.
+ * @param rejected      Rows skipped because they were invalid or duplicated.
+ * @param imagesFetched Images downloaded for the new listings.
+ * @param errors        Why rows were rejected, by row number (first ones only).
+ */
+public record InventoryFeedSyncResponse(
+        int inserted,
+        int updated,
+        int unchanged,
+        int archived,
+        int rejected,
+        int imagesFetched,
+        List<String> errors) {
+}
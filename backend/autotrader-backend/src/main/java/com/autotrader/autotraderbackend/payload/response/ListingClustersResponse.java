@@ -0,0 +1,30 @@
+package com.autotrader.autotraderbackend.payload.response;
+
+import java.util.List;
+
+/**
+ * Listings matching the current filter grouped into map clusters by geohash cell.
+ * Listings whose location has no coordinates are not clustered.
+ *
+ * @param precision Geohash precision (length of the cell hashes) used for the zoom level.
+ * @param total     Number of clustered listings.
+ * @param clusters  Non-empty cells, largest first.
+ */
+public record ListingClustersResponse(
+        int precision,
+        long total,
+        List<Cluster> clusters) {
+
+    /**
+     * @param geohash       The cell.
+     * @param latitude      Centroid of the listings in the cell, i.e. the mean of their location
+     *                      coordinates weighted by listing count.
+     * @param longitude     See {@code latitude}.
+     * @param count         Number of listings in the cell.
+     * @param locationCount Number of locations the listings are in.
+     * @param locationId    The location, if all listings of the cell are in the same one; a client
+     *                      can pass it as the {@code locationId} filter to list them.
+     */
+    public record Cluster(String geohash, double latitude, double longitude, long count, int locationCount, Long locationId) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.autotrader.autotraderbackend.payload.response;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Facet counts for the filter sidebar: how many listings matching the current filter fall
+ * into each brand, model, location, model-year range and price range. Values without
+ * matches are omitted.
+ * <p>
+ * The range bounds are inclusive and use the same semantics as the filter's
+ * {@code minYear}/{@code maxYear} and {@code minPrice}/{@code maxPrice} parameters, so a
+ * client can apply a bucket by copying them into the filter.
+ *
+ * @param version   Opaque stamp of the listing data the counts were computed from, read from
+ *                  the database; it changes whenever a listing is inserted, updated, deleted
+ *                  or expires. Also sent as the {@code ETag}.
+ * @param total     Number of listings matching the filter.
+ * @param brands    Counts per brand, most frequent first.
+ * @param models    Counts per model, most frequent first.
+ * @param locations Counts per location, most frequent first.
+ * @param years     Counts per model-year range, oldest first.
+ * @param prices    Counts per price range, cheapest first.
+ */
+public record ListingFacetsResponse(
+        String version,
+        long total,
+        List<ValueCount> brands,
+        List<ValueCount> models,
+        List<LocationCount> locations,
+        List<YearRangeCount> years,
+        List<PriceRangeCount> prices) {
+
+    public record ValueCount(String value, long count) {
+    }
+
+    public record LocationCount(Long id, String slug, String displayNameEn, String displayNameAr, long count) {
+    }
+
+    /**
+     * @param maxYear Inclusive upper bound.
+     */
+    public record YearRangeCount(Integer minYear, Integer maxYear, long count) {
+    }
+
+    /**
+     * @param maxPrice Inclusive upper bound, or null for the open-ended top range.
+     */
+    public record PriceRangeCount(BigDecimal minPrice, BigDecimal maxPrice, long count) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.autotrader.autotraderbackend.payload.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only summary of a car listing for search result cards.
+ * <p>
+ * Built directly from a constructor projection, so listings are never hydrated as
+ * managed entities on this path (no description column, no dirty checking, no
+ * persistence-context entries). The primary image URL is resolved afterwards with
+ * {@link #withPrimaryImageUrl(String)}.
+ */
+public record ListingSummaryResponse(
+        Long id,
+        String title,
+        String brand,
+        String model,
+        Integer modelYear,
+        BigDecimal price,
+        Integer mileage,
+        LocalDateTime createdAt,
+        Long locationId,
+        String locationSlug,
+        String locationNameEn,
+        String locationNameAr,
+        Long sellerId,
+        String sellerUsername,
+        String primaryImageUrl) {
+
+    /**
+     * Projection constructor used by the summary query; the image URL is added later.
+     */
+    public ListingSummaryResponse(Long id, String title, String brand, String model, Integer modelYear,
+                                  BigDecimal price, Integer mileage, LocalDateTime createdAt,
+                                  Long locationId, String locationSlug, String locationNameEn, String locationNameAr,
+                                  Long sellerId, String sellerUsername) {
+        this(id, title, brand, model, modelYear, price, mileage, createdAt,
+                locationId, locationSlug, locationNameEn, locationNameAr, sellerId, sellerUsername, null);
+    }
+
+    public ListingSummaryResponse withPrimaryImageUrl(String url) {
+        return new ListingSummaryResponse(id, title, brand, model, modelYear, price, mileage, createdAt,
+                locationId, locationSlug, locationNameEn, locationNameAr, sellerId, sellerUsername, url);
+    }
+}
@@ -0,0 +1,12 @@
+package com.autotrader.autotraderbackend.payload.response;
+
+import java.time.LocalDate;
+
+/**
+ * The views of a listing's detail page on one day.
+ *
+ * @param date  The day.
+ * @param views The number of views, 0 on days without any.
+ */
+public record ListingViewDayResponse(LocalDate date, long views) {
+}
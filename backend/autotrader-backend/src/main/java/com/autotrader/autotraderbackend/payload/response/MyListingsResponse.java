@@ -0,0 +1,18 @@
+package com.autotrader.autotraderbackend.payload.response;
+
+import com.autotrader.autotraderbackend.model.ListingStatus;
+
+import java.util.Map;
+
+/**
+ * One page of a seller's own listings, with the number of their listings in each status and
+ * the recent views of the listings on the page.
+ *
+ * @param listings The page, fetched with keyset paging (totals are -1).
+ * @param counts   The number of the seller's listings per status, regardless of the status filter.
+ * @param views    The detail page views of each listing on the page over the last
+ *                 {@code app.listings.views.dashboard-days} days, by listing id.
+ */
+public record MyListingsResponse(PageResponse<CarListingResponse> listings, Map<ListingStatus, Long> counts,
+                                 Map<Long, Long> views) {
+}
@@ -0,0 +1,10 @@
+package com.autotrader.autotraderbackend.payload.response;
+
+/**
+ * A location near a requested point, with its distance from that point.
+ *
+ * @param location   The location.
+ * @param distanceKm The great-circle distance in kilometres.
+ */
+public record NearbyLocationResponse(LocationResponse location, double distanceKm) {
+}
@@ -11,11 +11,34 @@ import lombok.AllArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class PageResponse<T> {
-    
+
     private List<T> content;
     private int page;
     private int size;
+    /**
+     * Total number of matching elements, or -1 when it was not computed (cursor paging or count=none).
+     */
     private long totalElements;
+    /**
+     * Total number of pages, or -1 when it was not computed (cursor paging or count=none).
+     */
     private int totalPages;
     private boolean last;
+    /**
+     * Opaque cursor to pass as {@code after} to fetch the next page, or null if there is none
+     * or the response was produced with offset paging.
+     */
+    private String nextCursor;
+    /**
+     * True when the totals are an estimate (count=approximate) rather than an exact count.
+     */
+    private boolean approximateTotal;
+
+    public PageResponse(List<T> content, int page, int size, long totalElements, int totalPages, boolean last) {
+        this(content, page, size, totalElements, totalPages, last, null);
+    }
+
+    public PageResponse(List<T> content, int page, int size, long totalElements, int totalPages, boolean last, String nextCursor) {
+        this(content, page, size, totalElements, totalPages, last, nextCursor, false);
+    }
 }
@@ -0,0 +1,16 @@
+package com.autotrader.autotraderbackend.payload.response;
+
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+
+import java.time.LocalDateTime;
+
+/**
+ * A saved search of the current user.
+ *
+ * @param id        The saved search id.
+ * @param name      The name given by the user.
+ * @param filter    The saved filter, with location and catalog slugs resolved to ids.
+ * @param createdAt When the search was saved.
+ */
+public record SavedSearchResponse(Long id, String name, ListingFilterRequest filter, LocalDateTime createdAt) {
+}
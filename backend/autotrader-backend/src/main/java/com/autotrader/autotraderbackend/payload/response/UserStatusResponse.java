@@ -0,0 +1,12 @@
+package com.autotrader.autotraderbackend.payload.response;
+
+/**
+ * Account status of a user after an admin activated or deactivated it.
+ *
+ * @param id              The user.
+ * @param username        The user's name.
+ * @param active          Whether the account is active.
+ * @param listingsUpdated Listings of the user shown or hidden by the change.
+ */
+public record UserStatusResponse(Long id, String username, boolean active, int listingsUpdated) {
+}
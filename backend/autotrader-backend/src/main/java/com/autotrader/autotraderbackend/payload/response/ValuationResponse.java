@@ -0,0 +1,32 @@
+package com.autotrader.autotraderbackend.payload.response;
+
+import java.math.BigDecimal;
+
+/**
+ * Asking price statistics of comparable listings: same brand and model, a model year and
+ * mileage band around the requested ones, widened until enough listings are found.
+ *
+ * @param brand       The brand, as requested.
+ * @param model       The model, as requested.
+ * @param yearFrom    First model year included.
+ * @param yearTo      Last model year included.
+ * @param mileageFrom Lowest mileage included, in km; null if no mileage was given.
+ * @param mileageTo   Mileage from which listings are no longer included, in km; null if no
+ *                    mileage was given.
+ * @param count       Number of listings the statistics are based on.
+ * @param p25         First quartile of the asking prices, null if there are none.
+ * @param median      Median asking price, null if there are none.
+ * @param p75         Third quartile of the asking prices, null if there are none.
+ */
+public record ValuationResponse(
+        String brand,
+        String model,
+        int yearFrom,
+        int yearTo,
+        Integer mileageFrom,
+        Integer mileageTo,
+        long count,
+        BigDecimal p25,
+        BigDecimal median,
+        BigDecimal p75) {
+}
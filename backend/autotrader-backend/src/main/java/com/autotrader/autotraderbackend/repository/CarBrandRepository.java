@@ -3,8 +3,10 @@ package com.autotrader.autotraderbackend.repository;
 import com.autotrader.autotraderbackend.model.CarBrand;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +14,17 @@ import java.util.Optional;
 public interface CarBrandRepository extends JpaRepository<CarBrand, Long> {
     
     Optional<CarBrand> findBySlug(String slug);
+
+    List<CarBrand> findBySlugIn(Collection<String> slugs);
+
+    /**
+     * Finds the brands a listing's free-text brand refers to: those whose name, display name
+     * or slug equals the lower-cased, trimmed text. Oldest first, so the first is preferred.
+     */
+    @Query("SELECT b FROM CarBrand b WHERE " +
+           "LOWER(b.name) = :text OR LOWER(b.displayNameEn) = :text OR " +
+           "LOWER(b.displayNameAr) = :text OR b.slug = :text ORDER BY b.id")
+    List<CarBrand> findByListingText(@Param("text") String text);
     
     List<CarBrand> findByIsActiveTrue();
     
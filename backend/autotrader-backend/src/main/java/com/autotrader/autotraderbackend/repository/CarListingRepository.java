@@ -2,18 +2,35 @@ package com.autotrader.autotraderbackend.repository;
 
 import com.autotrader.autotraderbackend.model.CarListing;
 import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.repository.projection.ListingDataStamp;
+import com.autotrader.autotraderbackend.repository.projection.ListingFeedState;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingLocationRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingModerationState;
+import com.autotrader.autotraderbackend.repository.projection.ListingPriceRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingStatusCount;
+import com.autotrader.autotraderbackend.repository.projection.ListingTextRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingTrendRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CarListingRepository extends JpaRepository<CarListing, Long>, JpaSpecificationExecutor<CarListing> {
+public interface CarListingRepository extends JpaRepository<CarListing, Long>, JpaSpecificationExecutor<CarListing>,
+        CarListingRepositoryCustom {
     
     // Find all approved listings with pagination
     Page<CarListing> findByApprovedTrue(Pageable pageable);
@@ -35,4 +52,282 @@ public interface CarListingRepository extends JpaRepository<CarListing, Long>, J
     
     // Find listings pending approval
     Page<CarListing> findByApprovedFalse(Pageable pageable);
+
+    /**
+     * Loads listings by id together with seller, location and media in a single query.
+     * Meant as the second phase of a paged read: page the ids first (no collection join,
+     * so LIMIT/OFFSET stay in SQL), then fetch the details for just those ids.
+     * The result order is unspecified.
+     */
+    @EntityGraph(CarListing.DETAILS_GRAPH)
+    List<CarListing> findWithDetailsByIdIn(Collection<Long> ids);
+
+    /**
+     * Reads the indexed columns of every listing without hydrating entities.
+     * Used to (re)build the in-memory search index.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingIndexRow(" +
+           "l.id, l.brand, l.model, b.id, m.id, t.id, l.modelYear, l.mileage, l.price, loc.id, l.createdAt, " +
+           "l.approved, l.sold, l.archived, l.isUserActive, l.expirationDate) " +
+           "FROM CarListing l LEFT JOIN l.location loc LEFT JOIN l.carBrand b LEFT JOIN l.carModel m LEFT JOIN l.carTrim t")
+    List<ListingIndexRow> findAllIndexRows();
+
+    /**
+     * Reads the indexed columns of the given listings without hydrating entities.
+     * Used to report listings changed by a bulk update to the search index.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingIndexRow(" +
+           "l.id, l.brand, l.model, b.id, m.id, t.id, l.modelYear, l.mileage, l.price, loc.id, l.createdAt, " +
+           "l.approved, l.sold, l.archived, l.isUserActive, l.expirationDate) " +
+           "FROM CarListing l LEFT JOIN l.location loc LEFT JOIN l.carBrand b LEFT JOIN l.carModel m LEFT JOIN l.carTrim t " +
+           "WHERE l.id IN :ids")
+    List<ListingIndexRow> findIndexRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Reads the indexed columns of the listings created or updated at or after a time.
+     * Used to reconcile the in-memory structures with changes made by other instances.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingIndexRow(" +
+           "l.id, l.brand, l.model, b.id, m.id, t.id, l.modelYear, l.mileage, l.price, loc.id, l.createdAt, " +
+           "l.approved, l.sold, l.archived, l.isUserActive, l.expirationDate) " +
+           "FROM CarListing l LEFT JOIN l.location loc LEFT JOIN l.carBrand b LEFT JOIN l.carModel m LEFT JOIN l.carTrim t " +
+           "WHERE l.createdAt >= :since OR l.updatedAt >= :since")
+    List<ListingIndexRow> findIndexRowsChangedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * @return The ids of all listings. Used to find listings deleted by other instances.
+     */
+    @Query("SELECT l.id FROM CarListing l")
+    List<Long> findAllIds();
+
+    /**
+     * Returns the location of every publicly visible listing (approved, not sold, not archived,
+     * seller active) that has one, with its expiration date, which the caller checks.
+     * Used to (re)build the per-location listing counts.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingLocationRow(l.id, loc.id, l.expirationDate) " +
+           "FROM CarListing l JOIN l.location loc " +
+           "WHERE l.approved = true AND l.sold = false AND l.archived = false AND l.isUserActive = true")
+    List<ListingLocationRow> findPublicLocationRows();
+
+    /**
+     * Aggregates all listings into a stamp that changes with every insert, update or delete,
+     * whichever instance made it, and whenever a listing passes its expiration date. Used as
+     * the validator of cached results derived from the listings.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingDataStamp(" +
+           "COUNT(l), MAX(l.id), COALESCE(SUM(l.version), 0L), MAX(l.updatedAt), " +
+           "COALESCE(SUM(CASE WHEN l.expirationDate <= :now THEN 1L ELSE 0L END), 0L)) FROM CarListing l")
+    ListingDataStamp findDataStamp(@Param("now") LocalDateTime now);
+
+    /**
+     * Returns the location, catalog brand, creation time and expiration date of every publicly
+     * visible listing (approved, not sold, not archived, seller active); the caller checks the
+     * expiration date. Used to (re)build the trending listings.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingTrendRow(l.id, loc.id, b.id, l.createdAt, l.expirationDate) " +
+           "FROM CarListing l LEFT JOIN l.location loc LEFT JOIN l.carBrand b " +
+           "WHERE l.approved = true AND l.sold = false AND l.archived = false AND l.isUserActive = true")
+    List<ListingTrendRow> findPublicTrendRows();
+
+    /**
+     * Returns the price columns of every approved listing that is for sale or was sold;
+     * archived listings that did not sell are left out. Used to (re)build the market
+     * valuations.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingPriceRow(l.id, l.brand, l.model, l.modelYear, l.mileage, l.price) " +
+           "FROM CarListing l WHERE l.approved = true AND (l.sold = true OR l.archived = false)")
+    List<ListingPriceRow> findValuationRows();
+
+    /**
+     * Returns the searchable text of every listing.
+     * Used to (re)build the keyword index.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingTextRow(" +
+           "l.id, l.title, l.brand, l.model, l.modelYear, l.transmission, l.exteriorColor, l.description) " +
+           "FROM CarListing l")
+    List<ListingTextRow> findAllTextRows();
+
+    /**
+     * Returns the searchable text of the listings created or updated at or after a time.
+     * Used to reconcile the keyword index with changes made by other instances.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingTextRow(" +
+           "l.id, l.title, l.brand, l.model, l.modelYear, l.transmission, l.exteriorColor, l.description) " +
+           "FROM CarListing l WHERE l.createdAt >= :since OR l.updatedAt >= :since")
+    List<ListingTextRow> findTextRowsChangedSince(@Param("since") LocalDateTime since);
+
+    /** Catalog brand matching a listing's brand text, with the same rules as {@code CarBrandRepository.findByListingText}. */
+    String BRAND_MATCHES_LISTING = "FROM car_brands b WHERE LOWER(b.name) = LOWER(TRIM(car_listings.brand)) " +
+            "OR LOWER(b.display_name_en) = LOWER(TRIM(car_listings.brand)) " +
+            "OR LOWER(b.display_name_ar) = LOWER(TRIM(car_listings.brand)) " +
+            "OR b.slug = LOWER(TRIM(car_listings.brand))";
+
+    /** Catalog model of the linked brand matching a listing's model text. */
+    String MODEL_MATCHES_LISTING = "FROM car_models m WHERE m.brand_id = car_listings.brand_id AND (" +
+            "LOWER(m.name) = LOWER(TRIM(car_listings.model)) " +
+            "OR LOWER(m.display_name_en) = LOWER(TRIM(car_listings.model)) " +
+            "OR LOWER(m.display_name_ar) = LOWER(TRIM(car_listings.model)) " +
+            "OR m.slug = LOWER(TRIM(car_listings.model)))";
+
+    /**
+     * Links the unlinked listings of an id range whose brand text matches a catalog brand,
+     * in one set-based statement. Runs in its own transaction so a backfill commits chunk by chunk.
+     *
+     * @return The number of listings linked.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE car_listings SET brand_id = (SELECT MIN(b.id) " + BRAND_MATCHES_LISTING + ") " +
+                   "WHERE brand_id IS NULL AND id BETWEEN :fromId AND :toId " +
+                   "AND EXISTS (SELECT 1 " + BRAND_MATCHES_LISTING + ")",
+           nativeQuery = true)
+    int linkCatalogBrands(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Links the brand-linked listings of an id range without a model whose model text matches
+     * a model of their brand. Runs in its own transaction.
+     *
+     * @return The number of listings linked.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE car_listings SET model_id = (SELECT MIN(m.id) " + MODEL_MATCHES_LISTING + ") " +
+                   "WHERE model_id IS NULL AND brand_id IS NOT NULL AND id BETWEEN :fromId AND :toId " +
+                   "AND EXISTS (SELECT 1 " + MODEL_MATCHES_LISTING + ")",
+           nativeQuery = true)
+    int linkCatalogModels(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Returns the ids of the listings past their expiration date that are not archived yet,
+     * those expired longest first.
+     */
+    @Query("SELECT l.id FROM CarListing l WHERE l.archived = false AND l.expirationDate <= :now " +
+           "ORDER BY l.expirationDate, l.id")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Archives the given listings that are still expired and not archived, in one statement.
+     * Safe to run concurrently with itself: a listing is only archived once.
+     *
+     * @return The number of listings archived.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarListing l SET l.archived = true, l.updatedAt = :now, l.version = l.version + 1 " +
+           "WHERE l.id IN :ids AND l.archived = false AND l.expirationDate <= :now")
+    int archiveExpired(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Returns, in id order after {@code afterId}, the ids of a seller's listings whose
+     * {@code isUserActive} flag differs from the seller's account status: shown listings of a
+     * deactivated seller, or hidden listings not paused by their owner of an active one.
+     */
+    @Query("SELECT l.id FROM CarListing l WHERE l.seller.id = :sellerId AND l.id > :afterId " +
+           "AND l.isUserActive <> :active AND (:active = false OR l.pausedByOwner = false) ORDER BY l.id")
+    List<Long> findIdsToPropagateSellerStatus(@Param("sellerId") Long sellerId, @Param("active") boolean active,
+                                              @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Sets {@code isUserActive} of the given listings of a seller to the seller's account status,
+     * in one statement. Conditional on the account still having that status, so a propagation
+     * overtaken by a later (de)activation changes nothing; listings paused by their owner are
+     * never shown.
+     *
+     * @return The number of listings changed.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarListing l SET l.isUserActive = :active, l.updatedAt = :now, l.version = l.version + 1 " +
+           "WHERE l.id IN :ids AND l.seller.id = :sellerId AND l.isUserActive <> :active " +
+           "AND (:active = false OR l.pausedByOwner = false) " +
+           "AND EXISTS (SELECT u.id FROM User u WHERE u.id = :sellerId AND u.active = :active)")
+    int propagateSellerStatus(@Param("ids") Collection<Long> ids, @Param("sellerId") Long sellerId,
+                              @Param("active") boolean active, @Param("now") LocalDateTime now);
+
+    @Query("SELECT MAX(l.id) FROM CarListing l")
+    Long findMaxId();
+
+    /**
+     * Reads the feed keys and hashes of a seller's listings that have a stock number or VIN,
+     * without hydrating entities. Used to diff a dealer inventory feed.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingFeedState(" +
+           "l.id, l.stockNumber, l.vin, l.feedHash, l.archived) " +
+           "FROM CarListing l WHERE l.seller.id = :sellerId AND (l.stockNumber IS NOT NULL OR l.vin IS NOT NULL)")
+    List<ListingFeedState> findFeedStatesBySellerId(@Param("sellerId") Long sellerId);
+
+    /**
+     * Reads the moderation flags of the given listings without hydrating entities.
+     * Ids without a listing are absent from the result.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingModerationState(" +
+           "l.id, l.approved, l.sold, l.archived, l.updatedAt) FROM CarListing l WHERE l.id IN :ids")
+    List<ListingModerationState> findModerationStatesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Counts a seller's listings per combination of status flags in one grouped query, at
+     * most one row per combination; callers fold them into {@code ListingStatus} buckets.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingStatusCount(" +
+           "l.approved, l.sold, l.archived, l.isUserActive, COUNT(l)) FROM CarListing l " +
+           "WHERE l.seller.id = :sellerId GROUP BY l.approved, l.sold, l.archived, l.isUserActive")
+    List<ListingStatusCount> countStatusesBySellerId(@Param("sellerId") Long sellerId);
+
+    // Bulk moderation: each statement changes only the listings not yet in the target state and
+    // stamps them with updatedAt = :stamp, so the caller can tell which ids it changed.
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarListing l SET l.approved = true, l.updatedAt = :stamp, l.version = l.version + 1 " +
+           "WHERE l.id IN :ids AND l.approved = false")
+    int approveAll(@Param("ids") Collection<Long> ids, @Param("stamp") LocalDateTime stamp);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarListing l SET l.archived = true, l.updatedAt = :stamp, l.version = l.version + 1 " +
+           "WHERE l.id IN :ids AND l.archived = false")
+    int archiveAll(@Param("ids") Collection<Long> ids, @Param("stamp") LocalDateTime stamp);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarListing l SET l.archived = false, l.updatedAt = :stamp, l.version = l.version + 1 " +
+           "WHERE l.id IN :ids AND l.archived = true")
+    int unarchiveAll(@Param("ids") Collection<Long> ids, @Param("stamp") LocalDateTime stamp);
+
+    /** Archived listings are never marked as sold; they must be unarchived first. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarListing l SET l.sold = true, l.updatedAt = :stamp, l.version = l.version + 1 " +
+           "WHERE l.id IN :ids AND l.sold = false AND l.archived = false")
+    int markAllSold(@Param("ids") Collection<Long> ids, @Param("stamp") LocalDateTime stamp);
+
+    // Single-listing state transitions (ListingTransition): each is one compare-and-set UPDATE
+    // on the state the transition starts from and, unless sellerId is null (admin), on the
+    // owner. They return 1 if the listing changed, 0 if it is missing, someone else's or not in
+    // the expected state.
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarListing l SET l.isUserActive = false, l.pausedByOwner = true, l.updatedAt = :now, " +
+           "l.version = l.version + 1 WHERE l.id = :id AND (:sellerId IS NULL OR l.seller.id = :sellerId) " +
+           "AND l.approved = true AND l.sold = false AND l.archived = false AND l.isUserActive = true")
+    int pause(@Param("id") Long id, @Param("sellerId") Long sellerId, @Param("now") LocalDateTime now);
+
+    /** Stays hidden while the owner's account is deactivated; reactivation shows it then. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarListing l SET l.pausedByOwner = false, " +
+           "l.isUserActive = (SELECT u.active FROM User u WHERE u.id = l.seller.id), l.updatedAt = :now, " +
+           "l.version = l.version + 1 WHERE l.id = :id AND (:sellerId IS NULL OR l.seller.id = :sellerId) " +
+           "AND l.sold = false AND l.archived = false AND l.isUserActive = false")
+    int resume(@Param("id") Long id, @Param("sellerId") Long sellerId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarListing l SET l.sold = true, l.updatedAt = :now, l.version = l.version + 1 " +
+           "WHERE l.id = :id AND (:sellerId IS NULL OR l.seller.id = :sellerId) " +
+           "AND l.sold = false AND l.archived = false")
+    int markSold(@Param("id") Long id, @Param("sellerId") Long sellerId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarListing l SET l.archived = true, l.updatedAt = :now, l.version = l.version + 1 " +
+           "WHERE l.id = :id AND (:sellerId IS NULL OR l.seller.id = :sellerId) AND l.archived = false")
+    int archive(@Param("id") Long id, @Param("sellerId") Long sellerId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarListing l SET l.archived = false, l.updatedAt = :now, l.version = l.version + 1 " +
+           "WHERE l.id = :id AND (:sellerId IS NULL OR l.seller.id = :sellerId) AND l.archived = true")
+    int unarchive(@Param("id") Long id, @Param("sellerId") Long sellerId, @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,106 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.payload.response.ListingSummaryResponse;
+import com.autotrader.autotraderbackend.repository.projection.ListingFacetRow;
+import com.autotrader.autotraderbackend.service.SortableCarListingField;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Custom query fragment for {@link CarListingRepository} covering queries that
+ * derived methods and {@code findAll(spec, pageable)} cannot express.
+ */
+public interface CarListingRepositoryCustom {
+
+    /**
+     * Finds listings matching a specification ordered by (sort key, id) without
+     * issuing a count query. Used for keyset paging: callers add a
+     * {@code seekAfter} predicate to the specification and ask for one row more
+     * than the page size to learn whether a next page exists.
+     *
+     * @param spec      The filter specification (including any seek predicate).
+     * @param field     The whitelisted sort field.
+     * @param direction The sort direction; the id tie-breaker follows it.
+     * @param limit     Maximum number of rows to return.
+     * @return The matching listings in keyset order.
+     */
+    List<CarListing> findAllSeek(Specification<CarListing> spec, SortableCarListingField field,
+                                 Sort.Direction direction, int limit);
+
+    /**
+     * Finds one offset page of listings matching a specification without issuing
+     * a count query. One row more than the page size is fetched to determine
+     * {@link Slice#hasNext()}.
+     *
+     * @param spec     The filter specification.
+     * @param pageable Page number, size and sort.
+     * @return The slice of matching listings.
+     */
+    Slice<CarListing> findSlice(Specification<CarListing> spec, Pageable pageable);
+
+    /**
+     * Finds one page of listing summaries matching a specification using a constructor
+     * projection: only the columns a result card needs are selected, and no entities are
+     * loaded into the persistence context. Sorting is restricted to
+     * {@link SortableCarListingField}, with the id as tie-breaker.
+     *
+     * @param spec     The filter specification.
+     * @param pageable Page number, size and sort.
+     * @return The page of summaries, without primary image URLs.
+     * @throws IllegalArgumentException if the sort uses a field that is not whitelisted.
+     */
+    Page<ListingSummaryResponse> findSummaries(Specification<CarListing> spec, Pageable pageable);
+
+    /**
+     * Counts the listings matching a specification in a single grouped query, grouped by
+     * brand, model, location and model year. Price buckets are counted with conditional
+     * sums in the same query rather than grouped on, so the number of groups stays bounded
+     * by the low-cardinality columns.
+     *
+     * @param spec            The filter specification.
+     * @param priceBoundaries Ascending lower bounds of every price bucket after the first.
+     * @return One row per group, with {@code priceBoundaries.size() + 1} bucket counts.
+     */
+    List<ListingFacetRow> findFacetRows(Specification<CarListing> spec, List<BigDecimal> priceBoundaries);
+
+    /**
+     * Counts the listings matching a specification per location in a single grouped query.
+     *
+     * @param spec The filter specification.
+     * @return The counts by location id; listings without a location are not counted.
+     */
+    Map<Long, Long> countByLocation(Specification<CarListing> spec);
+
+    /**
+     * Finds the ids of all listings matching a specification, without loading entities.
+     * Callers are expected to bound the result, e.g. with an id restriction.
+     *
+     * @param spec The filter specification.
+     * @return The matching ids in no particular order.
+     */
+    List<Long> findIds(Specification<CarListing> spec);
+
+    /**
+     * Reads the listings matching a specification in ascending id order through a
+     * forward-only, read-only cursor and hands each one to an action, so any number of rows
+     * can be processed in constant memory. Locations are fetched with the listings; the
+     * persistence context is cleared after every {@code fetchSize} rows. Must run inside a
+     * transaction, which some drivers need to stream rows instead of buffering the result.
+     *
+     * @param spec      The filter specification.
+     * @param afterId   Only listings with a greater id are read, to resume an earlier run; null to start at the beginning.
+     * @param fetchSize Rows fetched from the database per round trip.
+     * @param action    Called with every listing, in id order. Listings are detached shortly after.
+     * @return The number of listings read.
+     */
+    long forEachInIdOrder(Specification<CarListing> spec, Long afterId, int fetchSize, Consumer<CarListing> action);
+}
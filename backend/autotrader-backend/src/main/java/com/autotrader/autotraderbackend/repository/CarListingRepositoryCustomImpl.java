@@ -0,0 +1,293 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.response.ListingSummaryResponse;
+import com.autotrader.autotraderbackend.repository.projection.ListingFacetRow;
+import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.service.SortableCarListingField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Criteria API implementation of {@link CarListingRepositoryCustom}.
+ */
+public class CarListingRepositoryCustomImpl implements CarListingRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CarListing> findAllSeek(Specification<CarListing> spec, SortableCarListingField field,
+                                        Sort.Direction direction, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CarListing> query = criteriaBuilder.createQuery(CarListing.class);
+        Root<CarListing> root = query.from(CarListing.class);
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        Expression<?> id = root.get("id");
+        List<Order> orders = List.of(
+                CarListingSpecification.sortOrder(root, criteriaBuilder, field, direction.isAscending()),
+                direction.isAscending() ? criteriaBuilder.asc(id) : criteriaBuilder.desc(id));
+        query.select(root).orderBy(orders);
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Slice<CarListing> findSlice(Specification<CarListing> spec, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CarListing> query = criteriaBuilder.createQuery(CarListing.class);
+        Root<CarListing> root = query.from(CarListing.class);
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root);
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+
+        TypedQuery<CarListing> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<CarListing> rows = typedQuery.getResultList();
+
+        boolean hasNext = pageable.isPaged() && rows.size() > pageable.getPageSize();
+        List<CarListing> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public Page<ListingSummaryResponse> findSummaries(Specification<CarListing> spec, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ListingSummaryResponse> query = criteriaBuilder.createQuery(ListingSummaryResponse.class);
+        Root<CarListing> root = query.from(CarListing.class);
+        Join<CarListing, Location> location = root.join("location", JoinType.LEFT);
+        Join<CarListing, User> seller = root.join("seller", JoinType.INNER);
+
+        query.select(criteriaBuilder.construct(ListingSummaryResponse.class,
+                root.get("id"),
+                root.get("title"),
+                root.get("brand"),
+                root.get("model"),
+                root.get("modelYear"),
+                root.get("price"),
+                root.get("mileage"),
+                root.get("createdAt"),
+                location.get("id"),
+                location.get("slug"),
+                location.get("displayNameEn"),
+                location.get("displayNameAr"),
+                seller.get("id"),
+                seller.get("username")));
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(summaryOrders(pageable.getSort(), root, criteriaBuilder));
+
+        TypedQuery<ListingSummaryResponse> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<ListingSummaryResponse> content = typedQuery.getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> countMatching(spec));
+    }
+
+    @Override
+    public List<ListingFacetRow> findFacetRows(Specification<CarListing> spec, List<BigDecimal> priceBoundaries) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<CarListing> root = query.from(CarListing.class);
+        Join<CarListing, Location> location = root.join("location", JoinType.LEFT);
+
+        Expression<String> brand = root.get("brand");
+        Expression<String> model = root.get("model");
+        Expression<Long> locationId = location.get("id");
+        Expression<Integer> modelYear = root.get("modelYear");
+        Expression<BigDecimal> price = root.get("price");
+
+        List<Selection<?>> selections = new ArrayList<>(List.of(brand, model, locationId, modelYear, criteriaBuilder.count(root)));
+        for (int bucket = 0; bucket <= priceBoundaries.size(); bucket++) {
+            List<Predicate> bounds = new ArrayList<>();
+            if (bucket > 0) {
+                bounds.add(criteriaBuilder.greaterThanOrEqualTo(price, priceBoundaries.get(bucket - 1)));
+            }
+            if (bucket < priceBoundaries.size()) {
+                bounds.add(criteriaBuilder.lessThan(price, priceBoundaries.get(bucket)));
+            }
+            Expression<Long> inBucket = criteriaBuilder.<Long>selectCase()
+                    .when(criteriaBuilder.and(bounds.toArray(new Predicate[0])), 1L)
+                    .otherwise(0L);
+            selections.add(criteriaBuilder.sum(inBucket));
+        }
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.multiselect(selections).groupBy(brand, model, locationId, modelYear);
+
+        List<ListingFacetRow> rows = new ArrayList<>();
+        for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            long[] priceBucketCounts = new long[priceBoundaries.size() + 1];
+            for (int bucket = 0; bucket < priceBucketCounts.length; bucket++) {
+                Number sum = (Number) tuple.get(5 + bucket);
+                priceBucketCounts[bucket] = sum != null ? sum.longValue() : 0L;
+            }
+            rows.add(new ListingFacetRow(
+                    tuple.get(0, String.class),
+                    tuple.get(1, String.class),
+                    tuple.get(2, Long.class),
+                    tuple.get(3, Integer.class),
+                    ((Number) tuple.get(4)).longValue(),
+                    priceBucketCounts));
+        }
+        return rows;
+    }
+
+    @Override
+    public Map<Long, Long> countByLocation(Specification<CarListing> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<CarListing> root = query.from(CarListing.class);
+        Join<CarListing, Location> location = root.join("location", JoinType.INNER);
+        Expression<Long> locationId = location.get("id");
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.multiselect(locationId, criteriaBuilder.count(root)).groupBy(locationId);
+
+        Map<Long, Long> counts = new HashMap<>();
+        for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            counts.put(tuple.get(0, Long.class), ((Number) tuple.get(1)).longValue());
+        }
+        return counts;
+    }
+
+    @Override
+    public List<Long> findIds(Specification<CarListing> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<CarListing> root = query.from(CarListing.class);
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root.get("id"));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public long forEachInIdOrder(Specification<CarListing> spec, Long afterId, int fetchSize, Consumer<CarListing> action) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CarListing> query = criteriaBuilder.createQuery(CarListing.class);
+        Root<CarListing> root = query.from(CarListing.class);
+        root.fetch("location", JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        if (afterId != null) {
+            predicates.add(criteriaBuilder.greaterThan(root.get("id"), afterId));
+        }
+        query.select(root)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+
+        @SuppressWarnings("unchecked")
+        Query<CarListing> cursorQuery = entityManager.createQuery(query).unwrap(Query.class);
+        cursorQuery.setFetchSize(fetchSize);
+        cursorQuery.setReadOnly(true);
+        cursorQuery.setCacheMode(CacheMode.IGNORE);
+
+        long count = 0;
+        try (ScrollableResults<CarListing> rows = cursorQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                action.accept(rows.get());
+                if (++count % fetchSize == 0) {
+                    // Detach the rows handed out so far; the cursor itself holds no entities
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Orders by whitelisted fields only, using the same sort keys as keyset paging,
+     * and always ends with the id so pages are stable.
+     */
+    private List<Order> summaryOrders(Sort sort, Root<CarListing> root, CriteriaBuilder criteriaBuilder) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String property = order.getProperty().split(",")[0];
+            SortableCarListingField field = SortableCarListingField.fromFieldName(property)
+                    .orElseThrow(() -> new IllegalArgumentException("Sorting by field '" + property + "' is not allowed."));
+            orders.add(CarListingSpecification.sortOrder(root, criteriaBuilder, field, order.isAscending()));
+        }
+        Expression<?> id = root.get("id");
+        boolean descending = !orders.isEmpty() && !orders.get(0).isAscending();
+        orders.add(descending ? criteriaBuilder.desc(id) : criteriaBuilder.asc(id));
+        return orders;
+    }
+
+    private long countMatching(Specification<CarListing> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<CarListing> root = query.from(CarListing.class);
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(criteriaBuilder.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -4,8 +4,10 @@ import com.autotrader.autotraderbackend.model.CarBrand;
 import com.autotrader.autotraderbackend.model.CarModel;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +15,17 @@ import java.util.Optional;
 public interface CarModelRepository extends JpaRepository<CarModel, Long> {
     
     Optional<CarModel> findBySlug(String slug);
+
+    List<CarModel> findBySlugIn(Collection<String> slugs);
+
+    /**
+     * Finds the models of a brand a listing's free-text model refers to: those whose name,
+     * display name or slug equals the lower-cased, trimmed text. Oldest first.
+     */
+    @Query("SELECT m FROM CarModel m WHERE m.brand = :brand AND (" +
+           "LOWER(m.name) = :text OR LOWER(m.displayNameEn) = :text OR " +
+           "LOWER(m.displayNameAr) = :text OR m.slug = :text) ORDER BY m.id")
+    List<CarModel> findByBrandAndListingText(@Param("brand") CarBrand brand, @Param("text") String text);
     
     List<CarModel> findByBrand(CarBrand brand);
     
@@ -0,0 +1,55 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for scheduled job leases. Every statement commits on its own, so a lease is
+ * visible to other instances as soon as it is taken.
+ */
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    /**
+     * Takes the lease of a job if it has expired, in a single conditional statement, so that
+     * of several instances trying at once exactly one succeeds.
+     *
+     * @return 1 if the lease was taken, 0 if another instance holds it or the job has no row yet.
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE JobLock j SET j.lockedUntil = :until, j.lockedAt = :now, j.lockedBy = :owner " +
+           "WHERE j.name = :name AND j.lockedUntil <= :now")
+    int acquire(@Param("name") String name, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    /**
+     * Creates the lease row of a job, taken by the given owner. Fails with a
+     * {@link org.springframework.dao.DataIntegrityViolationException} if another instance
+     * created it first.
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO job_locks (name, locked_until, locked_at, locked_by) VALUES (:name, :until, :now, :owner)",
+           nativeQuery = true)
+    int insert(@Param("name") String name, @Param("owner") String owner,
+               @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    /**
+     * Ends the lease of a job early, if it is still held by the given owner.
+     *
+     * @return 1 if the lease was released.
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE JobLock j SET j.lockedUntil = :now WHERE j.name = :name AND j.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
@@ -1,9 +1,13 @@
 package com.autotrader.autotraderbackend.repository;
 
 import com.autotrader.autotraderbackend.model.ListingMedia;
+import com.autotrader.autotraderbackend.repository.projection.ListingImageKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -24,4 +28,16 @@ public interface ListingMediaRepository extends JpaRepository<ListingMedia, Long
      * @return A list of primary media items (typically should be only one)
      */
     List<ListingMedia> findByListingIdAndIsPrimaryTrue(Long listingId);
+
+    /**
+     * Find the image keys of several listings in one query, primary images first,
+     * then by sort order. Used to pick a card image per listing without loading media entities.
+     *
+     * @param listingIds The IDs of the car listings
+     * @return Image keys of the listings, ordered so the first entry per listing is its card image
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingImageKey(m.listingId, m.fileKey) " +
+           "FROM ListingMedia m WHERE m.listingId IN :listingIds AND m.mediaType = 'image' " +
+           "ORDER BY m.listingId, m.isPrimary DESC, m.sortOrder ASC")
+    List<ListingImageKey> findImageKeysByListingIds(@Param("listingIds") Collection<Long> listingIds);
 }
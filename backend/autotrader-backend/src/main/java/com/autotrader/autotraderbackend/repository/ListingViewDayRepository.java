@@ -0,0 +1,37 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.ListingViewDay;
+import com.autotrader.autotraderbackend.repository.projection.ListingViewTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the daily view counts of listings.
+ */
+@Repository
+public interface ListingViewDayRepository extends JpaRepository<ListingViewDay, ListingViewDay.Key>, ListingViewDayRepositoryCustom {
+
+    /**
+     * Sums the views of the given listings from a day on, one row per listing with views.
+     */
+    @Query("SELECT new com.autotrader.autotraderbackend.repository.projection.ListingViewTotal(v.listingId, SUM(v.views)) " +
+           "FROM ListingViewDay v WHERE v.listingId IN :listingIds AND v.viewDate >= :since GROUP BY v.listingId")
+    List<ListingViewTotal> sumViewsSince(@Param("listingIds") Collection<Long> listingIds, @Param("since") LocalDate since);
+
+    /**
+     * Finds the days with views of a listing from a day on, oldest first.
+     */
+    List<ListingViewDay> findByListingIdAndViewDateGreaterThanEqualOrderByViewDate(Long listingId, LocalDate since);
+
+    /**
+     * Finds the days with views of all listings from a day on. Used to seed the trending
+     * listings on startup.
+     */
+    List<ListingViewDay> findByViewDateGreaterThanEqual(LocalDate since);
+}
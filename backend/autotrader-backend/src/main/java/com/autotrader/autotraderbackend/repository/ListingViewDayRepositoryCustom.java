@@ -0,0 +1,22 @@
+package com.autotrader.autotraderbackend.repository;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Custom write fragment for {@link ListingViewDayRepository}.
+ */
+public interface ListingViewDayRepositoryCustom {
+
+    /**
+     * Adds views to the counts of listings on one day: one batched UPDATE of the rows that
+     * exist, then one batched INSERT of the missing ones. Must run inside a transaction.
+     * Fails with a {@link org.springframework.dao.DataIntegrityViolationException} if another
+     * transaction inserted one of the missing rows first; repeating the call in a new
+     * transaction then updates it.
+     *
+     * @param viewDate       The day the views count towards.
+     * @param viewsByListing The views to add, by listing id.
+     */
+    void addViews(LocalDate viewDate, Map<Long, Long> viewsByListing);
+}
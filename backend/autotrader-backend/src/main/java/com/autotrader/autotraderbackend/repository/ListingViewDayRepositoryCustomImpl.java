@@ -0,0 +1,50 @@
+package com.autotrader.autotraderbackend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC implementation of {@link ListingViewDayRepositoryCustom}. The statements are plain
+ * SQL that H2 and PostgreSQL both accept, rather than a vendor upsert.
+ */
+public class ListingViewDayRepositoryCustomImpl implements ListingViewDayRepositoryCustom {
+
+    private static final String ADD_VIEWS =
+            "UPDATE listing_view_days SET views = views + ? WHERE listing_id = ? AND view_date = ?";
+    private static final String INSERT_VIEWS =
+            "INSERT INTO listing_view_days (listing_id, view_date, views) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ListingViewDayRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void addViews(LocalDate viewDate, Map<Long, Long> viewsByListing) {
+        if (viewsByListing.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(viewsByListing.entrySet());
+        List<Object[]> updates = new ArrayList<>(entries.size());
+        for (Map.Entry<Long, Long> entry : entries) {
+            updates.add(new Object[] {entry.getValue(), entry.getKey(), viewDate});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(ADD_VIEWS, updates);
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            // Drivers that cannot tell report SUCCESS_NO_INFO (-2), which is not 0
+            if (updated[i] == 0) {
+                inserts.add(new Object[] {entries.get(i).getKey(), viewDate, entries.get(i).getValue()});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_VIEWS, inserts);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.SavedSearchMatch;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the queue of saved search matches awaiting delivery.
+ */
+@Repository
+public interface SavedSearchMatchRepository extends JpaRepository<SavedSearchMatch, Long> {
+
+    /**
+     * Reads the oldest undelivered matches due for an attempt, together with their saved
+     * search and its owner, so a delivery batch needs a single query. Matches waiting to be
+     * retried and matches given up are skipped.
+     */
+    @Query("SELECT m FROM SavedSearchMatch m JOIN FETCH m.savedSearch s JOIN FETCH s.user " +
+           "WHERE m.deliveredAt IS NULL AND m.failedAt IS NULL " +
+           "AND (m.nextAttemptAt IS NULL OR m.nextAttemptAt <= :now) ORDER BY m.id")
+    List<SavedSearchMatch> findPending(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Marks matches as delivered in a single statement.
+     *
+     * @return The number of matches marked.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SavedSearchMatch m SET m.deliveredAt = :deliveredAt WHERE m.id IN :ids")
+    int markDelivered(@Param("ids") Collection<Long> ids, @Param("deliveredAt") LocalDateTime deliveredAt);
+
+    /**
+     * Records a failed delivery attempt of matches: they are not read again before
+     * {@code retryAt}.
+     *
+     * @return The number of matches updated.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SavedSearchMatch m SET m.attempts = m.attempts + 1, m.nextAttemptAt = :retryAt WHERE m.id IN :ids")
+    int markAttemptFailed(@Param("ids") Collection<Long> ids, @Param("retryAt") LocalDateTime retryAt);
+
+    /**
+     * Gives up the matches among {@code ids} that have used up their attempts.
+     *
+     * @return The number of matches given up.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SavedSearchMatch m SET m.failedAt = :failedAt " +
+           "WHERE m.id IN :ids AND m.attempts >= :maxAttempts AND m.failedAt IS NULL")
+    int markFailed(@Param("ids") Collection<Long> ids, @Param("maxAttempts") int maxAttempts,
+                   @Param("failedAt") LocalDateTime failedAt);
+
+    /**
+     * Drops all matches of a saved search, delivered or not, before it is deleted.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SavedSearchMatch m WHERE m.savedSearch.id = :savedSearchId")
+    int deleteBySavedSearchId(@Param("savedSearchId") Long savedSearchId);
+}
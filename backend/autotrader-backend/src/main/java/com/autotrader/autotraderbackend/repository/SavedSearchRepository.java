@@ -0,0 +1,39 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.SavedSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for managing SavedSearch entities
+ */
+@Repository
+public interface SavedSearchRepository extends JpaRepository<SavedSearch, Long> {
+
+    /**
+     * Find the saved searches of a user, newest first
+     * @param userId The owner's user id
+     * @return The user's saved searches
+     */
+    List<SavedSearch> findByUserIdOrderByCreatedAtDescIdDesc(Long userId);
+
+    long countByUserId(Long userId);
+
+    /**
+     * @return The ids of all saved searches
+     */
+    @Query("SELECT s.id FROM SavedSearch s")
+    List<Long> findAllIds();
+
+    /**
+     * @param ids Saved search ids
+     * @return Those of the ids whose saved search still exists
+     */
+    @Query("SELECT s.id FROM SavedSearch s WHERE s.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+}
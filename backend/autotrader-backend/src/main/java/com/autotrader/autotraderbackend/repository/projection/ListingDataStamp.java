@@ -0,0 +1,31 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Aggregates over all listings that change whenever the listing data does: an insert raises
+ * the highest id, a delete lowers the count, every update increments the version of its
+ * listing, and a listing passing its expiration date raises the expired count.
+ *
+ * @param count       The number of listings.
+ * @param maxId       The highest listing id, null if there are none.
+ * @param versionSum  The sum of the listing versions.
+ * @param lastUpdated The latest update time, null if no listing was ever updated.
+ * @param expired     The number of listings past their expiration date.
+ */
+public record ListingDataStamp(Long count, Long maxId, Long versionSum, LocalDateTime lastUpdated, Long expired) {
+
+    /**
+     * @return The aggregates as an opaque, compact stamp.
+     */
+    public String toVersion() {
+        long updated = lastUpdated != null ? lastUpdated.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+        return base36(count) + "." + base36(maxId) + "." + base36(versionSum) + "." + Long.toString(updated, 36)
+                + "." + base36(expired);
+    }
+
+    private static String base36(Long value) {
+        return Long.toString(value != null ? value : 0, 36);
+    }
+}
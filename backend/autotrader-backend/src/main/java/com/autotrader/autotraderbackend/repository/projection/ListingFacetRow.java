@@ -0,0 +1,16 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+/**
+ * One group of the facet query: the number of matching listings sharing a brand, model,
+ * location and model year, split further into price buckets.
+ *
+ * @param priceBucketCounts Matching listings per price bucket, in bucket order.
+ */
+public record ListingFacetRow(
+        String brand,
+        String model,
+        Long locationId,
+        Integer modelYear,
+        long count,
+        long[] priceBucketCounts) {
+}
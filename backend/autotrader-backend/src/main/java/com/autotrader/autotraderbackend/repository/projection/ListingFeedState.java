@@ -0,0 +1,13 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+/**
+ * The inventory feed identity and last synced state of a listing, selected without loading entities.
+ *
+ * @param id          The listing.
+ * @param stockNumber The dealer's stock number, if any.
+ * @param vin         The vehicle identification number, if any.
+ * @param feedHash    Hash of the feed row last applied, or null if never synced from a feed.
+ * @param archived    Whether the listing is archived.
+ */
+public record ListingFeedState(Long id, String stockNumber, String vin, String feedHash, Boolean archived) {
+}
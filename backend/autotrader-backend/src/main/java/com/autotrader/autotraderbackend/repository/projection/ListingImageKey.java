@@ -0,0 +1,10 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+/**
+ * Storage key of an image attached to a listing, selected without loading {@code ListingMedia} entities.
+ *
+ * @param listingId The listing the image belongs to.
+ * @param fileKey   The storage key of the image.
+ */
+public record ListingImageKey(Long listingId, String fileKey) {
+}
@@ -0,0 +1,64 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a listing held by the in-memory search index.
+ */
+public record ListingIndexRow(
+        Long id,
+        String brand,
+        String model,
+        Long brandId,
+        Long modelId,
+        Long trimId,
+        Integer modelYear,
+        Integer mileage,
+        BigDecimal price,
+        Long locationId,
+        LocalDateTime createdAt,
+        Boolean approved,
+        Boolean sold,
+        Boolean archived,
+        Boolean isUserActive,
+        LocalDateTime expirationDate) {
+
+    /**
+     * Captures the indexed columns of a listing entity.
+     * Reading the location and catalog ids does not initialize lazy proxies.
+     */
+    public static ListingIndexRow from(CarListing listing) {
+        return new ListingIndexRow(
+                listing.getId(),
+                listing.getBrand(),
+                listing.getModel(),
+                listing.getCarBrand() != null ? listing.getCarBrand().getId() : null,
+                listing.getCarModel() != null ? listing.getCarModel().getId() : null,
+                listing.getCarTrim() != null ? listing.getCarTrim().getId() : null,
+                listing.getModelYear(),
+                listing.getMileage(),
+                listing.getPrice(),
+                listing.getLocation() != null ? listing.getLocation().getId() : null,
+                listing.getCreatedAt(),
+                listing.getApproved(),
+                listing.getSold(),
+                listing.getArchived(),
+                listing.getIsUserActive(),
+                listing.getExpirationDate());
+    }
+
+    /**
+     * In-memory counterpart of the public listing specification: approved, not sold, not
+     * archived, seller active and not past its expiration date.
+     */
+    public boolean isPublic(LocalDateTime now) {
+        return Boolean.TRUE.equals(approved)
+                && !Boolean.TRUE.equals(sold)
+                && !Boolean.TRUE.equals(archived)
+                && Boolean.TRUE.equals(isUserActive)
+                && (expirationDate == null || expirationDate.isAfter(now));
+    }
+}
@@ -0,0 +1,13 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * The location of a listing, selected without loading entities.
+ *
+ * @param listingId      The listing.
+ * @param locationId     The location the listing is in.
+ * @param expirationDate When the listing expires, or null if it does not.
+ */
+public record ListingLocationRow(Long listingId, Long locationId, LocalDateTime expirationDate) {
+}
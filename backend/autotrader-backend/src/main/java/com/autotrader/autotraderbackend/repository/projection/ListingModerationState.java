@@ -0,0 +1,15 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * The moderation flags of a listing, selected without loading entities.
+ *
+ * @param id        The listing.
+ * @param approved  Whether the listing is approved.
+ * @param sold      Whether the listing is sold.
+ * @param archived  Whether the listing is archived.
+ * @param updatedAt When the listing was last changed, or null if never.
+ */
+public record ListingModerationState(Long id, Boolean approved, Boolean sold, Boolean archived, LocalDateTime updatedAt) {
+}
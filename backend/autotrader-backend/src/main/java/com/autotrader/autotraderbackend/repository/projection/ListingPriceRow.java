@@ -0,0 +1,17 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * The columns of a listing that market valuations group its asking price by, selected without
+ * loading entities.
+ *
+ * @param listingId The listing.
+ * @param brand     The brand as entered.
+ * @param model     The model as entered.
+ * @param modelYear The model year.
+ * @param mileage   The mileage in km.
+ * @param price     The asking price.
+ */
+public record ListingPriceRow(Long listingId, String brand, String model, Integer modelYear, Integer mileage, BigDecimal price) {
+}
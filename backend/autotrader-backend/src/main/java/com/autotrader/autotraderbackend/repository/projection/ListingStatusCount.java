@@ -0,0 +1,14 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+/**
+ * The number of a seller's listings with one combination of status flags, from a grouped
+ * query.
+ *
+ * @param approved   Whether the listings are approved.
+ * @param sold       Whether the listings are sold.
+ * @param archived   Whether the listings are archived.
+ * @param userActive Whether the listings are shown (not paused).
+ * @param count      The number of listings with these flags.
+ */
+public record ListingStatusCount(Boolean approved, Boolean sold, Boolean archived, Boolean userActive, Long count) {
+}
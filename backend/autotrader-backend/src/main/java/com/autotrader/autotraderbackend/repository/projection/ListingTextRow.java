@@ -0,0 +1,32 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+
+/**
+ * The searchable text of a listing held by the keyword index.
+ */
+public record ListingTextRow(
+        Long id,
+        String title,
+        String brand,
+        String model,
+        Integer modelYear,
+        String transmission,
+        String exteriorColor,
+        String description) {
+
+    /**
+     * Captures the searchable text of a listing entity.
+     */
+    public static ListingTextRow from(CarListing listing) {
+        return new ListingTextRow(
+                listing.getId(),
+                listing.getTitle(),
+                listing.getBrand(),
+                listing.getModel(),
+                listing.getModelYear(),
+                listing.getTransmission(),
+                listing.getExteriorColor(),
+                listing.getDescription());
+    }
+}
@@ -0,0 +1,16 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a publicly visible listing that the trending feed ranks and scopes it by,
+ * selected without loading entities.
+ *
+ * @param listingId      The listing.
+ * @param locationId     The location of the listing, or null.
+ * @param brandId        The catalog brand of the listing, or null if not linked.
+ * @param createdAt      When the listing was created.
+ * @param expirationDate When the listing expires, or null if it does not.
+ */
+public record ListingTrendRow(Long listingId, Long locationId, Long brandId, LocalDateTime createdAt, LocalDateTime expirationDate) {
+}
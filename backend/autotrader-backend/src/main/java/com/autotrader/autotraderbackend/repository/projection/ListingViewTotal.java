@@ -0,0 +1,10 @@
+package com.autotrader.autotraderbackend.repository.projection;
+
+/**
+ * The views of one listing summed over a range of days, from a grouped query.
+ *
+ * @param listingId The listing.
+ * @param views     The number of views.
+ */
+public record ListingViewTotal(Long listingId, Long views) {
+}
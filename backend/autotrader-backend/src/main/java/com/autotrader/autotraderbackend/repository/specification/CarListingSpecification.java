@@ -1,18 +1,43 @@
 package com.autotrader.autotraderbackend.repository.specification;
 
 import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.ListingStatus;
 import com.autotrader.autotraderbackend.model.Location;
 import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.service.SortableCarListingField;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class CarListingSpecification {
 
     public static Specification<CarListing> fromFilter(ListingFilterRequest filter, Location locationEntity) {
+        return fromFilter(filter, locationEntity, CatalogFilter.NONE);
+    }
+
+    /**
+     * Builds the filter specification including catalog criteria. Brand, model and trim ids
+     * are matched by equality on the listing's foreign key columns, so they can use an index,
+     * unlike the {@code brand} / {@code model} text filters.
+     *
+     * @param filter         The filter criteria.
+     * @param locationEntity The resolved location, or null for none.
+     * @param catalog        The resolved catalog criteria.
+     * @return The specification.
+     */
+    public static Specification<CarListing> fromFilter(ListingFilterRequest filter, Location locationEntity, CatalogFilter catalog) {
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
@@ -45,6 +70,16 @@ public class CarListingSpecification {
                 predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("mileage"), filter.getMaxMileage()));
             }
 
+            if (catalog.brandIds() != null) {
+                predicates.add(idIn(root.get("carBrand").get("id"), catalog.brandIds(), criteriaBuilder));
+            }
+            if (catalog.modelIds() != null) {
+                predicates.add(idIn(root.get("carModel").get("id"), catalog.modelIds(), criteriaBuilder));
+            }
+            if (catalog.trimIds() != null) {
+                predicates.add(idIn(root.get("carTrim").get("id"), catalog.trimIds(), criteriaBuilder));
+            }
+
             // Add filter for Location entity if provided
             if (locationEntity != null) {
                 predicates.add(criteriaBuilder.equal(root.get("location"), locationEntity));
@@ -76,7 +111,159 @@ public class CarListingSpecification {
         return (root, query, criteriaBuilder) -> criteriaBuilder.isFalse(root.get("archived"));
     }
 
+    /**
+     * Excludes listings past their expiration date, until ListingExpirationSweeper archives them.
+     */
+    public static Specification<CarListing> isNotExpired() {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.or(
+                criteriaBuilder.isNull(root.get("expirationDate")),
+                criteriaBuilder.greaterThan(root.get("expirationDate"), LocalDateTime.now()));
+    }
+
     public static Specification<CarListing> isUserActive() {
         return (root, query, criteriaBuilder) -> criteriaBuilder.isTrue(root.get("isUserActive"));
     }
+
+    /**
+     * Restricts to the given listing ids; an empty collection matches nothing.
+     */
+    public static Specification<CarListing> idIn(Collection<Long> ids) {
+        return (root, query, criteriaBuilder) -> ids.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : root.get("id").in(ids);
+    }
+
+    /**
+     * Restricts to listings at one of the given locations; an empty collection matches nothing.
+     */
+    public static Specification<CarListing> locationIdIn(Collection<Long> locationIds) {
+        return (root, query, criteriaBuilder) -> idIn(root.get("location").get("id"), locationIds, criteriaBuilder);
+    }
+
+    public static Specification<CarListing> hasSeller(Long sellerId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("seller").get("id"), sellerId);
+    }
+
+    /**
+     * Restricts to listings with the given status, with the same precedence as
+     * {@link ListingStatus#of}.
+     */
+    public static Specification<CarListing> hasStatus(ListingStatus status) {
+        return (root, query, criteriaBuilder) -> {
+            Predicate archived = criteriaBuilder.isTrue(root.get("archived"));
+            if (status == ListingStatus.ARCHIVED) {
+                return archived;
+            }
+            Predicate notArchived = criteriaBuilder.not(archived);
+            Predicate sold = criteriaBuilder.isTrue(root.get("sold"));
+            if (status == ListingStatus.SOLD) {
+                return criteriaBuilder.and(notArchived, sold);
+            }
+            Predicate open = criteriaBuilder.and(notArchived, criteriaBuilder.not(sold));
+            Predicate approved = criteriaBuilder.isTrue(root.get("approved"));
+            return switch (status) {
+                case PENDING -> criteriaBuilder.and(open, criteriaBuilder.not(approved));
+                case PAUSED -> criteriaBuilder.and(open, approved, criteriaBuilder.isFalse(root.get("isUserActive")));
+                default -> criteriaBuilder.and(open, approved, criteriaBuilder.isTrue(root.get("isUserActive")));
+            };
+        };
+    }
+
+    public static Specification<CarListing> createdBefore(LocalDateTime before) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThan(root.get("createdAt"), before);
+    }
+
+    private static Predicate idIn(Path<Object> id, Collection<Long> ids, CriteriaBuilder criteriaBuilder) {
+        return ids.isEmpty() ? criteriaBuilder.disjunction() : id.in(ids);
+    }
+
+    /**
+     * Keyset predicate selecting listings strictly after the given position in a
+     * (sort key, id) ordering. Combined with {@link #sortKey} ordering this lets the
+     * database seek straight to the next page instead of skipping OFFSET rows.
+     *
+     * @param field     The sort field of the page.
+     * @param direction The sort direction of the page.
+     * @param value     The sort key of the last listing already returned.
+     * @param lastId    The id of the last listing already returned.
+     * @return The seek specification.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<CarListing> seekAfter(SortableCarListingField field, Sort.Direction direction,
+                                                      Comparable<?> value, Long lastId) {
+        return (root, query, criteriaBuilder) -> {
+            Path<Long> id = root.get("id");
+            if (field == SortableCarListingField.LOCATION_ID) {
+                return seekAfterLocation(root.get("location").<Long>get("id"), id, direction, (Long) value, lastId, criteriaBuilder);
+            }
+            Expression key = sortKey(root, criteriaBuilder, field);
+            Comparable bound = value;
+            if (direction.isAscending()) {
+                return criteriaBuilder.or(
+                        criteriaBuilder.greaterThan(key, bound),
+                        criteriaBuilder.and(criteriaBuilder.equal(key, bound), criteriaBuilder.greaterThan(id, lastId)));
+            }
+            return criteriaBuilder.or(
+                    criteriaBuilder.lessThan(key, bound),
+                    criteriaBuilder.and(criteriaBuilder.equal(key, bound), criteriaBuilder.lessThan(id, lastId)));
+        };
+    }
+
+    /**
+     * Seek on the nullable location id, in the order of {@link #sortOrder}: listings without a
+     * location come first when ascending and last when descending. The cursor carries
+     * {@link SortableCarListingField#NO_LOCATION} for them, which no location id uses.
+     */
+    private static Predicate seekAfterLocation(Path<Long> location, Path<Long> id, Sort.Direction direction,
+                                               Long bound, Long lastId, CriteriaBuilder criteriaBuilder) {
+        boolean noLocation = bound == null || bound == SortableCarListingField.NO_LOCATION;
+        if (direction.isAscending()) {
+            if (noLocation) {
+                return criteriaBuilder.or(
+                        criteriaBuilder.and(criteriaBuilder.isNull(location), criteriaBuilder.greaterThan(id, lastId)),
+                        criteriaBuilder.isNotNull(location));
+            }
+            return criteriaBuilder.or(
+                    criteriaBuilder.greaterThan(location, bound),
+                    criteriaBuilder.and(criteriaBuilder.equal(location, bound), criteriaBuilder.greaterThan(id, lastId)));
+        }
+        if (noLocation) {
+            return criteriaBuilder.and(criteriaBuilder.isNull(location), criteriaBuilder.lessThan(id, lastId));
+        }
+        return criteriaBuilder.or(
+                criteriaBuilder.lessThan(location, bound),
+                criteriaBuilder.and(criteriaBuilder.equal(location, bound), criteriaBuilder.lessThan(id, lastId)),
+                criteriaBuilder.isNull(location));
+    }
+
+    /**
+     * Expression used to order by a whitelisted sort field. These are plain columns so
+     * the public listing indexes (V1.4, V1.12) can serve the ordering.
+     */
+    public static Expression<?> sortKey(Root<CarListing> root, CriteriaBuilder criteriaBuilder, SortableCarListingField field) {
+        switch (field) {
+            case LOCATION_ID:
+                return root.get("location").<Long>get("id");
+            case PRICE:
+                return root.get("price");
+            case CREATED_AT:
+            default:
+                return root.get("createdAt");
+        }
+    }
+
+    /**
+     * Order by a whitelisted sort field. Listings without a location sort first when
+     * ascending and last when descending, matching {@code location_id NULLS FIRST} in
+     * idx_car_listings_public_location (read backwards when descending).
+     */
+    public static Order sortOrder(Root<CarListing> root, CriteriaBuilder criteriaBuilder,
+                                  SortableCarListingField field, boolean ascending) {
+        Expression<?> key = sortKey(root, criteriaBuilder, field);
+        if (field == SortableCarListingField.LOCATION_ID) {
+            HibernateCriteriaBuilder hibernateBuilder = (HibernateCriteriaBuilder) criteriaBuilder;
+            return ascending ? hibernateBuilder.asc(key, true) : hibernateBuilder.desc(key, false);
+        }
+        return ascending ? criteriaBuilder.asc(key) : criteriaBuilder.desc(key);
+    }
 }
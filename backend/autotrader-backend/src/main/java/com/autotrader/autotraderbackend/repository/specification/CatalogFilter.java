@@ -0,0 +1,29 @@
+package com.autotrader.autotraderbackend.repository.specification;
+
+import java.util.Set;
+
+/**
+ * Catalog criteria of a listing filter, resolved to ids: listings must be linked to one of
+ * the given brands, models and trims. A null set does not restrict; an empty set matches
+ * nothing (e.g. only unknown slugs were requested).
+ *
+ * @param brandIds Ids of {@code CarBrand}s to match, or null.
+ * @param modelIds Ids of {@code CarModel}s to match, or null.
+ * @param trimIds  Ids of {@code CarTrim}s to match, or null.
+ */
+public record CatalogFilter(Set<Long> brandIds, Set<Long> modelIds, Set<Long> trimIds) {
+
+    /** No catalog restriction. */
+    public static final CatalogFilter NONE = new CatalogFilter(null, null, null);
+
+    /**
+     * @return true if a requested catalog criterion resolved to no ids, so no listing can match.
+     */
+    public boolean matchesNothing() {
+        return isEmptySet(brandIds) || isEmptySet(modelIds) || isEmptySet(trimIds);
+    }
+
+    private static boolean isEmptySet(Set<Long> ids) {
+        return ids != null && ids.isEmpty();
+    }
+}
@@ -9,6 +9,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -54,6 +55,10 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                     
                     try {
                         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                        if (!userDetails.isEnabled()) {
+                            // Tokens issued before the account was deactivated no longer authenticate
+                            throw new DisabledException("User account is deactivated");
+                        }
                         UsernamePasswordAuthenticationToken authentication =
                                 new UsernamePasswordAuthenticationToken(
                                         userDetails,
@@ -27,13 +27,21 @@ public class UserDetailsImpl implements UserDetails {
 
     private Collection<? extends GrantedAuthority> authorities;
 
+    private boolean enabled;
+
     public UserDetailsImpl(Long id, String username, String email, String password,
             Collection<? extends GrantedAuthority> authorities) {
+        this(id, username, email, password, authorities, true);
+    }
+
+    public UserDetailsImpl(Long id, String username, String email, String password,
+            Collection<? extends GrantedAuthority> authorities, boolean enabled) {
         this.id = id;
         this.username = username;
         this.email = email;
         this.password = password;
         this.authorities = authorities;
+        this.enabled = enabled;
     }
 
     /**
@@ -51,7 +59,8 @@ public class UserDetailsImpl implements UserDetails {
                 user.getUsername(), 
                 user.getEmail(),
                 user.getPassword(), 
-                authorities);
+                authorities,
+                !Boolean.FALSE.equals(user.getActive()));
     }
 
     @Override
@@ -94,7 +103,7 @@ public class UserDetailsImpl implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return true;  // For simplicity, all accounts are enabled
+        return enabled;  // False for accounts deactivated by an admin
     }
 
     @Override
@@ -6,33 +6,73 @@ import com.autotrader.autotraderbackend.exception.StorageException;
 import com.autotrader.autotraderbackend.mapper.CarListingMapper;
 import com.autotrader.autotraderbackend.model.CarListing;
 import com.autotrader.autotraderbackend.model.ListingMedia;
+import com.autotrader.autotraderbackend.model.ListingStatus;
 import com.autotrader.autotraderbackend.model.Location;
 import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.request.BulkCreateListingsRequest;
 import com.autotrader.autotraderbackend.payload.request.CreateListingRequest;
 import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
 import com.autotrader.autotraderbackend.payload.request.UpdateListingRequest;
 import com.autotrader.autotraderbackend.payload.response.CarListingResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingClustersResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingSummaryResponse;
 import com.autotrader.autotraderbackend.repository.CarListingRepository;
 import com.autotrader.autotraderbackend.repository.ListingMediaRepository;
 import com.autotrader.autotraderbackend.repository.LocationRepository;
 import com.autotrader.autotraderbackend.repository.UserRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingFacetRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingImageKey;
+import com.autotrader.autotraderbackend.repository.projection.ListingStatusCount;
 import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.repository.specification.CatalogFilter;
+import com.autotrader.autotraderbackend.service.export.ListingExportFormat;
+import com.autotrader.autotraderbackend.service.export.ListingExporter;
+import com.autotrader.autotraderbackend.service.lifecycle.ListingTransition;
+import com.autotrader.autotraderbackend.service.paging.CountStrategy;
+import com.autotrader.autotraderbackend.service.paging.CursorPage;
+import com.autotrader.autotraderbackend.service.paging.ListingCursor;
+import com.autotrader.autotraderbackend.service.search.ListingChanges;
+import com.autotrader.autotraderbackend.service.search.ListingFacetCounter;
+import com.autotrader.autotraderbackend.service.search.ListingKeywordIndex;
+import com.autotrader.autotraderbackend.service.search.ListingLocationCounts;
+import com.autotrader.autotraderbackend.service.search.ListingResultCache;
+import com.autotrader.autotraderbackend.service.search.ListingSearchHits;
+import com.autotrader.autotraderbackend.service.search.ListingSearchIndex;
+import com.autotrader.autotraderbackend.service.search.LocationGeoIndex;
+import com.autotrader.autotraderbackend.service.search.TrendingListings;
 import com.autotrader.autotraderbackend.service.storage.StorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,12 +80,33 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CarListingService {
 
+    /**
+     * Pseudo sort field ranking keyword search results by relevance; requires a keyword.
+     */
+    public static final String RELEVANCE_SORT = "relevance";
+
+    /** Highest map zoom level accepted for clustering. */
+    public static final int MAX_CLUSTER_ZOOM = 22;
+
+    private static final int MAX_CLUSTER_PRECISION = 8;
+
     private final CarListingRepository carListingRepository;
     private final UserRepository userRepository;
     private final LocationRepository locationRepository;
     private final ListingMediaRepository listingMediaRepository;
     private final StorageService storageService;
     private final CarListingMapper carListingMapper;
+    private final ListingCountEstimator listingCountEstimator;
+    private final ListingSearchIndex listingSearchIndex;
+    private final ListingKeywordIndex listingKeywordIndex;
+    private final ListingCatalogLinker listingCatalogLinker;
+    private final ListingResultCache listingResultCache;
+    private final LocationGeoIndex locationGeoIndex;
+    private final ListingLocationCounts listingLocationCounts;
+    private final TrendingListings trendingListings;
+    private final ListingChanges listingChanges;
+    private final SavedSearchService savedSearchService;
+    private final ListingExporter listingExporter;
 
     /**
      * Pauses a car listing (sets isUserActive to false).
@@ -53,69 +114,29 @@ public class CarListingService {
      * @param listingId The ID of the car listing to pause.
      * @param username  The username of the user making the request.
      * @return The updated CarListingResponse.
+     * @throws IllegalStateException If the listing is not approved, sold, archived or already paused.
      */
     @Transactional
     public CarListingResponse pauseListing(Long listingId, String username) {
         log.info("User {} attempting to pause listing ID {}", username, listingId);
-        CarListing listing = findListingByIdAndAuthorize(listingId, username, "pause");
-
-        if (!listing.getApproved()) {
-            log.warn("User {} attempted to pause unapproved listing ID {}", username, listingId);
-            throw new IllegalStateException("Cannot pause a listing that is not yet approved.");
-        }
-        if (listing.getSold()) {
-            log.warn("User {} attempted to pause sold listing ID {}", username, listingId);
-            throw new IllegalStateException("Cannot pause a listing that has been marked as sold.");
-        }
-        if (listing.getArchived()) {
-            log.warn("User {} attempted to pause archived listing ID {}", username, listingId);
-            throw new IllegalStateException("Cannot pause a listing that has been archived.");
-        }
-        if (!listing.getIsUserActive()) {
-            log.warn("Listing ID {} is already paused by user {}. Throwing IllegalStateException.", listingId, username);
-            // throw new IllegalStateException("Listing with ID " + listingId + " is already paused."); // Old behavior was to return
-            throw new IllegalStateException("Listing with ID " + listingId + " is already paused.");
-        }
-
-        listing.setIsUserActive(false);
-        CarListing updatedListing = carListingRepository.save(listing);
+        CarListing updatedListing = transitionByOwner(ListingTransition.PAUSE, listingId, username).listing();
         log.info("Successfully paused listing ID {} by user {}", listingId, username);
         return carListingMapper.toCarListingResponse(updatedListing);
     }
 
     /**
-     * Resumes a car listing (sets isUserActive to true).
+     * Resumes a car listing (sets isUserActive to true). It stays hidden while the owner's
+     * account is deactivated.
      *
      * @param listingId The ID of the car listing to resume.
      * @param username  The username of the user making the request.
      * @return The updated CarListingResponse.
+     * @throws IllegalStateException If the listing is sold, archived or already active.
      */
     @Transactional
     public CarListingResponse resumeListing(Long listingId, String username) {
         log.info("User {} attempting to resume listing ID {}", username, listingId);
-        CarListing listing = findListingByIdAndAuthorize(listingId, username, "resume");
-
-        // Add similar checks as in pauseListing if needed, e.g., cannot resume if sold/archived by admin
-        // For now, we assume if a user can access it to resume, and it\'s theirs, it\'s permissible unless other flags prevent it.
-        if (listing.getSold()) {
-            log.warn("User {} attempted to resume sold listing ID {}", username, listingId);
-            throw new IllegalStateException("Cannot resume a listing that has been marked as sold.");
-        }
-        if (listing.getArchived()) {
-            // This check might be more nuanced. If a listing auto-expired and was archived,
-            // resuming might mean it needs to go through a renewal process.
-            // For now, a simple block if archived.
-            log.warn("User {} attempted to resume archived listing ID {}", username, listingId);
-            throw new IllegalStateException("Cannot resume a listing that has been archived. Please contact support or renew if applicable.");
-        }
-        if (listing.getIsUserActive()) {
-            log.warn("Listing ID {} is already active for user {}. Throwing IllegalStateException.", listingId, username);
-            // throw new IllegalStateException("Listing with ID " + listingId + " is already active."); // Old behavior was to return
-            throw new IllegalStateException("Listing with ID " + listingId + " is already active.");
-        }
-
-        listing.setIsUserActive(true);
-        CarListing updatedListing = carListingRepository.save(listing);
+        CarListing updatedListing = transitionByOwner(ListingTransition.RESUME, listingId, username).listing();
         log.info("Successfully resumed listing ID {} by user {}", listingId, username);
         return carListingMapper.toCarListingResponse(updatedListing);
     }
@@ -128,8 +149,9 @@ public class CarListingService {
         log.info("Attempting to create new listing for user: {}", username);
         User user = findUserByUsername(username);
 
-        CarListing carListing = buildCarListingFromRequest(request, user);
+        CarListing carListing = buildCarListingFromRequest(request, user, locationRepository::findById);
         // isSold and isArchived are set within buildCarListingFromRequest
+        listingCatalogLinker.link(carListing, request.getTrimId());
 
         CarListing savedListing = carListingRepository.save(carListing);
 
@@ -149,9 +171,9 @@ public class CarListingService {
                 media.setSortOrder(0);
                 media.setIsPrimary(true);
                 media.setMediaType("image");
+                // The listing is managed and its id came from the sequence, so the media row is
+                // cascaded in the same flush; a second save would only cost another merge
                 savedListing.addMedia(media);
-                
-                savedListing = carListingRepository.save(savedListing); // Save again to update with media
                 log.info("Successfully uploaded image for new listing ID: {}", savedListing.getId());
             } catch (StorageException e) {
                 // If image upload/update fails, log it but proceed with listing creation response
@@ -162,10 +184,49 @@ public class CarListingService {
             }
         }
 
+        listingChanges.listingSaved(savedListing);
         log.info("Successfully created new listing with ID: {} for user: {}", savedListing.getId(), username);
         return carListingMapper.toCarListingResponse(savedListing);
     }
 
+    /**
+     * Creates several listings for one seller in a single transaction. The seller, the
+     * locations and the catalog entries are each looked up once for the whole batch, and the
+     * listings are saved together so their inserts go out in JDBC batches.
+     *
+     * @param requests The listings to create, at most {@link BulkCreateListingsRequest#MAX_LISTINGS}.
+     * @param username The seller.
+     * @return The created listings, in request order.
+     * @throws ResourceNotFoundException If the user, a location or a trim does not exist.
+     * @throws IllegalArgumentException  If a trim does not belong to its listing's model.
+     */
+    @Transactional
+    public List<CarListingResponse> createListings(List<CreateListingRequest> requests, String username) {
+        log.info("Attempting to create {} listings for user: {}", requests.size(), username);
+        User user = findUserByUsername(username);
+
+        Set<Long> locationIds = requests.stream()
+                .map(CreateListingRequest::getLocationId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Location> locations = locationIds.isEmpty() ? Map.of()
+                : locationRepository.findAllById(locationIds).stream()
+                        .collect(Collectors.toMap(Location::getId, Function.identity()));
+
+        List<CarListing> listings = new ArrayList<>(requests.size());
+        List<Long> trimIds = new ArrayList<>(requests.size());
+        for (CreateListingRequest request : requests) {
+            listings.add(buildCarListingFromRequest(request, user, id -> Optional.ofNullable(locations.get(id))));
+            trimIds.add(request.getTrimId());
+        }
+        listingCatalogLinker.linkAll(listings, trimIds);
+
+        List<CarListing> savedListings = carListingRepository.saveAll(listings);
+        savedListings.forEach(listingChanges::listingSaved);
+        log.info("Successfully created {} listings for user: {}", savedListings.size(), username);
+        return savedListings.stream().map(carListingMapper::toCarListingResponse).toList();
+    }
+
     /**
      * Upload an image for a car listing.
      */
@@ -233,115 +294,383 @@ public class CarListingService {
     @Transactional(readOnly = true)
     public Page<CarListingResponse> getAllApprovedListings(Pageable pageable) {
         log.debug("Fetching approved, not sold, and not archived listings page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
-        
-        Specification<CarListing> spec = Specification.where(CarListingSpecification.isApproved())
-                                                     .and(CarListingSpecification.isNotSold())
-                                                     .and(CarListingSpecification.isNotArchived())
-                                                     .and(CarListingSpecification.isUserActive()); // Added isUserActive
-                                                     
-        Page<CarListing> listingPage = carListingRepository.findAll(spec, pageable);
+
+        Optional<Page<CarListingResponse>> indexed = searchIndex(new ListingFilterRequest(), null, CatalogFilter.NONE, pageable);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+
+        Page<CarListing> listingPage = carListingRepository.findAll(approvedActiveSpecification(), pageable);
         log.info("Found {} approved, not sold, not archived listings on page {}", listingPage.getNumberOfElements(), pageable.getPageNumber());
-        return listingPage.map(carListingMapper::toCarListingResponse);
+        return toResponsePage(listingPage);
+    }
+
+    /**
+     * Get approved, not sold and not archived listings using keyset (cursor) paging.
+     * Only the sort and page size of the pageable are used; the page number is ignored.
+     *
+     * @param after    Opaque cursor from a previous page, or null/blank for the first page.
+     * @param pageable Page size and a single whitelisted sort field.
+     * @return The next page of listings with the cursor to continue from.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CarListingResponse> getAllApprovedListingsByCursor(String after, Pageable pageable) {
+        log.debug("Fetching approved listings by cursor, size: {}, sort: {}", pageable.getPageSize(), pageable.getSort());
+        return findByCursor(approvedActiveSpecification(), after, pageable);
     }
 
     /**
      * Get filtered and approved listings based on criteria.
      * If isSold is not specified in filterRequest, defaults to false (not sold).
      * If isArchived is not specified in filterRequest, defaults to false (not archived).
+     * <p>
+     * The ids and total of each page are cached in {@link ListingResultCache}; listing
+     * changes made through this service evict the affected pages.
      */
     @Transactional(readOnly = true)
     public Page<CarListingResponse> getFilteredListings(ListingFilterRequest filterRequest, Pageable pageable) {
         log.debug("Fetching filtered listings with filter: {}, page: {}, size: {}",
                   filterRequest, pageable.getPageNumber(), pageable.getPageSize());
 
-        // --- SORT FIELD VALIDATION ---
-        if (pageable.getSort() != null && pageable.getSort().isSorted()) {
-            pageable.getSort().forEach(order -> {
-                String property = order.getProperty();
-                // If the property is a compound (e.g. "price,desc"), split and take the field
-                String[] sortParts = property.split(",");
-                String requestedField = sortParts[0];
-                if (!SortableCarListingField.isAllowed(requestedField)) {
-                    log.warn("Attempt to sort by non-whitelisted field: '{}'. Ignoring sort for this field.", requestedField);
-                    throw new IllegalArgumentException("Sorting by field '" + requestedField + "' is not allowed.");
-                }
-            });
+        boolean byRelevance = isRelevanceSort(filterRequest, pageable.getSort());
+        if (!byRelevance) {
+            validateSort(pageable.getSort());
         }
 
-        Specification<CarListing> spec;
-        Location locationToFilterBy = null;
-        boolean locationFilterAttempted = false;
-        String locationFilterType = "none"; // For logging
-
-        if (filterRequest.getLocationId() != null) {
-            locationFilterAttempted = true;
-            locationFilterType = "ID: " + filterRequest.getLocationId();
-            Optional<Location> locationOpt = locationRepository.findById(filterRequest.getLocationId());
-            if (locationOpt.isPresent()) {
-                locationToFilterBy = locationOpt.get();
-                log.info("Location found by ID: {}. Applying filter.", filterRequest.getLocationId());
-            } else {
-                log.warn("Location ID {} provided in filter but not found. No listings will match this location criterion.", filterRequest.getLocationId());
-                // locationToFilterBy remains null, spec will be set to disjunction
-            }
-        } else if (StringUtils.hasText(filterRequest.getLocation())) {
-            locationFilterAttempted = true;
-            locationFilterType = "slug: '" + filterRequest.getLocation() + "'";
-            Optional<Location> locationOpt = locationRepository.findBySlug(filterRequest.getLocation());
-            if (locationOpt.isPresent()) {
-                locationToFilterBy = locationOpt.get();
-                log.info("Location found by slug: '{}'. Applying filter.", filterRequest.getLocation());
-            } else {
-                log.warn("Location slug '{}' provided in filter but not found. No listings will match this location criterion.", filterRequest.getLocation());
-                // locationToFilterBy remains null, spec will be set to disjunction
+        String cacheKey = listingResultCache.keyFor(filterRequest, pageable);
+        if (cacheKey != null) {
+            Optional<ListingSearchHits> cached = listingResultCache.get(cacheKey);
+            if (cached.isPresent()) {
+                log.debug("Serving filtered listings page {} from the result cache", pageable.getPageNumber());
+                return toHitsPage(cached.get(), pageable);
             }
         }
+        long cacheStamp = listingResultCache.stamp();
 
-        if (locationFilterAttempted && locationToFilterBy == null) {
-            // A location filter was specified (ID or slug) but the location was not found.
-            // We should return an empty page result directly rather than using JPA filtering
-            log.info("Location filter ({}) resulted in no valid location. Returning empty page result.", locationFilterType);
-            
+        ResolvedFilter resolvedFilter = resolveFilter(filterRequest);
+        if (resolvedFilter.matchesNothing()) {
             // Return empty page immediately
             Page<CarListing> emptyPage = new PageImpl<>(Collections.emptyList(), pageable, 0);
-            log.info("Empty page returned for invalid location filter");
+            log.info("Empty page returned for invalid location filter or unmatched keyword");
             return emptyPage.map(carListingMapper::toCarListingResponse);
+        }
+
+        if (byRelevance) {
+            ListingSearchHits hits = rankByRelevance(resolvedFilter.keywordMatches(), pageable);
+            cacheResult(cacheKey, hits, filterRequest, resolvedFilter, cacheStamp);
+            return toHitsPage(hits, pageable);
+        }
+
+        if (!resolvedFilter.hasKeyword() && !resolvedFilter.hasGeoFilter()) {
+            Optional<ListingSearchHits> indexed = searchIndexHits(filterRequest, resolvedFilter.locationId(), resolvedFilter.catalog(), pageable);
+            if (indexed.isPresent()) {
+                cacheResult(cacheKey, indexed.get(), filterRequest, resolvedFilter, cacheStamp);
+                return toHitsPage(indexed.get(), pageable);
+            }
+        }
+
+        Page<CarListing> listingPage = carListingRepository.findAll(buildFilterSpecification(filterRequest, resolvedFilter), pageable);
+        log.info("Found {} filtered listings matching criteria on page {}",
+                 listingPage.getNumberOfElements(), pageable.getPageNumber());
+        List<Long> pageIds = listingPage.getContent().stream().map(CarListing::getId).collect(Collectors.toList());
+        cacheResult(cacheKey, new ListingSearchHits(pageIds, listingPage.getTotalElements()), filterRequest, resolvedFilter, cacheStamp);
+        return toResponsePage(listingPage);
+    }
+
+    /**
+     * Get filtered and approved listings using keyset (cursor) paging.
+     * Applies the same defaults as {@link #getFilteredListings(ListingFilterRequest, Pageable)}.
+     *
+     * @param filterRequest The filter criteria.
+     * @param after         Opaque cursor from a previous page, or null/blank for the first page.
+     * @param pageable      Page size and a single whitelisted sort field.
+     * @return The next page of listings with the cursor to continue from.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CarListingResponse> getFilteredListingsByCursor(ListingFilterRequest filterRequest, String after, Pageable pageable) {
+        log.debug("Fetching filtered listings by cursor with filter: {}, size: {}", filterRequest, pageable.getPageSize());
+
+        validateSort(pageable.getSort());
+
+        Optional<Specification<CarListing>> spec = buildFilterSpecification(filterRequest);
+        if (spec.isEmpty()) {
+            log.info("Empty cursor page returned for invalid location filter");
+            return new CursorPage<>(Collections.emptyList(), pageable.getPageSize(), false, null);
+        }
+        return findByCursor(spec.get(), after, pageable);
+    }
+
+    /**
+     * Get approved, not sold and not archived listings using the given count strategy.
+     * {@link CountStrategy#EXACT} behaves like {@link #getAllApprovedListings(Pageable)};
+     * {@link CountStrategy#NONE} returns a {@link Slice} without running a count query;
+     * {@link CountStrategy#APPROXIMATE} returns a {@link Page} whose total comes from a cached estimate.
+     */
+    @Transactional(readOnly = true)
+    public Slice<CarListingResponse> getAllApprovedListings(Pageable pageable, CountStrategy countStrategy) {
+        if (countStrategy == CountStrategy.EXACT || listingSearchIndex.isReady()) {
+            // The search index counts for free, so it always reports the exact total
+            return getAllApprovedListings(pageable);
+        }
+        log.debug("Fetching approved listings page: {}, size: {}, count strategy: {}",
+                  pageable.getPageNumber(), pageable.getPageSize(), countStrategy);
+        return findWithCountStrategy(approvedActiveSpecification(), "approved", pageable, countStrategy);
+    }
+
+    /**
+     * Get filtered and approved listings using the given count strategy.
+     * Applies the same defaults as {@link #getFilteredListings(ListingFilterRequest, Pageable)}.
+     *
+     * @see #getAllApprovedListings(Pageable, CountStrategy)
+     */
+    @Transactional(readOnly = true)
+    public Slice<CarListingResponse> getFilteredListings(ListingFilterRequest filterRequest, Pageable pageable, CountStrategy countStrategy) {
+        if (countStrategy == CountStrategy.EXACT || listingSearchIndex.isReady() || StringUtils.hasText(filterRequest.getKeyword())) {
+            // The search index counts for free, and keyword matches are capped, so both report the exact total
+            return getFilteredListings(filterRequest, pageable);
+        }
+        log.debug("Fetching filtered listings with filter: {}, page: {}, size: {}, count strategy: {}",
+                  filterRequest, pageable.getPageNumber(), pageable.getPageSize(), countStrategy);
+
+        validateSort(pageable.getSort());
+
+        Optional<Specification<CarListing>> spec = buildFilterSpecification(filterRequest);
+        if (spec.isEmpty()) {
+            log.info("Empty page returned for invalid location filter");
+            return new PageImpl<>(Collections.<CarListingResponse>emptyList(), pageable, 0);
+        }
+        return findWithCountStrategy(spec.get(), "filter:" + filterRequest.canonicalKey(), pageable, countStrategy);
+    }
+
+    /**
+     * Get filtered and approved listings as lightweight summaries for result cards.
+     * Applies the same filters, defaults and sort whitelist as
+     * {@link #getFilteredListings(ListingFilterRequest, Pageable)}, but reads only the
+     * card columns through a projection instead of hydrating {@link CarListing} entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<ListingSummaryResponse> getFilteredListingSummaries(ListingFilterRequest filterRequest, Pageable pageable) {
+        log.debug("Fetching filtered listing summaries with filter: {}, page: {}, size: {}",
+                  filterRequest, pageable.getPageNumber(), pageable.getPageSize());
+
+        boolean byRelevance = isRelevanceSort(filterRequest, pageable.getSort());
+        if (!byRelevance) {
+            validateSort(pageable.getSort());
+        }
+
+        ResolvedFilter resolvedFilter = resolveFilter(filterRequest);
+        if (resolvedFilter.matchesNothing()) {
+            log.info("Empty summary page returned for invalid location filter or unmatched keyword");
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+
+        Specification<CarListing> spec = buildFilterSpecification(filterRequest, resolvedFilter);
+        Page<ListingSummaryResponse> summaries;
+        if (byRelevance) {
+            ListingSearchHits hits = rankByRelevance(resolvedFilter.keywordMatches(), pageable);
+            Map<Long, ListingSummaryResponse> summariesById = carListingRepository
+                    .findSummaries(CarListingSpecification.idIn(hits.ids()), Pageable.unpaged()).stream()
+                    .collect(Collectors.toMap(ListingSummaryResponse::id, Function.identity()));
+            List<ListingSummaryResponse> ranked = hits.ids().stream()
+                    .map(summariesById::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            summaries = new PageImpl<>(ranked, pageable, hits.total());
         } else {
-            // Either no location filter was specified, or a valid location was found.
-            // Pass locationToFilterBy (which is null if no filter applied, or a valid Location object if found)
-            // CarListingSpecification.fromFilter handles a null locationToFilterBy gracefully (no location predicate added).
-            spec = CarListingSpecification.fromFilter(filterRequest, locationToFilterBy);
-            if (locationToFilterBy != null) {
-                log.info("Applying location filter for {}.", locationFilterType);
-            } else if (!locationFilterAttempted) {
-                log.info("No location ID or slug provided in filter. Proceeding without specific location entity filter.");
+            summaries = carListingRepository.findSummaries(spec, pageable);
+        }
+        log.info("Found {} listing summaries on page {}", summaries.getNumberOfElements(), pageable.getPageNumber());
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+
+        // One query for the card images of the whole page; results are ordered so the first key per listing wins
+        List<Long> ids = summaries.getContent().stream().map(ListingSummaryResponse::id).collect(Collectors.toList());
+        Map<Long, String> imageKeys = new LinkedHashMap<>();
+        for (ListingImageKey imageKey : listingMediaRepository.findImageKeysByListingIds(ids)) {
+            imageKeys.putIfAbsent(imageKey.listingId(), imageKey.fileKey());
+        }
+        return summaries.map(summary -> carListingMapper.withPrimaryImage(summary, imageKeys.get(summary.id())));
+    }
+
+    /**
+     * @return An opaque stamp read from the database that changes whenever a listing is
+     *         inserted, updated or deleted, on any instance, or passes its expiration date;
+     *         for clients caching results derived from the listings.
+     */
+    @Transactional(readOnly = true)
+    public String getListingDataVersion() {
+        return carListingRepository.findDataStamp(LocalDateTime.now()).toVersion();
+    }
+
+    /**
+     * Count the facets (brand, model, location, model-year range and price range) of the
+     * listings matching a filter, for the filter sidebar. Applies the same defaults as
+     * {@link #getFilteredListings(ListingFilterRequest, Pageable)}.
+     * <p>
+     * All counts come from one pass: a scan of the search index when it is ready and no
+     * keyword is given, otherwise a single grouped query.
+     */
+    @Transactional(readOnly = true)
+    public ListingFacetsResponse getListingFacets(ListingFilterRequest filterRequest) {
+        log.debug("Counting listing facets with filter: {}", filterRequest);
+
+        // Read before counting, so a change committing meanwhile can only make the stamp older than the data
+        String version = getListingDataVersion();
+        ListingFacetCounter counter = new ListingFacetCounter();
+        ResolvedFilter resolvedFilter = resolveFilter(filterRequest);
+        if (resolvedFilter.matchesNothing()) {
+            log.info("Empty facets returned for invalid location filter or unmatched keyword");
+            return counter.toResponse(version, Map.of());
+        }
+
+        // The search index does not know keyword matches or geo areas; those are restricted by id in the grouped query
+        boolean indexed = !resolvedFilter.hasKeyword() && !resolvedFilter.hasGeoFilter()
+                && listingSearchIndex.countFacets(filterRequest, resolvedFilter.locationId(), resolvedFilter.catalog(), counter);
+        if (!indexed) {
+            List<ListingFacetRow> rows = carListingRepository.findFacetRows(
+                    buildFilterSpecification(filterRequest, resolvedFilter), ListingFacetCounter.PRICE_BOUNDARIES);
+            for (ListingFacetRow row : rows) {
+                counter.addTotal(row.count());
+                counter.addBrand(row.brand(), row.count());
+                counter.addModel(row.model(), row.count());
+                counter.addLocation(row.locationId(), row.count());
+                counter.addModelYear(row.modelYear(), row.count());
+                for (int bucket = 0; bucket < row.priceBucketCounts().length; bucket++) {
+                    counter.addPriceBucket(bucket, row.priceBucketCounts()[bucket]);
+                }
             }
         }
 
-        // Always combine with the 'approved' status filter
-        spec = spec.and(CarListingSpecification.isApproved());
-        // Also filter by user active status
-        spec = spec.and(CarListingSpecification.isUserActive());
+        Map<Long, Location> locationsById = counter.locationIds().isEmpty() ? Map.of()
+                : locationRepository.findAllById(counter.locationIds()).stream()
+                        .collect(Collectors.toMap(Location::getId, Function.identity()));
+        ListingFacetsResponse facets = counter.toResponse(version, locationsById);
+        log.info("Counted facets for {} matching listings (version {})", facets.total(), version);
+        return facets;
+    }
 
-        // Apply isSold and isArchived filters
-        // If not specified in the request, default to showing NOT sold and NOT archived listings.
-        if (filterRequest.getIsSold() == null) {
-            spec = spec.and(CarListingSpecification.isNotSold());
-            log.debug("Defaulting filter to isSold=false as it was not specified.");
+    /**
+     * Groups the listings matching a filter into map clusters by the geohash cell of their
+     * location. Listings are counted per location and the counts rolled up into cells, so
+     * individual listings are never read: a filter restricting only where listings are
+     * (location, radius or box) is answered from the precomputed per-location counts, other
+     * filters from the search index or a query grouped by location.
+     *
+     * @param zoom Map zoom level, 0 to {@value #MAX_CLUSTER_ZOOM}; higher levels give smaller cells.
+     * @throws IllegalArgumentException If the zoom level is out of range or the filter is invalid.
+     */
+    @Transactional(readOnly = true)
+    public ListingClustersResponse getListingClusters(ListingFilterRequest filterRequest, int zoom) {
+        log.debug("Clustering listings at zoom {} with filter: {}", zoom, filterRequest);
+        int precision = geohashPrecisionForZoom(zoom);
+        ResolvedFilter resolvedFilter = resolveFilter(filterRequest);
+        if (resolvedFilter.matchesNothing()) {
+            log.info("Empty clusters returned for invalid location filter or unmatched keyword");
+            return new ListingClustersResponse(precision, 0, List.of());
         }
-        // If isSold IS specified, the CarListingSpecification.fromFilter will have already added it.
 
-        if (filterRequest.getIsArchived() == null) {
-            spec = spec.and(CarListingSpecification.isNotArchived());
-            log.debug("Defaulting filter to isArchived=false as it was not specified.");
+        Map<Long, Long> countsByLocation = countListingsByLocation(filterRequest, resolvedFilter);
+        Map<Long, LocationGeoIndex.Coordinates> coordinates = locationGeoIndex.coordinatesOf(countsByLocation.keySet());
+        Map<String, ClusterTally> tallies = new HashMap<>();
+        countsByLocation.forEach((locationId, count) -> {
+            LocationGeoIndex.Coordinates point = coordinates.get(locationId);
+            if (point != null) {
+                tallies.computeIfAbsent(point.geohash().substring(0, precision), cell -> new ClusterTally()).add(locationId, point, count);
+            }
+        });
+
+        List<ListingClustersResponse.Cluster> clusters = tallies.entrySet().stream()
+                .map(entry -> entry.getValue().toCluster(entry.getKey()))
+                .sorted(Comparator.comparingLong(ListingClustersResponse.Cluster::count).reversed()
+                        .thenComparing(ListingClustersResponse.Cluster::geohash))
+                .toList();
+        long total = clusters.stream().mapToLong(ListingClustersResponse.Cluster::count).sum();
+        log.info("Clustered {} listings into {} cells at zoom {}", total, clusters.size(), zoom);
+        return new ListingClustersResponse(precision, total, clusters);
+    }
+
+    /**
+     * Gets the trending listings, optionally of one location and / or catalog brand, as ranked
+     * in memory by {@link TrendingListings}; only the listings returned are read, by id. The
+     * ranking is refreshed periodically, so listings hidden since are skipped and fewer than
+     * {@code size} listings may be returned.
+     *
+     * @param locationSlug The location slug, or null / blank for all locations.
+     * @param brandSlug    The catalog brand slug, or null / blank for all brands.
+     * @param size         The number of listings, 1 to the configured trending size.
+     * @return The listings, most trending first; empty if a slug is unknown.
+     * @throws IllegalArgumentException If the size is out of range.
+     */
+    @Transactional(readOnly = true)
+    public List<CarListingResponse> getTrendingListings(String locationSlug, String brandSlug, int size) {
+        if (size < 1 || size > trendingListings.size()) {
+            throw new IllegalArgumentException("size must be between 1 and " + trendingListings.size() + ".");
+        }
+        Long locationId = null;
+        if (StringUtils.hasText(locationSlug)) {
+            Optional<Location> location = locationRepository.findBySlug(locationSlug);
+            if (location.isEmpty()) {
+                log.warn("Location slug '{}' requested for trending listings but not found.", locationSlug);
+                return List.of();
+            }
+            locationId = location.get().getId();
+        }
+        Long brandId = null;
+        if (StringUtils.hasText(brandSlug)) {
+            Set<Long> brandIds = listingCatalogLinker.findBrandIdsBySlugs(List.of(brandSlug));
+            if (brandIds.isEmpty()) {
+                log.warn("Brand slug '{}' requested for trending listings but not found.", brandSlug);
+                return List.of();
+            }
+            brandId = brandIds.iterator().next();
         }
-        // If isArchived IS specified, the CarListingSpecification.fromFilter will have already added it.
 
+        List<Long> ids = trendingListings.top(locationId, brandId, size);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, CarListing> listings = carListingRepository.findWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(CarListing::getId, Function.identity(), (first, second) -> first));
+        LocalDateTime now = LocalDateTime.now();
+        return ids.stream()
+                .map(listings::get)
+                .filter(listing -> listing != null && isPubliclyVisible(listing, now))
+                .map(carListingMapper::toCarListingResponse)
+                .collect(Collectors.toList());
+    }
 
-        Page<CarListing> listingPage = carListingRepository.findAll(spec, pageable);
-        log.info("Found {} filtered listings matching criteria on page {} (Location filter used: {})",
-                 listingPage.getNumberOfElements(), pageable.getPageNumber(), locationFilterType);
-        return listingPage.map(carListingMapper::toCarListingResponse);
+    /**
+     * Prepares a streaming export of the listings matching a filter, in id order. Applies the
+     * same defaults as {@link #getFilteredListings(ListingFilterRequest, Pageable)}. The
+     * filter is resolved here, so invalid criteria fail before anything is written; the
+     * listings are only read while the returned body is written, in its own transaction.
+     *
+     * @param afterId Last listing id the client already has, to resume an export; null to start at the beginning.
+     * @throws IllegalArgumentException If the filter is invalid.
+     */
+    public StreamingResponseBody prepareExport(ListingFilterRequest filterRequest, ListingExportFormat format, Long afterId) {
+        log.debug("Preparing {} export after id {} with filter: {}", format, afterId, filterRequest);
+        // A filter that cannot match still produces a well-formed (empty) export
+        Specification<CarListing> spec = buildFilterSpecification(filterRequest)
+                .orElseGet(() -> CarListingSpecification.idIn(List.of()));
+        return out -> listingExporter.export(spec, afterId, format, out);
+    }
+
+    /**
+     * Links every listing not yet linked to the brand / model catalog whose text matches it,
+     * e.g. after brands or models were added. Rebuilds the search index and drops cached
+     * results if anything changed, since the links are set in bulk.
+     *
+     * @return The number of brand and model links set.
+     */
+    public int backfillCatalogLinks() {
+        int linked = listingCatalogLinker.backfill();
+        if (linked > 0) {
+            listingSearchIndex.rebuild();
+            listingResultCache.clear();
+        }
+        return linked;
     }
 
     /**
@@ -355,13 +684,52 @@ public class CarListingService {
         User user = findUserByUsername(username);
         List<CarListing> listings = carListingRepository.findBySeller(user);
         log.info("Found {} listings for user: {}", listings.size(), username);
-        return listings.stream()
-                .map(carListingMapper::toCarListingResponse)
-                .collect(Collectors.toList());
+        return toResponses(listings);
+    }
+
+    /**
+     * Get one page of the user's own listings using keyset (cursor) paging, optionally only
+     * those with one status. Unlike {@link #getMyListings(String)}, only the listings of the
+     * page are loaded and mapped, so the cost does not grow with the size of the inventory.
+     *
+     * @param username The owner.
+     * @param status   The status to list, or null for all.
+     * @param after    Opaque cursor from a previous page, or null/blank for the first page.
+     * @param pageable Page size and a single whitelisted sort field.
+     * @return The next page of listings with the cursor to continue from.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CarListingResponse> getMyListings(String username, ListingStatus status, String after, Pageable pageable) {
+        log.debug("Fetching {} listings for user: {} by cursor, size: {}",
+                  status != null ? status : "all", username, pageable.getPageSize());
+        validateSort(pageable.getSort());
+        User user = findUserByUsername(username);
+        Specification<CarListing> spec = CarListingSpecification.hasSeller(user.getId());
+        if (status != null) {
+            spec = spec.and(CarListingSpecification.hasStatus(status));
+        }
+        return findByCursor(spec, after, pageable);
+    }
+
+    /**
+     * Counts the user's listings per status with one grouped query. Every status is present,
+     * with 0 when the user has no listing in it.
+     */
+    @Transactional(readOnly = true)
+    public Map<ListingStatus, Long> getMyListingCounts(String username) {
+        User user = findUserByUsername(username);
+        Map<ListingStatus, Long> counts = new EnumMap<>(ListingStatus.class);
+        for (ListingStatus status : ListingStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (ListingStatusCount row : carListingRepository.countStatusesBySellerId(user.getId())) {
+            counts.merge(ListingStatus.of(row.approved(), row.sold(), row.archived(), row.userActive()), row.count(), Long::sum);
+        }
+        return counts;
     }
 
     /**
-     * Approve a car listing.
+     * Approve a car listing. Owners of saved searches matching it are notified.
      */
     @Transactional
     public CarListingResponse approveListing(Long id) {
@@ -376,6 +744,8 @@ public class CarListingService {
         carListing.setApproved(true);
 
         CarListing approvedListing = carListingRepository.save(carListing);
+        listingChanges.listingSaved(approvedListing);
+        savedSearchService.queueMatches(approvedListing);
         log.info("Successfully approved listing ID: {}", approvedListing.getId());
 
         return carListingMapper.toCarListingResponse(approvedListing);
@@ -390,6 +760,8 @@ public class CarListingService {
      * @return The updated CarListingResponse
      * @throws ResourceNotFoundException If the listing does not exist
      * @throws SecurityException If the user does not own the listing
+     * @throws ObjectOptimisticLockingFailureException If the request carries a version and the
+     *                                                 listing has changed since
      */
     @Transactional
     public CarListingResponse updateListing(Long id, UpdateListingRequest request, String username) {
@@ -404,6 +776,15 @@ public class CarListingService {
                     username, id, existingListing.getSeller().getUsername());
             throw new SecurityException("You are not authorized to update this listing");
         }
+        // The entity version guards against updates racing in this transaction; the request
+        // version against the listing changing while the client was editing it
+        if (request.getVersion() != null && !request.getVersion().equals(existingListing.getVersion())) {
+            log.warn("User {} sent version {} of listing {}, which is at version {}",
+                    username, request.getVersion(), id, existingListing.getVersion());
+            throw new ObjectOptimisticLockingFailureException(CarListing.class, id);
+        }
+        // Brand and location may change: report what the listing was before
+        listingChanges.listingChanging(existingListing);
         
         // Update only non-null fields
         if (request.getTitle() != null) {
@@ -446,6 +827,9 @@ public class CarListingService {
         if (request.getTransmission() != null) {
             existingListing.setTransmission(request.getTransmission());
         }
+        if (request.getBrand() != null || request.getModel() != null || request.getTrimId() != null) {
+            listingCatalogLinker.link(existingListing, request.getTrimId());
+        }
 
         // Update isSold and isArchived if provided in the request
         if (request.getIsSold() != null) {
@@ -456,6 +840,8 @@ public class CarListingService {
         }
         
         CarListing updatedListing = carListingRepository.save(existingListing);
+        
+        listingChanges.listingSaved(updatedListing);
         log.info("Successfully updated listing ID: {} by user: {}", id, username);
         
         return carListingMapper.toCarListingResponse(updatedListing);
@@ -498,6 +884,7 @@ public class CarListingService {
         
         // Delete the listing
         carListingRepository.delete(existingListing);
+        listingChanges.listingDeleted(existingListing);
         log.info("Successfully deleted listing with ID: {}", id);
     }
     
@@ -529,6 +916,7 @@ public class CarListingService {
         
         // Delete the listing
         carListingRepository.delete(existingListing);
+        listingChanges.listingDeleted(existingListing);
         log.info("Admin successfully deleted listing with ID: {}", id);
     }
 
@@ -537,66 +925,42 @@ public class CarListingService {
      *
      * @param listingId The ID of the car listing to mark as sold.
      * @param username  The username of the user making the request.
-     * @return The updated CarListingResponse.
+     * @return The updated CarListingResponse, or the current state if the listing is already sold.
      * @throws ResourceNotFoundException If the listing does not exist.
      * @throws SecurityException         If the user does not own the listing.
-     * @throws IllegalStateException     If the listing is already sold or archived.
+     * @throws IllegalStateException     If the listing is archived.
      */
     @Transactional
     public CarListingResponse markListingAsSold(Long listingId, String username) {
         log.info("User {} attempting to mark listing ID {} as sold", username, listingId);
-        CarListing listing = findListingByIdAndAuthorize(listingId, username, "mark as sold");
-
-        if (Boolean.TRUE.equals(listing.getArchived())) {
-            log.warn("Attempt to mark archived listing ID {} as sold by user {}", listingId, username);
-            throw new IllegalStateException("Cannot mark an archived listing as sold. Please unarchive first.");
-        }
-        if (Boolean.TRUE.equals(listing.getSold())) {
+        TransitionResult result = transitionByOwner(ListingTransition.MARK_SOLD, listingId, username);
+        if (result.changed()) {
+            log.info("Successfully marked listing ID {} as sold by user {}", listingId, username);
+        } else {
             log.warn("Listing ID {} is already marked as sold. No action taken by user {}.", listingId, username);
-            // Optionally, could return current state or throw specific exception
-            // For now, let's treat it as a successful no-op if already sold and not archived.
-            return carListingMapper.toCarListingResponse(listing);
         }
-
-        listing.setSold(true);
-        CarListing updatedListing = carListingRepository.save(listing);
-        log.info("Successfully marked listing ID {} as sold by user {}", listingId, username);
-        return carListingMapper.toCarListingResponse(updatedListing);
+        return carListingMapper.toCarListingResponse(result.listing());
     }
 
     /**
      * Marks a car listing as sold (admin-only).
      *
      * @param listingId The ID of the car listing to mark as sold.
-     * @return The updated CarListingResponse.
+     * @return The updated CarListingResponse, or the current state if the listing is already sold.
      * @throws ResourceNotFoundException If the listing does not exist.
      * @throws IllegalStateException     If the listing is archived (can't mark archived listings as sold).
      */
     @Transactional
     public CarListingResponse markListingAsSoldByAdmin(Long listingId) {
         log.info("Admin attempting to mark listing ID {} as sold", listingId);
-        CarListing listing = carListingRepository.findById(listingId)
-                .orElseThrow(() -> {
-                    log.warn("Admin mark as sold failed: Listing not found with ID: {}", listingId);
-                    return new ResourceNotFoundException("Car Listing", "id", listingId.toString());
-                });
-
-        if (Boolean.TRUE.equals(listing.getArchived())) {
-            log.warn("Admin attempt to mark archived listing ID {} as sold", listingId);
-            throw new IllegalStateException("Cannot mark an archived listing as sold. Please unarchive first.");
-        }
-
-        CarListingResponse response;
-        if (Boolean.TRUE.equals(listing.getSold())) {
-            log.warn("Listing ID {} is already marked as sold. No action taken by admin.", listingId);
-            // Return current state as successful no-op
-            response = carListingMapper.toCarListingResponseForAdmin(listing);
-        } else {
-            listing.setSold(true);
-            CarListing updatedListing = carListingRepository.save(listing);
+        TransitionResult result = transitionByAdmin(ListingTransition.MARK_SOLD, listingId);
+        CarListing listing = result.listing();
+        if (result.changed()) {
             log.info("Admin successfully marked listing ID {} as sold", listingId);
-            response = carListingMapper.toCarListingResponseForAdmin(updatedListing);
+        } else {
+            log.warn("Listing ID {} is already marked as sold. No action taken by admin.", listingId);
         }
+        CarListingResponse response = carListingMapper.toCarListingResponseForAdmin(listing);
         // Defensive: never return null
         if (response == null) {
             log.error("carListingMapper.toCarListingResponseForAdmin returned null for listing ID {}. Returning minimal response.", listingId);
@@ -613,55 +977,39 @@ public class CarListingService {
      *
      * @param listingId The ID of the car listing to archive.
      * @param username  The username of the user making the request.
-     * @return The updated CarListingResponse.
+     * @return The updated CarListingResponse, or the current state if the listing is already archived.
      * @throws ResourceNotFoundException If the listing does not exist.
      * @throws SecurityException         If the user does not own the listing.
-     * @throws IllegalStateException     If the listing is already archived.
      */
     @Transactional
     public CarListingResponse archiveListing(Long listingId, String username) {
         log.info("User {} attempting to archive listing ID {}", username, listingId);
-        CarListing listing = findListingByIdAndAuthorize(listingId, username, "archive");
-
-        if (Boolean.TRUE.equals(listing.getArchived())) {
+        TransitionResult result = transitionByOwner(ListingTransition.ARCHIVE, listingId, username);
+        if (result.changed()) {
+            log.info("Successfully archived listing ID {} by user {}", listingId, username);
+        } else {
             log.warn("Listing ID {} is already archived. No action taken by user {}.", listingId, username);
-            return carListingMapper.toCarListingResponse(listing); // Idempotent
         }
-
-        listing.setArchived(true);
-        // Optionally, consider if archiving should also mark it as "not sold" if it was sold.
-        // For now, archiving is independent of the sold status.
-        CarListing updatedListing = carListingRepository.save(listing);
-        log.info("Successfully archived listing ID {} by user {}", listingId, username);
-        return carListingMapper.toCarListingResponse(updatedListing);
+        return carListingMapper.toCarListingResponse(result.listing());
     }
 
     /**
      * Archives a car listing (admin-only).
      *
      * @param listingId The ID of the car listing to archive.
-     * @return The updated CarListingResponse.
+     * @return The updated CarListingResponse, or the current state if the listing is already archived.
      * @throws ResourceNotFoundException If the listing does not exist.
-     * @throws IllegalStateException     If the listing is already archived.
      */
     @Transactional
     public CarListingResponse archiveListingByAdmin(Long listingId) {
         log.info("Admin attempting to archive listing ID {}", listingId);
-        CarListing listing = carListingRepository.findById(listingId)
-                .orElseThrow(() -> {
-                    log.warn("Admin archive failed: Listing not found with ID: {}", listingId);
-                    return new ResourceNotFoundException("Car Listing", "id", listingId.toString());
-                });
-
-        if (Boolean.TRUE.equals(listing.getArchived())) {
+        TransitionResult result = transitionByAdmin(ListingTransition.ARCHIVE, listingId);
+        if (result.changed()) {
+            log.info("Admin successfully archived listing ID {}", listingId);
+        } else {
             log.warn("Listing ID {} is already archived. No action taken by admin.", listingId);
-            return carListingMapper.toCarListingResponse(listing); // Idempotent
         }
-
-        listing.setArchived(true);
-        CarListing updatedListing = carListingRepository.save(listing);
-        log.info("Admin successfully archived listing ID {}", listingId);
-        return carListingMapper.toCarListingResponse(updatedListing);
+        return carListingMapper.toCarListingResponse(result.listing());
     }
 
     /**
@@ -677,15 +1025,7 @@ public class CarListingService {
     @Transactional
     public CarListingResponse unarchiveListing(Long listingId, String username) {
         log.info("User {} attempting to unarchive listing ID {}", username, listingId);
-        CarListing listing = findListingByIdAndAuthorize(listingId, username, "unarchive");
-
-        if (!Boolean.TRUE.equals(listing.getArchived())) {
-            log.warn("Listing ID {} is not archived. No action taken for unarchive by user {}.", listingId, username);
-            throw new IllegalStateException("Listing with ID " + listingId + " is not currently archived.");
-        }
-
-        listing.setArchived(false);
-        CarListing updatedListing = carListingRepository.save(listing);
+        CarListing updatedListing = transitionByOwner(ListingTransition.UNARCHIVE, listingId, username).listing();
         log.info("Successfully unarchived listing ID {} by user {}", listingId, username);
         return carListingMapper.toCarListingResponse(updatedListing);
     }
@@ -701,25 +1041,569 @@ public class CarListingService {
     @Transactional
     public CarListingResponse unarchiveListingByAdmin(Long listingId) {
         log.info("Admin attempting to unarchive listing ID {}", listingId);
-        CarListing listing = carListingRepository.findById(listingId)
+        CarListing updatedListing = transitionByAdmin(ListingTransition.UNARCHIVE, listingId).listing();
+        log.info("Admin successfully unarchived listing ID {}", listingId);
+        return carListingMapper.toCarListingResponse(updatedListing);
+    }
+
+    /**
+     * Applies a transition to a listing of the given user; see {@link #transition}.
+     */
+    private TransitionResult transitionByOwner(ListingTransition transition, Long listingId, String username) {
+        User user = findUserByUsername(username);
+        return transition(transition, listingId, user, this::findListingById);
+    }
+
+    /**
+     * Applies a transition to any listing; see {@link #transition}.
+     */
+    private TransitionResult transitionByAdmin(ListingTransition transition, Long listingId) {
+        return transition(transition, listingId, null, id -> carListingRepository.findById(id)
                 .orElseThrow(() -> {
-                    log.warn("Admin unarchive failed: Listing not found with ID: {}", listingId);
-                    return new ResourceNotFoundException("Car Listing", "id", listingId.toString());
-                });
+                    log.warn("Admin {} failed: Listing not found with ID: {}", transition.action(), id);
+                    return new ResourceNotFoundException("Car Listing", "id", id.toString());
+                }));
+    }
 
-        if (!Boolean.TRUE.equals(listing.getArchived())) {
-            log.warn("Listing ID {} is not archived. No action taken for unarchive by admin.", listingId);
-            throw new IllegalStateException("Listing with ID " + listingId + " is not currently archived.");
+    /**
+     * Runs a transition as one compare-and-set UPDATE, then loads the listing for the
+     * response. When the UPDATE changed nothing, the listing tells why: it is missing (404),
+     * someone else's (403), already in the target state (an idempotent no-op) or in a state
+     * the transition is not allowed from (409).
+     *
+     * @param owner  The user who must own the listing, or null for admins.
+     * @param loader Loads the listing, throwing ResourceNotFoundException if it is missing.
+     */
+    private TransitionResult transition(ListingTransition transition, Long listingId, User owner,
+                                        Function<Long, CarListing> loader) {
+        int updated = transition.apply(carListingRepository, listingId, owner != null ? owner.getId() : null, LocalDateTime.now());
+        CarListing listing = loader.apply(listingId);
+        if (updated == 0) {
+            if (owner != null) {
+                authorizeListingModification(listing, owner, transition.action());
+            }
+            try {
+                transition.checkUnchanged(listing);
+            } catch (IllegalStateException e) {
+                log.warn("Cannot {} listing ID {}: {}", transition.action(), listingId, e.getMessage());
+                throw e;
+            }
+            return new TransitionResult(listing, false);
         }
+        listingChanges.listingSaved(listing);
+        return new TransitionResult(listing, true);
+    }
 
-        listing.setArchived(false);
-        CarListing updatedListing = carListingRepository.save(listing);
-        log.info("Admin successfully unarchived listing ID {}", listingId);
-        return carListingMapper.toCarListingResponse(updatedListing);
+    /**
+     * A listing after a transition, and whether the transition changed it.
+     */
+    private record TransitionResult(CarListing listing, boolean changed) {
     }
     
     // --- Helper Methods ---
 
+    /**
+     * In-memory counterpart of {@link #approvedActiveSpecification()}.
+     */
+    private static boolean isPubliclyVisible(CarListing listing, LocalDateTime now) {
+        return Boolean.TRUE.equals(listing.getApproved())
+                && !Boolean.TRUE.equals(listing.getSold())
+                && !Boolean.TRUE.equals(listing.getArchived())
+                && Boolean.TRUE.equals(listing.getIsUserActive())
+                && (listing.getExpirationDate() == null || listing.getExpirationDate().isAfter(now));
+    }
+
+    private Specification<CarListing> approvedActiveSpecification() {
+        return Specification.where(CarListingSpecification.isApproved())
+                .and(CarListingSpecification.isNotSold())
+                .and(CarListingSpecification.isNotArchived())
+                .and(CarListingSpecification.isNotExpired())
+                .and(CarListingSpecification.isUserActive());
+    }
+
+    private void validateSort(Sort sort) {
+        if (sort != null && sort.isSorted()) {
+            sort.forEach(order -> {
+                String property = order.getProperty();
+                // If the property is a compound (e.g. "price,desc"), split and take the field
+                String[] sortParts = property.split(",");
+                String requestedField = sortParts[0];
+                if (!SortableCarListingField.isAllowed(requestedField)) {
+                    log.warn("Attempt to sort by non-whitelisted field: '{}'. Ignoring sort for this field.", requestedField);
+                    throw new IllegalArgumentException("Sorting by field '" + requestedField + "' is not allowed.");
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns true if the sort ranks keyword results by relevance, which must be the only
+     * order and needs a keyword.
+     */
+    private boolean isRelevanceSort(ListingFilterRequest filterRequest, Sort sort) {
+        boolean relevance = sort.stream().anyMatch(order -> RELEVANCE_SORT.equals(order.getProperty().split(",")[0]));
+        if (!relevance) {
+            return false;
+        }
+        if (!StringUtils.hasText(filterRequest.getKeyword())) {
+            throw new IllegalArgumentException("Sorting by relevance requires a keyword.");
+        }
+        if (sort.stream().count() > 1) {
+            throw new IllegalArgumentException("Sorting by relevance cannot be combined with other sort fields.");
+        }
+        return true;
+    }
+
+    /**
+     * Criteria of a filter request resolved before querying: the location and catalog slugs
+     * against the database, the radius / bounding box against the location geo index and
+     * the keyword against the keyword index.
+     *
+     * @param locationRequested True if the request filtered by location id or slug.
+     * @param location          The resolved location, or null if none was requested or it did not resolve.
+     * @param catalog           The requested brand / model / trim ids, slugs resolved.
+     * @param geoLocationIds    Ids of the locations inside the requested radius and/or box, or null if none was given.
+     * @param keywordMatches    Ids matching the keyword and passing the other criteria, most relevant first,
+     *                          or null if no keyword was given.
+     */
+    private record ResolvedFilter(boolean locationRequested, Location location, CatalogFilter catalog,
+                                  Set<Long> geoLocationIds, List<Long> keywordMatches) {
+        /**
+         * @return true if no listing can match: a location was requested but not found,
+         *         only unknown catalog slugs were requested, no location lies in the requested
+         *         area, or the keyword matched nothing.
+         */
+        boolean matchesNothing() {
+            return (locationRequested && location == null) || catalog.matchesNothing()
+                    || (geoLocationIds != null && geoLocationIds.isEmpty())
+                    || (keywordMatches != null && keywordMatches.isEmpty());
+        }
+
+        boolean hasKeyword() {
+            return keywordMatches != null;
+        }
+
+        ResolvedFilter withKeywordMatches(List<Long> matches) {
+            return new ResolvedFilter(locationRequested, location, catalog, geoLocationIds, matches);
+        }
+
+        boolean hasGeoFilter() {
+            return geoLocationIds != null;
+        }
+
+        Long locationId() {
+            return location != null ? location.getId() : null;
+        }
+    }
+
+    /**
+     * Counts the listings matching a resolved filter per location.
+     */
+    private Map<Long, Long> countListingsByLocation(ListingFilterRequest filterRequest, ResolvedFilter resolvedFilter) {
+        if (resolvedFilter.hasKeyword()) {
+            // Only the database knows which keyword matches pass the other criteria
+            return carListingRepository.countByLocation(buildFilterSpecification(filterRequest, resolvedFilter));
+        }
+        Optional<Map<Long, Long>> counts = filterRequest.hasListingCriteria()
+                ? listingSearchIndex.countByLocation(filterRequest, resolvedFilter.locationId(), resolvedFilter.catalog())
+                : Optional.of(listingLocationCounts.snapshot());
+        if (counts.isEmpty()) {
+            return carListingRepository.countByLocation(buildFilterSpecification(filterRequest, resolvedFilter));
+        }
+        // Location and geo criteria only select locations, so they can be applied to the counts
+        Map<Long, Long> countsByLocation = counts.get();
+        if (resolvedFilter.location() != null) {
+            countsByLocation.keySet().retainAll(Set.of(resolvedFilter.locationId()));
+        }
+        if (resolvedFilter.hasGeoFilter()) {
+            countsByLocation.keySet().retainAll(resolvedFilter.geoLocationIds());
+        }
+        return countsByLocation;
+    }
+
+    /**
+     * Picks the geohash precision for a map zoom level: the longest hash whose cells are
+     * still about a quarter of a map tile wide, so a viewport shows a few clusters per tile.
+     */
+    static int geohashPrecisionForZoom(int zoom) {
+        if (zoom < 0 || zoom > MAX_CLUSTER_ZOOM) {
+            throw new IllegalArgumentException("Zoom must be between 0 and " + MAX_CLUSTER_ZOOM + ".");
+        }
+        int precision = 1;
+        // A hash of length p splits longitude into 2^ceil(5p/2) cells, a zoom level into 2^zoom tiles
+        while (precision < MAX_CLUSTER_PRECISION && (5 * (precision + 1) + 1) / 2 <= zoom + 2) {
+            precision++;
+        }
+        return precision;
+    }
+
+    /**
+     * Listing count and count-weighted coordinate sums of the locations in one cluster.
+     */
+    private static final class ClusterTally {
+        private long count;
+        private double latitudeSum;
+        private double longitudeSum;
+        private int locationCount;
+        private Long locationId;
+
+        void add(Long id, LocationGeoIndex.Coordinates point, long listings) {
+            count += listings;
+            latitudeSum += point.latitude() * listings;
+            longitudeSum += point.longitude() * listings;
+            locationCount++;
+            locationId = id;
+        }
+
+        ListingClustersResponse.Cluster toCluster(String geohash) {
+            return new ListingClustersResponse.Cluster(geohash, latitudeSum / count, longitudeSum / count, count,
+                    locationCount, locationCount == 1 ? locationId : null);
+        }
+    }
+
+    private ResolvedFilter resolveFilter(ListingFilterRequest filterRequest) {
+        ResolvedFilter resolvedFilter = resolveStructuredFilter(filterRequest);
+        if (!StringUtils.hasText(filterRequest.getKeyword()) || resolvedFilter.matchesNothing()) {
+            return resolvedFilter;
+        }
+        // Keyword matches are capped, so the other criteria are applied before the cap, a chunk of matches at a time
+        Specification<CarListing> spec = buildFilterSpecification(filterRequest, resolvedFilter);
+        List<Long> keywordMatches = listingKeywordIndex.search(filterRequest.getKeyword(),
+                ids -> carListingRepository.findIds(spec.and(CarListingSpecification.idIn(ids))));
+        log.info("Keyword '{}' matched {} listings passing the filter.", filterRequest.getKeyword(), keywordMatches.size());
+        return resolvedFilter.withKeywordMatches(keywordMatches);
+    }
+
+    /**
+     * Resolves the criteria of a filter other than the keyword.
+     */
+    private ResolvedFilter resolveStructuredFilter(ListingFilterRequest filterRequest) {
+        CatalogFilter catalog = resolveCatalog(filterRequest);
+        Set<Long> geoLocationIds = resolveGeoLocations(filterRequest);
+        if (filterRequest.getLocationId() != null) {
+            Optional<Location> locationOpt = locationRepository.findById(filterRequest.getLocationId());
+            if (locationOpt.isPresent()) {
+                log.info("Location found by ID: {}. Applying filter.", filterRequest.getLocationId());
+            } else {
+                log.warn("Location ID {} provided in filter but not found. No listings will match this location criterion.", filterRequest.getLocationId());
+            }
+            return new ResolvedFilter(true, locationOpt.orElse(null), catalog, geoLocationIds, null);
+        }
+        if (StringUtils.hasText(filterRequest.getLocation())) {
+            Optional<Location> locationOpt = locationRepository.findBySlug(filterRequest.getLocation());
+            if (locationOpt.isPresent()) {
+                log.info("Location found by slug: '{}'. Applying filter.", filterRequest.getLocation());
+            } else {
+                log.warn("Location slug '{}' provided in filter but not found. No listings will match this location criterion.", filterRequest.getLocation());
+            }
+            return new ResolvedFilter(true, locationOpt.orElse(null), catalog, geoLocationIds, null);
+        }
+        return new ResolvedFilter(false, null, catalog, geoLocationIds, null);
+    }
+
+    /**
+     * Resolves the radius and bounding-box criteria of a filter to the ids of the locations
+     * inside the area (both, if both are given).
+     *
+     * @return The location ids, or null if the filter has no geo criteria.
+     * @throws IllegalArgumentException If a criterion is incomplete or out of range.
+     */
+    private Set<Long> resolveGeoLocations(ListingFilterRequest filterRequest) {
+        if (!filterRequest.hasGeoFilter()) {
+            return null;
+        }
+        Set<Long> locationIds = null;
+        if (filterRequest.getNearLat() != null || filterRequest.getNearLon() != null || filterRequest.getRadiusKm() != null) {
+            if (filterRequest.getNearLat() == null || filterRequest.getNearLon() == null || filterRequest.getRadiusKm() == null) {
+                throw new IllegalArgumentException("nearLat, nearLon and radiusKm must be given together.");
+            }
+            locationIds = new HashSet<>(locationGeoIndex.findWithinRadius(
+                    filterRequest.getNearLat(), filterRequest.getNearLon(), filterRequest.getRadiusKm()));
+        }
+        if (filterRequest.getMinLat() != null || filterRequest.getMaxLat() != null
+                || filterRequest.getMinLon() != null || filterRequest.getMaxLon() != null) {
+            if (filterRequest.getMinLat() == null || filterRequest.getMaxLat() == null
+                    || filterRequest.getMinLon() == null || filterRequest.getMaxLon() == null) {
+                throw new IllegalArgumentException("minLat, maxLat, minLon and maxLon must be given together.");
+            }
+            Set<Long> inBox = locationGeoIndex.findWithinBox(
+                    filterRequest.getMinLat(), filterRequest.getMinLon(), filterRequest.getMaxLat(), filterRequest.getMaxLon());
+            if (locationIds == null) {
+                locationIds = new HashSet<>(inBox);
+            } else {
+                locationIds.retainAll(inBox);
+            }
+        }
+        log.info("Geo filter resolved to {} locations.", locationIds.size());
+        return locationIds;
+    }
+
+    /**
+     * Resolves the catalog criteria of a filter: brand and model slugs are looked up and
+     * merged with the requested ids.
+     */
+    private CatalogFilter resolveCatalog(ListingFilterRequest filterRequest) {
+        Set<Long> brandIds = mergeCatalogIds(filterRequest.getBrandIds(), filterRequest.getBrandSlugs(),
+                listingCatalogLinker::findBrandIdsBySlugs, "brand");
+        Set<Long> modelIds = mergeCatalogIds(filterRequest.getModelIds(), filterRequest.getModelSlugs(),
+                listingCatalogLinker::findModelIdsBySlugs, "model");
+        Set<Long> trimIds = mergeCatalogIds(filterRequest.getTrimIds(), null, slugs -> Set.of(), "trim");
+        return new CatalogFilter(brandIds, modelIds, trimIds);
+    }
+
+    /**
+     * @return The requested ids plus the ids of the requested slugs, or null if neither was given.
+     */
+    private Set<Long> mergeCatalogIds(List<Long> ids, List<String> slugs, Function<List<String>, Set<Long>> idsBySlugs, String kind) {
+        boolean idsGiven = ids != null && ids.stream().anyMatch(Objects::nonNull);
+        boolean slugsGiven = slugs != null && slugs.stream().anyMatch(StringUtils::hasText);
+        if (!idsGiven && !slugsGiven) {
+            return null;
+        }
+        Set<Long> merged = new HashSet<>();
+        if (idsGiven) {
+            ids.stream().filter(Objects::nonNull).forEach(merged::add);
+        }
+        if (slugsGiven) {
+            Set<Long> resolved = idsBySlugs.apply(slugs);
+            if (resolved.size() < slugs.size()) {
+                log.warn("Some {} slugs in {} were not found and are ignored.", kind, slugs);
+            }
+            merged.addAll(resolved);
+        }
+        log.info("Applying {} catalog filter for ids {}.", kind, merged);
+        return merged;
+    }
+
+    /**
+     * Builds the public filter specification: the request's criteria plus the
+     * approved / user-active constraints and the default not-sold / not-archived filters.
+     *
+     * @return The specification, or empty if a location filter did not resolve, only unknown
+     *         catalog slugs were given, no location lies in the requested area or the keyword
+     *         matched nothing, in which case no listing can match.
+     */
+    private Optional<Specification<CarListing>> buildFilterSpecification(ListingFilterRequest filterRequest) {
+        ResolvedFilter resolvedFilter = resolveFilter(filterRequest);
+        if (resolvedFilter.matchesNothing()) {
+            // Callers return an empty result directly rather than using JPA filtering
+            log.info("Location, catalog, geo or keyword filter cannot match any listing.");
+            return Optional.empty();
+        }
+        return Optional.of(buildFilterSpecification(filterRequest, resolvedFilter));
+    }
+
+    private Specification<CarListing> buildFilterSpecification(ListingFilterRequest filterRequest, ResolvedFilter resolvedFilter) {
+        Location locationToFilterBy = resolvedFilter.location();
+
+        // CarListingSpecification.fromFilter handles a null locationToFilterBy gracefully (no location predicate added).
+        Specification<CarListing> spec = CarListingSpecification.fromFilter(filterRequest, locationToFilterBy, resolvedFilter.catalog());
+        if (locationToFilterBy != null) {
+            log.info("Applying location filter for location ID {}.", locationToFilterBy.getId());
+        } else {
+            log.info("No location ID or slug provided in filter. Proceeding without specific location entity filter.");
+        }
+
+        // Always combine with the 'approved' status filter
+        spec = spec.and(CarListingSpecification.isApproved());
+        // Also filter by user active status
+        spec = spec.and(CarListingSpecification.isUserActive());
+
+        // Apply isSold and isArchived filters
+        // If not specified in the request, default to showing NOT sold and NOT archived listings.
+        // If they ARE specified, CarListingSpecification.fromFilter will have already added them.
+        if (filterRequest.getIsSold() == null) {
+            spec = spec.and(CarListingSpecification.isNotSold());
+            log.debug("Defaulting filter to isSold=false as it was not specified.");
+        }
+        if (filterRequest.getIsArchived() == null) {
+            spec = spec.and(CarListingSpecification.isNotArchived());
+            log.debug("Defaulting filter to isArchived=false as it was not specified.");
+        }
+        // Expired listings leave the non-archived view even before the sweeper archives them;
+        // isArchived=true still finds them once archived
+        if (!Boolean.TRUE.equals(filterRequest.getIsArchived())) {
+            spec = spec.and(CarListingSpecification.isNotExpired());
+        }
+        if (resolvedFilter.hasGeoFilter()) {
+            spec = spec.and(CarListingSpecification.locationIdIn(resolvedFilter.geoLocationIds()));
+        }
+        if (resolvedFilter.hasKeyword()) {
+            spec = spec.and(CarListingSpecification.idIn(resolvedFilter.keywordMatches()));
+        }
+        return spec;
+    }
+
+    /**
+     * Cuts one page out of the keyword matches of a filter, in relevance order.
+     *
+     * @param ranked   The keyword matches passing the filter, most relevant first.
+     * @param pageable Page number and size; the sort is ignored.
+     * @return The page of ids in relevance order and the number of filtered matches.
+     */
+    private ListingSearchHits rankByRelevance(List<Long> ranked, Pageable pageable) {
+        int from = (int) Math.min(pageable.isPaged() ? pageable.getOffset() : 0L, ranked.size());
+        int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), ranked.size()) : ranked.size();
+        log.info("Ranked {} filtered keyword matches by relevance", ranked.size());
+        return new ListingSearchHits(ranked.subList(from, to), ranked.size());
+    }
+
+    /**
+     * Runs a keyset query: seeks past the cursor (if any) and fetches one row more
+     * than the page size to detect whether a further page exists. No COUNT and no
+     * OFFSET are issued, so the cost of page N does not grow with N.
+     */
+    private CursorPage<CarListingResponse> findByCursor(Specification<CarListing> spec, String after, Pageable pageable) {
+        Sort.Order order = resolveKeysetOrder(pageable.getSort());
+        SortableCarListingField field = SortableCarListingField.fromFieldName(order.getProperty())
+                .orElseThrow(() -> new IllegalArgumentException("Sorting by field '" + order.getProperty() + "' is not allowed."));
+        Sort.Direction direction = order.getDirection();
+
+        Specification<CarListing> seekSpec = spec;
+        if (StringUtils.hasText(after)) {
+            ListingCursor cursor = ListingCursor.decode(after);
+            if (cursor.getField() != field || cursor.getDirection() != direction) {
+                log.warn("Cursor sorted by {} {} used with sort {} {}", cursor.getField(), cursor.getDirection(), field, direction);
+                throw new IllegalArgumentException("Cursor does not match the requested sort order.");
+            }
+            seekSpec = spec.and(CarListingSpecification.seekAfter(field, direction, cursor.getValue(), cursor.getLastId()));
+        }
+
+        int size = pageable.getPageSize();
+        List<CarListing> rows = carListingRepository.findAllSeek(seekSpec, field, direction, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<CarListing> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext
+                ? ListingCursor.after(pageRows.get(pageRows.size() - 1), field, direction).encode()
+                : null;
+        log.info("Found {} listings by cursor (hasNext: {})", pageRows.size(), hasNext);
+        return new CursorPage<>(toResponses(pageRows), size, hasNext, nextCursor);
+    }
+
+    /**
+     * Fetches an offset page without the exact count query. With {@link CountStrategy#APPROXIMATE}
+     * the slice is wrapped in a page whose total is the cached estimate, corrected so it is never
+     * inconsistent with what this page itself proves (rows seen so far, and whether more follow).
+     */
+    private Slice<CarListingResponse> findWithCountStrategy(Specification<CarListing> spec, String countKey,
+                                                            Pageable pageable, CountStrategy countStrategy) {
+        Slice<CarListing> slice = carListingRepository.findSlice(spec, pageable);
+        log.info("Found {} listings on page {} (hasNext: {})", slice.getNumberOfElements(), pageable.getPageNumber(), slice.hasNext());
+        List<CarListingResponse> content = toResponses(slice.getContent());
+        if (countStrategy != CountStrategy.APPROXIMATE) {
+            return new SliceImpl<>(content, pageable, slice.hasNext());
+        }
+
+        long seen = pageable.getOffset() + slice.getNumberOfElements();
+        long total;
+        if (slice.hasNext()) {
+            total = Math.max(listingCountEstimator.estimate(countKey, spec), seen + 1);
+        } else {
+            // Last page: the exact total is known without counting
+            total = seen;
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Answers a public listing query from the in-memory search index, if it is ready and
+     * supports the sort: the index yields the page ids and total, and only those listings
+     * are read from the database.
+     */
+    private Optional<Page<CarListingResponse>> searchIndex(ListingFilterRequest filterRequest, Long locationId, CatalogFilter catalog, Pageable pageable) {
+        return searchIndexHits(filterRequest, locationId, catalog, pageable).map(hits -> toHitsPage(hits, pageable));
+    }
+
+    private Optional<ListingSearchHits> searchIndexHits(ListingFilterRequest filterRequest, Long locationId, CatalogFilter catalog, Pageable pageable) {
+        if (!listingSearchIndex.isReady()) {
+            return Optional.empty();
+        }
+        Optional<ListingSearchHits> hits = listingSearchIndex.search(filterRequest, locationId, catalog, pageable);
+        if (hits.isEmpty()) {
+            log.debug("Search index cannot serve sort {}; querying the database", pageable.getSort());
+            return Optional.empty();
+        }
+        log.info("Found {} listings on page {} from the search index (total {})", hits.get().ids().size(), pageable.getPageNumber(), hits.get().total());
+        return hits;
+    }
+
+    /**
+     * Caches a computed page of a filter, tagged with the brands and location it is restricted to.
+     */
+    private void cacheResult(String cacheKey, ListingSearchHits hits, ListingFilterRequest filterRequest,
+                             ResolvedFilter resolvedFilter, long cacheStamp) {
+        if (cacheKey != null) {
+            listingResultCache.put(cacheKey, hits, resolvedFilter.catalog().brandIds(), filterRequest.getBrand(),
+                    resolvedFilter.locationId(), cacheStamp);
+        }
+    }
+
+    /**
+     * Reads the listings of a page of ids with the details entity graph and keeps the order
+     * of the ids.
+     */
+    private Page<CarListingResponse> toHitsPage(ListingSearchHits hits, Pageable pageable) {
+        List<Long> ids = hits.ids();
+        Map<Long, CarListing> listingsById = ids.isEmpty() ? Map.of() : carListingRepository.findWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(CarListing::getId, Function.identity(), (first, second) -> first));
+        // A listing deleted since the ids were looked up is simply skipped
+        List<CarListingResponse> content = ids.stream()
+                .map(listingsById::get)
+                .filter(Objects::nonNull)
+                .map(carListingMapper::toCarListingResponse)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, hits.total());
+    }
+
+    private Page<CarListingResponse> toResponsePage(Page<CarListing> listingPage) {
+        return new PageImpl<>(toResponses(listingPage.getContent()), listingPage.getPageable(), listingPage.getTotalElements());
+    }
+
+    /**
+     * Maps a page of listings to responses, keeping their order. The mapper reads seller,
+     * location and media, which are all lazy; loading them per listing costs three queries
+     * per row. Instead the page (already limited in SQL, without collection joins) is
+     * re-read by id with the details entity graph, so a whole page costs one extra query.
+     */
+    private List<CarListingResponse> toResponses(List<CarListing> listings) {
+        return loadDetails(listings).stream()
+                .map(carListingMapper::toCarListingResponse)
+                .collect(Collectors.toList());
+    }
+
+    private List<CarListing> loadDetails(List<CarListing> listings) {
+        List<Long> ids = listings.stream()
+                .map(CarListing::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return listings;
+        }
+        Map<Long, CarListing> detailed = carListingRepository.findWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(CarListing::getId, Function.identity(), (first, second) -> first));
+        // Fall back to the paged instance if a row disappeared between the two queries
+        return listings.stream()
+                .map(listing -> detailed.getOrDefault(listing.getId(), listing))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Keyset paging orders by exactly one whitelisted field (plus the id tie-breaker).
+     * Defaults to newest first when no sort is requested.
+     */
+    private Sort.Order resolveKeysetOrder(Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return Sort.Order.desc(SortableCarListingField.CREATED_AT.getFieldName());
+        }
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() > 1) {
+            throw new IllegalArgumentException("Cursor paging supports sorting by a single field only.");
+        }
+        Sort.Order order = orders.get(0);
+        String field = order.getProperty().split(",")[0];
+        return new Sort.Order(order.getDirection(), field);
+    }
+
     private User findUserByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> {
@@ -754,20 +1638,14 @@ public class CarListingService {
         }
     }
 
-    private CarListing findListingByIdAndAuthorize(Long listingId, String username, String action) {
-        User user = findUserByUsername(username);
-        CarListing listing = findListingById(listingId);
-        authorizeListingModification(listing, user, action);
-        return listing;
-    }
-
     private String generateImageKey(Long listingId, String originalFilename) {
         // Clean the original filename to prevent path traversal or invalid characters
         String safeFilename = originalFilename != null ? originalFilename.replaceAll("[^a-zA-Z0-9._-]", "_") : "image";
         return String.format("listings/%d/%d_%s", listingId, System.currentTimeMillis(), safeFilename);
     }
 
-    private CarListing buildCarListingFromRequest(CreateListingRequest request, User user) {
+    private CarListing buildCarListingFromRequest(CreateListingRequest request, User user,
+                                                  Function<Long, Optional<Location>> locationLookup) {
         CarListing carListing = new CarListing();
         carListing.setTitle(request.getTitle());
         carListing.setBrand(request.getBrand());
@@ -779,7 +1657,7 @@ public class CarListingService {
         
         // Handle location - only use locationId
         if (request.getLocationId() != null) {
-            Location location = locationRepository.findById(request.getLocationId())
+            Location location = locationLookup.apply(request.getLocationId())
                 .orElseThrow(() -> {
                     log.warn("Location lookup failed for ID: {}", request.getLocationId());
                     return new ResourceNotFoundException("Location", "id", request.getLocationId());
@@ -0,0 +1,84 @@
+package com.autotrader.autotraderbackend.service;
+
+import com.autotrader.autotraderbackend.repository.JobLockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Leases on scheduled jobs in the database, so that a job scheduled on every application
+ * instance runs on only one of them at a time.
+ * <p>
+ * A lease is taken with a single conditional UPDATE (or the INSERT of the job's row on its
+ * first run), so exactly one instance gets it. It expires on its own after the lease time,
+ * which bounds how long a crashed instance blocks the job; jobs must therefore finish well
+ * within it, and the clocks of the instances must agree to well within it.
+ */
+@Service
+@Slf4j
+public class JobLockService {
+
+    private final JobLockRepository jobLockRepository;
+    private final Clock clock;
+    private final String owner;
+
+    @Autowired
+    public JobLockService(JobLockRepository jobLockRepository) {
+        this(jobLockRepository, Clock.systemDefaultZone(), hostName() + "/" + UUID.randomUUID());
+    }
+
+    JobLockService(JobLockRepository jobLockRepository, Clock clock, String owner) {
+        this.jobLockRepository = jobLockRepository;
+        this.clock = clock;
+        this.owner = owner;
+    }
+
+    /**
+     * Takes the lease of a job unless another instance holds it.
+     *
+     * @param name      The job.
+     * @param leaseTime How long the lease lasts unless released.
+     * @return true if this instance now holds the lease and may run the job.
+     */
+    public boolean tryAcquire(String name, Duration leaseTime) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime until = now.plus(leaseTime);
+        if (jobLockRepository.acquire(name, owner, now, until) == 1) {
+            return true;
+        }
+        if (jobLockRepository.existsById(name)) {
+            log.debug("Job {} is locked by another instance", name);
+            return false;
+        }
+        try {
+            return jobLockRepository.insert(name, owner, now, until) == 1;
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Job {} was first locked by another instance", name);
+            return false;
+        }
+    }
+
+    /**
+     * Releases the lease of a job held by this instance, so the next run anywhere can start
+     * without waiting for it to expire.
+     */
+    public void release(String name) {
+        jobLockRepository.release(name, owner, LocalDateTime.now(clock));
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+}
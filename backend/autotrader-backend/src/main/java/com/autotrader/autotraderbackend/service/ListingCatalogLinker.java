@@ -0,0 +1,220 @@
+package com.autotrader.autotraderbackend.service;
+
+import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
+import com.autotrader.autotraderbackend.model.CarBrand;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.CarModel;
+import com.autotrader.autotraderbackend.model.CarTrim;
+import com.autotrader.autotraderbackend.repository.CarBrandRepository;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.CarModelRepository;
+import com.autotrader.autotraderbackend.repository.CarTrimRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Links listings to the brand / model / trim catalog so they can be filtered by indexed
+ * foreign keys instead of {@code LIKE} scans over their free-text brand and model.
+ * <p>
+ * The brand text of a listing matches a catalog brand whose name, English or Arabic display
+ * name (case-insensitive) or slug equals it; the model text is matched the same way among the
+ * models of that brand. Listings whose text matches nothing stay unlinked and are still found
+ * by the text filters.
+ */
+@Service
+@Slf4j
+public class ListingCatalogLinker {
+
+    private final CarListingRepository carListingRepository;
+    private final CarBrandRepository carBrandRepository;
+    private final CarModelRepository carModelRepository;
+    private final CarTrimRepository carTrimRepository;
+    private final int backfillChunkSize;
+
+    public ListingCatalogLinker(
+            CarListingRepository carListingRepository,
+            CarBrandRepository carBrandRepository,
+            CarModelRepository carModelRepository,
+            CarTrimRepository carTrimRepository,
+            @Value("${app.listings.catalog-backfill.chunk-size:5000}") int backfillChunkSize) {
+        this.carListingRepository = carListingRepository;
+        this.carBrandRepository = carBrandRepository;
+        this.carModelRepository = carModelRepository;
+        this.carTrimRepository = carTrimRepository;
+        this.backfillChunkSize = backfillChunkSize;
+    }
+
+    /**
+     * Links a listing to the catalog brand and model matching its current text, and sets
+     * its trim.
+     *
+     * @param listing The listing to link; not saved.
+     * @param trimId  The trim chosen by the seller, or null to keep the current trim as long
+     *                as it still belongs to the linked model.
+     * @throws ResourceNotFoundException If the trim does not exist.
+     * @throws IllegalArgumentException  If the trim does not belong to the listing's model.
+     */
+    public void link(CarListing listing, Long trimId) {
+        link(listing, trimId, new CatalogLookup(false));
+    }
+
+    /**
+     * Links several new listings like {@link #link}, looking up each distinct brand text,
+     * brand / model text pair and trim only once.
+     *
+     * @param listings The listings to link; not saved.
+     * @param trimIds  The trim chosen for each listing, by position; entries may be null.
+     * @throws ResourceNotFoundException If a trim does not exist.
+     * @throws IllegalArgumentException  If a trim does not belong to its listing's model.
+     */
+    public void linkAll(List<CarListing> listings, List<Long> trimIds) {
+        CatalogLookup lookup = new CatalogLookup(true);
+        for (int i = 0; i < listings.size(); i++) {
+            link(listings.get(i), trimIds.get(i), lookup);
+        }
+    }
+
+    private void link(CarListing listing, Long trimId, CatalogLookup lookup) {
+        CarBrand brand = lookup.brand(normalize(listing.getBrand()));
+        CarModel model = brand != null ? lookup.model(brand, normalize(listing.getModel())) : null;
+        listing.setCarBrand(brand);
+        listing.setCarModel(model);
+
+        CarTrim trim = null;
+        if (trimId == null) {
+            CarTrim current = listing.getCarTrim();
+            if (current != null && model != null && Objects.equals(current.getModel().getId(), model.getId())) {
+                trim = current;
+            }
+        } else {
+            trim = lookup.trim(trimId);
+            if (model == null || !Objects.equals(trim.getModel().getId(), model.getId())) {
+                log.warn("Trim {} does not belong to the model '{}' of listing {}", trimId, listing.getModel(), listing.getId());
+                throw new IllegalArgumentException("Trim " + trimId + " does not belong to the listing's model.");
+            }
+        }
+        listing.setCarTrim(trim);
+        log.debug("Linked listing {} to brand {}, model {}, trim {}", listing.getId(),
+                brand != null ? brand.getId() : null, model != null ? model.getId() : null, trim != null ? trim.getId() : null);
+    }
+
+    /**
+     * Links every listing that is not linked yet but whose brand / model text matches the
+     * catalog, e.g. listings created before the catalog columns existed or before a brand
+     * was added. Works through the table in id ranges, one short transaction per range.
+     *
+     * @return The number of brand and model links set.
+     */
+    public int backfill() {
+        Long maxId = carListingRepository.findMaxId();
+        if (maxId == null) {
+            return 0;
+        }
+        long started = System.currentTimeMillis();
+        int brandLinks = 0;
+        int modelLinks = 0;
+        for (long fromId = 0; fromId <= maxId; fromId += backfillChunkSize) {
+            long toId = fromId + backfillChunkSize - 1;
+            // Brands first: models are matched among the brand's models
+            brandLinks += carListingRepository.linkCatalogBrands(fromId, toId);
+            modelLinks += carListingRepository.linkCatalogModels(fromId, toId);
+        }
+        log.info("Catalog backfill linked {} brands and {} models in {} ms", brandLinks, modelLinks, System.currentTimeMillis() - started);
+        return brandLinks + modelLinks;
+    }
+
+    /**
+     * @return The ids of the catalog brands with the given slugs; unknown slugs are skipped.
+     */
+    public Set<Long> findBrandIdsBySlugs(Collection<String> slugs) {
+        Set<String> normalized = normalizeAll(slugs);
+        if (normalized.isEmpty()) {
+            return Set.of();
+        }
+        return carBrandRepository.findBySlugIn(normalized).stream()
+                .map(CarBrand::getId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return The ids of the catalog models with the given slugs; unknown slugs are skipped.
+     */
+    public Set<Long> findModelIdsBySlugs(Collection<String> slugs) {
+        Set<String> normalized = normalizeAll(slugs);
+        if (normalized.isEmpty()) {
+            return Set.of();
+        }
+        return carModelRepository.findBySlugIn(normalized).stream()
+                .map(CarModel::getId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Catalog lookups for linking, optionally remembering results for the listings of one batch.
+     */
+    private final class CatalogLookup {
+        private final boolean memoize;
+        private final Map<String, Optional<CarBrand>> brands = new HashMap<>();
+        private final Map<String, Optional<CarModel>> models = new HashMap<>();
+        private final Map<Long, CarTrim> trims = new HashMap<>();
+
+        CatalogLookup(boolean memoize) {
+            this.memoize = memoize;
+        }
+
+        CarBrand brand(String text) {
+            if (!memoize) {
+                return firstOrNull(carBrandRepository.findByListingText(text));
+            }
+            return brands.computeIfAbsent(text,
+                    key -> Optional.ofNullable(firstOrNull(carBrandRepository.findByListingText(key)))).orElse(null);
+        }
+
+        CarModel model(CarBrand brand, String text) {
+            if (!memoize) {
+                return firstOrNull(carModelRepository.findByBrandAndListingText(brand, text));
+            }
+            return models.computeIfAbsent(brand.getId() + "/" + text,
+                    key -> Optional.ofNullable(firstOrNull(carModelRepository.findByBrandAndListingText(brand, text)))).orElse(null);
+        }
+
+        CarTrim trim(Long trimId) {
+            CarTrim trim = memoize ? trims.get(trimId) : null;
+            if (trim == null) {
+                trim = carTrimRepository.findById(trimId)
+                        .orElseThrow(() -> new ResourceNotFoundException("CarTrim", "id", trimId));
+                if (memoize) {
+                    trims.put(trimId, trim);
+                }
+            }
+            return trim;
+        }
+    }
+
+    private static <T> T firstOrNull(List<T> candidates) {
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    private static Set<String> normalizeAll(Collection<String> values) {
+        return values.stream()
+                .filter(StringUtils::hasText)
+                .map(ListingCatalogLinker::normalize)
+                .collect(Collectors.toSet());
+    }
+
+    private static String normalize(String text) {
+        return text != null ? text.trim().toLowerCase(Locale.ROOT) : "";
+    }
+}
@@ -0,0 +1,83 @@
+package com.autotrader.autotraderbackend.service;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides approximate listing counts for the {@code APPROXIMATE} count strategy.
+ * <p>
+ * Counts are computed with the real filter specification the first time a filter is seen
+ * and then served from memory until they expire, so a popular filter costs at most one
+ * {@code COUNT(*)} per TTL instead of one per page request.
+ */
+@Component
+@Slf4j
+public class ListingCountEstimator {
+
+    private final CarListingRepository carListingRepository;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Clock clock;
+    private final Map<String, CachedCount> cache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ListingCountEstimator(
+            CarListingRepository carListingRepository,
+            @Value("${app.listings.count-estimate.ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.listings.count-estimate.max-entries:5000}") int maxEntries) {
+        this(carListingRepository, ttlSeconds, maxEntries, Clock.systemUTC());
+    }
+
+    ListingCountEstimator(CarListingRepository carListingRepository, long ttlSeconds, int maxEntries, Clock clock) {
+        this.carListingRepository = carListingRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the cached count for a filter, computing it if absent or expired.
+     *
+     * @param filterKey Canonical key identifying the filter.
+     * @param spec      Specification used to compute the count on a miss.
+     * @return The (possibly stale) number of matching listings.
+     */
+    public long estimate(String filterKey, Specification<CarListing> spec) {
+        long now = clock.millis();
+        CachedCount cached = cache.get(filterKey);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.count;
+        }
+        long count = carListingRepository.count(spec);
+        if (cache.size() >= maxEntries) {
+            // Bounded: drop expired entries first, and everything if that is not enough
+            cache.values().removeIf(entry -> entry.expiresAt <= now);
+            if (cache.size() >= maxEntries) {
+                log.debug("Listing count estimate cache full ({} entries). Clearing.", cache.size());
+                cache.clear();
+            }
+        }
+        cache.put(filterKey, new CachedCount(count, now + ttlMillis));
+        log.debug("Refreshed listing count estimate for '{}': {}", filterKey, count);
+        return count;
+    }
+
+    /**
+     * Drops all cached estimates.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    private record CachedCount(long count, long expiresAt) {
+    }
+}
@@ -4,7 +4,9 @@ import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
 import com.autotrader.autotraderbackend.model.Location;
 import com.autotrader.autotraderbackend.payload.request.LocationRequest;
 import com.autotrader.autotraderbackend.payload.response.LocationResponse;
+import com.autotrader.autotraderbackend.payload.response.NearbyLocationResponse;
 import com.autotrader.autotraderbackend.repository.LocationRepository;
+import com.autotrader.autotraderbackend.service.search.LocationGeoIndex;
 import com.autotrader.autotraderbackend.util.SlugUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +18,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -26,7 +30,11 @@ import java.util.stream.Collectors;
 @Slf4j
 public class LocationService {
 
+    /** Upper bound on the locations returned by {@link #getNearestLocations}. */
+    public static final int MAX_NEAREST_LOCATIONS = 50;
+
     private final LocationRepository locationRepository;
+    private final LocationGeoIndex locationGeoIndex;
 
     /**
      * Get all active locations
@@ -92,6 +100,35 @@ public class LocationService {
                 .map(LocationResponse::fromEntity);
     }
 
+    /**
+     * Get the active locations nearest to a point, using the location geo index
+     * @param latitude Latitude of the point
+     * @param longitude Longitude of the point
+     * @param limit Maximum number of locations, 1 to {@value #MAX_NEAREST_LOCATIONS}
+     * @return The locations with their distance in kilometres, nearest first
+     * @throws IllegalArgumentException if the coordinates or the limit are out of range
+     */
+    public List<NearbyLocationResponse> getNearestLocations(double latitude, double longitude, int limit) {
+        log.debug("Fetching {} locations nearest to ({}, {})", limit, latitude, longitude);
+        if (limit < 1 || limit > MAX_NEAREST_LOCATIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_NEAREST_LOCATIONS + ".");
+        }
+        List<LocationGeoIndex.NearbyLocation> nearest = locationGeoIndex.findNearest(latitude, longitude, limit);
+        if (nearest.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Location> locationsById = locationRepository.findAllById(
+                        nearest.stream().map(LocationGeoIndex.NearbyLocation::locationId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Location::getId, Function.identity()));
+        // A location deleted since the index lookup is simply skipped
+        return nearest.stream()
+                .filter(nearby -> locationsById.containsKey(nearby.locationId()))
+                .map(nearby -> new NearbyLocationResponse(
+                        LocationResponse.fromEntity(locationsById.get(nearby.locationId())), nearby.distanceKm()))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Create a new location
      * @param request Location request data
@@ -113,6 +150,7 @@ public class LocationService {
         location.setSlug(uniqueSlug);
         
         location = locationRepository.save(location);
+        locationGeoIndex.onLocationSaved(location);
         log.info("Created new location with ID: {}", location.getId());
         
         return LocationResponse.fromEntity(location);
@@ -145,6 +183,7 @@ public class LocationService {
         }
         
         location = locationRepository.save(location);
+        locationGeoIndex.onLocationSaved(location);
         log.info("Updated location with ID: {}", location.getId());
         
         return LocationResponse.fromEntity(location);
@@ -165,6 +204,7 @@ public class LocationService {
         }
         
         locationRepository.deleteById(id);
+        locationGeoIndex.onLocationDeleted(id);
         log.info("Deleted location with ID: {}", id);
     }
     
@@ -185,6 +225,7 @@ public class LocationService {
         
         location.setIsActive(active);
         location = locationRepository.save(location);
+        locationGeoIndex.onLocationSaved(location);
         
         log.info("Updated location {} active status to: {}", id, active);
         return LocationResponse.fromEntity(location);
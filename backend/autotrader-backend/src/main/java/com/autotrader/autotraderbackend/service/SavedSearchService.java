@@ -0,0 +1,217 @@
+package com.autotrader.autotraderbackend.service;
+
+import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.SavedSearch;
+import com.autotrader.autotraderbackend.model.SavedSearchMatch;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.payload.request.SavedSearchRequest;
+import com.autotrader.autotraderbackend.payload.response.SavedSearchResponse;
+import com.autotrader.autotraderbackend.repository.LocationRepository;
+import com.autotrader.autotraderbackend.repository.SavedSearchMatchRepository;
+import com.autotrader.autotraderbackend.repository.SavedSearchRepository;
+import com.autotrader.autotraderbackend.repository.UserRepository;
+import com.autotrader.autotraderbackend.service.search.ListingTextAnalyzer;
+import com.autotrader.autotraderbackend.service.search.SavedSearchPercolator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Manages users' saved searches and queues newly approved listings that match them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SavedSearchService {
+
+    /** Maximum number of saved searches per user. */
+    public static final int MAX_SAVED_SEARCHES_PER_USER = 25;
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final SavedSearchMatchRepository savedSearchMatchRepository;
+    private final UserRepository userRepository;
+    private final LocationRepository locationRepository;
+    private final ListingCatalogLinker listingCatalogLinker;
+    private final SavedSearchPercolator savedSearchPercolator;
+
+    private final ListingTextAnalyzer analyzer = new ListingTextAnalyzer();
+
+    /**
+     * Saves a search for a user. Location and catalog slugs are resolved to ids first.
+     *
+     * @throws IllegalArgumentException If the filter is invalid or refers to unknown slugs.
+     * @throws IllegalStateException    If the user already has the maximum number of saved searches.
+     */
+    @Transactional
+    public SavedSearchResponse createSavedSearch(SavedSearchRequest request, String username) {
+        User user = findUserByUsername(username);
+        if (savedSearchRepository.countByUserId(user.getId()) >= MAX_SAVED_SEARCHES_PER_USER) {
+            log.warn("User {} attempted to exceed the saved search limit", username);
+            throw new IllegalStateException("You can have at most " + MAX_SAVED_SEARCHES_PER_USER + " saved searches.");
+        }
+        SavedSearch savedSearch = new SavedSearch();
+        savedSearch.setUser(user);
+        savedSearch.setUserId(user.getId());
+        savedSearch.setName(request.getName().trim());
+        savedSearch.setCriteria(normalize(request.getFilter()));
+        SavedSearch saved = savedSearchRepository.save(savedSearch);
+        savedSearchPercolator.onSavedSearchSaved(saved);
+        log.info("Saved search {} created for user {}", saved.getId(), username);
+        return toResponse(saved);
+    }
+
+    /**
+     * @return The user's saved searches, newest first.
+     */
+    @Transactional(readOnly = true)
+    public List<SavedSearchResponse> getSavedSearches(String username) {
+        User user = findUserByUsername(username);
+        return savedSearchRepository.findByUserIdOrderByCreatedAtDescIdDesc(user.getId()).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    /**
+     * Deletes a saved search and its queued matches.
+     *
+     * @throws ResourceNotFoundException If the user has no saved search with this id.
+     */
+    @Transactional
+    public void deleteSavedSearch(Long id, String username) {
+        User user = findUserByUsername(username);
+        SavedSearch savedSearch = savedSearchRepository.findById(id)
+                .filter(search -> Objects.equals(search.getUserId(), user.getId()))
+                .orElseThrow(() -> new ResourceNotFoundException("SavedSearch", "id", id));
+        savedSearchMatchRepository.deleteBySavedSearchId(id);
+        savedSearchRepository.delete(savedSearch);
+        savedSearchPercolator.onSavedSearchDeleted(id);
+        log.info("Saved search {} deleted by user {}", id, username);
+    }
+
+    /**
+     * Queues a publicly visible listing for delivery to the owners of every saved search it
+     * matches. Runs in the caller's transaction, so the matches are only queued if the
+     * approval commits.
+     *
+     * @return The number of matches queued.
+     */
+    @Transactional
+    public int queueMatches(CarListing listing) {
+        if (listing == null || listing.getId() == null
+                || !Boolean.TRUE.equals(listing.getApproved())
+                || !Boolean.TRUE.equals(listing.getIsUserActive())) {
+            return 0;
+        }
+        List<Long> savedSearchIds = savedSearchPercolator.match(listing);
+        if (savedSearchIds.isEmpty()) {
+            return 0;
+        }
+        // Searches deleted through another instance stay in the index until its next reconcile
+        savedSearchIds = savedSearchRepository.findExistingIds(savedSearchIds);
+        if (savedSearchIds.isEmpty()) {
+            return 0;
+        }
+        List<SavedSearchMatch> matches = new ArrayList<>(savedSearchIds.size());
+        for (Long savedSearchId : savedSearchIds) {
+            matches.add(new SavedSearchMatch(savedSearchRepository.getReferenceById(savedSearchId), listing.getId()));
+        }
+        savedSearchMatchRepository.saveAll(matches);
+        log.info("Listing {} matched {} saved searches", listing.getId(), matches.size());
+        return matches.size();
+    }
+
+    /**
+     * Validates a filter and resolves its slugs, so that it can be matched without lookups.
+     */
+    private ListingFilterRequest normalize(ListingFilterRequest filter) {
+        filter.setBrand(trimToNull(filter.getBrand()));
+        filter.setModel(trimToNull(filter.getModel()));
+        filter.setBrandIds(resolveCatalogIds(filter.getBrandIds(), filter.getBrandSlugs(),
+                listingCatalogLinker::findBrandIdsBySlugs, "brand"));
+        filter.setBrandSlugs(null);
+        filter.setModelIds(resolveCatalogIds(filter.getModelIds(), filter.getModelSlugs(),
+                listingCatalogLinker::findModelIdsBySlugs, "model"));
+        filter.setModelSlugs(null);
+
+        if (StringUtils.hasText(filter.getLocation())) {
+            Location location = locationRepository.findBySlug(filter.getLocation().trim())
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown location '" + filter.getLocation() + "'."));
+            if (filter.getLocationId() != null && !filter.getLocationId().equals(location.getId())) {
+                throw new IllegalArgumentException("location and locationId refer to different locations.");
+            }
+            filter.setLocationId(location.getId());
+        } else if (filter.getLocationId() != null && !locationRepository.existsById(filter.getLocationId())) {
+            throw new IllegalArgumentException("Unknown location id " + filter.getLocationId() + ".");
+        }
+        filter.setLocation(null);
+
+        boolean anyNear = filter.getNearLat() != null || filter.getNearLon() != null || filter.getRadiusKm() != null;
+        if (anyNear && (filter.getNearLat() == null || filter.getNearLon() == null || filter.getRadiusKm() == null)) {
+            throw new IllegalArgumentException("nearLat, nearLon and radiusKm must be given together.");
+        }
+        boolean anyBox = filter.getMinLat() != null || filter.getMaxLat() != null
+                || filter.getMinLon() != null || filter.getMaxLon() != null;
+        if (anyBox && (filter.getMinLat() == null || filter.getMaxLat() == null
+                || filter.getMinLon() == null || filter.getMaxLon() == null)) {
+            throw new IllegalArgumentException("minLat, maxLat, minLon and maxLon must be given together.");
+        }
+        if (anyBox && (filter.getMinLat() > filter.getMaxLat() || filter.getMinLon() > filter.getMaxLon())) {
+            throw new IllegalArgumentException("minLat and minLon must not exceed maxLat and maxLon.");
+        }
+
+        filter.setKeyword(trimToNull(filter.getKeyword()));
+        if (filter.getKeyword() != null && analyzer.terms("description", filter.getKeyword()).isEmpty()) {
+            throw new IllegalArgumentException("Keyword '" + filter.getKeyword() + "' has no searchable terms.");
+        }
+        return filter;
+    }
+
+    /**
+     * @return The given ids plus the ids of the given slugs, or null if neither was given.
+     * @throws IllegalArgumentException If a slug is unknown.
+     */
+    private static List<Long> resolveCatalogIds(List<Long> ids, List<String> slugs,
+                                                Function<List<String>, Set<Long>> idsBySlugs, String kind) {
+        Set<Long> resolved = new HashSet<>();
+        if (ids != null) {
+            ids.stream().filter(Objects::nonNull).forEach(resolved::add);
+        }
+        List<String> givenSlugs = slugs == null ? List.of() : slugs.stream().filter(StringUtils::hasText).distinct().toList();
+        if (!givenSlugs.isEmpty()) {
+            Set<Long> bySlug = idsBySlugs.apply(givenSlugs);
+            if (bySlug.size() < givenSlugs.size()) {
+                throw new IllegalArgumentException("Unknown " + kind + " in " + givenSlugs + ".");
+            }
+            resolved.addAll(bySlug);
+        }
+        return resolved.isEmpty() ? null : List.copyOf(resolved);
+    }
+
+    private static String trimToNull(String value) {
+        return StringUtils.hasText(value) ? value.trim() : null;
+    }
+
+    private SavedSearchResponse toResponse(SavedSearch savedSearch) {
+        return new SavedSearchResponse(savedSearch.getId(), savedSearch.getName(), savedSearch.getCriteria(), savedSearch.getCreatedAt());
+    }
+
+    private User findUserByUsername(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> {
+                    log.warn("User lookup failed for username: {}", username);
+                    return new ResourceNotFoundException("User", "username", username);
+                });
+    }
+}
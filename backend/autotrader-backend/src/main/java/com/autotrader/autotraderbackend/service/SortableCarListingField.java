@@ -1,12 +1,56 @@
 package com.autotrader.autotraderbackend.service;
 
+import com.autotrader.autotraderbackend.model.CarListing;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 /**
  * Enum representing the allowed sortable fields for CarListing.
+ * Each field also knows how to read, print and parse its sort key so it can be
+ * carried inside an opaque keyset cursor.
  */
 public enum SortableCarListingField {
-    LOCATION_ID("locationId"), // Reverted from "locationEntity.id"
-    PRICE("price"),
-    CREATED_AT("createdAt");
+    LOCATION_ID("locationId") { // Reverted from "locationEntity.id"
+        @Override
+        public Comparable<?> extractValue(CarListing listing) {
+            return listing.getLocation() != null ? listing.getLocation().getId() : NO_LOCATION;
+        }
+
+        @Override
+        public Comparable<?> parseValue(String value) {
+            return Long.valueOf(value);
+        }
+    },
+    PRICE("price") {
+        @Override
+        public Comparable<?> extractValue(CarListing listing) {
+            return listing.getPrice();
+        }
+
+        @Override
+        public Comparable<?> parseValue(String value) {
+            return new BigDecimal(value);
+        }
+    },
+    CREATED_AT("createdAt") {
+        @Override
+        public Comparable<?> extractValue(CarListing listing) {
+            return listing.getCreatedAt();
+        }
+
+        @Override
+        public Comparable<?> parseValue(String value) {
+            return LocalDateTime.parse(value);
+        }
+    };
+
+    /**
+     * Location sort key carried in cursors for listings without a location; no location id
+     * is 0. Those listings sort first when ascending and last when descending.
+     */
+    public static final long NO_LOCATION = 0L;
 
     private final String fieldName;
 
@@ -18,12 +62,32 @@ public enum SortableCarListingField {
         return fieldName;
     }
 
+    /**
+     * Reads the sort key of this field from a listing.
+     *
+     * @param listing The listing to read from.
+     * @return The sort key value, never null for persisted listings.
+     */
+    public abstract Comparable<?> extractValue(CarListing listing);
+
+    /**
+     * Parses a sort key previously written with {@link Object#toString()}.
+     *
+     * @param value The printed sort key.
+     * @return The parsed sort key.
+     */
+    public abstract Comparable<?> parseValue(String value);
+
     public static boolean isAllowed(String field) {
+        return fromFieldName(field).isPresent();
+    }
+
+    public static Optional<SortableCarListingField> fromFieldName(String field) {
         for (SortableCarListingField allowed : values()) {
             if (allowed.getFieldName().equals(field)) {
-                return true;
+                return Optional.of(allowed);
             }
         }
-        return false;
+        return Optional.empty();
     }
 }
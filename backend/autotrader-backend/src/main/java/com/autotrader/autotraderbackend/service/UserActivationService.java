@@ -0,0 +1,98 @@
+package com.autotrader.autotraderbackend.service;
+
+import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.response.UserStatusResponse;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.UserRepository;
+import com.autotrader.autotraderbackend.service.search.ListingChanges;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Activates and deactivates user accounts. A deactivated user can no longer sign in, and
+ * their listings are hidden through the denormalized {@code is_user_active} flag that every
+ * public listing query filters on.
+ * <p>
+ * The account status commits first; it is then copied onto the user's listings in chunks of
+ * {@code app.users.activation.chunk-size} ids, each one conditional UPDATE in its own short
+ * transaction, so even a dealer with thousands of listings holds row locks only briefly.
+ * Changed listings are reported to {@link ListingChanges} per chunk. Should a run stop
+ * midway, activating or deactivating the account again completes it.
+ */
+@Service
+@Slf4j
+public class UserActivationService {
+
+    private final UserRepository userRepository;
+    private final CarListingRepository carListingRepository;
+    private final ListingChanges listingChanges;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public UserActivationService(UserRepository userRepository,
+                                 CarListingRepository carListingRepository,
+                                 ListingChanges listingChanges,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.users.activation.chunk-size:500}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("User activation chunk size must be positive.");
+        }
+        this.userRepository = userRepository;
+        this.carListingRepository = carListingRepository;
+        this.listingChanges = listingChanges;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Activates or deactivates an account and shows or hides its listings accordingly.
+     * Calling it again with the same status only completes the propagation to the listings.
+     *
+     * @param userId The user.
+     * @param active The new account status.
+     * @return The account status and the number of listings changed.
+     * @throws ResourceNotFoundException If the user does not exist.
+     */
+    public UserStatusResponse setActive(Long userId, boolean active) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+        if (user.getActive() == null || user.getActive() != active) {
+            user.setActive(active);
+            user = userRepository.save(user);
+            log.info("User {} {}", user.getUsername(), active ? "activated" : "deactivated");
+        }
+
+        int updated = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = carListingRepository.findIdsToPropagateSellerStatus(userId, active, afterId, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer chunkUpdated = transactionTemplate.execute(status -> propagate(userId, active, ids));
+            updated += chunkUpdated != null ? chunkUpdated : 0;
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        log.info("{} {} listings of user {}", active ? "Showed" : "Hid", updated, user.getUsername());
+        return new UserStatusResponse(user.getId(), user.getUsername(), active, updated);
+    }
+
+    private int propagate(Long userId, boolean active, List<Long> ids) {
+        int updated = carListingRepository.propagateSellerStatus(ids, userId, active, LocalDateTime.now());
+        if (updated > 0) {
+            listingChanges.listingsUpdated(ids);
+        }
+        return updated;
+    }
+}
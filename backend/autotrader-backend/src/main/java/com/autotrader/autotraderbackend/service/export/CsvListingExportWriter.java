@@ -0,0 +1,68 @@
+package com.autotrader.autotraderbackend.service.export;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes listings as CSV: a header row, then one row per listing, CRLF-terminated. Values
+ * containing a comma, quote or line break are quoted, with quotes doubled; null values are
+ * left empty.
+ */
+class CsvListingExportWriter implements ListingExportWriter {
+
+    private static final ListingExportColumn[] COLUMNS = ListingExportColumn.values();
+
+    private final Writer writer;
+
+    CsvListingExportWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void begin() throws IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(COLUMNS[i].header());
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(CarListing listing) throws IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = COLUMNS[i].valueOf(listing);
+            if (value != null) {
+                writeField(value.toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
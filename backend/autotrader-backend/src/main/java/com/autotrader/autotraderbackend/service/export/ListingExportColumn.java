@@ -0,0 +1,50 @@
+package com.autotrader.autotraderbackend.service.export;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+
+import java.util.function.Function;
+
+/**
+ * Columns of a listing export, in output order. Only the listing's own columns and its
+ * location are exported: the location is fetched with the listing, while reading the seller
+ * or media would cost a query per row.
+ */
+enum ListingExportColumn {
+    ID("id", CarListing::getId),
+    TITLE("title", CarListing::getTitle),
+    BRAND("brand", CarListing::getBrand),
+    MODEL("model", CarListing::getModel),
+    MODEL_YEAR("modelYear", CarListing::getModelYear),
+    MILEAGE("mileage", CarListing::getMileage),
+    PRICE("price", CarListing::getPrice),
+    VIN("vin", CarListing::getVin),
+    STOCK_NUMBER("stockNumber", CarListing::getStockNumber),
+    EXTERIOR_COLOR("exteriorColor", CarListing::getExteriorColor),
+    INTERIOR_COLOR("interiorColor", CarListing::getInteriorColor),
+    DOORS("doors", CarListing::getDoors),
+    CYLINDERS("cylinders", CarListing::getCylinders),
+    TRANSMISSION("transmission", CarListing::getTransmission),
+    DESCRIPTION("description", CarListing::getDescription),
+    LOCATION_ID("locationId", listing -> listing.getLocation() != null ? listing.getLocation().getId() : null),
+    LOCATION_SLUG("locationSlug", listing -> listing.getLocation() != null ? listing.getLocation().getSlug() : null),
+    SOLD("sold", CarListing::getSold),
+    ARCHIVED("archived", CarListing::getArchived),
+    CREATED_AT("createdAt", CarListing::getCreatedAt),
+    UPDATED_AT("updatedAt", CarListing::getUpdatedAt);
+
+    private final String header;
+    private final Function<CarListing, Object> value;
+
+    ListingExportColumn(String header, Function<CarListing, Object> value) {
+        this.header = header;
+        this.value = value;
+    }
+
+    String header() {
+        return header;
+    }
+
+    Object valueOf(CarListing listing) {
+        return value.apply(listing);
+    }
+}
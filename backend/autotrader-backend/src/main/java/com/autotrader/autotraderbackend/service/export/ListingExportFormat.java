@@ -0,0 +1,61 @@
+package com.autotrader.autotraderbackend.service.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * File format of a listing export.
+ */
+public enum ListingExportFormat {
+    /**
+     * One JSON object per line (default).
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /**
+     * Comma-separated values with a header row, quoted as in RFC 4180.
+     */
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ListingExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Opens a writer of this format on a stream. Closing the writer flushes it but leaves
+     * the stream open.
+     */
+    ListingExportWriter open(OutputStream out) throws IOException {
+        return this == CSV ? new CsvListingExportWriter(out) : new NdjsonListingExportWriter(out);
+    }
+
+    /**
+     * Parses a request parameter value, case-insensitively. Null or blank means {@link #NDJSON}.
+     *
+     * @param value The raw request parameter.
+     * @return The matching format.
+     * @throws IllegalArgumentException if the value is not a known format.
+     */
+    public static ListingExportFormat fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return NDJSON;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown export format '" + value + "'. Use ndjson or csv.");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.autotrader.autotraderbackend.service.export;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes exported listings one at a time. Output is buffered, so memory use does not
+ * depend on the number of listings.
+ */
+interface ListingExportWriter extends Closeable {
+
+    /**
+     * Writes whatever precedes the first listing, e.g. a header row.
+     */
+    void begin() throws IOException;
+
+    void write(CarListing listing) throws IOException;
+
+    /**
+     * Flushes buffered output; the underlying stream stays open.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,71 @@
+package com.autotrader.autotraderbackend.service.export;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Streams the listings matching a specification to an output stream in id order. Rows are
+ * read through a forward-only database cursor and written through a buffered writer, and
+ * the persistence context is cleared every {@code app.listings.export.fetch-size} rows, so
+ * memory use stays constant however many listings are exported.
+ * <p>
+ * Exports can be resumed: an interrupted client passes the last id it received and gets
+ * the remaining listings.
+ */
+@Component
+@Slf4j
+public class ListingExporter {
+
+    private final CarListingRepository carListingRepository;
+    private final int fetchSize;
+
+    public ListingExporter(CarListingRepository carListingRepository,
+                           @Value("${app.listings.export.fetch-size:500}") int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Listing export fetch size must be positive.");
+        }
+        this.carListingRepository = carListingRepository;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes the listings matching a specification. Runs in its own read-only transaction,
+     * which keeps the cursor open while the response is streamed.
+     *
+     * @param spec    The filter specification.
+     * @param afterId Last id the client already has, or null to export from the start.
+     * @param format  The output format.
+     * @param out     The stream to write to; flushed but not closed.
+     * @return The number of listings written.
+     * @throws IOException If writing fails, e.g. because the client disconnected.
+     */
+    @Transactional(readOnly = true)
+    public long export(Specification<CarListing> spec, Long afterId, ListingExportFormat format, OutputStream out) throws IOException {
+        log.info("Exporting listings as {} after id {}", format, afterId);
+        long written;
+        try (ListingExportWriter writer = format.open(out)) {
+            writer.begin();
+            written = carListingRepository.forEachInIdOrder(spec, afterId, fetchSize, listing -> {
+                try {
+                    writer.write(listing);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            log.warn("Listing export aborted: {}", e.getCause().getMessage());
+            throw e.getCause();
+        }
+        log.info("Exported {} listings as {}", written, format);
+        return written;
+    }
+}
@@ -0,0 +1,64 @@
+package com.autotrader.autotraderbackend.service.export;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+
+/**
+ * Writes listings as newline-delimited JSON, one object per line with every column present
+ * (null when unset). Dates are written as ISO-8601 strings.
+ */
+class NdjsonListingExportWriter implements ListingExportWriter {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .build();
+    private static final ListingExportColumn[] COLUMNS = ListingExportColumn.values();
+
+    private final JsonGenerator generator;
+
+    NdjsonListingExportWriter(OutputStream out) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        // Lines are separated explicitly, so the default space between root values is not wanted
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void begin() {
+        // NDJSON has no header
+    }
+
+    @Override
+    public void write(CarListing listing) throws IOException {
+        generator.writeStartObject();
+        for (ListingExportColumn column : COLUMNS) {
+            Object value = column.valueOf(listing);
+            generator.writeFieldName(column.header());
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof BigDecimal decimal) {
+                generator.writeNumber(decimal);
+            } else if (value instanceof Long number) {
+                generator.writeNumber(number);
+            } else if (value instanceof Integer number) {
+                generator.writeNumber(number);
+            } else if (value instanceof Boolean flag) {
+                generator.writeBoolean(flag);
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,118 @@
+package com.autotrader.autotraderbackend.service.feed;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a CSV feed record by record. The first record names the fields (case-insensitively);
+ * quoted values may contain commas, doubled quotes and line breaks as in RFC 4180. Empty
+ * values and blank lines are skipped.
+ */
+class CsvInventoryFeedReader implements InventoryFeedReader {
+
+    private static final String IMAGE_URLS = "imageurls";
+
+    private final BufferedReader in;
+    private List<String> header;
+    private int line = 1;
+
+    CsvInventoryFeedReader(InputStream in) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public InventoryFeedRow next() throws IOException {
+        if (header == null) {
+            List<String> names = readRecord();
+            if (names == null) {
+                return null;
+            }
+            // Drop a UTF-8 byte order mark left by spreadsheet exports
+            names.set(0, names.get(0).replace("\uFEFF", ""));
+            header = names.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+        }
+        List<String> record;
+        do {
+            record = readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isBlank());
+
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < Math.min(record.size(), header.size()); i++) {
+            String value = record.get(i).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            String name = header.get(i);
+            values.put(name, IMAGE_URLS.equals(name)
+                    ? Arrays.stream(value.split("\\|")).map(String::trim).filter(url -> !url.isEmpty()).toList()
+                    : value);
+        }
+        return InventoryFeedRow.fromValues(values);
+    }
+
+    /**
+     * Reads one record, or returns null at the end of the input.
+     */
+    private List<String> readRecord() throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        int startLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Malformed CSV feed: unterminated quote in the record starting on line " + startLine);
+                }
+                if (c == '"') {
+                    in.mark(1);
+                    if (in.read() == '"') {
+                        field.append('"');
+                    } else {
+                        in.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n') {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,23 @@
+package com.autotrader.autotraderbackend.service.feed;
+
+/**
+ * A feed row that could not be converted to an {@link InventoryFeedRow}. The reader is still
+ * positioned at the next row, so the sync rejects this row and carries on.
+ */
+class InvalidFeedRowException extends IllegalArgumentException {
+
+    private final String key;
+
+    InvalidFeedRowException(String key, String message) {
+        super(message);
+        this.key = key;
+    }
+
+    /**
+     * The feed key of the row if it could be read, so its listing is not archived for a
+     * typo in another column; otherwise null.
+     */
+    String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,47 @@
+package com.autotrader.autotraderbackend.service.feed;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * File format of a dealer inventory feed.
+ */
+public enum InventoryFeedFormat {
+    /**
+     * A JSON array of listing objects, or one object per line (NDJSON).
+     */
+    JSON,
+    /**
+     * Comma-separated values with a header row naming the fields, quoted as in RFC 4180.
+     * Image URLs are separated by {@code |} in the {@code imageUrls} column.
+     */
+    CSV;
+
+    /**
+     * Opens a reader of this format on a stream. Closing the reader closes the stream.
+     */
+    InventoryFeedReader open(InputStream in) throws IOException {
+        return this == CSV ? new CsvInventoryFeedReader(in) : new JsonInventoryFeedReader(in);
+    }
+
+    /**
+     * Parses a request parameter value, case-insensitively. Null or blank means the format
+     * is taken from the file name: {@link #CSV} for {@code .csv} files, {@link #JSON} otherwise.
+     *
+     * @param value    The raw request parameter.
+     * @param fileName The uploaded file name; may be null.
+     * @return The matching format.
+     * @throws IllegalArgumentException if the value is not a known format.
+     */
+    public static InventoryFeedFormat fromParam(String value, String fileName) {
+        if (value == null || value.isBlank()) {
+            return fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : JSON;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown feed format '" + value + "'. Use json or csv.");
+        }
+    }
+}
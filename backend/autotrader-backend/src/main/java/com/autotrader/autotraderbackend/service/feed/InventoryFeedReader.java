@@ -0,0 +1,20 @@
+package com.autotrader.autotraderbackend.service.feed;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the rows of an inventory feed one at a time, so a feed is never held in memory.
+ */
+interface InventoryFeedReader extends Closeable {
+
+    /**
+     * Reads the next row.
+     *
+     * @return The row, or null at the end of the feed.
+     * @throws InvalidFeedRowException  If the row has a value of the wrong type; reading can continue.
+     * @throws IllegalArgumentException If the feed is malformed; reading cannot continue.
+     * @throws IOException              If reading the stream fails.
+     */
+    InventoryFeedRow next() throws IOException;
+}
@@ -0,0 +1,187 @@
+package com.autotrader.autotraderbackend.service.feed;
+
+import com.autotrader.autotraderbackend.validation.CurrentYearOrEarlier;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One car of a dealer inventory feed. Rows are matched to the dealer's listings by
+ * {@link #key()}: the stock number, or the VIN when the row has no stock number.
+ */
+@Data
+public class InventoryFeedRow {
+
+    /**
+     * Reads feed rows from JSON objects and CSV records; property names are case-insensitive
+     * and unknown properties are ignored.
+     */
+    static final ObjectMapper MAPPER = JsonMapper.builder()
+            .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private static final char SEPARATOR = '\u001F';
+
+    @Size(max = 50, message = "Stock number must be at most 50 characters")
+    private String stockNumber;
+
+    @Size(max = 17, message = "VIN must be at most 17 characters")
+    private String vin;
+
+    @NotBlank(message = "Title is required")
+    @Size(max = 100, message = "Title must be at most 100 characters")
+    private String title;
+
+    @NotBlank(message = "Brand is required")
+    @Size(max = 50, message = "Brand must be at most 50 characters")
+    private String brand;
+
+    @NotBlank(message = "Model is required")
+    @Size(max = 50, message = "Model must be at most 50 characters")
+    private String model;
+
+    @NotNull(message = "Year is required")
+    @Min(value = 1920, message = "Year must be 1920 or later")
+    @CurrentYearOrEarlier(message = "Year must not be later than the current year")
+    @Digits(integer = 4, fraction = 0, message = "Year must be a 4-digit number")
+    private Integer modelYear;
+
+    @NotNull(message = "Mileage is required")
+    @PositiveOrZero(message = "Mileage must be a positive number or zero")
+    private Integer mileage;
+
+    @NotNull(message = "Price is required")
+    @Positive(message = "Price must be a positive number")
+    @Digits(integer = 8, fraction = 2, message = "Price must have at most 8 digits and 2 decimals")
+    private BigDecimal price;
+
+    @NotNull(message = "Location is required")
+    private Long locationId;
+
+    @NotBlank(message = "Description is required")
+    private String description;
+
+    @Size(max = 50, message = "Exterior color must be at most 50 characters")
+    private String exteriorColor;
+
+    @Size(max = 50, message = "Interior color must be at most 50 characters")
+    private String interiorColor;
+
+    private Integer doors;
+
+    private Integer cylinders;
+
+    @Size(max = 50, message = "Transmission must be at most 50 characters")
+    private String transmission;
+
+    /**
+     * Image URLs, fetched only when the row creates a new listing. Not part of {@link #hash()}.
+     */
+    private List<String> imageUrls = new ArrayList<>();
+
+    /**
+     * The key this row is matched on, or null if it has neither a stock number nor a VIN.
+     */
+    public String key() {
+        return keyOf(stockNumber, vin);
+    }
+
+    /**
+     * Builds the feed key of a stock number / VIN pair: {@code stock:<number>} if there is a
+     * stock number, otherwise {@code vin:<VIN>} (upper case), otherwise null.
+     */
+    public static String keyOf(String stockNumber, String vin) {
+        if (stockNumber != null && !stockNumber.isBlank()) {
+            return "stock:" + stockNumber.trim();
+        }
+        if (vin != null && !vin.isBlank()) {
+            return "vin:" + vin.trim().toUpperCase(Locale.ROOT);
+        }
+        return null;
+    }
+
+    /**
+     * SHA-256 over every listing field of the row (image URLs excluded, as they only matter
+     * for new listings). Equal hashes mean applying the row would change nothing.
+     */
+    public String hash() {
+        StringBuilder canonical = new StringBuilder();
+        for (Object value : new Object[]{stockNumber, vin, title, brand, model, modelYear, mileage,
+                price != null ? price.stripTrailingZeros().toPlainString() : null, locationId, description,
+                exteriorColor, interiorColor, doors, cylinders, transmission}) {
+            canonical.append(Objects.toString(value, "")).append(SEPARATOR);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Converts a parsed JSON object to a row.
+     *
+     * @throws InvalidFeedRowException If a value has the wrong type.
+     */
+    static InventoryFeedRow fromJson(JsonNode node) {
+        try {
+            return MAPPER.treeToValue(node, InventoryFeedRow.class);
+        } catch (JsonMappingException e) {
+            throw invalid(text(node.get("stockNumber")), text(node.get("vin")), e);
+        } catch (Exception e) {
+            throw new InvalidFeedRowException(keyOf(text(node.get("stockNumber")), text(node.get("vin"))), "Invalid row: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts the named values of a CSV record to a row.
+     *
+     * @throws InvalidFeedRowException If a value has the wrong type.
+     */
+    static InventoryFeedRow fromValues(Map<String, Object> values) {
+        try {
+            return MAPPER.convertValue(values, InventoryFeedRow.class);
+        } catch (IllegalArgumentException e) {
+            String stockNumber = Objects.toString(values.get("stocknumber"), null);
+            String vin = Objects.toString(values.get("vin"), null);
+            if (e.getCause() instanceof JsonMappingException mappingException) {
+                throw invalid(stockNumber, vin, mappingException);
+            }
+            throw new InvalidFeedRowException(keyOf(stockNumber, vin), "Invalid row: " + e.getMessage());
+        }
+    }
+
+    private static InvalidFeedRowException invalid(String stockNumber, String vin, JsonMappingException e) {
+        String field = e.getPath().isEmpty() ? null : e.getPath().get(0).getFieldName();
+        return new InvalidFeedRowException(keyOf(stockNumber, vin),
+                field != null ? "Invalid value for " + field : "Invalid row: " + e.getOriginalMessage());
+    }
+
+    private static String text(JsonNode node) {
+        return node != null && node.isValueNode() ? node.asText() : null;
+    }
+}
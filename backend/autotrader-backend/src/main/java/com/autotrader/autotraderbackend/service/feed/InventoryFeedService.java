@@ -0,0 +1,68 @@
+package com.autotrader.autotraderbackend.service.feed;
+
+import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
+import com.autotrader.autotraderbackend.model.ListingMedia;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.response.InventoryFeedSyncResponse;
+import com.autotrader.autotraderbackend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a dealer inventory feed sync: the feed is streamed through {@link InventoryFeedSync}
+ * in one transaction, then the images of the new listings are downloaded outside of it (so
+ * slow image hosts never hold a database connection) and attached in a second transaction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryFeedService {
+
+    private final UserRepository userRepository;
+    private final InventoryFeedSync inventoryFeedSync;
+    private final InventoryImageFetcher inventoryImageFetcher;
+
+    /**
+     * Syncs a full inventory feed against the listings of a dealer.
+     *
+     * @param username The dealer.
+     * @param format   The feed format.
+     * @param feed     The feed; read to the end and closed.
+     * @return What the sync changed.
+     * @throws ResourceNotFoundException If the user does not exist.
+     * @throws IllegalArgumentException  If the feed is malformed; nothing is changed then.
+     * @throws IOException               If reading the feed fails.
+     */
+    public InventoryFeedSyncResponse syncFeed(String username, InventoryFeedFormat format, InputStream feed) throws IOException {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
+        log.info("Syncing {} inventory feed for user {}", format, username);
+
+        InventoryFeedSync.Outcome outcome;
+        try (InventoryFeedReader reader = format.open(feed)) {
+            outcome = inventoryFeedSync.apply(user.getId(), reader);
+        }
+
+        Map<Long, List<ListingMedia>> mediaByListing = new LinkedHashMap<>();
+        outcome.imagesToFetch().forEach((listingId, urls) -> {
+            List<ListingMedia> media = inventoryImageFetcher.fetch(listingId, urls);
+            if (!media.isEmpty()) {
+                mediaByListing.put(listingId, media);
+            }
+        });
+        int imagesFetched = mediaByListing.values().stream().mapToInt(List::size).sum();
+        if (imagesFetched > 0) {
+            inventoryFeedSync.attachMedia(mediaByListing);
+        }
+
+        return new InventoryFeedSyncResponse(outcome.inserted(), outcome.updated(), outcome.unchanged(),
+                outcome.archived(), outcome.rejected(), imagesFetched, outcome.errors());
+    }
+}
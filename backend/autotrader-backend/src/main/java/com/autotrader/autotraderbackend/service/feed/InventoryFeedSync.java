@@ -0,0 +1,330 @@
+package com.autotrader.autotraderbackend.service.feed;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.ListingMedia;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.ListingMediaRepository;
+import com.autotrader.autotraderbackend.repository.LocationRepository;
+import com.autotrader.autotraderbackend.repository.UserRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingFeedState;
+import com.autotrader.autotraderbackend.service.ListingCatalogLinker;
+import com.autotrader.autotraderbackend.service.search.ListingChanges;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Applies a dealer inventory feed to the dealer's listings. The current feed key and row hash
+ * of every listing is read once; each feed row is then classified by its key and hash:
+ * <ul>
+ *     <li>unknown key: a new listing (pending approval, like any new listing);</li>
+ *     <li>known key with a different hash, or an archived listing: an update;</li>
+ *     <li>known key with the same hash: nothing is written at all.</li>
+ * </ul>
+ * Feed-managed listings (those with a feed hash) whose key is missing from the feed are
+ * archived. Inserts, updates and archives are applied in chunks of
+ * {@code app.inventory-feed.batch-size}, so Hibernate sends them as JDBC batches, and the
+ * persistence context is cleared after each chunk.
+ */
+@Component
+@Slf4j
+public class InventoryFeedSync {
+
+    private static final int MAX_REPORTED_ERRORS = 50;
+
+    private final CarListingRepository carListingRepository;
+    private final ListingMediaRepository listingMediaRepository;
+    private final UserRepository userRepository;
+    private final LocationRepository locationRepository;
+    private final ListingCatalogLinker listingCatalogLinker;
+    private final ListingChanges listingChanges;
+    private final Validator validator;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public InventoryFeedSync(CarListingRepository carListingRepository,
+                             ListingMediaRepository listingMediaRepository,
+                             UserRepository userRepository,
+                             LocationRepository locationRepository,
+                             ListingCatalogLinker listingCatalogLinker,
+                             ListingChanges listingChanges,
+                             Validator validator,
+                             @Value("${app.inventory-feed.batch-size:50}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Inventory feed batch size must be positive.");
+        }
+        this.carListingRepository = carListingRepository;
+        this.listingMediaRepository = listingMediaRepository;
+        this.userRepository = userRepository;
+        this.locationRepository = locationRepository;
+        this.listingCatalogLinker = listingCatalogLinker;
+        this.listingChanges = listingChanges;
+        this.validator = validator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Counts and the image URLs of the listings created by a sync.
+     *
+     * @param inserted      Rows that created a listing.
+     * @param updated       Rows that changed a listing.
+     * @param unchanged     Rows that matched their listing.
+     * @param archived      Listings archived because they were missing from the feed.
+     * @param rejected      Rows skipped.
+     * @param errors        Rejection reasons, for the first 50 rejected rows only.
+     * @param imagesToFetch Image URLs of each new listing, by listing id.
+     */
+    public record Outcome(int inserted, int updated, int unchanged, int archived, int rejected,
+                          List<String> errors, Map<Long, List<String>> imagesToFetch) {
+    }
+
+    /**
+     * Reads a feed to the end and applies it to a seller's listings in one transaction. A
+     * malformed feed rolls everything back; an invalid row is only skipped, and its listing
+     * (if its key could be read) is neither updated nor archived.
+     *
+     * @param sellerId The dealer whose listings the feed describes.
+     * @param reader   The feed.
+     * @return What was changed.
+     * @throws IllegalArgumentException If the feed is malformed.
+     * @throws IOException              If reading the feed fails.
+     */
+    @Transactional
+    public Outcome apply(Long sellerId, InventoryFeedReader reader) throws IOException {
+        Map<String, ListingFeedState> current = new HashMap<>();
+        for (ListingFeedState state : carListingRepository.findFeedStatesBySellerId(sellerId)) {
+            current.putIfAbsent(InventoryFeedRow.keyOf(state.stockNumber(), state.vin()), state);
+        }
+        Run run = new Run(sellerId);
+        Set<String> seen = new HashSet<>();
+
+        int rowNumber = 0;
+        while (true) {
+            rowNumber++;
+            InventoryFeedRow row;
+            try {
+                row = reader.next();
+            } catch (InvalidFeedRowException e) {
+                if (e.getKey() != null) {
+                    seen.add(e.getKey());
+                }
+                run.reject(rowNumber, e.getMessage());
+                continue;
+            }
+            if (row == null) {
+                break;
+            }
+            String key = row.key();
+            if (key == null) {
+                run.reject(rowNumber, "A stock number or VIN is required");
+                continue;
+            }
+            if (!seen.add(key)) {
+                run.reject(rowNumber, "Duplicate of an earlier row (" + key + ")");
+                continue;
+            }
+            String error = validate(row, run);
+            if (error != null) {
+                run.reject(rowNumber, error);
+                continue;
+            }
+
+            ListingFeedState state = current.get(key);
+            if (state == null) {
+                run.inserts.add(row);
+                if (run.inserts.size() >= batchSize) {
+                    insert(run);
+                }
+            } else if (row.hash().equals(state.feedHash()) && !Boolean.TRUE.equals(state.archived())) {
+                run.unchanged++;
+            } else {
+                run.updates.put(state.id(), row);
+                if (run.updates.size() >= batchSize) {
+                    update(run);
+                }
+            }
+        }
+        insert(run);
+        update(run);
+
+        List<Long> missing = current.entrySet().stream()
+                .filter(entry -> !seen.contains(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .filter(state -> state.feedHash() != null && !Boolean.TRUE.equals(state.archived()))
+                .map(ListingFeedState::id)
+                .toList();
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            archive(missing.subList(from, Math.min(from + batchSize, missing.size())), run);
+        }
+
+        log.info("Inventory feed for seller {}: {} inserted, {} updated, {} unchanged, {} archived, {} rejected",
+                sellerId, run.inserted, run.updated, run.unchanged, run.archived, run.rejected);
+        return new Outcome(run.inserted, run.updated, run.unchanged, run.archived, run.rejected,
+                run.errors, run.imagesToFetch);
+    }
+
+    /**
+     * Saves the media downloaded for new listings, in JDBC batches.
+     *
+     * @param mediaByListing Unsaved media of each listing, by listing id.
+     */
+    @Transactional
+    public void attachMedia(Map<Long, List<ListingMedia>> mediaByListing) {
+        List<ListingMedia> all = new ArrayList<>();
+        mediaByListing.forEach((listingId, media) -> {
+            CarListing listing = carListingRepository.getReferenceById(listingId);
+            for (ListingMedia item : media) {
+                item.setCarListing(listing);
+                all.add(item);
+            }
+        });
+        listingMediaRepository.saveAll(all);
+        log.info("Attached {} feed images to {} new listings", all.size(), mediaByListing.size());
+    }
+
+    private String validate(InventoryFeedRow row, Run run) {
+        Set<ConstraintViolation<InventoryFeedRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .min(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(ConstraintViolation::getMessage)
+                    .orElseThrow();
+        }
+        if (run.location(row.getLocationId()) == null) {
+            return "Unknown location " + row.getLocationId();
+        }
+        return null;
+    }
+
+    private void insert(Run run) {
+        if (run.inserts.isEmpty()) {
+            return;
+        }
+        List<CarListing> listings = new ArrayList<>(run.inserts.size());
+        for (InventoryFeedRow row : run.inserts) {
+            CarListing listing = new CarListing();
+            copy(row, listing, run);
+            listing.setSeller(userRepository.getReferenceById(run.sellerId));
+            listing.setApproved(false);
+            listings.add(listing);
+        }
+        listingCatalogLinker.linkAll(listings, Collections.nCopies(listings.size(), null));
+        carListingRepository.saveAll(listings);
+        entityManager.flush();
+
+        for (int i = 0; i < listings.size(); i++) {
+            CarListing listing = listings.get(i);
+            listingChanges.listingSaved(listing);
+            List<String> imageUrls = run.inserts.get(i).getImageUrls();
+            if (imageUrls != null && !imageUrls.isEmpty()) {
+                run.imagesToFetch.put(listing.getId(), List.copyOf(imageUrls));
+            }
+        }
+        run.inserted += listings.size();
+        run.inserts.clear();
+        entityManager.clear();
+    }
+
+    private void update(Run run) {
+        if (run.updates.isEmpty()) {
+            return;
+        }
+        List<CarListing> listings = carListingRepository.findAllById(run.updates.keySet());
+        for (CarListing listing : listings) {
+            // Brand and location may change: report what the listing was before
+            listingChanges.listingChanging(listing);
+            copy(run.updates.get(listing.getId()), listing, run);
+            listing.setArchived(false);
+        }
+        listingCatalogLinker.linkAll(listings, Collections.nCopies(listings.size(), null));
+        entityManager.flush();
+
+        listings.forEach(listingChanges::listingSaved);
+        run.updated += listings.size();
+        run.updates.clear();
+        entityManager.clear();
+    }
+
+    private void archive(List<Long> ids, Run run) {
+        List<CarListing> listings = carListingRepository.findAllById(ids);
+        for (CarListing listing : listings) {
+            listing.setArchived(true);
+        }
+        entityManager.flush();
+
+        listings.forEach(listingChanges::listingSaved);
+        run.archived += listings.size();
+        entityManager.clear();
+    }
+
+    private void copy(InventoryFeedRow row, CarListing listing, Run run) {
+        listing.setStockNumber(row.getStockNumber() != null ? row.getStockNumber().trim() : null);
+        listing.setVin(row.getVin() != null ? row.getVin().trim() : null);
+        listing.setTitle(row.getTitle());
+        listing.setBrand(row.getBrand());
+        listing.setModel(row.getModel());
+        listing.setModelYear(row.getModelYear());
+        listing.setMileage(row.getMileage());
+        listing.setPrice(row.getPrice());
+        listing.setDescription(row.getDescription());
+        listing.setExteriorColor(row.getExteriorColor());
+        listing.setInteriorColor(row.getInteriorColor());
+        listing.setDoors(row.getDoors());
+        listing.setCylinders(row.getCylinders());
+        listing.setTransmission(row.getTransmission());
+        listing.setLocation(run.location(row.getLocationId()));
+        listing.setFeedHash(row.hash());
+    }
+
+    /**
+     * State of one sync: pending chunks, counts and the locations looked up so far.
+     */
+    private final class Run {
+        final Long sellerId;
+        final List<InventoryFeedRow> inserts = new ArrayList<>();
+        final Map<Long, InventoryFeedRow> updates = new LinkedHashMap<>();
+        final Map<Long, List<String>> imagesToFetch = new LinkedHashMap<>();
+        final List<String> errors = new ArrayList<>();
+        final Map<Long, Optional<Location>> locations = new HashMap<>();
+        int inserted;
+        int updated;
+        int unchanged;
+        int archived;
+        int rejected;
+
+        Run(Long sellerId) {
+            this.sellerId = sellerId;
+        }
+
+        Location location(Long locationId) {
+            return locations.computeIfAbsent(locationId, locationRepository::findById).orElse(null);
+        }
+
+        void reject(int rowNumber, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Row " + rowNumber + ": " + message);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.autotrader.autotraderbackend.service.feed;
+
+import com.autotrader.autotraderbackend.config.FileUploadProperties;
+import com.autotrader.autotraderbackend.model.ListingMedia;
+import com.autotrader.autotraderbackend.service.storage.StorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Downloads the images of listings created from an inventory feed and stores them like
+ * uploaded images. Only http(s) URLs are fetched, only the content types allowed for uploads
+ * are kept, and an image larger than {@code app.upload.max-file-size} is skipped. A failed
+ * image is logged and skipped; it never fails the sync.
+ */
+@Component
+@Slf4j
+public class InventoryImageFetcher {
+
+    private final HttpClient httpClient;
+    private final StorageService storageService;
+    private final FileUploadProperties uploadProperties;
+    private final int maxImagesPerListing;
+    private final Duration timeout;
+
+    @Autowired
+    public InventoryImageFetcher(StorageService storageService,
+                                 FileUploadProperties uploadProperties,
+                                 @Value("${app.inventory-feed.max-images-per-listing:10}") int maxImagesPerListing,
+                                 @Value("${app.inventory-feed.image-timeout-seconds:10}") int timeoutSeconds) {
+        this(HttpClient.newBuilder()
+                        .connectTimeout(Duration.ofSeconds(timeoutSeconds))
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .build(),
+                storageService, uploadProperties, maxImagesPerListing, Duration.ofSeconds(timeoutSeconds));
+    }
+
+    InventoryImageFetcher(HttpClient httpClient, StorageService storageService, FileUploadProperties uploadProperties,
+                          int maxImagesPerListing, Duration timeout) {
+        this.httpClient = httpClient;
+        this.storageService = storageService;
+        this.uploadProperties = uploadProperties;
+        this.maxImagesPerListing = maxImagesPerListing;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Downloads and stores the images of one listing, the first becoming its primary image.
+     *
+     * @param listingId The new listing.
+     * @param urls      Image URLs from the feed; only the first
+     *                  {@code app.inventory-feed.max-images-per-listing} are fetched.
+     * @return Unsaved media for the stored images, in feed order.
+     */
+    public List<ListingMedia> fetch(Long listingId, List<String> urls) {
+        List<ListingMedia> media = new ArrayList<>();
+        for (String url : urls.subList(0, Math.min(urls.size(), maxImagesPerListing))) {
+            try {
+                MultipartFile image = download(url);
+                if (image == null) {
+                    continue;
+                }
+                String safeFilename = image.getOriginalFilename().replaceAll("[^a-zA-Z0-9._-]", "_");
+                String key = String.format("listings/%d/%d_%s", listingId, System.currentTimeMillis(), safeFilename);
+                storageService.store(image, key);
+
+                ListingMedia item = new ListingMedia();
+                item.setFileKey(key);
+                item.setFileName(image.getOriginalFilename());
+                item.setContentType(image.getContentType());
+                item.setSize(image.getSize());
+                item.setSortOrder(media.size());
+                item.setIsPrimary(media.isEmpty());
+                item.setMediaType("image");
+                media.add(item);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not fetch feed image {} for listing {}: {}", url, listingId, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while fetching feed images for listing {}", listingId);
+                break;
+            }
+        }
+        return media;
+    }
+
+    private MultipartFile download(String url) throws IOException, InterruptedException {
+        URI uri = URI.create(url.trim());
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            log.warn("Skipping feed image with unsupported URL {}", url);
+            return null;
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                log.warn("Feed image {} returned HTTP {}", url, response.statusCode());
+                return null;
+            }
+            String contentType = response.headers().firstValue("Content-Type")
+                    .map(value -> value.split(";")[0].trim().toLowerCase(Locale.ROOT))
+                    .orElse("");
+            if (!uploadProperties.getAllowedTypes().contains(contentType)) {
+                log.warn("Skipping feed image {} with content type '{}'", url, contentType);
+                return null;
+            }
+            long maxSize = uploadProperties.getMaxFileSize();
+            byte[] bytes = body.readNBytes((int) Math.min(maxSize + 1, Integer.MAX_VALUE - 8));
+            if (bytes.length == 0 || bytes.length > maxSize) {
+                log.warn("Skipping feed image {}: empty or larger than {} bytes", url, maxSize);
+                return null;
+            }
+            String path = uri.getPath() != null ? uri.getPath() : "";
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            return new FetchedImage(fileName.isEmpty() ? "image" : fileName, contentType, bytes);
+        }
+    }
+
+    /**
+     * A downloaded image, handed to {@link StorageService} like an uploaded file.
+     */
+    private record FetchedImage(String fileName, String contentType, byte[] bytes) implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return "image";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return fileName;
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bytes.length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return bytes.length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.write(dest.toPath(), bytes);
+        }
+    }
+}
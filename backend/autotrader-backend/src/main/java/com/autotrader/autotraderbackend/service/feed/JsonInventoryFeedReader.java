@@ -0,0 +1,54 @@
+package com.autotrader.autotraderbackend.service.feed;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a JSON feed object by object through a streaming parser: either one top-level array
+ * of listing objects, or a sequence of top-level objects (NDJSON).
+ */
+class JsonInventoryFeedReader implements InventoryFeedReader {
+
+    private final JsonParser parser;
+    private boolean started;
+    private boolean inArray;
+
+    JsonInventoryFeedReader(InputStream in) throws IOException {
+        this.parser = InventoryFeedRow.MAPPER.createParser(in);
+    }
+
+    @Override
+    public InventoryFeedRow next() throws IOException {
+        try {
+            JsonToken token = parser.nextToken();
+            if (!started) {
+                started = true;
+                if (token == JsonToken.START_ARRAY) {
+                    inArray = true;
+                    token = parser.nextToken();
+                }
+            }
+            if (token == null || (inArray && token == JsonToken.END_ARRAY)) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Malformed JSON feed: expected a listing object at line "
+                        + parser.currentLocation().getLineNr());
+            }
+            JsonNode node = parser.readValueAsTree();
+            return InventoryFeedRow.fromJson(node);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON feed: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,143 @@
+package com.autotrader.autotraderbackend.service.lifecycle;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The state transitions of a single listing. Each one runs as one compare-and-set UPDATE
+ * ({@link #apply}) that only matches the listing in the state the transition starts from, so
+ * concurrent transitions cannot overwrite each other. When it changes nothing, the listing
+ * is read to find out why ({@link #checkUnchanged}).
+ * <pre>
+ *   ACTIVE --pause--> PAUSED --resume--> ACTIVE
+ *   ACTIVE, PAUSED, PENDING --mark sold--> SOLD
+ *   any --archive--> ARCHIVED --unarchive--> previous flags
+ * </pre>
+ */
+public enum ListingTransition {
+    PAUSE("pause") {
+        @Override
+        public int apply(CarListingRepository repository, Long listingId, Long sellerId, LocalDateTime now) {
+            return repository.pause(listingId, sellerId, now);
+        }
+
+        @Override
+        public void checkUnchanged(CarListing listing) {
+            if (!Boolean.TRUE.equals(listing.getApproved())) {
+                throw new IllegalStateException("Cannot pause a listing that is not yet approved.");
+            }
+            if (Boolean.TRUE.equals(listing.getSold())) {
+                throw new IllegalStateException("Cannot pause a listing that has been marked as sold.");
+            }
+            if (Boolean.TRUE.equals(listing.getArchived())) {
+                throw new IllegalStateException("Cannot pause a listing that has been archived.");
+            }
+            if (Boolean.FALSE.equals(listing.getIsUserActive())) {
+                throw new IllegalStateException("Listing with ID " + listing.getId() + " is already paused.");
+            }
+            super.checkUnchanged(listing);
+        }
+    },
+    RESUME("resume") {
+        @Override
+        public int apply(CarListingRepository repository, Long listingId, Long sellerId, LocalDateTime now) {
+            return repository.resume(listingId, sellerId, now);
+        }
+
+        @Override
+        public void checkUnchanged(CarListing listing) {
+            if (Boolean.TRUE.equals(listing.getSold())) {
+                throw new IllegalStateException("Cannot resume a listing that has been marked as sold.");
+            }
+            if (Boolean.TRUE.equals(listing.getArchived())) {
+                throw new IllegalStateException("Cannot resume a listing that has been archived. Please contact support or renew if applicable.");
+            }
+            if (!Boolean.FALSE.equals(listing.getIsUserActive())) {
+                throw new IllegalStateException("Listing with ID " + listing.getId() + " is already active.");
+            }
+            super.checkUnchanged(listing);
+        }
+    },
+    MARK_SOLD("mark as sold") {
+        @Override
+        public int apply(CarListingRepository repository, Long listingId, Long sellerId, LocalDateTime now) {
+            return repository.markSold(listingId, sellerId, now);
+        }
+
+        @Override
+        public void checkUnchanged(CarListing listing) {
+            if (Boolean.TRUE.equals(listing.getArchived())) {
+                throw new IllegalStateException("Cannot mark an archived listing as sold. Please unarchive first.");
+            }
+            if (!Boolean.TRUE.equals(listing.getSold())) {
+                super.checkUnchanged(listing);
+            }
+        }
+    },
+    ARCHIVE("archive") {
+        @Override
+        public int apply(CarListingRepository repository, Long listingId, Long sellerId, LocalDateTime now) {
+            return repository.archive(listingId, sellerId, now);
+        }
+
+        @Override
+        public void checkUnchanged(CarListing listing) {
+            if (!Boolean.TRUE.equals(listing.getArchived())) {
+                super.checkUnchanged(listing);
+            }
+        }
+    },
+    UNARCHIVE("unarchive") {
+        @Override
+        public int apply(CarListingRepository repository, Long listingId, Long sellerId, LocalDateTime now) {
+            return repository.unarchive(listingId, sellerId, now);
+        }
+
+        @Override
+        public void checkUnchanged(CarListing listing) {
+            if (!Boolean.TRUE.equals(listing.getArchived())) {
+                throw new IllegalStateException("Listing with ID " + listing.getId() + " is not currently archived.");
+            }
+            super.checkUnchanged(listing);
+        }
+    };
+
+    private final String action;
+
+    ListingTransition(String action) {
+        this.action = action;
+    }
+
+    /**
+     * @return The action as worded in log and error messages, e.g. "mark as sold".
+     */
+    public String action() {
+        return action;
+    }
+
+    /**
+     * Changes the listing if it is in the state this transition starts from and, unless
+     * {@code sellerId} is null, belongs to that seller.
+     *
+     * @return 1 if the listing changed, otherwise 0.
+     */
+    public abstract int apply(CarListingRepository repository, Long listingId, Long sellerId, LocalDateTime now);
+
+    /**
+     * Explains why {@link #apply} changed nothing for a listing that exists and that the
+     * caller may modify.
+     * <p>
+     * Returns normally if the listing is already in the target state and the transition
+     * treats that as a successful no-op (marking as sold, archiving).
+     *
+     * @param listing The listing as it is now.
+     * @throws IllegalStateException If the transition is not allowed from the listing's state,
+     *                               or the listing changed again since the UPDATE.
+     */
+    public void checkUnchanged(CarListing listing) {
+        throw new IllegalStateException("Listing with ID " + listing.getId()
+                + " was changed by another request. Please reload it and try again.");
+    }
+}
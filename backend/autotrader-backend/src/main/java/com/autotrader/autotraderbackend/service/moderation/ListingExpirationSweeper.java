@@ -0,0 +1,149 @@
+package com.autotrader.autotraderbackend.service.moderation;
+
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.service.JobLockService;
+import com.autotrader.autotraderbackend.service.search.ListingChanges;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Archives listings past their {@code expirationDate}, so they leave search and the hot set.
+ * <p>
+ * Each run reads the ids of up to {@code batch-size} expired listings, expired longest first,
+ * and archives them with one conditional UPDATE in its own transaction, until none are left
+ * or {@code max-batches-per-run} batches are done. Archived listings are reported to
+ * {@link ListingChanges}.
+ * <p>
+ * With several instances, a database lease ({@link JobLockService}) lets only one of them
+ * sweep at a time; the others skip the run. Should the lease expire mid-run, the UPDATE still
+ * only archives listings that are expired and not archived yet, so a listing is never
+ * processed twice. Public queries exclude expired listings on their own
+ * ({@code CarListingSpecification.isNotExpired}), and so do the in-memory search index,
+ * location counts and trending listings, which compare each listing's expiration date with
+ * the current time; they do not wait for the sweep, and only the instance that archives a
+ * listing hears of it through {@link ListingChanges}.
+ * <p>
+ * Metrics: {@code listings.expiration.archived} (counter), {@code listings.expiration.sweep.rows}
+ * (rows archived per run), {@code listings.expiration.sweep} (run time) and
+ * {@code listings.expiration.sweep.skipped} (runs left to another instance).
+ */
+@Component
+@Slf4j
+public class ListingExpirationSweeper {
+
+    static final String LOCK_NAME = "listing-expiration-sweep";
+
+    private final CarListingRepository carListingRepository;
+    private final ListingChanges listingChanges;
+    private final JobLockService jobLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration leaseTime;
+
+    private final Counter archivedCounter;
+    private final Counter skippedCounter;
+    private final DistributionSummary rowsPerRun;
+    private final Timer runTimer;
+
+    public ListingExpirationSweeper(CarListingRepository carListingRepository,
+                                    ListingChanges listingChanges,
+                                    JobLockService jobLockService,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.listings.expiration.batch-size:500}") int batchSize,
+                                    @Value("${app.listings.expiration.max-batches-per-run:100}") int maxBatchesPerRun,
+                                    @Value("${app.listings.expiration.lease-seconds:600}") long leaseSeconds) {
+        if (batchSize < 1 || maxBatchesPerRun < 1 || leaseSeconds < 1) {
+            throw new IllegalArgumentException("Listing expiration batch size, batches per run and lease must be positive.");
+        }
+        this.carListingRepository = carListingRepository;
+        this.listingChanges = listingChanges;
+        this.jobLockService = jobLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.leaseTime = Duration.ofSeconds(leaseSeconds);
+
+        this.archivedCounter = Counter.builder("listings.expiration.archived")
+                .description("Expired listings archived")
+                .register(meterRegistry);
+        this.skippedCounter = Counter.builder("listings.expiration.sweep.skipped")
+                .description("Expiration sweeps skipped because another instance held the lease")
+                .register(meterRegistry);
+        this.rowsPerRun = DistributionSummary.builder("listings.expiration.sweep.rows")
+                .description("Expired listings archived per sweep")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("listings.expiration.sweep")
+                .description("Time taken by expiration sweeps")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.listings.expiration.interval-ms:600000}",
+               initialDelayString = "${app.listings.expiration.interval-ms:600000}")
+    public void sweepScheduled() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            log.error("Listing expiration sweep failed", e);
+        }
+    }
+
+    /**
+     * Archives expired listings in batches, unless another instance is sweeping.
+     *
+     * @return The number of listings archived.
+     */
+    public int sweep() {
+        if (!jobLockService.tryAcquire(LOCK_NAME, leaseTime)) {
+            skippedCounter.increment();
+            return 0;
+        }
+        long started = System.nanoTime();
+        int archived = 0;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                List<Long> ids = carListingRepository.findExpiredIds(now, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Integer batchArchived = transactionTemplate.execute(status -> archiveBatch(ids, now));
+                archived += batchArchived != null ? batchArchived : 0;
+                if (ids.size() < batchSize) {
+                    break;
+                }
+            }
+        } finally {
+            jobLockService.release(LOCK_NAME);
+            runTimer.record(Duration.ofNanos(System.nanoTime() - started));
+            rowsPerRun.record(archived);
+            archivedCounter.increment(archived);
+        }
+        if (archived > 0) {
+            log.info("Archived {} expired listings", archived);
+        }
+        return archived;
+    }
+
+    private int archiveBatch(List<Long> ids, LocalDateTime now) {
+        int archived = carListingRepository.archiveExpired(ids, now);
+        if (archived > 0) {
+            listingChanges.listingsUpdated(ids);
+        }
+        return archived;
+    }
+}
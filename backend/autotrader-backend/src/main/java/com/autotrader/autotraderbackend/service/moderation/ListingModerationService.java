@@ -0,0 +1,163 @@
+package com.autotrader.autotraderbackend.service.moderation;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.payload.request.BulkModerationRequest;
+import com.autotrader.autotraderbackend.payload.response.BulkModerationResponse;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingModerationState;
+import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.service.SavedSearchService;
+import com.autotrader.autotraderbackend.service.search.ListingChanges;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a moderation action to many listings without loading them.
+ * <p>
+ * The ids are processed in chunks of {@code app.listings.moderation.chunk-size}: each chunk is
+ * one conditional UPDATE, which only changes the listings not in the target state yet and
+ * stamps them with the same {@code updatedAt}, followed by one projection SELECT of the
+ * chunk's flags that tells apart the listings the UPDATE changed (carrying the stamp), those
+ * already in the target state, those the action conflicts with and missing ids. Changed
+ * listings are reported to {@link ListingChanges}.
+ * <p>
+ * Approving is the exception that still loads entities: saved searches are matched against
+ * the listings it changed, as for a single approval.
+ */
+@Service
+@Slf4j
+public class ListingModerationService {
+
+    private final CarListingRepository carListingRepository;
+    private final SavedSearchService savedSearchService;
+    private final ListingChanges listingChanges;
+    private final int maxListings;
+    private final int chunkSize;
+
+    public ListingModerationService(
+            CarListingRepository carListingRepository,
+            SavedSearchService savedSearchService,
+            ListingChanges listingChanges,
+            @Value("${app.listings.moderation.max-listings:10000}") int maxListings,
+            @Value("${app.listings.moderation.chunk-size:1000}") int chunkSize) {
+        this.carListingRepository = carListingRepository;
+        this.savedSearchService = savedSearchService;
+        this.listingChanges = listingChanges;
+        this.maxListings = maxListings;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Applies a moderation action to the listings with the given ids, or to every listing
+     * matching the request filter that the action would change. All chunks run in one
+     * transaction.
+     *
+     * @param request The action and the ids or filter.
+     * @return The ids of the listings changed, unchanged and in conflict, and the ids not found.
+     * @throws IllegalArgumentException If the action is unknown, the request has both or neither
+     *                                  ids and a filter, or selects too many listings.
+     */
+    @Transactional
+    public BulkModerationResponse moderate(BulkModerationRequest request) {
+        ModerationAction action = ModerationAction.fromParam(request.getAction());
+        List<Long> ids = resolveIds(action, request);
+        // Truncated to the precision of the column so the stamp reads back unchanged
+        LocalDateTime stamp = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        long started = System.currentTimeMillis();
+
+        List<Long> updated = new ArrayList<>();
+        List<Long> unchanged = new ArrayList<>();
+        List<Long> conflict = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            action.apply(carListingRepository, chunk, stamp);
+            Map<Long, ListingModerationState> states = carListingRepository.findModerationStatesByIdIn(chunk).stream()
+                    .collect(Collectors.toMap(ListingModerationState::id, Function.identity()));
+
+            List<Long> changed = new ArrayList<>();
+            for (Long id : chunk) {
+                ListingModerationState state = states.get(id);
+                if (state == null) {
+                    notFound.add(id);
+                } else if (stamp.equals(state.updatedAt())) {
+                    changed.add(id);
+                } else if (action.conflicts(state)) {
+                    conflict.add(id);
+                } else {
+                    unchanged.add(id);
+                }
+            }
+            if (!changed.isEmpty()) {
+                report(action, changed);
+                updated.addAll(changed);
+            }
+        }
+
+        log.info("Bulk {}: {} listings updated, {} unchanged, {} in conflict, {} not found in {} ms",
+                action, updated.size(), unchanged.size(), conflict.size(), notFound.size(),
+                System.currentTimeMillis() - started);
+        return new BulkModerationResponse(action.name(), updated, unchanged, conflict, notFound);
+    }
+
+    private List<Long> resolveIds(ModerationAction action, BulkModerationRequest request) {
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        if (hasIds == request.hasFilter()) {
+            throw new IllegalArgumentException("Provide either listing ids or a filter (sellerId, locationId, createdBefore).");
+        }
+        if (hasIds) {
+            Set<Long> ids = request.getIds().stream()
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            checkLimit(ids.size());
+            return new ArrayList<>(ids);
+        }
+
+        Specification<CarListing> spec = action.changes();
+        if (request.getSellerId() != null) {
+            spec = spec.and(CarListingSpecification.hasSeller(request.getSellerId()));
+        }
+        if (request.getLocationId() != null) {
+            spec = spec.and(CarListingSpecification.locationIdIn(Set.of(request.getLocationId())));
+        }
+        if (request.getCreatedBefore() != null) {
+            spec = spec.and(CarListingSpecification.createdBefore(request.getCreatedBefore()));
+        }
+        checkLimit(carListingRepository.count(spec));
+        List<Long> ids = new ArrayList<>(carListingRepository.findIds(spec));
+        ids.sort(null);
+        return ids;
+    }
+
+    private void checkLimit(long selected) {
+        if (selected > maxListings) {
+            throw new IllegalArgumentException("The request selects " + selected + " listings; at most "
+                    + maxListings + " can be moderated at once.");
+        }
+    }
+
+    /**
+     * Reports listings changed by a bulk update, and queues the saved search matches of
+     * approved ones.
+     */
+    private void report(ModerationAction action, List<Long> changed) {
+        listingChanges.listingsUpdated(changed);
+        if (action == ModerationAction.APPROVE) {
+            carListingRepository.findAllById(changed).forEach(savedSearchService::queueMatches);
+        }
+    }
+}
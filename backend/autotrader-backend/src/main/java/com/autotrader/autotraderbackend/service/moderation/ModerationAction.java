@@ -0,0 +1,102 @@
+package com.autotrader.autotraderbackend.service.moderation;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingModerationState;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * A moderation transition an admin can apply to many listings at once. Each one is a single
+ * conditional UPDATE that only touches the listings not yet in the target state.
+ */
+public enum ModerationAction {
+    APPROVE {
+        @Override
+        int apply(CarListingRepository repository, Collection<Long> ids, LocalDateTime stamp) {
+            return repository.approveAll(ids, stamp);
+        }
+
+        @Override
+        Specification<CarListing> changes() {
+            return (root, query, criteriaBuilder) -> criteriaBuilder.isFalse(root.get("approved"));
+        }
+    },
+    ARCHIVE {
+        @Override
+        int apply(CarListingRepository repository, Collection<Long> ids, LocalDateTime stamp) {
+            return repository.archiveAll(ids, stamp);
+        }
+
+        @Override
+        Specification<CarListing> changes() {
+            return (root, query, criteriaBuilder) -> criteriaBuilder.isFalse(root.get("archived"));
+        }
+    },
+    UNARCHIVE {
+        @Override
+        int apply(CarListingRepository repository, Collection<Long> ids, LocalDateTime stamp) {
+            return repository.unarchiveAll(ids, stamp);
+        }
+
+        @Override
+        Specification<CarListing> changes() {
+            return (root, query, criteriaBuilder) -> criteriaBuilder.isTrue(root.get("archived"));
+        }
+    },
+    MARK_SOLD {
+        @Override
+        int apply(CarListingRepository repository, Collection<Long> ids, LocalDateTime stamp) {
+            return repository.markAllSold(ids, stamp);
+        }
+
+        @Override
+        Specification<CarListing> changes() {
+            return (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                    criteriaBuilder.isFalse(root.get("sold")), criteriaBuilder.isFalse(root.get("archived")));
+        }
+
+        @Override
+        boolean conflicts(ListingModerationState state) {
+            // As for a single listing: archived listings must be unarchived before being sold
+            return Boolean.TRUE.equals(state.archived());
+        }
+    };
+
+    /**
+     * Changes the listings with the given ids that are not in the target state yet, setting
+     * their {@code updatedAt} to the stamp.
+     *
+     * @return The number of listings changed.
+     */
+    abstract int apply(CarListingRepository repository, Collection<Long> ids, LocalDateTime stamp);
+
+    /**
+     * @return The listings this action would change.
+     */
+    abstract Specification<CarListing> changes();
+
+    /**
+     * @return true if this action does not apply to a listing in the given state.
+     */
+    boolean conflicts(ListingModerationState state) {
+        return false;
+    }
+
+    /**
+     * Parses a request value, case-insensitively, with dashes or underscores, e.g. {@code mark-sold}.
+     *
+     * @throws IllegalArgumentException if the value is not a known action.
+     */
+    public static ModerationAction fromParam(String value) {
+        try {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown moderation action '" + value
+                    + "'. Use approve, archive, unarchive or mark-sold.");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.autotrader.autotraderbackend.service.notification;
+
+import com.autotrader.autotraderbackend.model.SavedSearchMatch;
+import com.autotrader.autotraderbackend.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Default sender, used until a mail or push channel is configured: logs the digest.
+ */
+@Component
+@Slf4j
+public class LoggingSavedSearchNotificationSender implements SavedSearchNotificationSender {
+
+    @Override
+    public void send(User user, List<SavedSearchMatch> matches) {
+        log.info("Saved search digest for user {}: {} new listings {}", user.getUsername(), matches.size(),
+                matches.stream().map(SavedSearchMatch::getListingId).toList());
+    }
+}
@@ -0,0 +1,21 @@
+package com.autotrader.autotraderbackend.service.notification;
+
+import com.autotrader.autotraderbackend.model.SavedSearchMatch;
+import com.autotrader.autotraderbackend.model.User;
+
+import java.util.List;
+
+/**
+ * Delivers queued saved search matches to their owner.
+ */
+public interface SavedSearchNotificationSender {
+
+    /**
+     * Notifies a user of new listings matching their saved searches, in one message.
+     *
+     * @param user    The owner of the saved searches.
+     * @param matches The user's undelivered matches, oldest first; their saved searches are loaded.
+     * @throws RuntimeException If the notification could not be sent; the matches stay queued.
+     */
+    void send(User user, List<SavedSearchMatch> matches);
+}
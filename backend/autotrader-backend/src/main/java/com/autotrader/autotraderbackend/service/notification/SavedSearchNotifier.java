@@ -0,0 +1,143 @@
+package com.autotrader.autotraderbackend.service.notification;
+
+import com.autotrader.autotraderbackend.model.SavedSearchMatch;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.repository.SavedSearchMatchRepository;
+import com.autotrader.autotraderbackend.service.JobLockService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers queued saved search matches in batches: each run reads the oldest undelivered
+ * matches, sends every user a single digest of theirs and marks the sent matches delivered
+ * with one update per batch.
+ * <p>
+ * Matches of a user whose digest fails are not read again before {@code retry-delay-seconds}
+ * have passed, so the following batches move on to other users; after
+ * {@code max-attempts} failed attempts a match is given up. With several instances, a
+ * database lease ({@link JobLockService}) lets only one of them deliver at a time, so the
+ * same matches are not sent twice as long as a run finishes within {@code lease-seconds}.
+ */
+@Component
+@Slf4j
+public class SavedSearchNotifier {
+
+    static final String LOCK_NAME = "saved-search-delivery";
+
+    private final SavedSearchMatchRepository savedSearchMatchRepository;
+    private final SavedSearchNotificationSender sender;
+    private final JobLockService jobLockService;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Duration leaseTime;
+
+    public SavedSearchNotifier(SavedSearchMatchRepository savedSearchMatchRepository,
+                               SavedSearchNotificationSender sender,
+                               JobLockService jobLockService,
+                               @Value("${app.saved-searches.delivery.batch-size:500}") int batchSize,
+                               @Value("${app.saved-searches.delivery.max-batches-per-run:20}") int maxBatchesPerRun,
+                               @Value("${app.saved-searches.delivery.max-attempts:5}") int maxAttempts,
+                               @Value("${app.saved-searches.delivery.retry-delay-seconds:900}") long retryDelaySeconds,
+                               @Value("${app.saved-searches.delivery.lease-seconds:600}") long leaseSeconds) {
+        if (batchSize < 1 || maxBatchesPerRun < 1 || maxAttempts < 1 || retryDelaySeconds < 1 || leaseSeconds < 1) {
+            throw new IllegalArgumentException("Saved search delivery batch size, batches per run, attempts, "
+                    + "retry delay and lease must be positive.");
+        }
+        this.savedSearchMatchRepository = savedSearchMatchRepository;
+        this.sender = sender;
+        this.jobLockService = jobLockService;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = Duration.ofSeconds(retryDelaySeconds);
+        this.leaseTime = Duration.ofSeconds(leaseSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${app.saved-searches.delivery.interval-ms:60000}",
+               initialDelayString = "${app.saved-searches.delivery.interval-ms:60000}")
+    public void deliverScheduled() {
+        try {
+            deliverPending();
+        } catch (RuntimeException e) {
+            log.error("Saved search delivery failed", e);
+        }
+    }
+
+    /**
+     * Delivers queued matches until none are due or the per-run batch limit is reached,
+     * unless another instance is delivering.
+     *
+     * @return The number of matches delivered.
+     */
+    public int deliverPending() {
+        if (!jobLockService.tryAcquire(LOCK_NAME, leaseTime)) {
+            log.debug("Saved search delivery left to another instance");
+            return 0;
+        }
+        int delivered = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                List<SavedSearchMatch> pending = savedSearchMatchRepository.findPending(LocalDateTime.now(), PageRequest.of(0, batchSize));
+                if (pending.isEmpty()) {
+                    break;
+                }
+                // Failed matches are postponed, so the next batch starts after them
+                delivered += deliverBatch(pending);
+                if (pending.size() < batchSize) {
+                    break;
+                }
+            }
+        } finally {
+            jobLockService.release(LOCK_NAME);
+        }
+        if (delivered > 0) {
+            log.info("Delivered {} saved search matches", delivered);
+        }
+        return delivered;
+    }
+
+    private int deliverBatch(List<SavedSearchMatch> pending) {
+        Map<Long, List<SavedSearchMatch>> byUser = new LinkedHashMap<>();
+        Map<Long, User> users = new LinkedHashMap<>();
+        for (SavedSearchMatch match : pending) {
+            User user = match.getSavedSearch().getUser();
+            users.putIfAbsent(user.getId(), user);
+            byUser.computeIfAbsent(user.getId(), id -> new ArrayList<>()).add(match);
+        }
+        List<Long> deliveredIds = new ArrayList<>(pending.size());
+        List<Long> failedIds = new ArrayList<>();
+        for (Map.Entry<Long, List<SavedSearchMatch>> entry : byUser.entrySet()) {
+            try {
+                sender.send(users.get(entry.getKey()), entry.getValue());
+                entry.getValue().forEach(match -> deliveredIds.add(match.getId()));
+            } catch (RuntimeException e) {
+                entry.getValue().forEach(match -> failedIds.add(match.getId()));
+                log.warn("Failed to deliver {} saved search matches to user {}", entry.getValue().size(), entry.getKey(), e);
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!deliveredIds.isEmpty()) {
+            savedSearchMatchRepository.markDelivered(deliveredIds, now);
+        }
+        if (!failedIds.isEmpty()) {
+            savedSearchMatchRepository.markAttemptFailed(failedIds, now.plus(retryDelay));
+            int givenUp = savedSearchMatchRepository.markFailed(failedIds, maxAttempts, now);
+            if (givenUp > 0) {
+                log.error("Gave up delivering {} saved search matches after {} attempts", givenUp, maxAttempts);
+            }
+        }
+        return deliveredIds.size();
+    }
+}
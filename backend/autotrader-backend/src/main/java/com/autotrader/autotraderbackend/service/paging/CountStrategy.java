@@ -0,0 +1,39 @@
+package com.autotrader.autotraderbackend.service.paging;
+
+import java.util.Locale;
+
+/**
+ * How the total number of matching listings is determined for a page.
+ */
+public enum CountStrategy {
+    /**
+     * Run a {@code COUNT(*)} with the same filter on every request (default).
+     */
+    EXACT,
+    /**
+     * Use a recently computed count for the same filter, refreshed at most once per cache TTL.
+     */
+    APPROXIMATE,
+    /**
+     * Do not count at all; only report whether a next page exists (Slice semantics).
+     */
+    NONE;
+
+    /**
+     * Parses a request parameter value, case-insensitively. Null or blank means {@link #EXACT}.
+     *
+     * @param value The raw request parameter.
+     * @return The matching strategy.
+     * @throws IllegalArgumentException if the value is not a known strategy.
+     */
+    public static CountStrategy fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return EXACT;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown count strategy '" + value + "'. Use exact, approximate or none.");
+        }
+    }
+}
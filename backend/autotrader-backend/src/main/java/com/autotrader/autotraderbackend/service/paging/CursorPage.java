@@ -0,0 +1,39 @@
+package com.autotrader.autotraderbackend.service.paging;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A page of results fetched with keyset (cursor) paging.
+ * Unlike {@link org.springframework.data.domain.Page} it carries no total count,
+ * only whether more results follow and the cursor to fetch them.
+ *
+ * @param <T> The element type.
+ */
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    @Getter
+    private final List<T> content;
+    @Getter
+    private final int size;
+    private final boolean hasNext;
+    @Getter
+    private final String nextCursor;
+
+    /**
+     * @return true if another page follows this one.
+     */
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = content.stream().map(mapper).collect(Collectors.toList());
+        return new CursorPage<>(mapped, size, hasNext, nextCursor);
+    }
+}
@@ -0,0 +1,76 @@
+package com.autotrader.autotraderbackend.service.paging;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.service.SortableCarListingField;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor pointing just after a listing in a given sort order.
+ * <p>
+ * The cursor carries the sort field, the direction, the sort key of the last
+ * listing returned and its id (used as tie-breaker). It is serialized as a
+ * URL-safe Base64 string so clients treat it as an opaque token.
+ */
+@Getter
+@AllArgsConstructor
+public class ListingCursor {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    private final SortableCarListingField field;
+    private final Sort.Direction direction;
+    private final Comparable<?> value;
+    private final Long lastId;
+
+    /**
+     * Builds the cursor that continues after the given listing.
+     *
+     * @param listing   The last listing of the current page.
+     * @param field     The sort field of the current page.
+     * @param direction The sort direction of the current page.
+     * @return A cursor positioned after the listing.
+     */
+    public static ListingCursor after(CarListing listing, SortableCarListingField field, Sort.Direction direction) {
+        return new ListingCursor(field, direction, field.extractValue(listing), listing.getId());
+    }
+
+    /**
+     * Encodes this cursor into its opaque token form.
+     *
+     * @return The URL-safe token.
+     */
+    public String encode() {
+        String raw = String.join(SEPARATOR, VERSION, field.name(), direction.name(), String.valueOf(lastId), String.valueOf(value));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes an opaque token produced by {@link #encode()}.
+     *
+     * @param token The token received from the client.
+     * @return The decoded cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static ListingCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The sort key goes last so it may itself contain the separator
+            String[] parts = raw.split("\\" + SEPARATOR, 5);
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Unsupported cursor format");
+            }
+            SortableCarListingField field = SortableCarListingField.valueOf(parts[1]);
+            Sort.Direction direction = Sort.Direction.valueOf(parts[2]);
+            Long lastId = Long.valueOf(parts[3]);
+            return new ListingCursor(field, direction, field.parseValue(parts[4]), lastId);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor.", e);
+        }
+    }
+}
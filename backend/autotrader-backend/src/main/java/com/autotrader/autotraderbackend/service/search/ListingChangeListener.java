@@ -0,0 +1,51 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An in-memory structure derived from listings. Listing changes reach every implementation
+ * through {@link ListingChanges}; they are reported inside the writing transaction, so
+ * implementations apply them once it commits ({@link AfterCommit}). Changes made by other
+ * instances arrive through {@link #onListingsReconciled}.
+ */
+public interface ListingChangeListener {
+
+    /**
+     * A listing is about to change through its entity; called with its state before the
+     * change, for structures that have to forget what it was.
+     */
+    default void onListingChanging(CarListing listing) {
+    }
+
+    /**
+     * A listing was created or changed through its entity.
+     */
+    void onListingSaved(CarListing listing);
+
+    /**
+     * Listings were changed by a bulk update, which only changes their visibility; the rows
+     * are their state read back after the update.
+     */
+    void onListingsUpdated(List<ListingIndexRow> rows);
+
+    /**
+     * A listing was deleted.
+     */
+    void onListingDeleted(CarListing listing);
+
+    /**
+     * Periodic catch-up with listings written by other instances, which are not reported
+     * here; called outside any transaction. Known listings missing from {@code existingIds}
+     * were deleted, unless they are among the changed rows.
+     *
+     * @param changed     The listings created or updated since shortly before the previous
+     *                    reconcile, in any state.
+     * @param existingIds The ids of all listings, read just before the changed rows.
+     */
+    default void onListingsReconciled(List<ListingIndexRow> changed, Set<Long> existingIds) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reports listing changes to every {@link ListingChangeListener}: the search and keyword
+ * indexes, the result cache, the per-location counts, the trending listings and the
+ * valuations. Whatever writes listings reports each change here once.
+ * <p>
+ * The result cache is called last, so that its evictions run after the updates of the
+ * index its results are computed from (see {@link ListingResultCache}).
+ * <p>
+ * Changes made by other instances are not reported here. Every
+ * {@code app.listings.reconcile-interval-ms} they are read back instead: the listings
+ * created or updated since the previous reconcile (with {@link #RECONCILE_OVERLAP} to spare
+ * for slow commits and clock skew) plus the ids of all listings, from which each listener
+ * tells the listings deleted elsewhere. The first reconcile reaches back to startup, before
+ * the listeners are built.
+ */
+@Component
+@Slf4j
+public class ListingChanges {
+
+    /** How far back each reconcile reaches before the previous one started. */
+    static final Duration RECONCILE_OVERLAP = Duration.ofMinutes(5);
+
+    private final CarListingRepository carListingRepository;
+    private final List<ListingChangeListener> listeners;
+    /** When the previous reconcile started reading; the next one reads changes since. Guarded by this. */
+    private LocalDateTime syncedFrom = LocalDateTime.now();
+
+    public ListingChanges(CarListingRepository carListingRepository, List<ListingChangeListener> listeners) {
+        this.carListingRepository = carListingRepository;
+        this.listeners = listeners.stream()
+                .sorted(Comparator.comparing(listener -> listener instanceof ListingResultCache))
+                .toList();
+    }
+
+    /**
+     * Reports the state of a listing before it changes through its entity.
+     */
+    public void listingChanging(CarListing listing) {
+        if (listing != null) {
+            listeners.forEach(listener -> listener.onListingChanging(listing));
+        }
+    }
+
+    /**
+     * Reports a created or changed listing.
+     */
+    public void listingSaved(CarListing listing) {
+        if (listing != null && listing.getId() != null) {
+            listeners.forEach(listener -> listener.onListingSaved(listing));
+        }
+    }
+
+    /**
+     * Reports listings changed by a bulk update, read back once as index rows. Rows another
+     * writer changed in between are reported as they are now, which is harmless.
+     */
+    public void listingsUpdated(Collection<Long> listingIds) {
+        if (listingIds == null || listingIds.isEmpty()) {
+            return;
+        }
+        List<ListingIndexRow> rows = carListingRepository.findIndexRowsByIdIn(listingIds);
+        if (!rows.isEmpty()) {
+            listeners.forEach(listener -> listener.onListingsUpdated(rows));
+        }
+    }
+
+    /**
+     * Reports a deleted listing.
+     */
+    public void listingDeleted(CarListing listing) {
+        if (listing != null && listing.getId() != null) {
+            listeners.forEach(listener -> listener.onListingDeleted(listing));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.listings.reconcile-interval-ms:60000}",
+               initialDelayString = "${app.listings.reconcile-interval-ms:60000}")
+    public void reconcileScheduled() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Listing reconcile failed", e);
+        }
+    }
+
+    /**
+     * Reports the listings created, updated or deleted since shortly before the previous
+     * reconcile, including those written by other instances, to every listener.
+     *
+     * @return The number of listings created or updated.
+     */
+    public synchronized int reconcile() {
+        LocalDateTime readFrom = LocalDateTime.now();
+        LocalDateTime since = syncedFrom.minus(RECONCILE_OVERLAP);
+        // Ids first: a listing inserted in between is among the changed rows, so not taken for deleted
+        Set<Long> existingIds = new HashSet<>(carListingRepository.findAllIds());
+        List<ListingIndexRow> changed = carListingRepository.findIndexRowsChangedSince(since);
+        listeners.forEach(listener -> listener.onListingsReconciled(changed, existingIds));
+        syncedFrom = readFrom;
+        log.debug("Reconciled {} listings changed since {} out of {}", changed.size(), since, existingIds.size());
+        return changed.size();
+    }
+}
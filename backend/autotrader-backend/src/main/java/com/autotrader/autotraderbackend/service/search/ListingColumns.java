@@ -0,0 +1,452 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import com.autotrader.autotraderbackend.repository.specification.CatalogFilter;
+import com.autotrader.autotraderbackend.service.SortableCarListingField;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Column-oriented store of listing attributes used by {@link ListingSearchIndex}.
+ * <p>
+ * Each listing occupies one slot; attributes live in parallel primitive arrays, brand and
+ * model text are dictionary-encoded next to the catalog ids, and the status flags are bitmaps. Removed listings are only
+ * cleared from the {@code live} bitmap; their slots are reclaimed by the next rebuild.
+ * Not thread-safe: {@link ListingSearchIndex} guards access with a read/write lock.
+ */
+final class ListingColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long[] PRICE_BOUNDARY_CENTS = ListingFacetCounter.PRICE_BOUNDARIES.stream()
+            .mapToLong(boundary -> toCents(boundary, RoundingMode.UNNECESSARY))
+            .toArray();
+
+    private int size;
+    private long[] ids;
+    private int[] modelYears;
+    private int[] mileages;
+    private long[] priceCents;
+    private int[] brandCodes;
+    private int[] modelCodes;
+    /** Catalog brand, model and trim ids per slot, 0 when the listing is not linked. */
+    private long[] brandIds;
+    private long[] modelIds;
+    private long[] trimIds;
+    /** Location id per slot, 0 when the listing has no location (same key as the seek query). */
+    private long[] locationIds;
+    /** Creation time in microseconds since the epoch (UTC). */
+    private long[] createdAt;
+    /** Expiration time like {@link #createdAt}, {@link Long#MAX_VALUE} when the listing does not expire. */
+    private long[] expiresAt;
+
+    private final BitSet live = new BitSet();
+    private final BitSet approved = new BitSet();
+    private final BitSet sold = new BitSet();
+    private final BitSet archived = new BitSet();
+    private final BitSet userActive = new BitSet();
+
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Dictionary brands = new Dictionary();
+    private final Dictionary models = new Dictionary();
+
+    ListingColumns(int expectedSize) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedSize);
+        ids = new long[capacity];
+        modelYears = new int[capacity];
+        mileages = new int[capacity];
+        priceCents = new long[capacity];
+        brandCodes = new int[capacity];
+        modelCodes = new int[capacity];
+        brandIds = new long[capacity];
+        modelIds = new long[capacity];
+        trimIds = new long[capacity];
+        locationIds = new long[capacity];
+        createdAt = new long[capacity];
+        expiresAt = new long[capacity];
+    }
+
+    int liveCount() {
+        return slotById.size();
+    }
+
+    void upsert(ListingIndexRow row) {
+        Integer existing = slotById.get(row.id());
+        int slot;
+        if (existing != null) {
+            slot = existing;
+        } else {
+            ensureCapacity(size + 1);
+            slot = size++;
+            slotById.put(row.id(), slot);
+        }
+        ids[slot] = row.id();
+        modelYears[slot] = row.modelYear() != null ? row.modelYear() : 0;
+        mileages[slot] = row.mileage() != null ? row.mileage() : 0;
+        priceCents[slot] = row.price() != null ? toCents(row.price(), RoundingMode.HALF_UP) : 0L;
+        brandCodes[slot] = brands.encode(row.brand());
+        modelCodes[slot] = models.encode(row.model());
+        brandIds[slot] = row.brandId() != null ? row.brandId() : 0L;
+        modelIds[slot] = row.modelId() != null ? row.modelId() : 0L;
+        trimIds[slot] = row.trimId() != null ? row.trimId() : 0L;
+        locationIds[slot] = row.locationId() != null ? row.locationId() : 0L;
+        createdAt[slot] = row.createdAt() != null ? toMicros(row.createdAt()) : 0L;
+        expiresAt[slot] = row.expirationDate() != null ? toMicros(row.expirationDate()) : Long.MAX_VALUE;
+        live.set(slot);
+        approved.set(slot, Boolean.TRUE.equals(row.approved()));
+        sold.set(slot, Boolean.TRUE.equals(row.sold()));
+        archived.set(slot, Boolean.TRUE.equals(row.archived()));
+        // Matches the column default: a listing is active unless explicitly paused
+        userActive.set(slot, !Boolean.FALSE.equals(row.isUserActive()));
+    }
+
+    void remove(Long id) {
+        Integer slot = slotById.remove(id);
+        if (slot != null) {
+            live.clear(slot);
+        }
+    }
+
+    /**
+     * Removes the listings whose ids the predicate rejects.
+     *
+     * @return The number of listings removed.
+     */
+    int retainAll(Predicate<Long> keep) {
+        List<Long> missing = slotById.keySet().stream().filter(keep.negate()).toList();
+        missing.forEach(this::remove);
+        return missing.size();
+    }
+
+    /**
+     * Evaluates the public listing filter (see {@link #matchingSlots}) and returns one page of
+     * the matches in sort order.
+     *
+     * @param filter     The filter criteria.
+     * @param locationId The resolved location to filter by, or null for none.
+     * @param catalog    The resolved brand / model / trim ids to filter by.
+     * @param sort       The requested sort; only {@link SortableCarListingField}s are supported.
+     * @param offset     Number of matches to skip.
+     * @param limit      Maximum number of ids to return.
+     * @return The matching page, or empty if the sort cannot be served from the index.
+     */
+    Optional<ListingSearchHits> search(ListingFilterRequest filter, Long locationId, CatalogFilter catalog, Sort sort, long offset, int limit) {
+        SlotComparator comparator = comparatorFor(sort);
+        if (comparator == null) {
+            return Optional.empty();
+        }
+
+        int[] matches = matchingSlots(filter, locationId, catalog);
+        int count = matches.length;
+        List<Long> pageIds = new ArrayList<>();
+        if (offset < count) {
+            int wanted = (int) Math.min((long) count, offset + limit);
+            int[] ordered = topSlots(matches, count, wanted, comparator);
+            for (int i = (int) offset; i < wanted; i++) {
+                pageIds.add(ids[ordered[i]]);
+            }
+        }
+        return Optional.of(new ListingSearchHits(pageIds, count));
+    }
+
+    /**
+     * Counts the brands, models, locations, model years and price buckets of the listings
+     * matching the public filter in a single scan.
+     *
+     * @param filter     The filter criteria, as for {@link #search}.
+     * @param locationId The resolved location to filter by, or null for none.
+     * @param catalog    The resolved brand / model / trim ids to filter by.
+     * @param counter    Receives the counts.
+     */
+    void countFacets(ListingFilterRequest filter, Long locationId, CatalogFilter catalog, ListingFacetCounter counter) {
+        int[] matches = matchingSlots(filter, locationId, catalog);
+        long[] brandCounts = new long[brands.size()];
+        long[] modelCounts = new long[models.size()];
+        long[] priceBucketCounts = new long[ListingFacetCounter.PRICE_BOUNDARIES.size() + 1];
+        Map<Long, Long> locationCounts = new HashMap<>();
+        Map<Integer, Long> yearCounts = new HashMap<>();
+
+        for (int slot : matches) {
+            brandCounts[brandCodes[slot]]++;
+            modelCounts[modelCodes[slot]]++;
+            priceBucketCounts[priceBucketOfCents(priceCents[slot])]++;
+            if (locationIds[slot] != 0L) {
+                locationCounts.merge(locationIds[slot], 1L, Long::sum);
+            }
+            if (modelYears[slot] != 0) {
+                yearCounts.merge(modelYears[slot], 1L, Long::sum);
+            }
+        }
+
+        counter.addTotal(matches.length);
+        for (int code = 0; code < brandCounts.length; code++) {
+            counter.addBrand(brands.display(code), brandCounts[code]);
+        }
+        for (int code = 0; code < modelCounts.length; code++) {
+            counter.addModel(models.display(code), modelCounts[code]);
+        }
+        for (int bucket = 0; bucket < priceBucketCounts.length; bucket++) {
+            counter.addPriceBucket(bucket, priceBucketCounts[bucket]);
+        }
+        locationCounts.forEach(counter::addLocation);
+        yearCounts.forEach(counter::addModelYear);
+    }
+
+    /**
+     * Counts the listings matching the public filter per location in a single scan.
+     *
+     * @return The counts by location id; listings without a location are not counted.
+     */
+    Map<Long, Long> countByLocation(ListingFilterRequest filter, Long locationId, CatalogFilter catalog) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (int slot : matchingSlots(filter, locationId, catalog)) {
+            if (locationIds[slot] != 0L) {
+                counts.merge(locationIds[slot], 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return The slots of the live, approved, seller-active listings matching the filter,
+     *         with sold / archived defaulting to false exactly like {@code CarListingService};
+     *         unless archived listings are asked for, those past their expiration date are
+     *         left out, also like {@code CarListingService}.
+     */
+    private int[] matchingSlots(ListingFilterRequest filter, Long locationId, CatalogFilter catalog) {
+        BitSet candidates = (BitSet) live.clone();
+        candidates.and(approved);
+        candidates.and(userActive);
+        applyFlag(candidates, sold, filter.getIsSold());
+        applyFlag(candidates, archived, filter.getIsArchived());
+
+        BitSet brandMatches = brands.codesContaining(filter.getBrand());
+        BitSet modelMatches = models.codesContaining(filter.getModel());
+        long[] brandIdMatches = sortedIds(catalog.brandIds());
+        long[] modelIdMatches = sortedIds(catalog.modelIds());
+        long[] trimIdMatches = sortedIds(catalog.trimIds());
+        int minYear = filter.getMinYear() != null ? filter.getMinYear() : Integer.MIN_VALUE;
+        int maxYear = filter.getMaxYear() != null ? filter.getMaxYear() : Integer.MAX_VALUE;
+        int minMileage = filter.getMinMileage() != null ? filter.getMinMileage() : Integer.MIN_VALUE;
+        int maxMileage = filter.getMaxMileage() != null ? filter.getMaxMileage() : Integer.MAX_VALUE;
+        long minPrice = filter.getMinPrice() != null ? toCents(filter.getMinPrice(), RoundingMode.CEILING) : Long.MIN_VALUE;
+        long maxPrice = filter.getMaxPrice() != null ? toCents(filter.getMaxPrice(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+        long expiredBy = Boolean.TRUE.equals(filter.getIsArchived()) ? Long.MIN_VALUE : toMicros(LocalDateTime.now());
+
+        int[] matches = new int[candidates.cardinality()];
+        int count = 0;
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            if (brandMatches != null && !brandMatches.get(brandCodes[slot])) continue;
+            if (modelMatches != null && !modelMatches.get(modelCodes[slot])) continue;
+            if (brandIdMatches != null && Arrays.binarySearch(brandIdMatches, brandIds[slot]) < 0) continue;
+            if (modelIdMatches != null && Arrays.binarySearch(modelIdMatches, modelIds[slot]) < 0) continue;
+            if (trimIdMatches != null && Arrays.binarySearch(trimIdMatches, trimIds[slot]) < 0) continue;
+            if (modelYears[slot] < minYear || modelYears[slot] > maxYear) continue;
+            if (mileages[slot] < minMileage || mileages[slot] > maxMileage) continue;
+            if (priceCents[slot] < minPrice || priceCents[slot] > maxPrice) continue;
+            if (locationId != null && locationIds[slot] != locationId) continue;
+            if (expiresAt[slot] <= expiredBy) continue;
+            matches[count++] = slot;
+        }
+        return count == matches.length ? matches : Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * @return The ids sorted for binary search, or null if the criterion does not restrict.
+     *         Unlinked slots hold 0, which no catalog id equals.
+     */
+    private static long[] sortedIds(Set<Long> ids) {
+        if (ids == null) {
+            return null;
+        }
+        long[] sorted = ids.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static void applyFlag(BitSet candidates, BitSet flag, Boolean requested) {
+        // Null means "not requested", which the public filter treats as false
+        if (Boolean.TRUE.equals(requested)) {
+            candidates.and(flag);
+        } else {
+            candidates.andNot(flag);
+        }
+    }
+
+    /**
+     * Returns the first {@code wanted} slots in sort order. A bounded max-heap keeps this at
+     * O(n log k) for the usual shallow pages instead of sorting every match.
+     */
+    private static int[] topSlots(int[] matches, int count, int wanted, SlotComparator comparator) {
+        if (wanted * 4L >= count) {
+            Integer[] boxed = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                boxed[i] = matches[i];
+            }
+            Arrays.sort(boxed, comparator::compare);
+            int[] ordered = new int[wanted];
+            for (int i = 0; i < wanted; i++) {
+                ordered[i] = boxed[i];
+            }
+            return ordered;
+        }
+        PriorityQueue<Integer> heap = new PriorityQueue<>(wanted, (a, b) -> comparator.compare(b, a));
+        for (int i = 0; i < count; i++) {
+            int slot = matches[i];
+            if (heap.size() < wanted) {
+                heap.add(slot);
+            } else if (comparator.compare(slot, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(slot);
+            }
+        }
+        int[] ordered = new int[heap.size()];
+        for (int i = ordered.length - 1; i >= 0; i--) {
+            ordered[i] = heap.poll();
+        }
+        return ordered;
+    }
+
+    /**
+     * Builds the slot ordering for a sort, ending with the id as tie-breaker
+     * (in the direction of the first order, as for keyset paging).
+     *
+     * @return The comparator, or null if the sort uses a field the index does not hold.
+     */
+    private SlotComparator comparatorFor(Sort sort) {
+        SlotComparator comparator = (a, b) -> 0;
+        boolean idDescending = false;
+        boolean first = true;
+        for (Sort.Order order : sort) {
+            Optional<SortableCarListingField> field = SortableCarListingField.fromFieldName(order.getProperty().split(",")[0]);
+            if (field.isEmpty()) {
+                return null;
+            }
+            long[] column = switch (field.get()) {
+                case PRICE -> priceCents;
+                case LOCATION_ID -> locationIds;
+                case CREATED_AT -> createdAt;
+            };
+            SlotComparator byField = order.isAscending()
+                    ? (a, b) -> Long.compare(column[a], column[b])
+                    : (a, b) -> Long.compare(column[b], column[a]);
+            comparator = comparator.then(byField);
+            if (first) {
+                idDescending = order.isDescending();
+                first = false;
+            }
+        }
+        SlotComparator byId = idDescending
+                ? (a, b) -> Long.compare(ids[b], ids[a])
+                : (a, b) -> Long.compare(ids[a], ids[b]);
+        return comparator.then(byId);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        modelYears = Arrays.copyOf(modelYears, capacity);
+        mileages = Arrays.copyOf(mileages, capacity);
+        priceCents = Arrays.copyOf(priceCents, capacity);
+        brandCodes = Arrays.copyOf(brandCodes, capacity);
+        modelCodes = Arrays.copyOf(modelCodes, capacity);
+        brandIds = Arrays.copyOf(brandIds, capacity);
+        modelIds = Arrays.copyOf(modelIds, capacity);
+        trimIds = Arrays.copyOf(trimIds, capacity);
+        locationIds = Arrays.copyOf(locationIds, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        expiresAt = Arrays.copyOf(expiresAt, capacity);
+    }
+
+    private static int priceBucketOfCents(long cents) {
+        int bucket = 0;
+        while (bucket < PRICE_BOUNDARY_CENTS.length && cents >= PRICE_BOUNDARY_CENTS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static long toCents(BigDecimal amount, RoundingMode roundingMode) {
+        return amount.movePointRight(2).setScale(0, roundingMode).longValueExact();
+    }
+
+    private static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000L;
+    }
+
+    @FunctionalInterface
+    private interface SlotComparator {
+        int compare(int a, int b);
+
+        default SlotComparator then(SlotComparator next) {
+            return (a, b) -> {
+                int result = compare(a, b);
+                return result != 0 ? result : next.compare(a, b);
+            };
+        }
+    }
+
+    /**
+     * Maps lower-cased values to dense int codes. Null values get their own code,
+     * which never matches a text filter. The first spelling seen is kept for display.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<String> displayValues = new ArrayList<>();
+
+        int encode(String value) {
+            String key = value != null ? value.toLowerCase(Locale.ROOT) : null;
+            return codes.computeIfAbsent(key, k -> {
+                values.add(k);
+                displayValues.add(value);
+                return values.size() - 1;
+            });
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        String display(int code) {
+            return displayValues.get(code);
+        }
+
+        /**
+         * Returns the codes whose value contains the needle (case-insensitive), mirroring the
+         * {@code LIKE '%needle%'} filter of {@code CarListingSpecification}; null if there is no needle.
+         */
+        BitSet codesContaining(String needle) {
+            if (needle == null || needle.isBlank()) {
+                return null;
+            }
+            String lowered = needle.toLowerCase(Locale.ROOT);
+            BitSet matching = new BitSet(values.size());
+            for (int code = 0; code < values.size(); code++) {
+                String value = values.get(code);
+                if (value != null && value.contains(lowered)) {
+                    matching.set(code);
+                }
+            }
+            return matching;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse.LocationCount;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse.PriceRangeCount;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse.ValueCount;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse.YearRangeCount;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Accumulates facet counts for {@link ListingFacetsResponse}, either from grouped database
+ * rows or from a scan of the {@link ListingSearchIndex}, and defines the year and price
+ * buckets both sources use.
+ * <p>
+ * Brands and models are counted case-insensitively, like the {@code brand} and
+ * {@code model} filters match; the first spelling seen is reported.
+ */
+public final class ListingFacetCounter {
+
+    /** Lower bounds of every price bucket after the first, which starts at zero. */
+    public static final List<BigDecimal> PRICE_BOUNDARIES = Stream.of(5_000, 10_000, 20_000, 30_000, 50_000, 75_000, 100_000)
+            .map(BigDecimal::valueOf)
+            .toList();
+
+    /** Width of a model-year bucket; buckets start at multiples of this (e.g. 2020-2024). */
+    public static final int YEAR_BUCKET_SPAN = 5;
+
+    private static final BigDecimal CENT = new BigDecimal("0.01");
+
+    private long total;
+    private final Map<String, ValueTally> brands = new HashMap<>();
+    private final Map<String, ValueTally> models = new HashMap<>();
+    private final Map<Long, Long> locations = new HashMap<>();
+    private final Map<Integer, Long> yearBuckets = new TreeMap<>();
+    private final long[] priceBuckets = new long[PRICE_BOUNDARIES.size() + 1];
+
+    /**
+     * @return The index of the price bucket containing the price, or -1 for a null price.
+     */
+    public static int priceBucketOf(BigDecimal price) {
+        if (price == null) {
+            return -1;
+        }
+        int bucket = 0;
+        while (bucket < PRICE_BOUNDARIES.size() && price.compareTo(PRICE_BOUNDARIES.get(bucket)) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    public void addTotal(long count) {
+        total += count;
+    }
+
+    public void addBrand(String brand, long count) {
+        addValue(brands, brand, count);
+    }
+
+    public void addModel(String model, long count) {
+        addValue(models, model, count);
+    }
+
+    public void addLocation(Long locationId, long count) {
+        if (locationId != null && count > 0) {
+            locations.merge(locationId, count, Long::sum);
+        }
+    }
+
+    public void addModelYear(Integer modelYear, long count) {
+        if (modelYear != null && count > 0) {
+            yearBuckets.merge(Math.floorDiv(modelYear, YEAR_BUCKET_SPAN) * YEAR_BUCKET_SPAN, count, Long::sum);
+        }
+    }
+
+    /**
+     * @param bucket Index into the price buckets, as returned by {@link #priceBucketOf(BigDecimal)}.
+     */
+    public void addPriceBucket(int bucket, long count) {
+        if (bucket >= 0) {
+            priceBuckets[bucket] += count;
+        }
+    }
+
+    /**
+     * @return The ids of all counted locations, to be resolved for {@link #toResponse}.
+     */
+    public Set<Long> locationIds() {
+        return locations.keySet();
+    }
+
+    /**
+     * Builds the response, omitting values without matches.
+     *
+     * @param version       The data version the counts were computed from.
+     * @param locationsById Resolved locations; ids missing from the map are reported without names.
+     */
+    public ListingFacetsResponse toResponse(String version, Map<Long, Location> locationsById) {
+        List<LocationCount> locationCounts = locations.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(entry -> {
+                    Location location = locationsById.get(entry.getKey());
+                    return location != null
+                            ? new LocationCount(location.getId(), location.getSlug(), location.getDisplayNameEn(), location.getDisplayNameAr(), entry.getValue())
+                            : new LocationCount(entry.getKey(), null, null, null, entry.getValue());
+                })
+                .toList();
+
+        List<YearRangeCount> yearCounts = yearBuckets.entrySet().stream()
+                .map(entry -> new YearRangeCount(entry.getKey(), entry.getKey() + YEAR_BUCKET_SPAN - 1, entry.getValue()))
+                .toList();
+
+        List<PriceRangeCount> priceCounts = new ArrayList<>();
+        for (int bucket = 0; bucket < priceBuckets.length; bucket++) {
+            if (priceBuckets[bucket] == 0) {
+                continue;
+            }
+            BigDecimal min = bucket == 0 ? BigDecimal.ZERO : PRICE_BOUNDARIES.get(bucket - 1);
+            BigDecimal max = bucket < PRICE_BOUNDARIES.size() ? PRICE_BOUNDARIES.get(bucket).subtract(CENT) : null;
+            priceCounts.add(new PriceRangeCount(min, max, priceBuckets[bucket]));
+        }
+
+        return new ListingFacetsResponse(version, total, sortedValues(brands), sortedValues(models),
+                locationCounts, yearCounts, priceCounts);
+    }
+
+    private static void addValue(Map<String, ValueTally> tallies, String value, long count) {
+        if (value == null || value.isBlank() || count <= 0) {
+            return;
+        }
+        tallies.computeIfAbsent(value.toLowerCase(Locale.ROOT), key -> new ValueTally(value)).count += count;
+    }
+
+    private static List<ValueCount> sortedValues(Map<String, ValueTally> tallies) {
+        return tallies.values().stream()
+                .sorted(Comparator.comparingLong((ValueTally tally) -> tally.count).reversed()
+                        .thenComparing(tally -> tally.value.toLowerCase(Locale.ROOT)))
+                .map(tally -> new ValueCount(tally.value, tally.count))
+                .toList();
+    }
+
+    private static final class ValueTally {
+        private final String value;
+        private long count;
+
+        private ValueTally(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingTextRow;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Embedded full-text index over listing title, attributes and description.
+ * <p>
+ * Backed by an in-memory Lucene index analyzed with {@link ListingTextAnalyzer}, so Arabic
+ * and English keywords match regardless of spelling variants and word forms, and results
+ * are ranked by BM25 relevance. Every keyword term must occur in at least one field; title
+ * matches weigh most, then brand / model / year / transmission / color, then description.
+ * <p>
+ * The index is built on startup and kept current through {@link ListingChanges}, to which
+ * every saved or deleted listing is reported; changes are applied after the transaction
+ * commits. Listings written by other instances are picked up every
+ * {@code reconcile-interval-ms} by re-reading the text of listings created or updated since
+ * the previous reconcile (with {@link #RECONCILE_OVERLAP} to spare for slow commits and clock
+ * skew). Listings deleted elsewhere stay in the index until the next rebuild, which is
+ * harmless: the index holds listings in every state, and searches keep only the matches the
+ * caller's filter accepts.
+ */
+@Component
+@Slf4j
+public class ListingKeywordIndex implements ApplicationListener<ApplicationReadyEvent>, ListingChangeListener {
+
+    private static final String ID_FIELD = "id";
+    private static final String TITLE_FIELD = "title";
+    private static final String ATTRIBUTES_FIELD = "attributes";
+    private static final String DESCRIPTION_FIELD = "description";
+
+    private static final float TITLE_BOOST = 3f;
+    private static final float ATTRIBUTES_BOOST = 2f;
+    /** Keeps long keywords well below Lucene's clause limit. */
+    private static final int MAX_QUERY_TERMS = 32;
+    /** How far back each reconcile reaches before the previous one started. */
+    static final Duration RECONCILE_OVERLAP = Duration.ofMinutes(5);
+
+    private final CarListingRepository carListingRepository;
+    private final int maxMatches;
+    private final ListingTextAnalyzer analyzer = new ListingTextAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final Object rebuildMonitor = new Object();
+
+    private volatile boolean ready;
+    /** Changes arriving while a rebuild reads the database; replayed after it. Guarded by rebuildMonitor. */
+    private List<Runnable> pendingDuringRebuild;
+    /** When the last rebuild or reconcile started reading; the next reconcile reads changes since. Guarded by rebuildMonitor. */
+    private LocalDateTime syncedFrom;
+
+    public ListingKeywordIndex(
+            CarListingRepository carListingRepository,
+            @Value("${app.listings.keyword-search.max-matches:1000}") int maxMatches) {
+        this.carListingRepository = carListingRepository;
+        this.maxMatches = maxMatches;
+        try {
+            this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the listing keyword index", e);
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        rebuild();
+    }
+
+    /**
+     * @return true once the index has been built and can answer keyword searches.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Rebuilds the index from the database. Changes reported while the rows are being
+     * read are replayed afterwards, so they are not overwritten by stale rows.
+     */
+    public void rebuild() {
+        LocalDateTime readFrom = LocalDateTime.now();
+        synchronized (rebuildMonitor) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        long started = System.currentTimeMillis();
+        try {
+            List<ListingTextRow> rows = carListingRepository.findAllTextRows();
+            writer.deleteAll();
+            for (ListingTextRow row : rows) {
+                writer.addDocument(toDocument(row));
+            }
+            synchronized (rebuildMonitor) {
+                pendingDuringRebuild.forEach(Runnable::run);
+                pendingDuringRebuild = null;
+                syncedFrom = readFrom;
+            }
+            writer.commit();
+            searcherManager.maybeRefresh();
+            ready = true;
+            log.info("Listing keyword index rebuilt with {} listings in {} ms", rows.size(), System.currentTimeMillis() - started);
+        } catch (IOException | RuntimeException e) {
+            synchronized (rebuildMonitor) {
+                pendingDuringRebuild = null;
+            }
+            log.error("Failed to rebuild listing keyword index", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.listings.keyword-search.reconcile-interval-ms:60000}",
+               initialDelayString = "${app.listings.keyword-search.reconcile-interval-ms:60000}")
+    public void reconcileScheduled() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Listing keyword index reconcile failed", e);
+        }
+    }
+
+    /**
+     * Re-indexes the listings created or updated since shortly before the previous rebuild or
+     * reconcile, including those written by other instances. Does nothing before the first
+     * rebuild.
+     *
+     * @return The number of listings re-indexed.
+     */
+    public int reconcile() {
+        LocalDateTime since;
+        LocalDateTime readFrom = LocalDateTime.now();
+        synchronized (rebuildMonitor) {
+            if (syncedFrom == null || pendingDuringRebuild != null) {
+                return 0;
+            }
+            since = syncedFrom.minus(RECONCILE_OVERLAP);
+        }
+        List<ListingTextRow> rows = carListingRepository.findTextRowsChangedSince(since);
+        if (!rows.isEmpty()) {
+            apply(() -> {
+                for (ListingTextRow row : rows) {
+                    writer.updateDocument(idTerm(row.id()), toDocument(row));
+                }
+            });
+        }
+        synchronized (rebuildMonitor) {
+            syncedFrom = readFrom;
+        }
+        log.debug("Listing keyword index reconciled {} listings changed since {}", rows.size(), since);
+        return rows.size();
+    }
+
+    /**
+     * Finds the listings matching a keyword, most relevant first, in any state.
+     *
+     * @param keyword Free text in Arabic and/or English.
+     * @return The ids of at most {@code app.listings.keyword-search.max-matches} listings,
+     *         ranked by relevance; empty if nothing matches, the keyword has no searchable
+     *         terms, or the index is not built yet.
+     */
+    public List<Long> search(String keyword) {
+        return search(keyword, ids -> ids);
+    }
+
+    /**
+     * Finds the listings matching a keyword and accepted by a filter, most relevant first.
+     * <p>
+     * Matches are read in relevance order, {@code max-matches} at a time, and each chunk is
+     * passed through the filter, until {@code max-matches} accepted listings are found or the
+     * matches run out; the cap therefore only counts listings the caller can show.
+     *
+     * @param keyword Free text in Arabic and/or English.
+     * @param accept  Given the ids of a chunk of matches, returns those to keep, in any order.
+     * @return The ids of at most {@code app.listings.keyword-search.max-matches} accepted
+     *         listings, ranked by relevance; empty if none match, the keyword has no searchable
+     *         terms, or the index is not built yet.
+     */
+    public List<Long> search(String keyword, Function<List<Long>, Collection<Long>> accept) {
+        if (!ready) {
+            log.warn("Keyword search requested before the keyword index was built");
+            return List.of();
+        }
+        Query query = buildQuery(keyword);
+        if (query == null) {
+            return List.of();
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> accepted = new ArrayList<>();
+                int read = 0;
+                ScoreDoc last = null;
+                while (accepted.size() < maxMatches) {
+                    TopDocs topDocs = last == null ? searcher.search(query, maxMatches) : searcher.searchAfter(last, query, maxMatches);
+                    if (topDocs.scoreDocs.length == 0) {
+                        break;
+                    }
+                    List<Long> ids = new ArrayList<>(topDocs.scoreDocs.length);
+                    for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                        ids.add(Long.valueOf(storedFields.document(scoreDoc.doc).get(ID_FIELD)));
+                    }
+                    read += ids.size();
+                    Set<Long> kept = new HashSet<>(accept.apply(ids));
+                    for (Long id : ids) {
+                        if (kept.contains(id) && accepted.size() < maxMatches) {
+                            accepted.add(id);
+                        }
+                    }
+                    if (topDocs.scoreDocs.length < maxMatches) {
+                        break;
+                    }
+                    last = topDocs.scoreDocs[topDocs.scoreDocs.length - 1];
+                }
+                log.debug("Keyword '{}' matched {} accepted listings of {} read (capped at {})", keyword, accepted.size(), read, maxMatches);
+                return accepted;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Keyword search failed", e);
+        }
+    }
+
+    /**
+     * Indexes the current text of a saved listing once the transaction commits.
+     */
+    @Override
+    public void onListingSaved(CarListing listing) {
+        if (listing == null || listing.getId() == null) {
+            return;
+        }
+        ListingTextRow row = ListingTextRow.from(listing);
+        AfterCommit.run(() -> apply(() -> writer.updateDocument(idTerm(row.id()), toDocument(row))));
+    }
+
+    /**
+     * Ignored: bulk updates only change visibility, which keyword matches are filtered on
+     * by the database.
+     */
+    @Override
+    public void onListingsUpdated(List<ListingIndexRow> rows) {
+    }
+
+    /**
+     * Drops a deleted listing once the transaction commits.
+     */
+    @Override
+    public void onListingDeleted(CarListing listing) {
+        Long listingId = listing.getId();
+        if (listingId == null) {
+            return;
+        }
+        AfterCommit.run(() -> apply(() -> writer.deleteDocuments(idTerm(listingId))));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+    }
+
+    /**
+     * Requires every term in at least one field, preferring title and attribute matches.
+     *
+     * @return The query, or null if the keyword has no searchable terms.
+     */
+    private Query buildQuery(String keyword) {
+        List<String> terms = analyzer.terms(DESCRIPTION_FIELD, keyword);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms.subList(0, Math.min(terms.size(), MAX_QUERY_TERMS))) {
+            Query anyField = new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(TITLE_FIELD, term)), TITLE_BOOST), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new TermQuery(new Term(ATTRIBUTES_FIELD, term)), ATTRIBUTES_BOOST), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term(DESCRIPTION_FIELD, term)), BooleanClause.Occur.SHOULD)
+                    .build();
+            query.add(anyField, BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private void apply(IndexChange change) {
+        try {
+            synchronized (rebuildMonitor) {
+                if (pendingDuringRebuild != null) {
+                    pendingDuringRebuild.add(() -> applyQuietly(change));
+                    return;
+                }
+            }
+            change.applyTo();
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            // The next rebuild repairs the index; the database write itself has committed
+            log.error("Failed to update listing keyword index", e);
+        }
+    }
+
+    private void applyQuietly(IndexChange change) {
+        try {
+            change.applyTo();
+        } catch (IOException e) {
+            log.error("Failed to replay listing keyword index change", e);
+        }
+    }
+
+    private static Term idTerm(Long listingId) {
+        return new Term(ID_FIELD, listingId.toString());
+    }
+
+    private static Document toDocument(ListingTextRow row) {
+        Document document = new Document();
+        document.add(new StringField(ID_FIELD, row.id().toString(), Field.Store.YES));
+        addText(document, TITLE_FIELD, row.title());
+        StringJoiner attributes = new StringJoiner(" ");
+        Stream.of(row.brand(), row.model(), row.modelYear(), row.transmission(), row.exteriorColor())
+                .filter(Objects::nonNull)
+                .forEach(value -> attributes.add(value.toString()));
+        addText(document, ATTRIBUTES_FIELD, attributes.toString());
+        addText(document, DESCRIPTION_FIELD, row.description());
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexChange {
+        void applyTo() throws IOException;
+    }
+}
@@ -0,0 +1,208 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingLocationRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Precomputed number of publicly visible listings (approved, not sold, not archived, seller
+ * active, not expired) per location.
+ * <p>
+ * Answers the unfiltered map view, which would otherwise count every listing, from memory.
+ * The counts are built on startup (or on first use) from a single narrow query and kept
+ * current through {@link ListingChanges}, to which every listing change is reported;
+ * changes are applied after the transaction commits. The location of every counted listing
+ * is remembered so that a listing moving, or becoming hidden, decrements the right location.
+ * Nothing is written when a listing expires, so counted listings with an expiration date are
+ * also queued by it and dropped once it has passed, before counts are read. Listings written
+ * or deleted by other instances are recounted by the periodic reconcile of
+ * {@link ListingChanges}.
+ */
+@Component
+@Slf4j
+public class ListingLocationCounts implements ApplicationListener<ApplicationReadyEvent>, ListingChangeListener {
+
+    private final CarListingRepository carListingRepository;
+    private final Clock clock;
+
+    /** Location of every counted listing. Guarded by this, like the fields below. */
+    private final Map<Long, Long> locationByListing = new HashMap<>();
+    private final Map<Long, Long> countByLocation = new HashMap<>();
+    /** Expiration date of every counted listing that has one. */
+    private final Map<Long, LocalDateTime> expirationByListing = new HashMap<>();
+    /** Counted listings by expiration date, soonest first; stale once the listing changes. */
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>(Comparator.comparing(Expiry::at));
+    private boolean built;
+
+    @Autowired
+    public ListingLocationCounts(CarListingRepository carListingRepository) {
+        this(carListingRepository, Clock.systemDefaultZone());
+    }
+
+    ListingLocationCounts(CarListingRepository carListingRepository, Clock clock) {
+        this.carListingRepository = carListingRepository;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Recounts from the database. Changes committing meanwhile wait for the rebuild and are
+     * applied on top of it.
+     */
+    public synchronized void rebuild() {
+        locationByListing.clear();
+        countByLocation.clear();
+        expirationByListing.clear();
+        expiries.clear();
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (ListingLocationRow row : carListingRepository.findPublicLocationRows()) {
+            if (row.expirationDate() == null || row.expirationDate().isAfter(now)) {
+                put(row.listingId(), row.locationId(), row.expirationDate(), true);
+            }
+        }
+        built = true;
+        log.info("Listing location counts built for {} listings in {} locations", locationByListing.size(), countByLocation.size());
+    }
+
+    /**
+     * @return A copy of the number of publicly visible listings per location id; locations
+     *         without any are omitted.
+     */
+    public synchronized Map<Long, Long> snapshot() {
+        if (!built) {
+            rebuild();
+        }
+        dropExpired();
+        return new HashMap<>(countByLocation);
+    }
+
+    /**
+     * Counts a saved listing under its current location, if it is publicly visible, once the
+     * transaction commits.
+     */
+    @Override
+    public void onListingSaved(CarListing listing) {
+        if (listing == null || listing.getId() == null) {
+            return;
+        }
+        ListingIndexRow row = ListingIndexRow.from(listing);
+        AfterCommit.run(() -> update(row));
+    }
+
+    /**
+     * Recounts listings changed by a bulk update, read back as index rows, once the
+     * transaction commits.
+     */
+    @Override
+    public void onListingsUpdated(List<ListingIndexRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return;
+        }
+        List<ListingIndexRow> updated = List.copyOf(rows);
+        AfterCommit.run(() -> updateAll(updated));
+    }
+
+    /**
+     * Stops counting a deleted listing once the transaction commits.
+     */
+    @Override
+    public void onListingDeleted(CarListing listing) {
+        Long listingId = listing.getId();
+        if (listingId != null) {
+            AfterCommit.run(() -> remove(listingId));
+        }
+    }
+
+    /**
+     * Recounts the listings changed by any instance since the previous reconcile and stops
+     * counting those deleted.
+     */
+    @Override
+    public synchronized void onListingsReconciled(List<ListingIndexRow> changed, Set<Long> existingIds) {
+        if (!built) {
+            return;
+        }
+        Set<Long> changedIds = new HashSet<>();
+        for (ListingIndexRow row : changed) {
+            update(row);
+            changedIds.add(row.id());
+        }
+        List<Long> deleted = locationByListing.keySet().stream()
+                .filter(listingId -> !existingIds.contains(listingId) && !changedIds.contains(listingId))
+                .toList();
+        deleted.forEach(this::remove);
+    }
+
+    private synchronized void updateAll(List<ListingIndexRow> rows) {
+        rows.forEach(this::update);
+    }
+
+    private synchronized void update(ListingIndexRow row) {
+        if (!built) {
+            // Not built yet: the first lookup reads the committed state
+            return;
+        }
+        // Listings reconciled again keep their queued expiry instead of queueing another
+        boolean queued = row.expirationDate() != null && row.expirationDate().equals(expirationByListing.get(row.id()));
+        remove(row.id());
+        if (row.locationId() != null && row.isPublic(LocalDateTime.now(clock))) {
+            put(row.id(), row.locationId(), row.expirationDate(), !queued);
+        }
+    }
+
+    private synchronized void remove(Long listingId) {
+        Long previous = locationByListing.remove(listingId);
+        if (previous != null) {
+            countByLocation.computeIfPresent(previous, (id, count) -> count > 1 ? count - 1 : null);
+        }
+        expirationByListing.remove(listingId);
+    }
+
+    private void put(Long listingId, Long locationId, LocalDateTime expirationDate, boolean queue) {
+        locationByListing.put(listingId, locationId);
+        countByLocation.merge(locationId, 1L, Long::sum);
+        if (expirationDate != null) {
+            expirationByListing.put(listingId, expirationDate);
+            if (queue) {
+                expiries.add(new Expiry(listingId, expirationDate));
+            }
+        }
+    }
+
+    /**
+     * Stops counting the listings whose expiration date has passed. Queue entries of listings
+     * changed since they were queued are discarded.
+     */
+    private void dropExpired() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        while (!expiries.isEmpty() && !expiries.peek().at().isAfter(now)) {
+            Expiry expiry = expiries.poll();
+            if (expiry.at().equals(expirationByListing.get(expiry.listingId()))) {
+                remove(expiry.listingId());
+            }
+        }
+    }
+
+    private record Expiry(Long listingId, LocalDateTime at) {
+    }
+}
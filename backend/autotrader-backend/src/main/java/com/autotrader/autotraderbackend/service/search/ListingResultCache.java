@@ -0,0 +1,260 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bounded cache of listing search results in front of the public filter query.
+ * <p>
+ * Keyed by the canonical filter plus page, size and sort, it stores the page's listing ids
+ * and the total, so a hit costs only the read of that page's listings by id. Each entry is
+ * tagged with the brands and the location its filter is restricted to ({@code *} when it is
+ * not). A listing change evicts only the entries whose brand and location tags both match
+ * the listing before or after the change; e.g. selling a Toyota in one city leaves the
+ * entries for other brands and other cities alone.
+ * <p>
+ * Evictions run after the transaction commits. A result computed while an eviction ran may
+ * already be stale, so it is only stored if no eviction happened since it was started.
+ * Entries also expire after a TTL, which bounds staleness from bulk updates that bypass
+ * {@link ListingChanges} and from changes made by other instances, which the periodic
+ * reconcile does not evict for. Disabled with {@code app.listings.result-cache.max-entries=0}.
+ */
+@Component
+@Slf4j
+public class ListingResultCache implements ListingChangeListener {
+
+    private static final String ANY = "*";
+    private static final String BRAND_ID_TAG = "brand:";
+    private static final String BRAND_TEXT_TAG = "brand~";
+    private static final String LOCATION_TAG = "location:";
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+    /** Least recently used first. Guarded by this. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Cache keys by tag. Guarded by this. */
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+
+    /** Number of evictions so far. Guarded by this. */
+    private long evictionCount;
+
+    @Autowired
+    public ListingResultCache(
+            @Value("${app.listings.result-cache.max-entries:1000}") int maxEntries,
+            @Value("${app.listings.result-cache.ttl-seconds:300}") long ttlSeconds) {
+        this(maxEntries, ttlSeconds, Clock.systemUTC());
+    }
+
+    ListingResultCache(int maxEntries, long ttlSeconds, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.clock = clock;
+    }
+
+    /**
+     * @return The cache key of a filtered page, or null if the query is not cached
+     *         (cache disabled or unpaged request).
+     */
+    public String keyFor(ListingFilterRequest filter, Pageable pageable) {
+        if (maxEntries <= 0 || pageable.isUnpaged()) {
+            return null;
+        }
+        return filter.canonicalKey() + "|page=" + pageable.getPageNumber() + "|size=" + pageable.getPageSize()
+                + "|sort=" + pageable.getSort();
+    }
+
+    /**
+     * @return The cached page of a key, if present and not expired.
+     */
+    public synchronized Optional<ListingSearchHits> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt <= clock.millis()) {
+            remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(entry.hits);
+    }
+
+    /**
+     * @return A stamp to read before computing a result, to be passed to {@link #put}.
+     */
+    public synchronized long stamp() {
+        return evictionCount;
+    }
+
+    /**
+     * Stores a computed page unless an eviction happened since {@code stamp} was read,
+     * in which case the page may predate a committed change.
+     *
+     * @param key        The key from {@link #keyFor}.
+     * @param hits       The page ids and total.
+     * @param brandIds   The catalog brand ids the filter is restricted to, or null for none.
+     * @param brand      The brand text the filter is restricted to, or null for none.
+     * @param locationId The location the filter is restricted to, or null for none.
+     * @param stamp      The value of {@link #stamp()} before the result was computed.
+     */
+    public synchronized void put(String key, ListingSearchHits hits, Set<Long> brandIds, String brand, Long locationId, long stamp) {
+        if (stamp != evictionCount) {
+            log.debug("Not caching listing results for '{}': listings changed while computing them", key);
+            return;
+        }
+        remove(key);
+        List<String> tags = new ArrayList<>();
+        if (brandIds != null) {
+            brandIds.forEach(brandId -> tags.add(BRAND_ID_TAG + brandId));
+        } else if (brand != null && !brand.isBlank()) {
+            tags.add(BRAND_TEXT_TAG + normalize(brand));
+        } else {
+            tags.add(BRAND_ID_TAG + ANY);
+        }
+        tags.add(LOCATION_TAG + (locationId != null ? locationId : ANY));
+
+        entries.put(key, new Entry(hits, tags, clock.millis() + ttlMillis));
+        tags.forEach(tag -> keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key));
+        if (entries.size() > maxEntries) {
+            remove(entries.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Evicts the entries the listing matched before the change, as its brand or location
+     * may change, once the transaction commits.
+     */
+    @Override
+    public void onListingChanging(CarListing listing) {
+        evict(listing);
+    }
+
+    /**
+     * Evicts the entries the saved listing matches, once the transaction commits.
+     */
+    @Override
+    public void onListingSaved(CarListing listing) {
+        evict(listing);
+    }
+
+    /**
+     * Evicts the entries the deleted listing matched, once the transaction commits.
+     */
+    @Override
+    public void onListingDeleted(CarListing listing) {
+        evict(listing);
+    }
+
+    private void evict(CarListing listing) {
+        if (maxEntries <= 0 || listing == null) {
+            return;
+        }
+        // Read the tags now: the entity may change again before the transaction commits
+        Long brandId = listing.getCarBrand() != null ? listing.getCarBrand().getId() : null;
+        String brand = listing.getBrand() != null ? normalize(listing.getBrand()) : "";
+        Long locationId = listing.getLocation() != null ? listing.getLocation().getId() : null;
+        AfterCommit.run(() -> evict(brandId, brand, locationId));
+    }
+
+    /**
+     * Evicts the entries that changes to many listings can affect, once the transaction
+     * commits. For bulk updates that keep the brand and location of the listings, which are
+     * read from their index rows; listings sharing both are evicted for only once.
+     */
+    @Override
+    public void onListingsUpdated(List<ListingIndexRow> rows) {
+        if (maxEntries <= 0 || rows == null || rows.isEmpty()) {
+            return;
+        }
+        Set<Tags> distinct = new HashSet<>();
+        for (ListingIndexRow row : rows) {
+            distinct.add(new Tags(row.brandId(), row.brand() != null ? normalize(row.brand()) : "", row.locationId()));
+        }
+        AfterCommit.run(() -> distinct.forEach(tags -> evict(tags.brandId(), tags.brand(), tags.locationId())));
+    }
+
+    /**
+     * Drops every entry, e.g. after bulk changes that bypassed {@link ListingChanges}.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        keysByTag.clear();
+        evictionCount++;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void evict(Long brandId, String brand, Long locationId) {
+        evictionCount++;
+        Set<String> byBrand = new HashSet<>(keysByTag.getOrDefault(BRAND_ID_TAG + ANY, Set.of()));
+        if (brandId != null) {
+            byBrand.addAll(keysByTag.getOrDefault(BRAND_ID_TAG + brandId, Set.of()));
+        }
+        // Brand text filters match by substring, so they cannot be looked up by the listing's brand
+        for (Map.Entry<String, Set<String>> tagged : keysByTag.entrySet()) {
+            String tag = tagged.getKey();
+            if (tag.startsWith(BRAND_TEXT_TAG) && brand.contains(tag.substring(BRAND_TEXT_TAG.length()))) {
+                byBrand.addAll(tagged.getValue());
+            }
+        }
+
+        Set<String> byLocation = new HashSet<>(keysByTag.getOrDefault(LOCATION_TAG + ANY, Set.of()));
+        if (locationId != null) {
+            byLocation.addAll(keysByTag.getOrDefault(LOCATION_TAG + locationId, Set.of()));
+        }
+
+        int evicted = 0;
+        for (String key : byBrand) {
+            if (byLocation.contains(key)) {
+                remove(key);
+                evicted++;
+            }
+        }
+        log.debug("Evicted {} cached listing results for brand {} / '{}', location {}", evicted, brandId, brand, locationId);
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        for (String tag : entry.tags) {
+            Set<String> keys = keysByTag.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTag.remove(tag);
+                }
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Tags(Long brandId, String brand, Long locationId) {
+    }
+
+    private record Entry(ListingSearchHits hits, List<String> tags, long expiresAt) {
+    }
+}
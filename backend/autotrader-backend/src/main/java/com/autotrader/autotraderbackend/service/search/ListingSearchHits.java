@@ -0,0 +1,12 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import java.util.List;
+
+/**
+ * One page of listing ids answered by {@link ListingSearchIndex}, in sort order.
+ *
+ * @param ids   The listing ids of the requested page.
+ * @param total The total number of matching listings.
+ */
+public record ListingSearchHits(List<Long> ids, long total) {
+}
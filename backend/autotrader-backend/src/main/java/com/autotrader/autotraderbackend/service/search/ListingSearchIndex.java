@@ -0,0 +1,255 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import com.autotrader.autotraderbackend.repository.specification.CatalogFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Optional in-memory search index over car listings.
+ * <p>
+ * Holds the filterable and sortable columns of every listing in a {@link ListingColumns}
+ * store so public browse and filter queries can be answered without touching the
+ * database; callers then hydrate only the ids of the requested page. The index is built
+ * on startup and kept current through {@link ListingChanges}, to which every listing
+ * change is reported. Changes are applied after the surrounding transaction commits, so
+ * rolled-back writes never become visible. Listings written or deleted by other instances
+ * are picked up by the periodic reconcile of {@link ListingChanges}.
+ * <p>
+ * Disabled unless {@code app.listings.search-index.enabled=true}.
+ */
+@Component
+@Slf4j
+public class ListingSearchIndex implements ApplicationListener<ApplicationReadyEvent>, ListingChangeListener {
+
+    private final CarListingRepository carListingRepository;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ListingColumns columns;
+    private boolean ready;
+    /** Changes arriving while a rebuild reads the database; replayed onto the new columns. */
+    private List<Consumer<ListingColumns>> pendingDuringRebuild;
+
+    public ListingSearchIndex(
+            CarListingRepository carListingRepository,
+            @Value("${app.listings.search-index.enabled:false}") boolean enabled) {
+        this.carListingRepository = carListingRepository;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @return true if the index is enabled and has been built, so it can answer queries.
+     */
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database. Changes reported while the rows are being
+     * read are replayed onto the new index before it replaces the old one.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.currentTimeMillis();
+        ListingColumns rebuilt;
+        try {
+            List<ListingIndexRow> rows = carListingRepository.findAllIndexRows();
+            rebuilt = new ListingColumns(rows.size());
+            rows.forEach(rebuilt::upsert);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Failed to rebuild listing search index; queries keep using {}",
+                    ready ? "the previous index" : "the database", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild.forEach(change -> change.accept(rebuilt));
+            pendingDuringRebuild = null;
+            columns = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Listing search index rebuilt with {} listings in {} ms", rebuilt.liveCount(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Answers a public listing query from the index.
+     *
+     * @param filter     The filter criteria (sold / archived default to false).
+     * @param locationId The resolved location id to filter by, or null for none.
+     * @param catalog    The resolved brand / model / trim ids to filter by.
+     * @param pageable   Page and sort; only whitelisted sort fields can be served.
+     * @return The page of ids and the total, or empty if the index is not ready or cannot
+     *         serve the sort, in which case the caller should query the database.
+     */
+    public Optional<ListingSearchHits> search(ListingFilterRequest filter, Long locationId, CatalogFilter catalog, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+            int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+            return columns.search(filter, locationId, catalog, pageable.getSort(), offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the facets of the listings matching a public filter from the index.
+     *
+     * @param filter     The filter criteria (sold / archived default to false).
+     * @param locationId The resolved location id to filter by, or null for none.
+     * @param catalog    The resolved brand / model / trim ids to filter by.
+     * @param counter    Receives the counts.
+     * @return true if counted, false if the index is not ready, in which case nothing was
+     *         counted.
+     */
+    public boolean countFacets(ListingFilterRequest filter, Long locationId, CatalogFilter catalog, ListingFacetCounter counter) {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return false;
+            }
+            columns.countFacets(filter, locationId, catalog, counter);
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the listings matching a public filter per location from the index.
+     *
+     * @param filter     The filter criteria (sold / archived default to false).
+     * @param locationId The resolved location id to filter by, or null for none.
+     * @param catalog    The resolved brand / model / trim ids to filter by.
+     * @return The counts by location id, or empty if the index is not ready.
+     */
+    public Optional<Map<Long, Long>> countByLocation(ListingFilterRequest filter, Long locationId, CatalogFilter catalog) {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            return Optional.of(columns.countByLocation(filter, locationId, catalog));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records the current state of a saved listing once the transaction commits.
+     */
+    @Override
+    public void onListingSaved(CarListing listing) {
+        if (listing == null || listing.getId() == null) {
+            return;
+        }
+        ListingIndexRow row = ListingIndexRow.from(listing);
+        AfterCommit.run(() -> apply(store -> store.upsert(row)));
+    }
+
+    /**
+     * Records the state of listings changed by a bulk update, read back as index rows, once
+     * the transaction commits. Applied under a single lock as a single change.
+     */
+    @Override
+    public void onListingsUpdated(List<ListingIndexRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return;
+        }
+        List<ListingIndexRow> updated = List.copyOf(rows);
+        AfterCommit.run(() -> apply(store -> updated.forEach(store::upsert)));
+    }
+
+    /**
+     * Drops a deleted listing once the transaction commits.
+     */
+    @Override
+    public void onListingDeleted(CarListing listing) {
+        Long listingId = listing.getId();
+        if (listingId == null) {
+            return;
+        }
+        AfterCommit.run(() -> apply(store -> store.remove(listingId)));
+    }
+
+    /**
+     * Records the listings changed by any instance since the previous reconcile and drops
+     * those deleted. Replayed after a rebuild in progress like any other change.
+     */
+    @Override
+    public void onListingsReconciled(List<ListingIndexRow> changed, Set<Long> existingIds) {
+        if (!enabled) {
+            return;
+        }
+        Set<Long> changedIds = new HashSet<>();
+        changed.forEach(row -> changedIds.add(row.id()));
+        apply(store -> {
+            changed.forEach(store::upsert);
+            store.retainAll(id -> existingIds.contains(id) || changedIds.contains(id));
+        });
+    }
+
+    private void apply(Consumer<ListingColumns> change) {
+        lock.writeLock().lock();
+        try {
+            if (columns != null) {
+                change.accept(columns);
+            }
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.ar.ArabicAnalyzer;
+import org.apache.lucene.analysis.ar.ArabicNormalizationFilter;
+import org.apache.lucene.analysis.ar.ArabicStemFilter;
+import org.apache.lucene.analysis.core.DecimalDigitFilter;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.en.EnglishPossessiveFilter;
+import org.apache.lucene.analysis.en.PorterStemFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Analyzer for mixed Arabic / English listing text, used both when indexing and when
+ * parsing a search keyword so the two always produce the same terms.
+ * <p>
+ * Text is lower-cased, Arabic-Indic digits become ASCII digits and English and Arabic stop
+ * words are dropped. Arabic words are then normalized (alef variants to bare alef, taa
+ * marbuta to haa, alef maqsura to yaa, diacritics and tatweel removed) and light-stemmed
+ * (common prefixes such as "ال" and "وال" and suffixes stripped); English words lose
+ * possessives and are Porter-stemmed. Each filter only touches its own script, so a query
+ * such as "كامري 2018 automatic" is analyzed correctly.
+ */
+public final class ListingTextAnalyzer extends Analyzer {
+
+    private static final CharArraySet STOP_WORDS;
+
+    static {
+        CharArraySet stopWords = new CharArraySet(EnglishAnalyzer.ENGLISH_STOP_WORDS_SET, false);
+        stopWords.addAll(ArabicAnalyzer.getDefaultStopSet());
+        STOP_WORDS = CharArraySet.unmodifiableSet(stopWords);
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer source = new StandardTokenizer();
+        TokenStream result = new LowerCaseFilter(source);
+        result = new DecimalDigitFilter(result);
+        result = new StopFilter(result, STOP_WORDS);
+        result = new ArabicNormalizationFilter(result);
+        result = new ArabicStemFilter(result);
+        result = new EnglishPossessiveFilter(result);
+        result = new PorterStemFilter(result);
+        return new TokenStreamComponents(source, result);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        TokenStream result = new LowerCaseFilter(in);
+        result = new DecimalDigitFilter(result);
+        return new ArabicNormalizationFilter(result);
+    }
+
+    /**
+     * Analyzes free text into its distinct terms, in order of first occurrence.
+     *
+     * @param fieldName The field the text is analyzed for.
+     * @param text      The text, e.g. a search keyword.
+     * @return The terms; empty if the text only contained stop words or punctuation.
+     */
+    public List<String> terms(String fieldName, String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        try (TokenStream stream = tokenStream(fieldName, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            // Analyzing an in-memory string does not perform I/O
+            throw new UncheckedIOException(e);
+        }
+        return new ArrayList<>(terms);
+    }
+}
@@ -0,0 +1,296 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.payload.response.ValuationResponse;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingPriceRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precomputed asking price distribution of approved listings, for sale or sold, per brand,
+ * model, model year and mileage band of {@code mileage-band-km}; archived listings that did
+ * not sell are left out.
+ * <p>
+ * Each cell holds a mergeable {@link PriceSketch}, so a valuation merges the cells around the
+ * requested car instead of reading listings: the exact cell first, then one more year and
+ * mileage band on each side at a time, up to {@code max-widening} times, until at least
+ * {@code min-count} prices are found. The sketches are built on startup from a single narrow
+ * query and kept current through {@link ListingChanges}, to which every saved or deleted
+ * listing is reported; changes are applied after the transaction commits. Listings written or
+ * deleted by other instances are picked up by the periodic reconcile of {@link ListingChanges}.
+ * The cell and bucket of every counted listing are remembered so that a changed or removed listing takes its price
+ * out of the right sketch. Brands and models are matched on their text, ignoring case.
+ */
+@Component
+@Slf4j
+public class ListingValuations implements ApplicationListener<ApplicationReadyEvent>, ListingChangeListener {
+
+    private final CarListingRepository carListingRepository;
+    private final int mileageBandKm;
+    private final int minCount;
+    private final int maxWidening;
+
+    /** Sketches by brand and model, model year and mileage band. Guarded by this, like the fields below. */
+    private final Map<ModelKey, Map<Integer, Map<Integer, PriceSketch>>> sketches = new HashMap<>();
+    /** Where the price of every counted listing is. */
+    private final Map<Long, Sample> samples = new HashMap<>();
+    private boolean built;
+
+    public ListingValuations(CarListingRepository carListingRepository,
+                             @Value("${app.listings.valuation.mileage-band-km:25000}") int mileageBandKm,
+                             @Value("${app.listings.valuation.min-count:5}") int minCount,
+                             @Value("${app.listings.valuation.max-widening:2}") int maxWidening) {
+        if (mileageBandKm < 1 || minCount < 1 || maxWidening < 0) {
+            throw new IllegalArgumentException("Valuation mileage band and minimum count must be positive, "
+                    + "and the widening not negative.");
+        }
+        this.carListingRepository = carListingRepository;
+        this.mileageBandKm = mileageBandKm;
+        this.minCount = minCount;
+        this.maxWidening = maxWidening;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Re-sketches all prices from the database. Changes committing meanwhile wait for the
+     * rebuild and are applied on top of it.
+     */
+    public synchronized void rebuild() {
+        List<ListingPriceRow> rows;
+        try {
+            rows = carListingRepository.findValuationRows();
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild listing valuations; {}", built ? "keeping the previous ones" : "valuations stay empty", e);
+            return;
+        }
+        sketches.clear();
+        samples.clear();
+        for (ListingPriceRow row : rows) {
+            Sample sample = sampleOf(row.brand(), row.model(), row.modelYear(), row.mileage(), row.price());
+            if (sample != null) {
+                put(row.listingId(), sample);
+            }
+        }
+        built = true;
+        log.info("Listing valuations built from {} prices in {} models", samples.size(), sketches.size());
+    }
+
+    /**
+     * Estimates the asking price distribution of a car from comparable listings.
+     *
+     * @param brand   The brand.
+     * @param model   The model.
+     * @param year    The model year.
+     * @param mileage The mileage in km, or null to compare listings of any mileage.
+     * @return The quartiles of the comparable listings and the range they were taken from; no
+     *         quartiles if none were found within the widest range, or before the first build.
+     * @throws IllegalArgumentException If brand, model or year is missing, or the mileage is negative.
+     */
+    public synchronized ValuationResponse estimate(String brand, String model, Integer year, Integer mileage) {
+        if (!StringUtils.hasText(brand) || !StringUtils.hasText(model) || year == null) {
+            throw new IllegalArgumentException("brand, model and year are required.");
+        }
+        if (mileage != null && mileage < 0) {
+            throw new IllegalArgumentException("mileage must not be negative.");
+        }
+        Map<Integer, Map<Integer, PriceSketch>> years = sketches.getOrDefault(ModelKey.of(brand, model), Map.of());
+        Integer band = mileage != null ? mileage / mileageBandKm : null;
+        int widening = 0;
+        PriceSketch merged = merge(years, year, band, widening);
+        while (merged.count() < minCount && widening < maxWidening) {
+            widening++;
+            merged = merge(years, year, band, widening);
+        }
+
+        Integer mileageFrom = band != null ? Math.max(0, band - widening) * mileageBandKm : null;
+        Integer mileageTo = band != null ? (band + widening + 1) * mileageBandKm : null;
+        boolean found = !merged.isEmpty();
+        return new ValuationResponse(brand.trim(), model.trim(), year - widening, year + widening, mileageFrom, mileageTo,
+                merged.count(),
+                found ? price(merged.quantile(0.25)) : null,
+                found ? price(merged.quantile(0.5)) : null,
+                found ? price(merged.quantile(0.75)) : null);
+    }
+
+    /**
+     * Counts, moves or removes the price of a saved listing once the transaction commits.
+     */
+    @Override
+    public void onListingSaved(CarListing listing) {
+        if (listing == null || listing.getId() == null) {
+            return;
+        }
+        ListingIndexRow row = ListingIndexRow.from(listing);
+        AfterCommit.run(() -> update(row));
+    }
+
+    /**
+     * Re-counts the prices of listings changed by a bulk update, read back as index rows,
+     * once the transaction commits.
+     */
+    @Override
+    public void onListingsUpdated(List<ListingIndexRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return;
+        }
+        List<ListingIndexRow> updated = List.copyOf(rows);
+        AfterCommit.run(() -> updateAll(updated));
+    }
+
+    /**
+     * Stops counting the price of a deleted listing once the transaction commits.
+     */
+    @Override
+    public void onListingDeleted(CarListing listing) {
+        Long listingId = listing.getId();
+        if (listingId != null) {
+            AfterCommit.run(() -> update(listingId, null));
+        }
+    }
+
+    /**
+     * Re-counts the prices of the listings changed by any instance since the previous
+     * reconcile and stops counting those deleted.
+     */
+    @Override
+    public synchronized void onListingsReconciled(List<ListingIndexRow> changed, Set<Long> existingIds) {
+        if (!built) {
+            return;
+        }
+        Set<Long> changedIds = new HashSet<>();
+        for (ListingIndexRow row : changed) {
+            update(row);
+            changedIds.add(row.id());
+        }
+        List<Long> deleted = samples.keySet().stream()
+                .filter(listingId -> !existingIds.contains(listingId) && !changedIds.contains(listingId))
+                .toList();
+        deleted.forEach(listingId -> update(listingId, null));
+    }
+
+    private synchronized void updateAll(List<ListingIndexRow> rows) {
+        rows.forEach(this::update);
+    }
+
+    private synchronized void update(ListingIndexRow row) {
+        boolean counted = Boolean.TRUE.equals(row.approved())
+                && (Boolean.TRUE.equals(row.sold()) || !Boolean.TRUE.equals(row.archived()));
+        update(row.id(), counted ? sampleOf(row.brand(), row.model(), row.modelYear(), row.mileage(), row.price()) : null);
+    }
+
+    private synchronized void update(Long listingId, Sample sample) {
+        if (!built) {
+            // Not built yet: the build reads the committed state
+            return;
+        }
+        Sample previous = samples.remove(listingId);
+        if (previous != null) {
+            take(previous);
+        }
+        if (sample != null) {
+            put(listingId, sample);
+        }
+    }
+
+    private void put(Long listingId, Sample sample) {
+        samples.put(listingId, sample);
+        sketches.computeIfAbsent(sample.model(), key -> new HashMap<>())
+                .computeIfAbsent(sample.year(), year -> new HashMap<>())
+                .computeIfAbsent(sample.band(), band -> new PriceSketch())
+                .add(sample.bucket());
+    }
+
+    private void take(Sample sample) {
+        Map<Integer, Map<Integer, PriceSketch>> years = sketches.get(sample.model());
+        Map<Integer, PriceSketch> bands = years != null ? years.get(sample.year()) : null;
+        PriceSketch sketch = bands != null ? bands.get(sample.band()) : null;
+        if (sketch == null) {
+            return;
+        }
+        sketch.remove(sample.bucket());
+        if (sketch.isEmpty()) {
+            bands.remove(sample.band());
+            if (bands.isEmpty()) {
+                years.remove(sample.year());
+                if (years.isEmpty()) {
+                    sketches.remove(sample.model());
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the sketches within {@code widening} years and mileage bands of a cell; all
+     * mileage bands if {@code band} is null.
+     */
+    private PriceSketch merge(Map<Integer, Map<Integer, PriceSketch>> years, int year, Integer band, int widening) {
+        PriceSketch merged = new PriceSketch();
+        for (int y = year - widening; y <= year + widening; y++) {
+            Map<Integer, PriceSketch> bands = years.get(y);
+            if (bands == null) {
+                continue;
+            }
+            if (band == null) {
+                bands.values().forEach(merged::merge);
+                continue;
+            }
+            for (int b = Math.max(0, band - widening); b <= band + widening; b++) {
+                PriceSketch sketch = bands.get(b);
+                if (sketch != null) {
+                    merged.merge(sketch);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private Sample sampleOf(String brand, String model, Integer year, Integer mileage, BigDecimal price) {
+        if (!StringUtils.hasText(brand) || !StringUtils.hasText(model) || year == null
+                || mileage == null || mileage < 0 || price == null || price.signum() <= 0) {
+            return null;
+        }
+        return new Sample(ModelKey.of(brand, model), year, mileage / mileageBandKm, PriceSketch.bucketOf(price.doubleValue()));
+    }
+
+    private static BigDecimal price(double value) {
+        return BigDecimal.valueOf(Math.round(value));
+    }
+
+    /**
+     * A brand and model, matched ignoring case and repeated spaces.
+     */
+    private record ModelKey(String brand, String model) {
+
+        static ModelKey of(String brand, String model) {
+            return new ModelKey(normalize(brand), normalize(model));
+        }
+
+        private static String normalize(String text) {
+            return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The cell and bucket the price of a listing is counted in.
+     */
+    private record Sample(ModelKey model, int year, int band, int bucket) {
+    }
+}
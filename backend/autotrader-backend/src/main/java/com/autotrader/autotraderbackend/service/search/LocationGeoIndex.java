@@ -0,0 +1,390 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.repository.LocationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * In-memory spatial index over the coordinates of {@link Location}s.
+ * <p>
+ * Locations are bucketed in a grid of {@value #CELL_DEGREES}° cells, so radius and
+ * bounding-box lookups only visit the cells overlapping the query area and nearest-neighbour
+ * lookups expand ring by ring from the query point. Locations without coordinates are not
+ * indexed. Coordinates are WGS84 degrees; distances are great-circle kilometres.
+ * <p>
+ * The index is built on startup (or on first use) and kept current by
+ * {@code LocationService}, which reports every saved or deleted location; changes are
+ * applied after the transaction commits.
+ */
+@Component
+@Slf4j
+public class LocationGeoIndex implements ApplicationListener<ApplicationReadyEvent> {
+
+    /** Cell size; about 28 km north-south. */
+    static final double CELL_DEGREES = 0.25;
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final int LAT_CELLS = (int) Math.ceil(180 / CELL_DEGREES);
+    private static final int LON_CELLS = (int) Math.ceil(360 / CELL_DEGREES);
+
+    private final LocationRepository locationRepository;
+    /** Indexed locations by id, the source of every snapshot. Guarded by this. */
+    private final Map<Long, Point> points = new HashMap<>();
+
+    private volatile Grid grid;
+
+    public LocationGeoIndex(LocationRepository locationRepository) {
+        this.locationRepository = locationRepository;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the index from the database.
+     */
+    public synchronized void rebuild() {
+        points.clear();
+        for (Location location : locationRepository.findAll()) {
+            Point point = Point.of(location);
+            if (point != null) {
+                points.put(point.id(), point);
+            }
+        }
+        grid = new Grid(points.values());
+        log.info("Location geo index built with {} locations", points.size());
+    }
+
+    /**
+     * @return The ids of the locations within {@code radiusKm} of a point.
+     * @throws IllegalArgumentException If the coordinates are out of range or the radius is not positive.
+     */
+    public Set<Long> findWithinRadius(double latitude, double longitude, double radiusKm) {
+        validateCoordinates(latitude, longitude);
+        if (!(radiusKm > 0)) {
+            throw new IllegalArgumentException("Radius must be positive.");
+        }
+        Set<Long> ids = new HashSet<>();
+        forEachWithinRadius(currentGrid(), latitude, longitude, radiusKm, point -> ids.add(point.id()));
+        return ids;
+    }
+
+    /**
+     * @return The ids of the locations inside a bounding box, edges included.
+     * @throws IllegalArgumentException If a coordinate is out of range or a minimum exceeds its
+     *                                  maximum (boxes crossing the antimeridian are not supported).
+     */
+    public Set<Long> findWithinBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        validateCoordinates(minLatitude, minLongitude);
+        validateCoordinates(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude || minLongitude > maxLongitude) {
+            throw new IllegalArgumentException("Bounding box minimum must not exceed its maximum.");
+        }
+        Set<Long> ids = new HashSet<>();
+        currentGrid().forEachInCells(latCell(minLatitude), latCell(maxLatitude), lonCell(minLongitude), lonCell(maxLongitude), point -> {
+            if (point.latitude() >= minLatitude && point.latitude() <= maxLatitude
+                    && point.longitude() >= minLongitude && point.longitude() <= maxLongitude) {
+                ids.add(point.id());
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Finds the active locations nearest to a point.
+     *
+     * @param limit Maximum number of locations to return.
+     * @return The locations, nearest first, with their distance.
+     * @throws IllegalArgumentException If the coordinates are out of range.
+     */
+    public List<NearbyLocation> findNearest(double latitude, double longitude, int limit) {
+        validateCoordinates(latitude, longitude);
+        Grid current = currentGrid();
+        if (limit <= 0 || current.isEmpty()) {
+            return List.of();
+        }
+
+        // Expand rings of cells until enough candidates are found; the farthest of the
+        // closest candidates then bounds a radius lookup that cannot miss a nearer location
+        int centerLat = latCell(latitude);
+        int centerLon = lonCell(longitude);
+        Map<Long, NearbyLocation> candidates = new HashMap<>();
+        for (int ring = 0; candidates.size() < limit; ring++) {
+            if (8L * ring > current.cellCount()) {
+                // The ring would visit more cells than are occupied: measure every location instead
+                List<NearbyLocation> all = new ArrayList<>();
+                current.forEach(point -> addIfActive(all, point, latitude, longitude));
+                return nearestFirst(all, limit);
+            }
+            current.forEachInRing(centerLat, centerLon, ring, point -> {
+                if (point.active()) {
+                    candidates.putIfAbsent(point.id(), new NearbyLocation(point.id(), distanceKm(latitude, longitude, point.latitude(), point.longitude())));
+                }
+            });
+        }
+        double boundKm = nearestFirst(new ArrayList<>(candidates.values()), limit).get(limit - 1).distanceKm();
+
+        List<NearbyLocation> nearest = new ArrayList<>();
+        forEachWithinRadius(current, latitude, longitude, boundKm, point -> addIfActive(nearest, point, latitude, longitude));
+        return nearestFirst(nearest, limit);
+    }
+
+    /**
+     * Looks up the coordinates of locations.
+     *
+     * @return The coordinates by location id; locations without coordinates are omitted.
+     */
+    public Map<Long, Coordinates> coordinatesOf(Collection<Long> locationIds) {
+        Grid current = currentGrid();
+        Map<Long, Coordinates> found = new HashMap<>();
+        for (Long id : locationIds) {
+            Point point = current.get(id);
+            if (point != null) {
+                found.put(id, new Coordinates(point.latitude(), point.longitude(), point.geohash()));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Indexes the coordinates of a saved location once the transaction commits.
+     */
+    public void onLocationSaved(Location location) {
+        if (location == null || location.getId() == null) {
+            return;
+        }
+        Long id = location.getId();
+        Point point = Point.of(location);
+        AfterCommit.run(() -> update(id, point));
+    }
+
+    /**
+     * Drops a deleted location once the transaction commits.
+     */
+    public void onLocationDeleted(Long locationId) {
+        if (locationId != null) {
+            AfterCommit.run(() -> update(locationId, null));
+        }
+    }
+
+    /**
+     * Great-circle (haversine) distance between two points.
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static void addIfActive(List<NearbyLocation> found, Point point, double latitude, double longitude) {
+        if (point.active()) {
+            found.add(new NearbyLocation(point.id(), distanceKm(latitude, longitude, point.latitude(), point.longitude())));
+        }
+    }
+
+    private static List<NearbyLocation> nearestFirst(List<NearbyLocation> found, int limit) {
+        found.sort(Comparator.comparingDouble(NearbyLocation::distanceKm).thenComparing(NearbyLocation::locationId));
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    private synchronized void update(Long id, Point point) {
+        if (grid == null) {
+            // Not built yet: the first lookup reads the committed state
+            return;
+        }
+        if (point != null) {
+            points.put(id, point);
+        } else {
+            points.remove(id);
+        }
+        grid = new Grid(points.values());
+        log.debug("Location geo index updated for location {}", id);
+    }
+
+    private Grid currentGrid() {
+        Grid current = grid;
+        if (current == null) {
+            rebuild();
+            current = grid;
+        }
+        return current;
+    }
+
+    /**
+     * Visits the locations within a radius: the cells of the circle's bounding box (split
+     * at the antimeridian), filtered by exact distance.
+     */
+    private static void forEachWithinRadius(Grid grid, double latitude, double longitude, double radiusKm, Consumer<Point> visitor) {
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double minLat = Math.max(-90, latitude - latDelta);
+        double maxLat = Math.min(90, latitude + latDelta);
+        double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        double lonDelta = cosLat > 1e-9 ? radiusKm / (KM_PER_DEGREE * cosLat) : 360;
+
+        Consumer<Point> withinDistance = point -> {
+            if (distanceKm(latitude, longitude, point.latitude(), point.longitude()) <= radiusKm) {
+                visitor.accept(point);
+            }
+        };
+        int fromLat = latCell(minLat);
+        int toLat = latCell(maxLat);
+        if (lonDelta >= 180) {
+            grid.forEachInCells(fromLat, toLat, 0, LON_CELLS - 1, withinDistance);
+            return;
+        }
+        double minLon = longitude - lonDelta;
+        double maxLon = longitude + lonDelta;
+        if (minLon < -180) {
+            grid.forEachInCells(fromLat, toLat, lonCell(minLon + 360), LON_CELLS - 1, withinDistance);
+            grid.forEachInCells(fromLat, toLat, 0, lonCell(maxLon), withinDistance);
+        } else if (maxLon > 180) {
+            grid.forEachInCells(fromLat, toLat, lonCell(minLon), LON_CELLS - 1, withinDistance);
+            grid.forEachInCells(fromLat, toLat, 0, lonCell(maxLon - 360), withinDistance);
+        } else {
+            grid.forEachInCells(fromLat, toLat, lonCell(minLon), lonCell(maxLon), withinDistance);
+        }
+    }
+
+    private static void validateCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Latitude must be within [-90, 90] and longitude within [-180, 180].");
+        }
+    }
+
+    private static int latCell(double latitude) {
+        return Math.min(LAT_CELLS - 1, (int) Math.floor((latitude + 90) / CELL_DEGREES));
+    }
+
+    private static int lonCell(double longitude) {
+        return Math.min(LON_CELLS - 1, (int) Math.floor((longitude + 180) / CELL_DEGREES));
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | lonCell;
+    }
+
+    /**
+     * A location found near a point.
+     *
+     * @param locationId The location id.
+     * @param distanceKm The great-circle distance from the point in kilometres.
+     */
+    public record NearbyLocation(Long locationId, double distanceKm) {
+    }
+
+    /**
+     * The coordinates of a location.
+     *
+     * @param geohash The geohash of the location at {@link Geohash#MAX_PRECISION}; its prefixes
+     *                name the enclosing cells of every coarser precision.
+     */
+    public record Coordinates(double latitude, double longitude, String geohash) {
+    }
+
+    private record Point(Long id, double latitude, double longitude, boolean active, String geohash) {
+        static Point of(Location location) {
+            if (location.getId() == null || location.getLatitude() == null || location.getLongitude() == null) {
+                return null;
+            }
+            double latitude = location.getLatitude();
+            double longitude = location.getLongitude();
+            if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+                return null;
+            }
+            return new Point(location.getId(), latitude, longitude, !Boolean.FALSE.equals(location.getIsActive()),
+                    Geohash.encode(latitude, longitude, Geohash.MAX_PRECISION));
+        }
+    }
+
+    /**
+     * Immutable snapshot of the grid; replaced as a whole on every change.
+     */
+    private static final class Grid {
+        private final Map<Long, List<Point>> cells = new HashMap<>();
+        private final Map<Long, Point> byId = new HashMap<>();
+
+        Grid(Iterable<Point> points) {
+            for (Point point : points) {
+                byId.put(point.id(), point);
+                cells.computeIfAbsent(cellKey(latCell(point.latitude()), lonCell(point.longitude())), key -> new ArrayList<>()).add(point);
+            }
+        }
+
+        boolean isEmpty() {
+            return cells.isEmpty();
+        }
+
+        Point get(Long id) {
+            return byId.get(id);
+        }
+
+        int cellCount() {
+            return cells.size();
+        }
+
+        void forEach(Consumer<Point> visitor) {
+            cells.values().forEach(points -> points.forEach(visitor));
+        }
+
+        void forEachInCells(int fromLat, int toLat, int fromLon, int toLon, Consumer<Point> visitor) {
+            long area = (long) (toLat - fromLat + 1) * (toLon - fromLon + 1);
+            if (area > cells.size()) {
+                // Fewer occupied cells than cells in the range: scan the occupied ones
+                cells.forEach((key, points) -> {
+                    int lat = (int) (key >>> 32);
+                    int lon = (int) (long) key;
+                    if (lat >= fromLat && lat <= toLat && lon >= fromLon && lon <= toLon) {
+                        points.forEach(visitor);
+                    }
+                });
+                return;
+            }
+            for (int lat = fromLat; lat <= toLat; lat++) {
+                for (int lon = fromLon; lon <= toLon; lon++) {
+                    List<Point> points = cells.get(cellKey(lat, lon));
+                    if (points != null) {
+                        points.forEach(visitor);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Visits the cells at Chebyshev distance {@code ring} from a cell, wrapping around in
+         * longitude. Rings wider than the globe may visit a cell more than once.
+         */
+        void forEachInRing(int centerLat, int centerLon, int ring, Consumer<Point> visitor) {
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                int lat = centerLat + dLat;
+                if (lat < 0 || lat >= LAT_CELLS) {
+                    continue;
+                }
+                boolean edgeRow = Math.abs(dLat) == ring;
+                for (int dLon = -ring; dLon <= ring; dLon += edgeRow ? 1 : Math.max(1, 2 * ring)) {
+                    List<Point> points = cells.get(cellKey(lat, Math.floorMod(centerLon + dLon, LON_CELLS)));
+                    if (points != null) {
+                        points.forEach(visitor);
+                    }
+                }
+            }
+        }
+    }
+}
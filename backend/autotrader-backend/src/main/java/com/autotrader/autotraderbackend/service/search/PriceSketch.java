@@ -0,0 +1,100 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Quantile sketch of prices: the number of prices per logarithmic bucket, each bucket
+ * spanning a factor of {@code (1 + a) / (1 - a)} for a relative accuracy {@code a} of
+ * {@value #RELATIVE_ACCURACY}. Any quantile is reported within that relative error of an
+ * actual price in the sketch, however many prices it holds.
+ * <p>
+ * Unlike rank-based sketches, a price can be removed again, and two sketches merge exactly
+ * by adding their counts, so sketches of neighbouring cells can be combined at query time.
+ * Not thread-safe.
+ */
+final class PriceSketch {
+
+    static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long count;
+
+    /**
+     * @param price A positive price.
+     * @return The bucket holding the price.
+     */
+    static int bucketOf(double price) {
+        if (!(price > 0)) {
+            throw new IllegalArgumentException("Only positive prices can be sketched.");
+        }
+        return (int) Math.ceil(Math.log(price) / LOG_GAMMA);
+    }
+
+    void add(int bucket) {
+        counts.merge(bucket, 1L, Long::sum);
+        count++;
+    }
+
+    /**
+     * Removes one price of a bucket, if the bucket holds any.
+     */
+    void remove(int bucket) {
+        Long bucketCount = counts.get(bucket);
+        if (bucketCount == null) {
+            return;
+        }
+        if (bucketCount == 1) {
+            counts.remove(bucket);
+        } else {
+            counts.put(bucket, bucketCount - 1);
+        }
+        count--;
+    }
+
+    /**
+     * Adds the prices of another sketch to this one.
+     */
+    void merge(PriceSketch other) {
+        other.counts.forEach((bucket, bucketCount) -> counts.merge(bucket, bucketCount, Long::sum));
+        count += other.count;
+    }
+
+    long count() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @param quantile Between 0 and 1, e.g. 0.5 for the median.
+     * @return The price at the lower nearest rank of the quantile, within the relative accuracy.
+     * @throws IllegalStateException If the sketch is empty.
+     */
+    double quantile(double quantile) {
+        if (isEmpty()) {
+            throw new IllegalStateException("An empty sketch has no quantiles.");
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+            seen += entry.getValue();
+            if (seen > rank) {
+                return valueOf(entry.getKey());
+            }
+        }
+        return valueOf(counts.lastKey());
+    }
+
+    /**
+     * The price reported for a bucket: within the relative accuracy of both of its bounds.
+     */
+    private static double valueOf(int bucket) {
+        return 2 * Math.pow(GAMMA, bucket) / (GAMMA + 1);
+    }
+}
@@ -0,0 +1,543 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.SavedSearch;
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.repository.SavedSearchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Inverted ("percolator") index over saved searches: finds the saved searches a listing
+ * matches without running any of their queries.
+ * <p>
+ * Each saved search is registered under the keys of its most selective criterion only, in
+ * this order of preference: catalog trim, model or brand ids; model or brand text; location;
+ * its first keyword term; the 1° cells covering its radius or box; the price or model-year
+ * buckets overlapping its range. Searches with none of these are checked for every listing.
+ * A listing looks up the keys of its own values, so only the searches registered under one
+ * of them are verified against their full filter. The work per listing therefore grows with
+ * the number of searches sharing its brand, location, etc., not with the number of searches.
+ * <p>
+ * Filters match like the public listing filter: text criteria are case-insensitive
+ * substrings (so a listing looks up every substring of its brand and model), keyword terms
+ * must all occur in the listing's text, and sold / archived default to false.
+ * <p>
+ * The index is built on startup (or on first use) and kept current by
+ * {@code SavedSearchService}; changes are applied after the transaction commits. Searches
+ * saved or deleted through another instance are picked up by a periodic reconcile that
+ * compares the registered ids with those in the database (saved searches are never
+ * changed, only created and deleted).
+ */
+@Component
+@Slf4j
+public class SavedSearchPercolator implements ApplicationListener<ApplicationReadyEvent> {
+
+    /** Text criteria longer than this are not used as keys; listing text is looked up up to this length. */
+    static final int MAX_TEXT_KEY_LENGTH = 64;
+    /** Searches whose area covers more cells are registered under a later criterion. */
+    static final int MAX_GEO_CELLS = 1024;
+
+    private static final String MATCH_ALL_KEY = "*";
+    private static final int MIN_YEAR_BUCKET = Math.floorDiv(1900, ListingFacetCounter.YEAR_BUCKET_SPAN);
+    private static final int MAX_YEAR_BUCKET = Math.floorDiv(2100, ListingFacetCounter.YEAR_BUCKET_SPAN);
+    /** Same limit as the keyword search. */
+    private static final int MAX_KEYWORD_TERMS = 32;
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final LocationGeoIndex locationGeoIndex;
+    private final ListingTextAnalyzer analyzer = new ListingTextAnalyzer();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Registration> registrations = new HashMap<>();
+    private final Map<String, List<Registration>> postings = new HashMap<>();
+    private boolean built;
+
+    public SavedSearchPercolator(SavedSearchRepository savedSearchRepository, LocationGeoIndex locationGeoIndex) {
+        this.savedSearchRepository = savedSearchRepository;
+        this.locationGeoIndex = locationGeoIndex;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the index from the database. Changes committing meanwhile wait for the
+     * rebuild and are applied on top of it.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            registrations.clear();
+            postings.clear();
+            List<SavedSearch> searches = savedSearchRepository.findAll();
+            searches.forEach(this::add);
+            built = true;
+            log.info("Saved search percolator built with {} searches under {} keys", registrations.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.saved-searches.percolator.reconcile-interval-ms:60000}",
+               initialDelayString = "${app.saved-searches.percolator.reconcile-interval-ms:60000}")
+    public void reconcileScheduled() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Saved search percolator reconcile failed", e);
+        }
+    }
+
+    /**
+     * Registers the saved searches created through other instances and drops those deleted
+     * through them. Only ids are read, plus the searches not registered yet.
+     *
+     * @return The number of searches registered or dropped.
+     */
+    public int reconcile() {
+        Set<Long> registered;
+        lock.readLock().lock();
+        try {
+            if (!built) {
+                return 0;
+            }
+            // Taken before reading the ids, so searches registered meanwhile are not dropped
+            registered = new HashSet<>(registrations.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        Set<Long> existing = new HashSet<>(savedSearchRepository.findAllIds());
+        List<Long> deleted = registered.stream().filter(id -> !existing.contains(id)).toList();
+        List<Long> missing = existing.stream().filter(id -> !registered.contains(id)).toList();
+        List<Registration> added = missing.isEmpty() ? List.of()
+                : savedSearchRepository.findAllById(missing).stream()
+                        .map(savedSearch -> Registration.of(savedSearch, analyzer))
+                        .toList();
+
+        int changed = 0;
+        lock.writeLock().lock();
+        try {
+            for (Long id : deleted) {
+                if (registrations.containsKey(id)) {
+                    remove(id);
+                    changed++;
+                }
+            }
+            for (Registration registration : added) {
+                if (!registrations.containsKey(registration.savedSearchId())) {
+                    add(registration);
+                    changed++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (changed > 0) {
+            log.info("Saved search percolator reconciled: {} searches registered or dropped", changed);
+        }
+        return changed;
+    }
+
+    /**
+     * Finds the saved searches a listing matches. Searches owned by the listing's seller
+     * are skipped.
+     *
+     * @return The ids of the matching saved searches.
+     */
+    public List<Long> match(CarListing listing) {
+        ensureBuilt();
+        ListingFacts facts = ListingFacts.of(listing, coordinatesOf(listing), analyzer);
+        List<Long> matches = new ArrayList<>();
+        int verified = 0;
+        lock.readLock().lock();
+        try {
+            for (String key : facts.keys()) {
+                List<Registration> candidates = postings.get(key);
+                if (candidates == null) {
+                    continue;
+                }
+                for (Registration candidate : candidates) {
+                    verified++;
+                    if (!Objects.equals(candidate.userId(), facts.sellerId()) && candidate.criteria().matches(facts)) {
+                        matches.add(candidate.savedSearchId());
+                    }
+                }
+            }
+            log.debug("Listing {} verified against {} of {} saved searches, {} matched",
+                    listing.getId(), verified, registrations.size(), matches.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    /**
+     * Registers a saved (created or changed) search once the transaction commits.
+     */
+    public void onSavedSearchSaved(SavedSearch savedSearch) {
+        if (savedSearch == null || savedSearch.getId() == null) {
+            return;
+        }
+        Registration registration = Registration.of(savedSearch, analyzer);
+        AfterCommit.run(() -> update(registration.savedSearchId(), registration));
+    }
+
+    /**
+     * Drops a deleted saved search once the transaction commits.
+     */
+    public void onSavedSearchDeleted(Long savedSearchId) {
+        if (savedSearchId != null) {
+            AfterCommit.run(() -> update(savedSearchId, null));
+        }
+    }
+
+    /**
+     * @return The number of registered saved searches.
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return registrations.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        lock.readLock().lock();
+        try {
+            if (built) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        rebuild();
+    }
+
+    private LocationGeoIndex.Coordinates coordinatesOf(CarListing listing) {
+        Long locationId = listing.getLocation() != null ? listing.getLocation().getId() : null;
+        return locationId != null ? locationGeoIndex.coordinatesOf(List.of(locationId)).get(locationId) : null;
+    }
+
+    private void update(Long savedSearchId, Registration registration) {
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                // Not built yet: the first match reads the committed state
+                return;
+            }
+            remove(savedSearchId);
+            if (registration != null) {
+                add(registration);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(SavedSearch savedSearch) {
+        add(Registration.of(savedSearch, analyzer));
+    }
+
+    private void add(Registration registration) {
+        registrations.put(registration.savedSearchId(), registration);
+        for (String key : registration.keys()) {
+            postings.computeIfAbsent(key, k -> new ArrayList<>()).add(registration);
+        }
+    }
+
+    private void remove(Long savedSearchId) {
+        Registration previous = registrations.remove(savedSearchId);
+        if (previous == null) {
+            return;
+        }
+        for (String key : previous.keys()) {
+            List<Registration> posting = postings.get(key);
+            if (posting != null) {
+                posting.remove(previous);
+                if (posting.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    private static String geoCellKey(int latitudeCell, int longitudeCell) {
+        return "geo:" + latitudeCell + ":" + Math.floorMod(longitudeCell + 180, 360);
+    }
+
+    private static int yearBucketOf(int modelYear) {
+        return Math.max(MIN_YEAR_BUCKET, Math.min(MAX_YEAR_BUCKET, Math.floorDiv(modelYear, ListingFacetCounter.YEAR_BUCKET_SPAN)));
+    }
+
+    private record Registration(Long savedSearchId, Long userId, Criteria criteria, List<String> keys) {
+        static Registration of(SavedSearch savedSearch, ListingTextAnalyzer analyzer) {
+            Criteria criteria = Criteria.of(savedSearch.getCriteria(), analyzer);
+            return new Registration(savedSearch.getId(), savedSearch.getUserId(), criteria, criteria.keys());
+        }
+    }
+
+    /**
+     * A saved filter compiled for matching single listings.
+     */
+    private record Criteria(
+            String brand, String model,
+            Set<Long> brandIds, Set<Long> modelIds, Set<Long> trimIds,
+            Integer minYear, Integer maxYear,
+            BigDecimal minPrice, BigDecimal maxPrice,
+            Integer minMileage, Integer maxMileage,
+            Long locationId,
+            Double nearLat, Double nearLon, Double radiusKm,
+            Double minLat, Double maxLat, Double minLon, Double maxLon,
+            boolean sold, boolean archived,
+            List<String> keywordTerms) {
+
+        static Criteria of(ListingFilterRequest filter, ListingTextAnalyzer analyzer) {
+            List<String> keywordTerms = List.of();
+            if (StringUtils.hasText(filter.getKeyword())) {
+                List<String> terms = analyzer.terms("description", filter.getKeyword());
+                keywordTerms = terms.subList(0, Math.min(terms.size(), MAX_KEYWORD_TERMS));
+            }
+            return new Criteria(
+                    lowerCase(filter.getBrand()), lowerCase(filter.getModel()),
+                    idSet(filter.getBrandIds()), idSet(filter.getModelIds()), idSet(filter.getTrimIds()),
+                    filter.getMinYear(), filter.getMaxYear(),
+                    filter.getMinPrice(), filter.getMaxPrice(),
+                    filter.getMinMileage(), filter.getMaxMileage(),
+                    filter.getLocationId(),
+                    filter.getNearLat(), filter.getNearLon(), filter.getRadiusKm(),
+                    filter.getMinLat(), filter.getMaxLat(), filter.getMinLon(), filter.getMaxLon(),
+                    Boolean.TRUE.equals(filter.getIsSold()), Boolean.TRUE.equals(filter.getIsArchived()),
+                    List.copyOf(keywordTerms));
+        }
+
+        /**
+         * @return The keys of the most selective criterion; empty if the filter can match nothing.
+         */
+        List<String> keys() {
+            if (trimIds != null) {
+                return prefixed("trim:", trimIds);
+            }
+            if (modelIds != null) {
+                return prefixed("modelId:", modelIds);
+            }
+            if (brandIds != null) {
+                return prefixed("brandId:", brandIds);
+            }
+            if (model != null && model.length() <= MAX_TEXT_KEY_LENGTH) {
+                return List.of("model:" + model);
+            }
+            if (brand != null && brand.length() <= MAX_TEXT_KEY_LENGTH) {
+                return List.of("brand:" + brand);
+            }
+            if (locationId != null) {
+                return List.of("location:" + locationId);
+            }
+            if (!keywordTerms.isEmpty()) {
+                return List.of("term:" + keywordTerms.get(0));
+            }
+            List<String> geoCells = geoCells();
+            if (geoCells != null) {
+                return geoCells;
+            }
+            if (minPrice != null || maxPrice != null) {
+                int from = ListingFacetCounter.priceBucketOf(minPrice != null ? minPrice : BigDecimal.ZERO);
+                int to = maxPrice != null ? ListingFacetCounter.priceBucketOf(maxPrice) : ListingFacetCounter.PRICE_BOUNDARIES.size();
+                List<String> keys = new ArrayList<>();
+                for (int bucket = from; bucket <= to; bucket++) {
+                    keys.add("price:" + bucket);
+                }
+                return keys;
+            }
+            if (minYear != null || maxYear != null) {
+                int from = minYear != null ? yearBucketOf(minYear) : MIN_YEAR_BUCKET;
+                int to = maxYear != null ? yearBucketOf(maxYear) : MAX_YEAR_BUCKET;
+                List<String> keys = new ArrayList<>();
+                for (int bucket = from; bucket <= to; bucket++) {
+                    keys.add("year:" + bucket);
+                }
+                return keys;
+            }
+            return List.of(MATCH_ALL_KEY);
+        }
+
+        boolean matches(ListingFacts listing) {
+            if (listing.sold() != sold || listing.archived() != archived) {
+                return false;
+            }
+            if (brand != null && (listing.brand() == null || !listing.brand().contains(brand))) return false;
+            if (model != null && (listing.model() == null || !listing.model().contains(model))) return false;
+            if (brandIds != null && !brandIds.contains(listing.brandId())) return false;
+            if (modelIds != null && !modelIds.contains(listing.modelId())) return false;
+            if (trimIds != null && !trimIds.contains(listing.trimId())) return false;
+            if (!within(listing.modelYear(), minYear, maxYear)) return false;
+            if (!within(listing.mileage(), minMileage, maxMileage)) return false;
+            if (minPrice != null && (listing.price() == null || listing.price().compareTo(minPrice) < 0)) return false;
+            if (maxPrice != null && (listing.price() == null || listing.price().compareTo(maxPrice) > 0)) return false;
+            if (locationId != null && !locationId.equals(listing.locationId())) return false;
+            LocationGeoIndex.Coordinates point = listing.coordinates();
+            if (radiusKm != null && (point == null
+                    || LocationGeoIndex.distanceKm(nearLat, nearLon, point.latitude(), point.longitude()) > radiusKm)) {
+                return false;
+            }
+            if (minLat != null && (point == null
+                    || point.latitude() < minLat || point.latitude() > maxLat
+                    || point.longitude() < minLon || point.longitude() > maxLon)) {
+                return false;
+            }
+            return listing.terms().containsAll(keywordTerms);
+        }
+
+        /**
+         * @return The keys of the 1° cells covering the radius and / or box (the smaller cover
+         *         if both are given), or null if there is no area or it covers too many cells.
+         */
+        private List<String> geoCells() {
+            List<String> cells = null;
+            if (radiusKm != null) {
+                double latDelta = radiusKm / LocationGeoIndex.KM_PER_DEGREE;
+                double fromLat = Math.max(-90, nearLat - latDelta);
+                double toLat = Math.min(90, nearLat + latDelta);
+                double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(fromLat), Math.abs(toLat))));
+                double lonDelta = cosLat > 1e-9 ? radiusKm / (LocationGeoIndex.KM_PER_DEGREE * cosLat) : 360;
+                cells = lonDelta >= 180
+                        ? cellKeys(fromLat, toLat, -180, -180 + 359)
+                        : cellKeys(fromLat, toLat, Math.floor(nearLon - lonDelta), Math.floor(nearLon + lonDelta));
+            }
+            if (minLat != null) {
+                List<String> boxCells = cellKeys(minLat, maxLat, Math.floor(minLon), Math.floor(maxLon));
+                if (cells == null || (boxCells != null && boxCells.size() < cells.size())) {
+                    cells = boxCells;
+                }
+            }
+            return cells;
+        }
+
+        private static List<String> cellKeys(double fromLat, double toLat, double fromLonCell, double toLonCell) {
+            int fromRow = (int) Math.floor(fromLat);
+            int toRow = (int) Math.floor(toLat);
+            long count = (long) (toRow - fromRow + 1) * ((long) toLonCell - (long) fromLonCell + 1);
+            if (count > MAX_GEO_CELLS) {
+                return null;
+            }
+            List<String> keys = new ArrayList<>();
+            for (int row = fromRow; row <= toRow; row++) {
+                for (long column = (long) fromLonCell; column <= (long) toLonCell; column++) {
+                    keys.add(geoCellKey(row, (int) column));
+                }
+            }
+            return keys;
+        }
+
+        private static boolean within(Integer value, Integer min, Integer max) {
+            if (min == null && max == null) {
+                return true;
+            }
+            return value != null && (min == null || value >= min) && (max == null || value <= max);
+        }
+
+        private static List<String> prefixed(String prefix, Set<Long> ids) {
+            return ids.stream().map(id -> prefix + id).toList();
+        }
+
+        private static Set<Long> idSet(List<Long> ids) {
+            if (ids == null || ids.stream().noneMatch(Objects::nonNull)) {
+                return null;
+            }
+            Set<Long> set = new HashSet<>();
+            ids.stream().filter(Objects::nonNull).forEach(set::add);
+            return set;
+        }
+
+        private static String lowerCase(String text) {
+            return StringUtils.hasText(text) ? text.toLowerCase(Locale.ROOT) : null;
+        }
+    }
+
+    /**
+     * The values of a listing that saved searches are matched against.
+     */
+    private record ListingFacts(
+            Long sellerId,
+            String brand, String model,
+            Long brandId, Long modelId, Long trimId,
+            Integer modelYear, Integer mileage, BigDecimal price,
+            Long locationId, LocationGeoIndex.Coordinates coordinates,
+            boolean sold, boolean archived,
+            Set<String> terms) {
+
+        static ListingFacts of(CarListing listing, LocationGeoIndex.Coordinates coordinates, ListingTextAnalyzer analyzer) {
+            Set<String> terms = new HashSet<>();
+            Stream.of(listing.getTitle(), listing.getBrand(), listing.getModel(), listing.getModelYear(),
+                            listing.getTransmission(), listing.getExteriorColor(), listing.getDescription())
+                    .filter(Objects::nonNull)
+                    .forEach(value -> terms.addAll(analyzer.terms("description", value.toString())));
+            return new ListingFacts(
+                    listing.getSeller() != null ? listing.getSeller().getId() : null,
+                    Criteria.lowerCase(listing.getBrand()), Criteria.lowerCase(listing.getModel()),
+                    listing.getCarBrand() != null ? listing.getCarBrand().getId() : null,
+                    listing.getCarModel() != null ? listing.getCarModel().getId() : null,
+                    listing.getCarTrim() != null ? listing.getCarTrim().getId() : null,
+                    listing.getModelYear(), listing.getMileage(), listing.getPrice(),
+                    listing.getLocation() != null ? listing.getLocation().getId() : null,
+                    coordinates,
+                    Boolean.TRUE.equals(listing.getSold()), Boolean.TRUE.equals(listing.getArchived()),
+                    terms);
+        }
+
+        /**
+         * @return Every key a saved search matching this listing can be registered under.
+         */
+        Set<String> keys() {
+            Set<String> keys = new LinkedHashSet<>();
+            keys.add(MATCH_ALL_KEY);
+            if (trimId != null) keys.add("trim:" + trimId);
+            if (modelId != null) keys.add("modelId:" + modelId);
+            if (brandId != null) keys.add("brandId:" + brandId);
+            addSubstrings(keys, "model:", model);
+            addSubstrings(keys, "brand:", brand);
+            if (locationId != null) keys.add("location:" + locationId);
+            terms.forEach(term -> keys.add("term:" + term));
+            if (coordinates != null) {
+                keys.add(geoCellKey((int) Math.floor(coordinates.latitude()), (int) Math.floor(coordinates.longitude())));
+            }
+            if (price != null) keys.add("price:" + ListingFacetCounter.priceBucketOf(price));
+            if (modelYear != null) keys.add("year:" + yearBucketOf(modelYear));
+            return keys;
+        }
+
+        private static void addSubstrings(Set<String> keys, String prefix, String text) {
+            if (text == null) {
+                return;
+            }
+            for (int start = 0; start < text.length(); start++) {
+                int maxEnd = Math.min(text.length(), start + MAX_TEXT_KEY_LENGTH);
+                for (int end = start + 1; end <= maxEnd; end++) {
+                    keys.add(prefix + text.substring(start, end));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.ListingViewDay;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.ListingViewDayRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingTrendRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * In-memory ranking of publicly visible, unexpired listings by a time-decayed score, kept as the top
+ * {@code size} listings of every scope: all listings, each location, each catalog brand and
+ * each location and brand.
+ * <p>
+ * A listing scores {@code new-listing-weight} when it is created and 1 per detail page view,
+ * each halving every {@code half-life-hours}. Scores are kept forward-decayed: an event at
+ * time t adds {@code 2^((t - landmark) / half-life)} instead of decaying every score as time
+ * passes, so scores only ever grow and their order never changes on its own. Views add to
+ * the listing's score without locking; every {@code refresh-interval-ms}, the listings whose
+ * score or scope changed are re-ranked in their scopes and the new top lists are published as
+ * an immutable snapshot that feed requests read. A scope that loses a listing while full is
+ * refilled from all scored listings. Nothing is written when a listing expires, so each refresh
+ * also stops ranking the listings whose expiration date has passed.
+ * <p>
+ * Built on startup from the public listings and the daily view counts of the last
+ * {@code seed-days} days, and kept current through {@link ListingChanges}, to which
+ * saved or deleted listings are reported; changes are applied after the transaction commits.
+ * Listings written or deleted by other instances are picked up by the periodic reconcile of
+ * {@link ListingChanges}. Rebuilt once scores reach 2^{@value #MAX_HALF_LIVES}. Views
+ * recorded while a rebuild reads the database are not counted. Each instance ranks the views
+ * it serves itself.
+ */
+@Component
+@Slf4j
+public class TrendingListings implements ApplicationListener<ApplicationReadyEvent>, ListingChangeListener {
+
+    /** Half-lives after the landmark at which scores are rebuilt, well before doubles overflow. */
+    static final int MAX_HALF_LIVES = 64;
+
+    /** Highest score first; newest listing first among equal scores. */
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingDouble((Entry entry) -> entry.rankedScore).reversed()
+            .thenComparing(entry -> entry.listingId, Comparator.reverseOrder());
+
+    private final CarListingRepository carListingRepository;
+    private final ListingViewDayRepository listingViewDayRepository;
+    private final Clock clock;
+    private final double halfLifeMillis;
+    private final double newListingWeight;
+    private final int size;
+    private final int seedDays;
+
+    /** Scored public listings by id. Added and removed under this; scores grow without locking. */
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    /** Listings whose score or scope changed since the last refresh. */
+    private final Set<Entry> dirty = ConcurrentHashMap.newKeySet();
+    /** Listings no longer public since the last refresh. Guarded by this, like the fields below. */
+    private final List<Entry> removed = new ArrayList<>();
+    private final Map<Scope, TreeSet<Entry>> tops = new HashMap<>();
+    /** Scored listings by expiration date, soonest first; stale once the listing changes. */
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>(Comparator.comparing(Expiry::at));
+    private boolean built;
+
+    private volatile long landmark;
+    private volatile Map<Scope, List<Long>> snapshot = Map.of();
+
+    @Autowired
+    public TrendingListings(CarListingRepository carListingRepository,
+                            ListingViewDayRepository listingViewDayRepository,
+                            @Value("${app.listings.trending.half-life-hours:24}") double halfLifeHours,
+                            @Value("${app.listings.trending.new-listing-weight:20}") double newListingWeight,
+                            @Value("${app.listings.trending.size:100}") int size,
+                            @Value("${app.listings.trending.seed-days:7}") int seedDays) {
+        this(carListingRepository, listingViewDayRepository, Clock.systemDefaultZone(), halfLifeHours, newListingWeight, size, seedDays);
+    }
+
+    TrendingListings(CarListingRepository carListingRepository,
+                     ListingViewDayRepository listingViewDayRepository,
+                     Clock clock,
+                     double halfLifeHours,
+                     double newListingWeight,
+                     int size,
+                     int seedDays) {
+        if (halfLifeHours <= 0 || newListingWeight < 0 || size < 1 || seedDays < 0) {
+            throw new IllegalArgumentException("Trending listings need a positive half-life and size, "
+                    + "and a non-negative new listing weight and seed days.");
+        }
+        this.carListingRepository = carListingRepository;
+        this.listingViewDayRepository = listingViewDayRepository;
+        this.clock = clock;
+        this.halfLifeMillis = halfLifeHours * 3_600_000;
+        this.newListingWeight = newListingWeight;
+        this.size = size;
+        this.seedDays = seedDays;
+        this.landmark = clock.millis();
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        rebuild();
+    }
+
+    /**
+     * @return The number of listings ranked per scope, the most a feed can return.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the ids of the highest scoring listings of a scope as of the last refresh.
+     *
+     * @param locationId The location, or null for all locations.
+     * @param brandId    The catalog brand, or null for all brands.
+     * @param limit      The maximum number of ids.
+     * @return The ids, highest score first; empty before the ranking is built.
+     */
+    public List<Long> top(Long locationId, Long brandId, int limit) {
+        List<Long> ids = snapshot.getOrDefault(new Scope(locationId, brandId), List.of());
+        return ids.size() <= limit ? ids : ids.subList(0, limit);
+    }
+
+    /**
+     * Counts a view of a listing. Never blocks; views of listings that are not public are
+     * ignored.
+     */
+    public void recordView(Long listingId) {
+        if (listingId == null) {
+            return;
+        }
+        Entry entry = entries.get(listingId);
+        if (entry != null) {
+            entry.score.add(weight(clock.millis()));
+            dirty.add(entry);
+        }
+    }
+
+    /**
+     * Scores a saved listing that is publicly visible, or stops ranking it, once the
+     * transaction commits.
+     */
+    @Override
+    public void onListingSaved(CarListing listing) {
+        if (listing == null || listing.getId() == null) {
+            return;
+        }
+        ListingIndexRow row = ListingIndexRow.from(listing);
+        AfterCommit.run(() -> update(row));
+    }
+
+    /**
+     * Re-scopes listings changed by a bulk update, read back as index rows, once the
+     * transaction commits.
+     */
+    @Override
+    public void onListingsUpdated(List<ListingIndexRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return;
+        }
+        List<ListingIndexRow> updated = List.copyOf(rows);
+        AfterCommit.run(() -> updateAll(updated));
+    }
+
+    /**
+     * Stops ranking a deleted listing once the transaction commits.
+     */
+    @Override
+    public void onListingDeleted(CarListing listing) {
+        Long listingId = listing.getId();
+        if (listingId != null) {
+            AfterCommit.run(() -> hide(listingId));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.listings.trending.refresh-interval-ms:60000}",
+               initialDelayString = "${app.listings.trending.refresh-interval-ms:60000}")
+    public void refreshScheduled() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.error("Trending listings refresh failed", e);
+        }
+    }
+
+    /**
+     * Re-ranks the listings changed since the last refresh and publishes the new top lists.
+     * Builds the ranking instead if it could not be built yet.
+     */
+    public synchronized void refresh() {
+        if (!built || clock.millis() - landmark > MAX_HALF_LIVES * halfLifeMillis) {
+            rebuild();
+            return;
+        }
+        hideExpired();
+        Set<Scope> touched = new HashSet<>();
+        Set<Scope> depleted = new HashSet<>();
+        for (Entry entry : removed) {
+            unrank(entry, touched, depleted);
+        }
+        removed.clear();
+        Iterator<Entry> changed = dirty.iterator();
+        while (changed.hasNext()) {
+            Entry entry = changed.next();
+            changed.remove();
+            unrank(entry, touched, depleted);
+            if (entries.get(entry.listingId) == entry) {
+                rank(entry, touched);
+            }
+        }
+        depleted.removeIf(scope -> tops.containsKey(scope) && tops.get(scope).size() >= size);
+        if (!depleted.isEmpty()) {
+            refill(depleted, touched);
+        }
+        publish(touched);
+    }
+
+    /**
+     * Re-scores all public listings from the database. Changes committing meanwhile wait for
+     * the rebuild and are applied on top of it.
+     */
+    public synchronized void rebuild() {
+        long started = clock.millis();
+        List<ListingTrendRow> rows;
+        List<ListingViewDay> viewDays;
+        try {
+            rows = carListingRepository.findPublicTrendRows();
+            viewDays = seedDays > 0
+                    ? listingViewDayRepository.findByViewDateGreaterThanEqual(LocalDate.now(clock).minusDays(seedDays - 1))
+                    : List.of();
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild trending listings; {}", built ? "keeping the previous ranking" : "the feed stays empty", e);
+            return;
+        }
+
+        entries.clear();
+        dirty.clear();
+        removed.clear();
+        tops.clear();
+        expiries.clear();
+        landmark = started;
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (ListingTrendRow row : rows) {
+            if (row.expirationDate() != null && !row.expirationDate().isAfter(now)) {
+                continue;
+            }
+            Entry entry = new Entry(row.listingId());
+            entry.locationId = row.locationId();
+            entry.brandId = row.brandId();
+            entry.score.add(newListingWeight * weight(millis(row.createdAt())));
+            entries.put(row.listingId(), entry);
+            expireAt(entry, row.expirationDate());
+        }
+        for (ListingViewDay viewDay : viewDays) {
+            Entry entry = entries.get(viewDay.getListingId());
+            if (entry != null) {
+                // Views of a day count as of its middle
+                entry.score.add(viewDay.getViews() * weight(millis(viewDay.getViewDate().atTime(12, 0))));
+            }
+        }
+        Set<Scope> touched = new HashSet<>();
+        entries.values().forEach(entry -> rank(entry, touched));
+        snapshot = Map.of();
+        publish(touched);
+        built = true;
+        log.info("Trending listings built for {} listings in {} scopes in {} ms",
+                entries.size(), tops.size(), clock.millis() - started);
+    }
+
+    /**
+     * Scores or re-scopes the listings changed by any instance since the previous reconcile,
+     * and stops ranking those deleted or no longer public. Views served by other instances
+     * are not counted.
+     */
+    @Override
+    public synchronized void onListingsReconciled(List<ListingIndexRow> changed, Set<Long> existingIds) {
+        if (!built) {
+            return;
+        }
+        Set<Long> changedIds = new HashSet<>();
+        for (ListingIndexRow row : changed) {
+            update(row);
+            changedIds.add(row.id());
+        }
+        List<Long> deleted = entries.keySet().stream()
+                .filter(listingId -> !existingIds.contains(listingId) && !changedIds.contains(listingId))
+                .toList();
+        deleted.forEach(this::hide);
+    }
+
+    private synchronized void updateAll(List<ListingIndexRow> rows) {
+        rows.forEach(this::update);
+    }
+
+    private synchronized void update(ListingIndexRow row) {
+        if (!row.isPublic(LocalDateTime.now(clock))) {
+            hide(row.id());
+            return;
+        }
+        if (!built) {
+            // Not built yet: the build reads the committed state
+            return;
+        }
+        Entry entry = entries.get(row.id());
+        if (entry == null) {
+            entry = new Entry(row.id());
+            entry.score.add(newListingWeight * weight(millis(row.createdAt())));
+            entries.put(row.id(), entry);
+        }
+        entry.locationId = row.locationId();
+        entry.brandId = row.brandId();
+        expireAt(entry, row.expirationDate());
+        dirty.add(entry);
+    }
+
+    private void expireAt(Entry entry, LocalDateTime expirationDate) {
+        // Listings reconciled again keep their queued expiry instead of queueing another
+        if (expirationDate != null && !expirationDate.equals(entry.expirationDate)) {
+            expiries.add(new Expiry(entry, expirationDate));
+        }
+        entry.expirationDate = expirationDate;
+    }
+
+    /**
+     * Stops ranking the listings whose expiration date has passed. Queue entries of listings
+     * changed or hidden since they were queued are discarded.
+     */
+    private void hideExpired() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        while (!expiries.isEmpty() && !expiries.peek().at().isAfter(now)) {
+            Expiry expiry = expiries.poll();
+            Entry entry = expiry.entry();
+            if (entries.get(entry.listingId) == entry && expiry.at().equals(entry.expirationDate)) {
+                hide(entry.listingId);
+            }
+        }
+    }
+
+    private synchronized void hide(Long listingId) {
+        Entry entry = entries.remove(listingId);
+        if (entry != null) {
+            dirty.remove(entry);
+            removed.add(entry);
+        }
+    }
+
+    /**
+     * Takes a listing out of the top lists it is in. A list that was full may now miss a
+     * listing that had been evicted from it.
+     */
+    private void unrank(Entry entry, Set<Scope> touched, Set<Scope> depleted) {
+        for (Scope scope : entry.rankedScopes) {
+            TreeSet<Entry> top = tops.get(scope);
+            boolean wasFull = top.size() >= size;
+            top.remove(entry);
+            touched.add(scope);
+            if (wasFull) {
+                depleted.add(scope);
+            }
+            if (top.isEmpty()) {
+                tops.remove(scope);
+            }
+        }
+        entry.rankedScopes.clear();
+    }
+
+    /**
+     * Takes the current score of a listing and offers it to the top lists of its scopes.
+     */
+    private void rank(Entry entry, Set<Scope> touched) {
+        entry.rankedScore = entry.score.sum();
+        for (Scope scope : entry.scopes()) {
+            offer(scope, entry, touched);
+        }
+    }
+
+    private void offer(Scope scope, Entry entry, Set<Scope> touched) {
+        TreeSet<Entry> top = tops.computeIfAbsent(scope, s -> new TreeSet<>(RANKING));
+        if (top.size() >= size && RANKING.compare(entry, top.last()) > 0) {
+            return;
+        }
+        top.add(entry);
+        entry.rankedScopes.add(scope);
+        touched.add(scope);
+        if (top.size() > size) {
+            top.pollLast().rankedScopes.remove(scope);
+        }
+    }
+
+    /**
+     * Offers every scored listing to the given scopes, to take the place of removed ones.
+     */
+    private void refill(Set<Scope> depleted, Set<Scope> touched) {
+        for (Entry entry : entries.values()) {
+            for (Scope scope : entry.scopes()) {
+                if (depleted.contains(scope) && !entry.rankedScopes.contains(scope)) {
+                    offer(scope, entry, touched);
+                }
+            }
+        }
+    }
+
+    private void publish(Set<Scope> touched) {
+        if (touched.isEmpty()) {
+            return;
+        }
+        Map<Scope, List<Long>> published = new HashMap<>(snapshot);
+        for (Scope scope : touched) {
+            TreeSet<Entry> top = tops.get(scope);
+            if (top == null) {
+                published.remove(scope);
+            } else {
+                published.put(scope, top.stream().map(entry -> entry.listingId).toList());
+            }
+        }
+        snapshot = published;
+    }
+
+    private double weight(long millis) {
+        return Math.pow(2, (millis - landmark) / halfLifeMillis);
+    }
+
+    private long millis(LocalDateTime time) {
+        long now = clock.millis();
+        return time == null ? now : Math.min(now, time.atZone(clock.getZone()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * A slice of the feed; null fields match any value.
+     */
+    record Scope(Long locationId, Long brandId) {
+    }
+
+    private record Expiry(Entry entry, LocalDateTime at) {
+    }
+
+    /**
+     * The score of a listing and where it is ranked.
+     */
+    private static final class Entry {
+
+        private final Long listingId;
+        private final DoubleAdder score = new DoubleAdder();
+        /** The scopes of the listing, and the score and scopes it is ranked under; only touched under the lock. */
+        private Long locationId;
+        private Long brandId;
+        private LocalDateTime expirationDate;
+        private double rankedScore;
+        private final List<Scope> rankedScopes = new ArrayList<>(4);
+
+        Entry(Long listingId) {
+            this.listingId = listingId;
+        }
+
+        List<Scope> scopes() {
+            List<Scope> scopes = new ArrayList<>(4);
+            scopes.add(new Scope(null, null));
+            if (locationId != null) {
+                scopes.add(new Scope(locationId, null));
+            }
+            if (brandId != null) {
+                scopes.add(new Scope(null, brandId));
+            }
+            if (locationId != null && brandId != null) {
+                scopes.add(new Scope(locationId, brandId));
+            }
+            return scopes;
+        }
+    }
+}
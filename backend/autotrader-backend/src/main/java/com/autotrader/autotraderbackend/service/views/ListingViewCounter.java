@@ -0,0 +1,260 @@
+package com.autotrader.autotraderbackend.service.views;
+
+import com.autotrader.autotraderbackend.repository.ListingViewDayRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts views of listing detail pages in memory and adds them to the daily per-listing
+ * counts in {@code listing_view_days} on a schedule, so a page view costs no database write.
+ * <p>
+ * {@link #record} only increments the {@link LongAdder} of the listing in the current
+ * generation of counters: no lock and no I/O, and threads viewing the same listing spread
+ * their increments over the adder's cells instead of contending on one value. Every
+ * {@code flush-interval-ms}, {@link #flush} swaps in a new generation and writes the counts
+ * of the old one in batches of {@code batch-size} listings, each one UPDATE of the existing
+ * rows and one INSERT of the missing ones in a short transaction. A view recorded into a
+ * generation just after it was swapped out is picked up by the next flush.
+ * <p>
+ * Views count towards the day their generation started, so views in the first flush
+ * interval after midnight may be counted on the day before. Counts that cannot be written,
+ * e.g. while the database is down, are kept for the next flush, up to {@code max-pending}
+ * listing days; beyond that the oldest days are dropped. Counts not yet written when an
+ * instance is killed are lost: these are statistics, not records. Each instance counts and
+ * flushes its own views; as flushes only add to the stored counts, no coordination is needed.
+ * <p>
+ * Metrics: {@code listings.views.flushed} (views written), {@code listings.views.dropped}
+ * (views dropped), {@code listings.views.pending} (listing days waiting to be written) and
+ * {@code listings.views.flush} (flush time).
+ */
+@Component
+@Slf4j
+public class ListingViewCounter {
+
+    private final ListingViewDayRepository listingViewDayRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int batchSize;
+    private final int maxPending;
+
+    private volatile Generation current;
+    /** The generation the last flush swapped out, drained again for late views. Guarded by this. */
+    private Generation retired;
+    /** Counts drained but not written yet, by day and listing. Guarded by this. */
+    private final TreeMap<LocalDate, Map<Long, Long>> pending = new TreeMap<>();
+    private volatile int pendingCount;
+
+    private final Counter flushedCounter;
+    private final Counter droppedCounter;
+    private final Timer flushTimer;
+
+    @Autowired
+    public ListingViewCounter(ListingViewDayRepository listingViewDayRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.listings.views.batch-size:500}") int batchSize,
+                              @Value("${app.listings.views.max-pending:100000}") int maxPending) {
+        this(listingViewDayRepository, transactionManager, meterRegistry, Clock.systemDefaultZone(), batchSize, maxPending);
+    }
+
+    ListingViewCounter(ListingViewDayRepository listingViewDayRepository,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       Clock clock,
+                       int batchSize,
+                       int maxPending) {
+        if (batchSize < 1 || maxPending < 1) {
+            throw new IllegalArgumentException("Listing view batch size and pending limit must be positive.");
+        }
+        this.listingViewDayRepository = listingViewDayRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.current = new Generation(LocalDate.now(clock));
+
+        this.flushedCounter = Counter.builder("listings.views.flushed")
+                .description("Listing views written to the daily counts")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("listings.views.dropped")
+                .description("Listing views dropped because they could not be written in time")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("listings.views.flush")
+                .description("Time taken by listing view flushes")
+                .register(meterRegistry);
+        Gauge.builder("listings.views.pending", this, counter -> counter.pendingCount)
+                .description("Listing days with views waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts a view of a listing. Never blocks.
+     */
+    public void record(Long listingId) {
+        if (listingId != null) {
+            current.increment(listingId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.listings.views.flush-interval-ms:30000}",
+               initialDelayString = "${app.listings.views.flush-interval-ms:30000}")
+    public void flushScheduled() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Listing view flush failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+            // Picks up views recorded into the generation the first flush swapped out
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Could not flush listing views on shutdown", e);
+        }
+    }
+
+    /**
+     * Writes the views counted since the last flush, and those earlier flushes could not write.
+     *
+     * @return The number of views written.
+     */
+    public synchronized long flush() {
+        long started = System.nanoTime();
+        Generation previous = retired;
+        retired = current;
+        current = new Generation(LocalDate.now(clock));
+        if (previous != null) {
+            previous.drainTo(pending);
+        }
+        retired.drainTo(pending);
+
+        long written = 0;
+        try {
+            written = writePending();
+        } finally {
+            dropOverflow();
+            pendingCount = pending.values().stream().mapToInt(Map::size).sum();
+            flushTimer.record(Duration.ofNanos(System.nanoTime() - started));
+            flushedCounter.increment(written);
+        }
+        if (written > 0) {
+            log.debug("Wrote {} listing views", written);
+        }
+        return written;
+    }
+
+    private long writePending() {
+        long written = 0;
+        Iterator<Map.Entry<LocalDate, Map<Long, Long>>> days = pending.entrySet().iterator();
+        while (days.hasNext()) {
+            Map.Entry<LocalDate, Map<Long, Long>> day = days.next();
+            List<Long> listingIds = new ArrayList<>(day.getValue().keySet());
+            for (int from = 0; from < listingIds.size(); from += batchSize) {
+                Map<Long, Long> batch = new HashMap<>();
+                for (Long listingId : listingIds.subList(from, Math.min(from + batchSize, listingIds.size()))) {
+                    batch.put(listingId, day.getValue().get(listingId));
+                }
+                try {
+                    writeBatch(day.getKey(), batch);
+                } catch (DataAccessException | TransactionException e) {
+                    log.warn("Could not write listing views, keeping them for the next flush: {}", e.getMessage());
+                    return written;
+                }
+                batch.keySet().forEach(day.getValue()::remove);
+                written += batch.values().stream().mapToLong(Long::longValue).sum();
+            }
+            days.remove();
+        }
+        return written;
+    }
+
+    private void writeBatch(LocalDate viewDate, Map<Long, Long> views) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> listingViewDayRepository.addViews(viewDate, views));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance inserted one of the rows first; all of them exist now
+            transactionTemplate.executeWithoutResult(status -> listingViewDayRepository.addViews(viewDate, views));
+        }
+    }
+
+    /**
+     * Drops the oldest pending days while more than {@code max-pending} listing days wait.
+     */
+    private void dropOverflow() {
+        int count = pending.values().stream().mapToInt(Map::size).sum();
+        while (count > maxPending && !pending.isEmpty()) {
+            Map.Entry<LocalDate, Map<Long, Long>> oldest = pending.pollFirstEntry();
+            long views = oldest.getValue().values().stream().mapToLong(Long::longValue).sum();
+            count -= oldest.getValue().size();
+            droppedCounter.increment(views);
+            log.warn("Dropped {} views of {} listings on {}: too many views waiting to be written",
+                    views, oldest.getValue().size(), oldest.getKey());
+        }
+    }
+
+    /**
+     * The view counters of listings from one flush to the next.
+     */
+    private static final class Generation {
+
+        private final LocalDate day;
+        private final ConcurrentHashMap<Long, LongAdder> counts = new ConcurrentHashMap<>();
+
+        Generation(LocalDate day) {
+            this.day = day;
+        }
+
+        void increment(Long listingId) {
+            LongAdder adder = counts.get(listingId);
+            if (adder == null) {
+                adder = counts.computeIfAbsent(listingId, id -> new LongAdder());
+            }
+            adder.increment();
+        }
+
+        /**
+         * Moves the views counted so far into {@code pending}, leaving the counters at zero.
+         */
+        void drainTo(TreeMap<LocalDate, Map<Long, Long>> pending) {
+            Map<Long, Long> views = null;
+            for (Map.Entry<Long, LongAdder> entry : counts.entrySet()) {
+                long count = entry.getValue().sumThenReset();
+                if (count > 0) {
+                    if (views == null) {
+                        views = pending.computeIfAbsent(day, d -> new HashMap<>());
+                    }
+                    views.merge(entry.getKey(), count, Long::sum);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.autotrader.autotraderbackend.service.views;
+
+import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.ListingViewDay;
+import com.autotrader.autotraderbackend.payload.response.ListingViewDayResponse;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.ListingViewDayRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingViewTotal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the daily view counts written by {@link ListingViewCounter} for sellers' dashboards.
+ * They lag the actual views by up to one flush interval.
+ */
+@Service
+@Slf4j
+public class ListingViewStats {
+
+    static final int MAX_DAYS = 365;
+
+    private final ListingViewDayRepository listingViewDayRepository;
+    private final CarListingRepository carListingRepository;
+    private final int recentDays;
+
+    public ListingViewStats(ListingViewDayRepository listingViewDayRepository,
+                            CarListingRepository carListingRepository,
+                            @Value("${app.listings.views.dashboard-days:30}") int recentDays) {
+        if (recentDays < 1 || recentDays > MAX_DAYS) {
+            throw new IllegalArgumentException("Listing view dashboard days must be between 1 and " + MAX_DAYS + ".");
+        }
+        this.listingViewDayRepository = listingViewDayRepository;
+        this.carListingRepository = carListingRepository;
+        this.recentDays = recentDays;
+    }
+
+    /**
+     * Sums the views of listings over the last {@code dashboard-days} days, today included,
+     * with one grouped query.
+     *
+     * @return The views by listing id, in the order given; 0 for listings without views.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> countRecentViews(Collection<Long> listingIds) {
+        Map<Long, Long> views = new LinkedHashMap<>();
+        listingIds.forEach(id -> views.put(id, 0L));
+        if (views.isEmpty()) {
+            return views;
+        }
+        LocalDate since = LocalDate.now().minusDays(recentDays - 1);
+        for (ListingViewTotal total : listingViewDayRepository.sumViewsSince(views.keySet(), since)) {
+            views.put(total.listingId(), total.views());
+        }
+        return views;
+    }
+
+    /**
+     * Gets the views of a listing per day over the last days, today included.
+     *
+     * @param listingId The listing.
+     * @param username  The user asking, who must own the listing.
+     * @param days      The number of days, at most 365.
+     * @return One entry per day, oldest first, with 0 on days without views.
+     * @throws IllegalArgumentException  If the number of days is out of range.
+     * @throws ResourceNotFoundException If the listing does not exist.
+     * @throws SecurityException         If the user does not own the listing.
+     */
+    @Transactional(readOnly = true)
+    public List<ListingViewDayResponse> getDailyViews(Long listingId, String username, int days) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_DAYS + ".");
+        }
+        CarListing listing = carListingRepository.findById(listingId)
+                .orElseThrow(() -> new ResourceNotFoundException("CarListing", "id", listingId));
+        if (listing.getSeller() == null || !listing.getSeller().getUsername().equals(username)) {
+            log.warn("User {} attempted to read the views of listing {} owned by someone else", username, listingId);
+            throw new SecurityException("User does not have permission to view the stats of this listing.");
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate since = today.minusDays(days - 1);
+        Map<LocalDate, Long> viewsByDay = listingViewDayRepository
+                .findByListingIdAndViewDateGreaterThanEqualOrderByViewDate(listingId, since).stream()
+                .collect(Collectors.toMap(ListingViewDay::getViewDate, ListingViewDay::getViews));
+        List<ListingViewDayResponse> series = new ArrayList<>(days);
+        for (LocalDate day = since; !day.isAfter(today); day = day.plusDays(1)) {
+            series.add(new ListingViewDayResponse(day, viewsByDay.getOrDefault(day, 0L)));
+        }
+        return series;
+    }
+}
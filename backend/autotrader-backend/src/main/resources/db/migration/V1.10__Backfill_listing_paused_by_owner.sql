@@ -0,0 +1,7 @@
+-- is_user_active used to be cleared only by owners pausing their listings. Now that it is also
+-- cleared for every listing of a deactivated account, owner pauses are kept in paused_by_owner
+-- (added by Hibernate, ddl-auto) so reactivating an account does not resume them.
+-- Portable between H2 and PostgreSQL.
+
+UPDATE car_listings SET paused_by_owner = TRUE
+    WHERE is_user_active = FALSE AND (paused_by_owner IS NULL OR paused_by_owner = FALSE);
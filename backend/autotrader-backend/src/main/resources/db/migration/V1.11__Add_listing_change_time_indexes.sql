@@ -0,0 +1,9 @@
+-- Indexes for ListingKeywordIndex.reconcile, which re-reads the listings created or updated
+-- since its previous run (created_at >= since OR updated_at >= since) every minute.
+-- Portable between H2 and PostgreSQL.
+
+CREATE INDEX IF NOT EXISTS idx_car_listings_created_at
+    ON car_listings (created_at);
+
+CREATE INDEX IF NOT EXISTS idx_car_listings_updated_at
+    ON car_listings (updated_at);
@@ -0,0 +1,9 @@
+-- Listings sorted by location put those without a location first when ascending and last
+-- when descending (CarListingSpecification.sortOrder). Rebuild the public location index with
+-- location_id NULLS FIRST so both directions read it in order: PostgreSQL puts NULLs last in
+-- an ascending index by default. Portable between H2 and PostgreSQL.
+
+DROP INDEX IF EXISTS idx_car_listings_public_location;
+
+CREATE INDEX IF NOT EXISTS idx_car_listings_public_location
+    ON car_listings (approved, sold, archived, is_user_active, location_id NULLS FIRST, id);
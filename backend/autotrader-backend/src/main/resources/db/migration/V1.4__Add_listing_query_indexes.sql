@@ -0,0 +1,21 @@
+-- Indexes for the public listing queries built by CarListingSpecification.
+-- Every public query filters on approved / sold / archived / is_user_active, then sorts by
+-- created_at (default), price or location_id, with id as the keyset tie-breaker.
+-- Portable between H2 and PostgreSQL; PostgreSQL also gets partial indexes (db/vendor/postgresql).
+
+CREATE INDEX IF NOT EXISTS idx_car_listings_public_created
+    ON car_listings (approved, sold, archived, is_user_active, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_car_listings_public_price
+    ON car_listings (approved, sold, archived, is_user_active, price, id);
+
+CREATE INDEX IF NOT EXISTS idx_car_listings_public_location
+    ON car_listings (approved, sold, archived, is_user_active, location_id, id);
+
+-- My listings (findBySeller)
+CREATE INDEX IF NOT EXISTS idx_car_listings_seller
+    ON car_listings (seller_id, created_at);
+
+-- Media of a listing in display order (findByListingIdOrderBySortOrderAsc, details entity graph)
+CREATE INDEX IF NOT EXISTS idx_listing_media_listing_sort
+    ON listing_media (listing_id, sort_order);
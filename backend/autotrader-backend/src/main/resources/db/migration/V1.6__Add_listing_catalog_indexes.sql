@@ -0,0 +1,13 @@
+-- Indexes for the catalog filters (brandIds/brandSlugs, modelIds/modelSlugs, trimIds) on the
+-- brand_id / model_id / trim_id foreign keys of car_listings. The columns themselves are added
+-- by Hibernate (ddl-auto) and filled by ListingCatalogLinker.
+-- Portable between H2 and PostgreSQL; PostgreSQL also gets partial indexes (db/vendor/postgresql).
+
+CREATE INDEX IF NOT EXISTS idx_car_listings_public_brand
+    ON car_listings (brand_id, approved, sold, archived, is_user_active, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_car_listings_public_model
+    ON car_listings (model_id, approved, sold, archived, is_user_active, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_car_listings_trim
+    ON car_listings (trim_id);
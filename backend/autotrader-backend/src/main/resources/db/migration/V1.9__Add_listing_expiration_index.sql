@@ -0,0 +1,6 @@
+-- Index for ListingExpirationSweeper, which reads the oldest expired listings not archived yet
+-- (archived = FALSE AND expiration_date <= now, by expiration_date) in bounded batches.
+-- Portable between H2 and PostgreSQL.
+
+CREATE INDEX IF NOT EXISTS idx_car_listings_expiration
+    ON car_listings (archived, expiration_date, id);
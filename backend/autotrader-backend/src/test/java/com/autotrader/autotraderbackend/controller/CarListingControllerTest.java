@@ -5,13 +5,23 @@ import com.autotrader.autotraderbackend.payload.request.CreateListingRequest;
 import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
 import com.autotrader.autotraderbackend.payload.request.UpdateListingRequest;
 import com.autotrader.autotraderbackend.payload.response.CarListingResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingSummaryResponse;
 import com.autotrader.autotraderbackend.payload.response.LocationResponse;
 import com.autotrader.autotraderbackend.payload.response.PageResponse;
 import com.autotrader.autotraderbackend.service.CarListingService;
+import com.autotrader.autotraderbackend.service.paging.CountStrategy;
+import com.autotrader.autotraderbackend.service.paging.CursorPage;
+import com.autotrader.autotraderbackend.service.search.TrendingListings;
+import com.autotrader.autotraderbackend.service.views.ListingViewCounter;
+import com.autotrader.autotraderbackend.service.views.ListingViewStats;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.junit.jupiter.api.BeforeEach;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,6 +31,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
@@ -49,6 +60,15 @@ public class CarListingControllerTest {
     @Mock
     private CarListingService carListingService;
 
+    @Mock
+    private ListingViewCounter listingViewCounter;
+
+    @Mock
+    private ListingViewStats listingViewStats;
+
+    @Mock
+    private TrendingListings trendingListings;
+
     @InjectMocks
     private CarListingController carListingController;
 
@@ -141,7 +161,7 @@ public class CarListingControllerTest {
         when(carListingService.getAllApprovedListings(any(Pageable.class))).thenReturn(page);
         Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 10, org.springframework.data.domain.Sort.by("createdAt").descending());
         // Act
-        ResponseEntity<PageResponse<CarListingResponse>> response = carListingController.getAllListings(pageable);
+        ResponseEntity<PageResponse<CarListingResponse>> response = carListingController.getAllListings(null, null, pageable);
         // Assert
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -160,7 +180,7 @@ public class CarListingControllerTest {
         when(carListingService.getFilteredListings(any(ListingFilterRequest.class), any(Pageable.class))).thenReturn(page);
         Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 10, org.springframework.data.domain.Sort.by("createdAt").descending());
         // Act
-        ResponseEntity<PageResponse<CarListingResponse>> response = carListingController.getFilteredListings(filterRequest, pageable);
+        ResponseEntity<PageResponse<CarListingResponse>> response = carListingController.getFilteredListings(filterRequest, null, null, pageable);
         // Assert
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -186,7 +206,7 @@ public class CarListingControllerTest {
         Pageable ascPageable = org.springframework.data.domain.PageRequest.of(0, 10, org.springframework.data.domain.Sort.by("price").ascending());
         when(carListingService.getAllApprovedListings(ascPageable)).thenReturn(ascPage);
         // Act
-        ResponseEntity<PageResponse<CarListingResponse>> ascResponse = carListingController.getAllListings(ascPageable);
+        ResponseEntity<PageResponse<CarListingResponse>> ascResponse = carListingController.getAllListings(null, null, ascPageable);
         // Assert
         assertNotNull(ascResponse.getBody());
         List<CarListingResponse> ascResult = Objects.requireNonNull(ascResponse.getBody()).getContent();
@@ -201,7 +221,7 @@ public class CarListingControllerTest {
         Pageable descPageable = org.springframework.data.domain.PageRequest.of(0, 10, org.springframework.data.domain.Sort.by("price").descending());
         when(carListingService.getAllApprovedListings(descPageable)).thenReturn(descPage);
         // Act
-        ResponseEntity<PageResponse<CarListingResponse>> descResponse = carListingController.getAllListings(descPageable);
+        ResponseEntity<PageResponse<CarListingResponse>> descResponse = carListingController.getAllListings(null, null, descPageable);
         // Assert
         assertNotNull(descResponse.getBody());
         List<CarListingResponse> descResult = Objects.requireNonNull(descResponse.getBody()).getContent();
@@ -230,7 +250,7 @@ public class CarListingControllerTest {
         Pageable ascPageable = org.springframework.data.domain.PageRequest.of(0, 10, org.springframework.data.domain.Sort.by("createdAt").ascending());
         when(carListingService.getAllApprovedListings(ascPageable)).thenReturn(ascPage);
         // Act
-        ResponseEntity<PageResponse<CarListingResponse>> ascResponse = carListingController.getAllListings(ascPageable);
+        ResponseEntity<PageResponse<CarListingResponse>> ascResponse = carListingController.getAllListings(null, null, ascPageable);
         // Assert
         assertNotNull(ascResponse.getBody());
         List<CarListingResponse> ascResult = Objects.requireNonNull(ascResponse.getBody()).getContent();
@@ -245,7 +265,7 @@ public class CarListingControllerTest {
         Pageable descPageable = org.springframework.data.domain.PageRequest.of(0, 10, org.springframework.data.domain.Sort.by("createdAt").descending());
         when(carListingService.getAllApprovedListings(descPageable)).thenReturn(descPage);
         // Act
-        ResponseEntity<PageResponse<CarListingResponse>> descResponse = carListingController.getAllListings(descPageable);
+        ResponseEntity<PageResponse<CarListingResponse>> descResponse = carListingController.getAllListings(null, null, descPageable);
         // Assert
         assertNotNull(descResponse.getBody());
         List<CarListingResponse> descResult = Objects.requireNonNull(descResponse.getBody()).getContent();
@@ -255,6 +275,148 @@ public class CarListingControllerTest {
         assertEquals(listing1.getCreatedAt(), descResult.get(2).getCreatedAt());
     }
 
+    @Test
+    void getAllListings_WithAfterCursor_UsesKeysetPagingAndReturnsNextCursor() {
+        // Arrange
+        List<CarListingResponse> listings = List.of(carListingResponse);
+        CursorPage<CarListingResponse> cursorPage = new CursorPage<>(listings, 10, true, "next-token");
+        Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 10, org.springframework.data.domain.Sort.by("createdAt").descending());
+        when(carListingService.getAllApprovedListingsByCursor("", pageable)).thenReturn(cursorPage);
+
+        // Act
+        ResponseEntity<PageResponse<CarListingResponse>> response = carListingController.getAllListings("", null, pageable);
+
+        // Assert
+        PageResponse<CarListingResponse> body = Objects.requireNonNull(response.getBody());
+        assertEquals(listings, body.getContent());
+        assertEquals("next-token", body.getNextCursor());
+        assertEquals(-1, body.getTotalElements());
+        assertFalse(body.isLast());
+        verify(carListingService, never()).getAllApprovedListings(any(Pageable.class));
+    }
+
+    @Test
+    void filterListings_WithoutAfterCursor_UsesOffsetPagingWithoutCursor() {
+        // Arrange
+        Page<CarListingResponse> page = new PageImpl<>(List.of(carListingResponse));
+        ListingFilterRequest filterRequest = new ListingFilterRequest();
+        Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 10);
+        when(carListingService.getFilteredListings(filterRequest, pageable)).thenReturn(page);
+
+        // Act
+        ResponseEntity<PageResponse<CarListingResponse>> response = carListingController.getFilteredListings(filterRequest, null, null, pageable);
+
+        // Assert
+        PageResponse<CarListingResponse> body = Objects.requireNonNull(response.getBody());
+        assertNull(body.getNextCursor());
+        assertEquals(1, body.getTotalElements());
+        verify(carListingService, never()).getFilteredListingsByCursor(any(), any(), any());
+    }
+
+    @Test
+    void getAllListings_WithCountNone_ReturnsSliceWithoutTotals() {
+        // Arrange
+        Pageable pageable = org.springframework.data.domain.PageRequest.of(2, 10);
+        SliceImpl<CarListingResponse> slice = new SliceImpl<>(List.of(carListingResponse), pageable, true);
+        when(carListingService.getAllApprovedListings(pageable, CountStrategy.NONE)).thenReturn(slice);
+
+        // Act
+        ResponseEntity<PageResponse<CarListingResponse>> response = carListingController.getAllListings(null, "none", pageable);
+
+        // Assert
+        PageResponse<CarListingResponse> body = Objects.requireNonNull(response.getBody());
+        assertEquals(2, body.getPage());
+        assertEquals(-1, body.getTotalElements());
+        assertEquals(-1, body.getTotalPages());
+        assertFalse(body.isLast());
+        assertFalse(body.isApproximateTotal());
+        verify(carListingService, never()).getAllApprovedListings(any(Pageable.class));
+    }
+
+    @Test
+    void filterListings_WithCountApproximate_FlagsEstimatedTotals() {
+        // Arrange
+        ListingFilterRequest filterRequest = new ListingFilterRequest();
+        Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 1);
+        Page<CarListingResponse> page = new PageImpl<>(List.of(carListingResponse), pageable, 500);
+        when(carListingService.getFilteredListings(filterRequest, pageable, CountStrategy.APPROXIMATE)).thenReturn(page);
+
+        // Act
+        ResponseEntity<PageResponse<CarListingResponse>> response = carListingController.getFilteredListings(filterRequest, null, "APPROXIMATE", pageable);
+
+        // Assert
+        PageResponse<CarListingResponse> body = Objects.requireNonNull(response.getBody());
+        assertEquals(500, body.getTotalElements());
+        assertTrue(body.isApproximateTotal());
+        verify(carListingService, never()).getFilteredListings(any(ListingFilterRequest.class), any(Pageable.class));
+    }
+
+    @Test
+    void getAllListings_WithUnknownCountStrategy_ThrowsIllegalArgumentException() {
+        Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 10);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> carListingController.getAllListings(null, "sometimes", pageable));
+        verifyNoInteractions(carListingService);
+    }
+
+    @Test
+    void getListingSummaries_ReturnsPageOfSummaries() {
+        // Arrange
+        ListingFilterRequest filterRequest = new ListingFilterRequest();
+        filterRequest.setBrand("Toyota");
+        Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 10);
+        ListingSummaryResponse summary = new ListingSummaryResponse(1L, "Camry", "Toyota", "Camry", 2020,
+                new BigDecimal("15000.00"), 30000, null, null, null, null, null, 5L, "seller");
+        when(carListingService.getFilteredListingSummaries(filterRequest, pageable))
+            .thenReturn(new PageImpl<>(List.of(summary), pageable, 1));
+
+        // Act
+        ResponseEntity<PageResponse<ListingSummaryResponse>> response = carListingController.getListingSummaries(filterRequest, pageable);
+
+        // Assert
+        PageResponse<ListingSummaryResponse> body = Objects.requireNonNull(response.getBody());
+        assertEquals(List.of(summary), body.getContent());
+        assertEquals(1, body.getTotalElements());
+        assertTrue(body.isLast());
+    }
+
+    @Test
+    void getListingFacets_ReturnsFacetsWithVersionAsETag() {
+        // Arrange
+        ListingFilterRequest filterRequest = new ListingFilterRequest();
+        ListingFacetsResponse facets = new ListingFacetsResponse("gen.4", 0, List.of(), List.of(), List.of(), List.of(), List.of());
+        when(carListingService.getListingDataVersion()).thenReturn("gen.4");
+        when(carListingService.getListingFacets(filterRequest)).thenReturn(facets);
+        ServletWebRequest webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/listings/facets"), new MockHttpServletResponse());
+
+        // Act
+        ResponseEntity<ListingFacetsResponse> response = carListingController.getListingFacets(filterRequest, webRequest);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"gen.4\"", response.getHeaders().getETag());
+        assertSame(facets, response.getBody());
+    }
+
+    @Test
+    void getListingFacets_MatchingIfNoneMatch_SkipsCounting() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/listings/facets");
+        request.addHeader("If-None-Match", "\"gen.4\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        when(carListingService.getListingDataVersion()).thenReturn("gen.4");
+
+        // Act
+        ResponseEntity<ListingFacetsResponse> response = carListingController.getListingFacets(
+                new ListingFilterRequest(), new ServletWebRequest(request, servletResponse));
+
+        // Assert
+        assertNull(response);
+        assertEquals(304, servletResponse.getStatus());
+        verify(carListingService, never()).getListingFacets(any());
+    }
+
     @Test
     void getFilteredListingsByParams_ShouldThrowIllegalArgumentExceptionForNonWhitelistedSortField() {
         // Arrange
@@ -278,6 +440,9 @@ public class CarListingControllerTest {
                 null, // maxMileage
                 null, // isSold
                 null, // isArchived
+                null, // keyword
+                null, // after
+                null, // count
                 pageable
             )
         );
@@ -296,6 +461,8 @@ public class CarListingControllerTest {
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(carListingResponse, response.getBody());
+        verify(listingViewCounter).record(1L);
+        verify(trendingListings).recordView(1L);
     }
     
     @Test
@@ -309,6 +476,8 @@ public class CarListingControllerTest {
             ResourceNotFoundException.class,
             () -> carListingController.getListingById(999L)
         );
+        verify(listingViewCounter, never()).record(any());
+        verify(trendingListings, never()).recordView(any());
     }
 
     @Test
@@ -55,12 +55,13 @@ class CarListingResponseTest {
         Boolean isSold = false;
         Boolean isArchived = false;
         Boolean isUserActive = true; // Added field
+        Long version = 4L;
 
         // Create response with all args constructor
         CarListingResponse response = new CarListingResponse(
-                id, title, brand, model, modelYear, mileage, price,
+                id, title, brand, model, null, null, null, modelYear, mileage, price,
                 locationDetails, description, media, approved, sellerId,
-                sellerUsername, createdAt, isSold, isArchived, isUserActive // Added argument
+                sellerUsername, createdAt, isSold, isArchived, isUserActive, version // Added argument
         );
 
         // Verify all fields
@@ -81,6 +82,7 @@ class CarListingResponseTest {
         assertEquals(isSold, response.getIsSold());
         assertEquals(isArchived, response.getIsArchived());
         assertEquals(isUserActive, response.getIsUserActive()); // Added assertion
+        assertEquals(version, response.getVersion());
     }
 
     @Test
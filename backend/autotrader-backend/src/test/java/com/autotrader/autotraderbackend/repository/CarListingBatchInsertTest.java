@@ -0,0 +1,119 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.ListingMedia;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.testutil.ListingFixtures;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that listings and their media are inserted in JDBC batches, and holds an opt-in
+ * benchmark comparing row-by-row saves with batched saves. The benchmark runs against the
+ * configured datasource, so it can be pointed at PostgreSQL with
+ * {@code SPRING_DATASOURCE_URL}; H2 in memory shows a smaller gain because it has no
+ * network round trips to save.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CarListingBatchInsertTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CarListingBatchInsertTest.class);
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    private User seller;
+    private Location location;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        ListingFixtures fixtures = new ListingFixtures(testEntityManager);
+        seller = fixtures.seller("batch_seller");
+        location = fixtures.location("batch-homs", "Homs");
+        testEntityManager.flush();
+
+        statistics = testEntityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void saveAll_InsertsListingsAndMediaInBatches() {
+        List<CarListing> listings = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            CarListing listing = listing(i);
+            ListingMedia media = ListingFixtures.newImage("listings/batch/" + i + ".jpg", 0, true);
+            media.setCarListing(listing);
+            listing.addMedia(media);
+            listings.add(listing);
+        }
+
+        carListingRepository.saveAll(listings);
+        testEntityManager.flush();
+
+        assertEquals(240, statistics.getEntityInsertCount());
+        assertTrue(listings.stream().allMatch(listing -> listing.getId() != null));
+        // 120 listings and 120 media at a batch size of 50: three insert batches and about
+        // three sequence calls per table, instead of one statement per row
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= 16, "Expected batched inserts but prepared " + statements + " statements");
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "LISTING_INSERT_BENCHMARK", matches = "true")
+    void benchmark_RowByRowVersusBatchedInserts() {
+        int rows = 2000;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            carListingRepository.saveAndFlush(listing(i));
+        }
+        double rowByRowSeconds = (System.nanoTime() - start) / 1e9;
+        testEntityManager.clear();
+
+        List<CarListing> listings = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            listings.add(listing(rows + i));
+        }
+        start = System.nanoTime();
+        carListingRepository.saveAll(listings);
+        testEntityManager.flush();
+        double batchedSeconds = (System.nanoTime() - start) / 1e9;
+
+        logger.info("Listing inserts: row by row {} rows/s, batched {} rows/s",
+                Math.round(rows / rowByRowSeconds), Math.round(rows / batchedSeconds));
+        assertEquals(2L * rows, statistics.getEntityInsertCount());
+    }
+
+    private CarListing listing(int i) {
+        CarListing listing = ListingFixtures.newListing(seller);
+        listing.setTitle("Batch listing " + i);
+        listing.setMileage(50000 + i);
+        listing.setPrice(new BigDecimal(9000 + i));
+        listing.setLocation(location);
+        return listing;
+    }
+}
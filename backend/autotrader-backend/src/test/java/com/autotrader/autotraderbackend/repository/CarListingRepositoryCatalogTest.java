@@ -0,0 +1,157 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.CarBrand;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.CarModel;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.repository.specification.CatalogFilter;
+import com.autotrader.autotraderbackend.testutil.ListingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the catalog backfill statements of {@link CarListingRepository} and filtering by
+ * the catalog foreign keys.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CarListingRepositoryCatalogTest {
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    @Autowired
+    private CarBrandRepository carBrandRepository;
+
+    private ListingFixtures fixtures;
+    private CarBrand toyota;
+    private CarModel camry;
+    private Long exactId;
+    private Long arabicId;
+    private Long unknownModelId;
+    private Long unknownBrandId;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new ListingFixtures(testEntityManager);
+        User seller = fixtures.seller("catalog_seller");
+        toyota = persistBrand("Toyota", "catalog-toyota", "Toyota", "تويوتا");
+        CarBrand honda = persistBrand("Honda", "catalog-honda", "Honda", "هوندا");
+        camry = persistModel(toyota, "Camry", "catalog-toyota-camry", "Camry", "كامري");
+        // Same model name under another brand must not be picked for a Toyota listing
+        persistModel(honda, "Camry", "catalog-honda-camry", "Camry", "كامري");
+
+        exactId = persistListing(seller, " toyota ", "CAMRY");
+        arabicId = persistListing(seller, "تويوتا", "كامري");
+        unknownModelId = persistListing(seller, "Toyota", "Prototype");
+        unknownBrandId = persistListing(seller, "Lada", "Niva");
+        fixtures.flushAndClear();
+    }
+
+    @Test
+    void linkCatalogBrandsAndModels_LinkMatchingListingsOnly() {
+        long maxId = carListingRepository.findMaxId();
+
+        assertEquals(3, carListingRepository.linkCatalogBrands(0, maxId));
+        assertEquals(2, carListingRepository.linkCatalogModels(0, maxId));
+        testEntityManager.clear();
+
+        assertLinked(exactId, toyota.getId(), camry.getId());
+        assertLinked(arabicId, toyota.getId(), camry.getId());
+        assertLinked(unknownModelId, toyota.getId(), null);
+        assertLinked(unknownBrandId, null, null);
+
+        // Already linked listings are not touched again
+        assertEquals(0, carListingRepository.linkCatalogBrands(0, maxId));
+        assertEquals(0, carListingRepository.linkCatalogModels(0, maxId));
+    }
+
+    @Test
+    void linkCatalogBrands_OnlyTouchesTheIdRange() {
+        assertEquals(1, carListingRepository.linkCatalogBrands(exactId, exactId));
+        testEntityManager.clear();
+
+        assertLinked(exactId, toyota.getId(), null);
+        assertLinked(arabicId, null, null);
+    }
+
+    @Test
+    void findAll_ByCatalogIds_MatchesLinkedListings() {
+        long maxId = carListingRepository.findMaxId();
+        carListingRepository.linkCatalogBrands(0, maxId);
+        carListingRepository.linkCatalogModels(0, maxId);
+        testEntityManager.clear();
+
+        List<CarListing> byBrand = carListingRepository.findAll(CarListingSpecification.fromFilter(
+                new ListingFilterRequest(), null, new CatalogFilter(Set.of(toyota.getId()), null, null)));
+        List<CarListing> byModel = carListingRepository.findAll(CarListingSpecification.fromFilter(
+                new ListingFilterRequest(), null, new CatalogFilter(null, Set.of(camry.getId()), null)));
+        List<CarListing> none = carListingRepository.findAll(CarListingSpecification.fromFilter(
+                new ListingFilterRequest(), null, new CatalogFilter(Set.of(), null, null)));
+
+        assertEquals(Set.of(exactId, arabicId, unknownModelId), byBrand.stream().map(CarListing::getId).collect(Collectors.toSet()));
+        assertEquals(Set.of(exactId, arabicId), byModel.stream().map(CarListing::getId).collect(Collectors.toSet()));
+        assertTrue(none.isEmpty());
+    }
+
+    @Test
+    void findByListingText_MatchesNameDisplayNamesAndSlug() {
+        assertEquals(List.of(toyota.getId()), ids(carBrandRepository.findByListingText("toyota")));
+        assertEquals(List.of(toyota.getId()), ids(carBrandRepository.findByListingText("تويوتا")));
+        assertEquals(List.of(toyota.getId()), ids(carBrandRepository.findByListingText("catalog-toyota")));
+        assertTrue(carBrandRepository.findByListingText("toy").isEmpty());
+    }
+
+    private void assertLinked(Long listingId, Long brandId, Long modelId) {
+        CarListing listing = carListingRepository.findById(listingId).orElseThrow();
+        assertEquals(brandId, listing.getCarBrand() != null ? listing.getCarBrand().getId() : null);
+        assertEquals(modelId, listing.getCarModel() != null ? listing.getCarModel().getId() : null);
+    }
+
+    private static List<Long> ids(List<CarBrand> brands) {
+        return brands.stream().map(CarBrand::getId).toList();
+    }
+
+    private CarBrand persistBrand(String name, String slug, String displayNameEn, String displayNameAr) {
+        CarBrand brand = new CarBrand();
+        brand.setName(name);
+        brand.setSlug(slug);
+        brand.setDisplayNameEn(displayNameEn);
+        brand.setDisplayNameAr(displayNameAr);
+        return testEntityManager.persist(brand);
+    }
+
+    private CarModel persistModel(CarBrand brand, String name, String slug, String displayNameEn, String displayNameAr) {
+        CarModel model = new CarModel();
+        model.setBrand(brand);
+        model.setName(name);
+        model.setSlug(slug);
+        model.setDisplayNameEn(displayNameEn);
+        model.setDisplayNameAr(displayNameAr);
+        return testEntityManager.persist(model);
+    }
+
+    private Long persistListing(User seller, String brand, String model) {
+        return fixtures.listing(seller, listing -> {
+            listing.setBrand(brand);
+            listing.setModel(model);
+        }).getId();
+    }
+}
@@ -0,0 +1,81 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.testutil.ListingFixtures;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the two-phase read used by the listing endpoints: a plain paged query
+ * followed by {@link CarListingRepository#findWithDetailsByIdIn} with the details graph.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CarListingRepositoryDetailsTest {
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    @BeforeEach
+    void setUp() {
+        ListingFixtures fixtures = new ListingFixtures(testEntityManager);
+        User seller = fixtures.seller("details_seller");
+        Location location = fixtures.location("details-damascus", "Damascus");
+
+        for (int i = 0; i < 5; i++) {
+            BigDecimal price = new BigDecimal(10000 + i * 1000);
+            CarListing listing = fixtures.listing(seller, l -> {
+                l.setPrice(price);
+                l.setLocation(location);
+            });
+            // Several media rows per listing so a collection join would multiply rows
+            for (int m = 0; m < 3; m++) {
+                fixtures.image(listing, "listings/" + listing.getId() + "/" + m + ".jpg", m, m == 0);
+            }
+        }
+        fixtures.flushAndClear();
+    }
+
+    @Test
+    void findWithDetailsByIdIn_AfterPagedIdQuery_InitializesSellerLocationAndMedia() {
+        Page<CarListing> page = carListingRepository.findAll(CarListingSpecification.isApproved(),
+                PageRequest.of(1, 2, Sort.by("price").ascending()));
+        List<Long> ids = page.getContent().stream().map(CarListing::getId).collect(Collectors.toList());
+
+        // Paging happened in SQL on listing rows only, so page boundaries are unaffected by media
+        assertEquals(2, ids.size());
+        assertEquals(5, page.getTotalElements());
+
+        List<CarListing> detailed = carListingRepository.findWithDetailsByIdIn(ids);
+
+        assertEquals(2, detailed.size());
+        for (CarListing listing : detailed) {
+            assertTrue(Hibernate.isInitialized(listing.getSeller()));
+            assertTrue(Hibernate.isInitialized(listing.getLocation()));
+            assertTrue(Hibernate.isInitialized(listing.getMedia()));
+            assertEquals(3, listing.getMedia().size());
+        }
+    }
+}
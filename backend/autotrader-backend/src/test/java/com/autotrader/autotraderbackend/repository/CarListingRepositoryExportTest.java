@@ -0,0 +1,90 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.testutil.ListingFixtures;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the cursor read behind the listing export: id order, resuming after an id,
+ * the specification and the periodic clearing of the persistence context.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CarListingRepositoryExportTest {
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    private final List<Long> approvedIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ListingFixtures fixtures = new ListingFixtures(testEntityManager);
+        User seller = fixtures.seller("export_seller");
+        Location location = fixtures.location("export-aleppo", "Aleppo");
+
+        for (int i = 0; i < 7; i++) {
+            boolean approved = i != 3;
+            CarListing listing = fixtures.listing(seller, l -> {
+                l.setApproved(approved);
+                l.setLocation(location);
+            });
+            if (approved) {
+                approvedIds.add(listing.getId());
+            }
+        }
+        fixtures.flushAndClear();
+    }
+
+    @Test
+    void forEachInIdOrder_ReadsMatchingListingsInIdOrderWithLocation() {
+        List<Long> visited = new ArrayList<>();
+        long count = carListingRepository.forEachInIdOrder(CarListingSpecification.isApproved(), null, 2, listing -> {
+            assertTrue(Hibernate.isInitialized(listing.getLocation()));
+            assertEquals("export-aleppo", listing.getLocation().getSlug());
+            visited.add(listing.getId());
+        });
+
+        assertEquals(approvedIds.size(), count);
+        assertEquals(approvedIds, visited);
+    }
+
+    @Test
+    void forEachInIdOrder_AfterId_ResumesWithTheNextListing() {
+        Long lastSeen = approvedIds.get(2);
+        List<Long> visited = new ArrayList<>();
+        carListingRepository.forEachInIdOrder(CarListingSpecification.isApproved(), lastSeen, 2, listing -> visited.add(listing.getId()));
+
+        assertEquals(approvedIds.subList(3, approvedIds.size()), visited);
+    }
+
+    @Test
+    void forEachInIdOrder_ClearsThePersistenceContextEveryFetchSizeRows() {
+        List<CarListing> visited = new ArrayList<>();
+        carListingRepository.forEachInIdOrder(CarListingSpecification.isApproved(), null, 4, visited::add);
+
+        // Six rows: the first four are detached after the fourth, the trailing partial batch is not cleared yet
+        assertFalse(testEntityManager.getEntityManager().contains(visited.get(0)));
+        assertFalse(testEntityManager.getEntityManager().contains(visited.get(3)));
+        assertTrue(testEntityManager.getEntityManager().contains(visited.get(4)));
+    }
+}
@@ -0,0 +1,135 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.repository.projection.ListingDataStamp;
+import com.autotrader.autotraderbackend.repository.projection.ListingFacetRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingLocationRow;
+import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.testutil.ListingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the grouped facet query {@link CarListingRepository#findFacetRows}, the
+ * per-location counting queries and the data stamp validating cached facets.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CarListingRepositoryFacetTest {
+
+    private static final List<BigDecimal> PRICE_BOUNDARIES = List.of(new BigDecimal("10000"), new BigDecimal("20000"));
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    private ListingFixtures fixtures;
+    private Long homsId;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new ListingFixtures(testEntityManager);
+        User seller = fixtures.seller("facet_seller");
+        Location homs = fixtures.location("facet-homs", "Homs");
+        homsId = homs.getId();
+
+        persistListing(seller, homs, "Kia", "Rio", 2017, "9999.99", true);
+        persistListing(seller, homs, "Kia", "Rio", 2017, "10000.00", true);
+        persistListing(seller, homs, "Kia", "Rio", 2017, "25000.00", true);
+        persistListing(seller, null, "Hyundai", "Accent", 2019, "15000.00", true);
+        persistListing(seller, homs, "Hyundai", "Accent", 2019, "15000.00", false);
+        fixtures.flushAndClear();
+    }
+
+    @Test
+    void findFacetRows_GroupsMatchingListingsAndCountsPriceBucketsPerGroup() {
+        List<ListingFacetRow> rows = carListingRepository.findFacetRows(CarListingSpecification.isApproved(), PRICE_BOUNDARIES)
+                .stream()
+                .sorted(Comparator.comparing(ListingFacetRow::brand))
+                .toList();
+
+        assertEquals(2, rows.size());
+
+        ListingFacetRow hyundai = rows.get(0);
+        assertEquals("Accent", hyundai.model());
+        assertNull(hyundai.locationId());
+        assertEquals(1, hyundai.count());
+        assertArrayEquals(new long[] {0, 1, 0}, hyundai.priceBucketCounts());
+
+        ListingFacetRow kia = rows.get(1);
+        assertEquals(homsId, kia.locationId());
+        assertEquals(2017, kia.modelYear());
+        assertEquals(3, kia.count());
+        // Lower bounds are inclusive: 10000.00 falls into the second bucket
+        assertArrayEquals(new long[] {1, 1, 1}, kia.priceBucketCounts());
+    }
+
+    @Test
+    void countByLocation_CountsMatchingListingsWithALocation() {
+        assertEquals(Map.of(homsId, 3L), carListingRepository.countByLocation(CarListingSpecification.isApproved()));
+    }
+
+    @Test
+    void findPublicLocationRows_ReturnsVisibleListingsWithALocation() {
+        List<ListingLocationRow> rows = carListingRepository.findPublicLocationRows();
+
+        assertEquals(3, rows.size());
+        assertTrue(rows.stream().allMatch(row -> homsId.equals(row.locationId())));
+    }
+
+    @Test
+    void findDataStamp_ChangesWithUpdatesDeletesAndExpiry() {
+        LocalDateTime now = LocalDateTime.now();
+        ListingDataStamp initial = carListingRepository.findDataStamp(now);
+        assertEquals(5L, initial.count());
+        assertEquals(0L, initial.expired());
+
+        CarListing listing = carListingRepository.findAll().get(0);
+        listing.setPrice(new BigDecimal("12345.00"));
+        carListingRepository.saveAndFlush(listing);
+        ListingDataStamp updated = carListingRepository.findDataStamp(now);
+        assertNotEquals(initial.toVersion(), updated.toVersion());
+        assertEquals(initial.versionSum() + 1, updated.versionSum());
+
+        // Nothing is written when a listing expires; only the time moves on
+        listing.setExpirationDate(now.plusDays(1));
+        carListingRepository.saveAndFlush(listing);
+        ListingDataStamp beforeExpiry = carListingRepository.findDataStamp(now);
+        ListingDataStamp afterExpiry = carListingRepository.findDataStamp(now.plusDays(2));
+        assertEquals(1L, afterExpiry.expired());
+        assertNotEquals(beforeExpiry.toVersion(), afterExpiry.toVersion());
+
+        carListingRepository.delete(listing);
+        carListingRepository.flush();
+        assertEquals(4L, carListingRepository.findDataStamp(now).count());
+    }
+
+    private void persistListing(User seller, Location location, String brand, String model, int year, String price, boolean approved) {
+        fixtures.listing(seller, listing -> {
+            listing.setBrand(brand);
+            listing.setModel(model);
+            listing.setModelYear(year);
+            listing.setPrice(new BigDecimal(price));
+            listing.setApproved(approved);
+            listing.setLocation(location);
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.service.SortableCarListingField;
+import com.autotrader.autotraderbackend.service.paging.ListingCursor;
+import com.autotrader.autotraderbackend.testutil.ListingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that keyset paging through {@link CarListingRepository#findAllSeek} visits
+ * every listing exactly once, in order, including listings sharing the same sort key.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CarListingRepositoryKeysetTest {
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    private final List<Long> idsByPriceAsc = new ArrayList<>();
+    private final List<Long> idsByLocationAsc = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ListingFixtures fixtures = new ListingFixtures(testEntityManager);
+        User seller = fixtures.seller("keyset_seller");
+        Location homs = fixtures.location("keyset-homs", "Homs");
+        Location hama = fixtures.location("keyset-hama", "Hama");
+        // Two listings share a price so the id tie-breaker is exercised
+        String[] prices = {"15000.00", "9000.00", "12000.00", "12000.00", "30000.00"};
+        // Two listings have no location, two share one
+        Location[] locations = {null, hama, homs, null, hama};
+        List<CarListing> listings = new ArrayList<>();
+        for (int i = 0; i < prices.length; i++) {
+            BigDecimal price = new BigDecimal(prices[i]);
+            Location location = locations[i];
+            listings.add(fixtures.listing(seller, listing -> {
+                listing.setPrice(price);
+                listing.setLocation(location);
+            }));
+        }
+        fixtures.flushAndClear();
+
+        listings.stream()
+                .sorted((a, b) -> a.getPrice().compareTo(b.getPrice()) != 0
+                        ? a.getPrice().compareTo(b.getPrice())
+                        : a.getId().compareTo(b.getId()))
+                .forEach(l -> idsByPriceAsc.add(l.getId()));
+        // Listings without a location first, as in the seek query
+        listings.stream()
+                .sorted(Comparator.comparing((CarListing l) -> l.getLocation() != null ? l.getLocation().getId() : 0L)
+                        .thenComparing(CarListing::getId))
+                .forEach(l -> idsByLocationAsc.add(l.getId()));
+    }
+
+    @Test
+    void findAllSeek_PagingByPriceAscending_VisitsEveryListingOnceInOrder() {
+        List<Long> visited = new ArrayList<>();
+        Specification<CarListing> base = CarListingSpecification.isApproved();
+        ListingCursor cursor = null;
+
+        for (int guard = 0; guard < 10; guard++) {
+            Specification<CarListing> spec = cursor == null ? base
+                    : base.and(CarListingSpecification.seekAfter(cursor.getField(), cursor.getDirection(), cursor.getValue(), cursor.getLastId()));
+            List<CarListing> page = carListingRepository.findAllSeek(spec, SortableCarListingField.PRICE, Sort.Direction.ASC, 2);
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(l -> visited.add(l.getId()));
+            // Round-trip through the opaque token like a client would
+            String token = ListingCursor.after(page.get(page.size() - 1), SortableCarListingField.PRICE, Sort.Direction.ASC).encode();
+            cursor = ListingCursor.decode(token);
+        }
+
+        assertEquals(idsByPriceAsc, visited);
+    }
+
+    @Test
+    void findAllSeek_PagingByPriceDescending_ReturnsReverseOrder() {
+        List<CarListing> firstPage = carListingRepository.findAllSeek(
+                CarListingSpecification.isApproved(), SortableCarListingField.PRICE, Sort.Direction.DESC, 3);
+
+        List<Long> ids = firstPage.stream().map(CarListing::getId).collect(Collectors.toList());
+        List<Long> expected = new ArrayList<>(idsByPriceAsc);
+        java.util.Collections.reverse(expected);
+        assertEquals(expected.subList(0, 3), ids);
+    }
+
+    @Test
+    void findAllSeek_PagingByLocationAscending_PutsListingsWithoutLocationFirst() {
+        assertEquals(idsByLocationAsc, pageThrough(SortableCarListingField.LOCATION_ID, Sort.Direction.ASC));
+    }
+
+    @Test
+    void findAllSeek_PagingByLocationDescending_PutsListingsWithoutLocationLast() {
+        List<Long> expected = new ArrayList<>(idsByLocationAsc);
+        java.util.Collections.reverse(expected);
+        assertEquals(expected, pageThrough(SortableCarListingField.LOCATION_ID, Sort.Direction.DESC));
+    }
+
+    private List<Long> pageThrough(SortableCarListingField field, Sort.Direction direction) {
+        List<Long> visited = new ArrayList<>();
+        Specification<CarListing> base = CarListingSpecification.isApproved();
+        ListingCursor cursor = null;
+        for (int guard = 0; guard < 10; guard++) {
+            Specification<CarListing> spec = cursor == null ? base
+                    : base.and(CarListingSpecification.seekAfter(field, direction, cursor.getValue(), cursor.getLastId()));
+            List<CarListing> page = carListingRepository.findAllSeek(spec, field, direction, 2);
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(l -> visited.add(l.getId()));
+            cursor = ListingCursor.decode(ListingCursor.after(page.get(page.size() - 1), field, direction).encode());
+        }
+        return visited;
+    }
+}
@@ -0,0 +1,104 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.ListingStatus;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.repository.projection.ListingStatusCount;
+import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.testutil.ListingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the grouped status count of a seller and the {@code hasStatus} filter put
+ * every listing in the same, single status bucket.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CarListingRepositoryStatusTest {
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    private ListingFixtures fixtures;
+    private User seller;
+    private final Map<Long, ListingStatus> expected = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new ListingFixtures(testEntityManager);
+        seller = fixtures.seller("status_seller");
+        User other = fixtures.seller("status_other");
+        persist(seller, true, false, false, true, ListingStatus.ACTIVE);
+        persist(seller, true, false, false, true, ListingStatus.ACTIVE);
+        persist(seller, true, false, false, false, ListingStatus.PAUSED);
+        persist(seller, true, true, false, true, ListingStatus.SOLD);
+        // Archived wins over sold, sold over pending
+        persist(seller, true, true, true, true, ListingStatus.ARCHIVED);
+        persist(seller, false, false, true, true, ListingStatus.ARCHIVED);
+        persist(seller, false, true, false, true, ListingStatus.SOLD);
+        persist(seller, false, false, false, false, ListingStatus.PENDING);
+        persist(other, true, false, false, true, null);
+        fixtures.flushAndClear();
+    }
+
+    @Test
+    void countStatusesBySellerId_GroupsOnlyTheSellersListings() {
+        List<ListingStatusCount> rows = carListingRepository.countStatusesBySellerId(seller.getId());
+
+        Map<ListingStatus, Long> counts = new EnumMap<>(ListingStatus.class);
+        rows.forEach(row -> counts.merge(ListingStatus.of(row.approved(), row.sold(), row.archived(), row.userActive()),
+                row.count(), Long::sum));
+        assertEquals(Map.of(
+                ListingStatus.ACTIVE, 2L,
+                ListingStatus.PAUSED, 1L,
+                ListingStatus.SOLD, 2L,
+                ListingStatus.ARCHIVED, 2L,
+                ListingStatus.PENDING, 1L), counts);
+        // One row per flag combination, not per listing
+        assertEquals(7, rows.size());
+    }
+
+    @Test
+    void hasStatus_SelectsTheSameListingsAsTheCounts() {
+        for (ListingStatus status : ListingStatus.values()) {
+            List<Long> ids = carListingRepository.findIds(CarListingSpecification.hasSeller(seller.getId())
+                    .and(CarListingSpecification.hasStatus(status)));
+            List<Long> want = expected.entrySet().stream()
+                    .filter(entry -> entry.getValue() == status)
+                    .map(Map.Entry::getKey)
+                    .sorted()
+                    .toList();
+            assertEquals(want, ids.stream().sorted().toList(), "Listings with status " + status);
+        }
+    }
+
+    private void persist(User owner, boolean approved, boolean sold, boolean archived, boolean userActive,
+                         ListingStatus status) {
+        CarListing listing = fixtures.listing(owner, l -> {
+            l.setApproved(approved);
+            l.setSold(sold);
+            l.setArchived(archived);
+            l.setIsUserActive(userActive);
+        });
+        if (status != null) {
+            expected.put(listing.getId(), status);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.response.ListingSummaryResponse;
+import com.autotrader.autotraderbackend.repository.projection.ListingImageKey;
+import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.testutil.ListingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the projection read path: {@link CarListingRepository#findSummaries} and
+ * {@link ListingMediaRepository#findImageKeysByListingIds}.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CarListingRepositorySummaryTest {
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    @Autowired
+    private ListingMediaRepository listingMediaRepository;
+
+    private ListingFixtures fixtures;
+    private Long aleppoListingId;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new ListingFixtures(testEntityManager);
+        User seller = fixtures.seller("summary_seller");
+        Location aleppo = fixtures.location("summary-aleppo", "Aleppo");
+
+        persistListing(seller, null, "9000.00", true);
+        CarListing aleppoListing = persistListing(seller, aleppo, "12000.00", true);
+        aleppoListingId = aleppoListing.getId();
+        persistListing(seller, aleppo, "30000.00", false);
+
+        fixtures.image(aleppoListing, "secondary.jpg", 0, false);
+        fixtures.image(aleppoListing, "primary.jpg", 1, true);
+        fixtures.flushAndClear();
+    }
+
+    @Test
+    void findSummaries_AppliesSpecificationSortAndLocationJoin() {
+        Page<ListingSummaryResponse> page = carListingRepository.findSummaries(
+                CarListingSpecification.isApproved(), PageRequest.of(0, 10, Sort.by("price").descending()));
+
+        assertEquals(2, page.getTotalElements());
+        List<BigDecimal> prices = page.getContent().stream().map(ListingSummaryResponse::price).collect(Collectors.toList());
+        assertEquals(0, new BigDecimal("12000.00").compareTo(prices.get(0)));
+        assertEquals(0, new BigDecimal("9000.00").compareTo(prices.get(1)));
+
+        ListingSummaryResponse first = page.getContent().get(0);
+        assertEquals("summary-aleppo", first.locationSlug());
+        assertEquals("summary_seller", first.sellerUsername());
+        // Listings without a location are still returned (left join)
+        assertNull(page.getContent().get(1).locationId());
+        assertNull(first.primaryImageUrl());
+    }
+
+    @Test
+    void findSummaries_NonWhitelistedSort_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> carListingRepository.findSummaries(
+                CarListingSpecification.isApproved(), PageRequest.of(0, 10, Sort.by("description"))));
+    }
+
+    @Test
+    void findImageKeysByListingIds_ReturnsPrimaryImageFirst() {
+        List<ListingImageKey> keys = listingMediaRepository.findImageKeysByListingIds(List.of(aleppoListingId));
+
+        assertEquals(2, keys.size());
+        assertEquals("primary.jpg", keys.get(0).fileKey());
+    }
+
+    private CarListing persistListing(User seller, Location location, String price, boolean approved) {
+        return fixtures.listing(seller, listing -> {
+            listing.setPrice(new BigDecimal(price));
+            listing.setApproved(approved);
+            listing.setLocation(location);
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.testutil.ListingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the single-listing compare-and-set transitions against an in-memory database: each
+ * changes a listing once, only from its expected state and only for its owner, and bumps the
+ * version so that stale entity copies can no longer be saved over it.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CarListingRepositoryTransitionTest {
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    private ListingFixtures fixtures;
+    private User seller;
+    private User otherSeller;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new ListingFixtures(testEntityManager);
+        seller = fixtures.seller("transition_seller");
+        otherSeller = fixtures.seller("transition_other");
+        testEntityManager.flush();
+    }
+
+    @Test
+    void pause_ChangesTheListingOnceAndBumpsItsVersion() {
+        Long id = persist(true, false).getId();
+        long version = carListingRepository.findById(id).orElseThrow().getVersion();
+
+        assertEquals(1, carListingRepository.pause(id, seller.getId(), LocalDateTime.now()));
+        assertEquals(0, carListingRepository.pause(id, seller.getId(), LocalDateTime.now()));
+
+        CarListing paused = carListingRepository.findById(id).orElseThrow();
+        assertFalse(paused.getIsUserActive());
+        assertTrue(paused.getPausedByOwner());
+        assertEquals(version + 1, paused.getVersion());
+    }
+
+    @Test
+    void transitions_OnlyMatchTheOwnerUnlessSellerIsNull() {
+        Long id = persist(true, false).getId();
+
+        assertEquals(0, carListingRepository.archive(id, otherSeller.getId(), LocalDateTime.now()));
+        assertFalse(carListingRepository.findById(id).orElseThrow().getArchived());
+        // Admins pass no seller
+        assertEquals(1, carListingRepository.archive(id, null, LocalDateTime.now()));
+        assertEquals(0, carListingRepository.markSold(id, null, LocalDateTime.now()));
+        assertEquals(1, carListingRepository.unarchive(id, seller.getId(), LocalDateTime.now()));
+        assertEquals(0, carListingRepository.unarchive(id, seller.getId(), LocalDateTime.now()));
+        assertEquals(0, carListingRepository.pause(999_999L, null, LocalDateTime.now()));
+    }
+
+    @Test
+    void resume_DeactivatedSeller_ClearsPauseButStaysHidden() {
+        Long id = persist(true, false).getId();
+        carListingRepository.pause(id, seller.getId(), LocalDateTime.now());
+        User owner = testEntityManager.find(User.class, seller.getId());
+        owner.setActive(false);
+        testEntityManager.flush();
+
+        assertEquals(1, carListingRepository.resume(id, seller.getId(), LocalDateTime.now()));
+
+        CarListing resumed = carListingRepository.findById(id).orElseThrow();
+        assertFalse(resumed.getPausedByOwner());
+        assertFalse(resumed.getIsUserActive());
+    }
+
+    @Test
+    void save_StaleCopyAfterTransition_FailsOptimisticLock() {
+        Long id = persist(true, false).getId();
+        CarListing stale = carListingRepository.findById(id).orElseThrow();
+        testEntityManager.detach(stale);
+
+        carListingRepository.markSold(id, seller.getId(), LocalDateTime.now());
+        stale.setTitle("Edited on an old copy");
+
+        assertThrows(OptimisticLockingFailureException.class, () -> carListingRepository.saveAndFlush(stale));
+        assertTrue(carListingRepository.findById(id).orElseThrow().getSold());
+    }
+
+    private CarListing persist(boolean approved, boolean sold) {
+        CarListing listing = fixtures.listing(seller, l -> {
+            l.setApproved(approved);
+            l.setSold(sold);
+        });
+        fixtures.flushAndClear();
+        return listing;
+    }
+}
@@ -0,0 +1,274 @@
+package com.autotrader.autotraderbackend.repository;
+
+import com.autotrader.autotraderbackend.config.FlywayConfig;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.repository.specification.CatalogFilter;
+import com.autotrader.autotraderbackend.service.SortableCarListingField;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies the Flyway migrations on top of the Hibernate-generated schema and checks
+ * that the hot listing queries are planned on the migration indexes rather than a table scan.
+ * The queries are the ones Hibernate generates for the repository calls: the test records the
+ * SQL and bind parameters of each call and runs EXPLAIN on exactly that statement.
+ * Uses its own in-memory database so the indexes and Flyway history do not leak into other tests.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FlywayConfig.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:index_plan_test;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.flyway.locations=classpath:db/migration,classpath:db/vendor/{vendor}",
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=1.3"
+})
+class ListingIndexQueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    @Autowired
+    private ListingMediaRepository listingMediaRepository;
+
+    @Test
+    void migrationsAreApplied() {
+        Integer applied = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"version\" IN ('1.4', '1.12') AND \"success\" = TRUE", Integer.class);
+        assertEquals(2, applied);
+    }
+
+    // H2 picks among the public indexes by cost (they share the flag prefix), so these assert
+    // that one of them serves the visibility predicates; PostgreSQL additionally has partial indexes.
+    @Test
+    void publicBrowseByNewest_UsesPublicIndex() {
+        String plan = explainFirst(() -> carListingRepository.findAllSeek(
+                visible(), SortableCarListingField.CREATED_AT, Sort.Direction.DESC, 11));
+        assertUsesIndex(plan, "IDX_CAR_LISTINGS_PUBLIC_");
+    }
+
+    @Test
+    void publicBrowseByPrice_UsesPublicIndex() {
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setMinPrice(new BigDecimal("10000"));
+        String plan = explainFirst(() -> carListingRepository.findAllSeek(
+                visible().and(CarListingSpecification.fromFilter(filter, null)),
+                SortableCarListingField.PRICE, Sort.Direction.ASC, 11));
+        assertUsesIndex(plan, "IDX_CAR_LISTINGS_PUBLIC_");
+    }
+
+    @Test
+    void publicBrowseSortedByLocation_UsesLocationIndexInOrder() {
+        String plan = explainFirst(() -> carListingRepository.findAllSeek(
+                visible(), SortableCarListingField.LOCATION_ID, Sort.Direction.ASC, 11));
+        assertTrue(plan.toLowerCase().contains("nulls first"), plan);
+        assertUsesIndex(plan, "IDX_CAR_LISTINGS_PUBLIC_LOCATION");
+    }
+
+    @Test
+    void publicBrowseSortedByLocationDescending_SeeksOnPublicIndex() {
+        Specification<CarListing> seek = CarListingSpecification.seekAfter(
+                SortableCarListingField.LOCATION_ID, Sort.Direction.DESC, 3L, 10L);
+        String plan = explainFirst(() -> carListingRepository.findAllSeek(
+                visible().and(seek), SortableCarListingField.LOCATION_ID, Sort.Direction.DESC, 11));
+        assertTrue(plan.toLowerCase().contains("nulls last"), plan);
+        assertUsesIndex(plan, "IDX_CAR_LISTINGS_PUBLIC_");
+    }
+
+    @Test
+    void publicBrowseByLocation_UsesIndex() {
+        String plan = explainFirst(() -> carListingRepository.findAllSeek(
+                visible().and(CarListingSpecification.locationIdIn(List.of(1L))),
+                SortableCarListingField.CREATED_AT, Sort.Direction.DESC, 11));
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void publicBrowseByCatalogBrands_UsesIndex() {
+        CatalogFilter catalog = new CatalogFilter(Set.of(1L, 2L), null, null);
+        String plan = explainFirst(() -> carListingRepository.findAllSeek(
+                visible().and(CarListingSpecification.fromFilter(new ListingFilterRequest(), null, catalog)),
+                SortableCarListingField.CREATED_AT, Sort.Direction.DESC, 11));
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void publicBrowseByCatalogModel_UsesIndex() {
+        CatalogFilter catalog = new CatalogFilter(null, Set.of(1L), null);
+        String plan = explainFirst(() -> carListingRepository.findAllSeek(
+                visible().and(CarListingSpecification.fromFilter(new ListingFilterRequest(), null, catalog)),
+                SortableCarListingField.CREATED_AT, Sort.Direction.DESC, 11));
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void listingsOfSeller_UseSellerIndex() {
+        User seller = testEntityManager.persistFlushFind(new User("plan_seller", "plan_seller@example.com", "password"));
+        String plan = explainFirst(() -> carListingRepository.findBySeller(seller));
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void expiredListings_UseExpirationIndex() {
+        String plan = explainFirst(() -> carListingRepository.findExpiredIds(LocalDateTime.now(), PageRequest.of(0, 10)));
+        assertUsesIndex(plan, "IDX_CAR_LISTINGS_EXPIRATION");
+    }
+
+    @Test
+    void mediaOfListing_UsesListingSortIndex() {
+        String plan = explainFirst(() -> listingMediaRepository.findByListingIdOrderBySortOrderAsc(1L));
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    /**
+     * The visibility predicates CarListingService adds to every public query.
+     */
+    private static Specification<CarListing> visible() {
+        return Specification.where(CarListingSpecification.isApproved())
+                .and(CarListingSpecification.isNotSold())
+                .and(CarListingSpecification.isNotArchived())
+                .and(CarListingSpecification.isNotExpired())
+                .and(CarListingSpecification.isUserActive());
+    }
+
+    /**
+     * Runs the repository call, then EXPLAINs the first statement it sent with the same parameters.
+     */
+    private String explainFirst(Runnable repositoryCall) {
+        List<RecordedStatement> statements = RecordingDataSource.record(repositoryCall);
+        assertFalse(statements.isEmpty(), "The repository call sent no statement");
+        RecordedStatement statement = statements.get(0);
+        return jdbcTemplate.query("EXPLAIN " + statement.sql(),
+                ps -> {
+                    for (var parameter : statement.parameters().entrySet()) {
+                        ps.setObject(parameter.getKey(), parameter.getValue());
+                    }
+                },
+                rs -> rs.next() ? rs.getString(1) : null);
+    }
+
+    private static void assertUsesIndex(String plan, String indexPrefix) {
+        assertTrue(plan.toUpperCase().contains(indexPrefix), () -> "Expected an index " + indexPrefix + "* in plan:\n" + plan);
+    }
+
+    record RecordedStatement(String sql, TreeMap<Integer, Object> parameters) {
+    }
+
+    @TestConfiguration
+    static class RecordingConfig {
+
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? RecordingDataSource.wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Wraps the data source so the prepared statements executed while {@link #record} runs
+     * are kept together with their bind parameters.
+     */
+    static final class RecordingDataSource {
+
+        private static final ThreadLocal<List<RecordedStatement>> RECORDED = new ThreadLocal<>();
+
+        static List<RecordedStatement> record(Runnable action) {
+            List<RecordedStatement> statements = new ArrayList<>();
+            RECORDED.set(statements);
+            try {
+                action.run();
+            } finally {
+                RECORDED.remove();
+            }
+            return statements;
+        }
+
+        static DataSource wrap(DataSource target) {
+            return proxy(DataSource.class, target, (proxy, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection connection ? wrap(connection) : result;
+            });
+        }
+
+        private static Connection wrap(Connection target) {
+            return proxy(Connection.class, target, (proxy, method, args) -> {
+                Object result = invoke(target, method, args);
+                if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                    return wrap(statement, (String) args[0]);
+                }
+                return result;
+            });
+        }
+
+        private static PreparedStatement wrap(PreparedStatement target, String sql) {
+            TreeMap<Integer, Object> parameters = new TreeMap<>();
+            return proxy(PreparedStatement.class, target, (proxy, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    parameters.put(index, name.equals("setNull") ? null : args[1]);
+                } else if (name.equals("clearParameters")) {
+                    parameters.clear();
+                } else if (name.startsWith("execute") && RECORDED.get() != null) {
+                    RECORDED.get().add(new RecordedStatement(sql, new TreeMap<>(parameters)));
+                }
+                return invoke(target, method, args);
+            });
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+}
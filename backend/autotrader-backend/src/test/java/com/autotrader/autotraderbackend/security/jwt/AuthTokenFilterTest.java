@@ -78,6 +78,30 @@ public class AuthTokenFilterTest {
         verify(filterChain).doFilter(request, response);
     }
 
+    @Test
+    void doFilterInternal_WithTokenOfDeactivatedUser_ShouldNotSetAuthentication() throws Exception {
+        // Arrange
+        String token = "valid.jwt.token";
+        UserDetails deactivated = User.builder()
+                .username("testuser")
+                .password("password")
+                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
+                .disabled(true)
+                .build();
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtUtils.validateJwtToken(token)).thenReturn(true);
+        when(jwtUtils.getUserNameFromJwtToken(token)).thenReturn("testuser");
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(deactivated);
+
+        // Act
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain).doFilter(request, response);
+    }
+
     @Test
     void doFilterInternal_WithInvalidJwtToken_ShouldNotSetAuthentication() throws Exception {
         // Arrange
@@ -9,7 +9,16 @@ import com.autotrader.autotraderbackend.model.User;
 import com.autotrader.autotraderbackend.payload.request.UpdateListingRequest;
 import com.autotrader.autotraderbackend.payload.response.CarListingResponse;
 import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.LocationRepository;
 import com.autotrader.autotraderbackend.repository.UserRepository;
+import com.autotrader.autotraderbackend.service.export.ListingExporter;
+import com.autotrader.autotraderbackend.service.search.ListingChanges;
+import com.autotrader.autotraderbackend.service.search.ListingKeywordIndex;
+import com.autotrader.autotraderbackend.service.search.ListingLocationCounts;
+import com.autotrader.autotraderbackend.service.search.ListingResultCache;
+import com.autotrader.autotraderbackend.service.search.ListingSearchIndex;
+import com.autotrader.autotraderbackend.service.search.LocationGeoIndex;
+import com.autotrader.autotraderbackend.service.search.TrendingListings;
 import com.autotrader.autotraderbackend.service.storage.StorageService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,9 +26,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,12 +47,45 @@ public class CarListingCrudOperationsTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private LocationRepository locationRepository;
+
     @Mock
     private StorageService storageService;
 
     @Mock
     private CarListingMapper carListingMapper;
 
+    @Mock
+    private ListingSearchIndex listingSearchIndex;
+
+    @Mock
+    private ListingKeywordIndex listingKeywordIndex;
+
+    @Mock
+    private ListingCatalogLinker listingCatalogLinker;
+
+    @Mock
+    private ListingResultCache listingResultCache;
+
+    @Mock
+    private LocationGeoIndex locationGeoIndex;
+
+    @Mock
+    private ListingLocationCounts listingLocationCounts;
+
+    @Mock
+    private TrendingListings trendingListings;
+
+    @Mock
+    private ListingChanges listingChanges;
+
+    @Mock
+    private SavedSearchService savedSearchService;
+
+    @Mock
+    private ListingExporter listingExporter;
+
     @InjectMocks
     private CarListingService carListingService;
 
@@ -124,6 +169,33 @@ public class CarListingCrudOperationsTest {
         ));
     }
 
+    @Test
+    void updateListing_newLocation_reportsTheOldAndNewLocation() {
+        // Arrange
+        Location newLocation = new Location();
+        newLocation.setId(2L);
+        UpdateListingRequest updateRequest = new UpdateListingRequest();
+        updateRequest.setLocationId(2L);
+        List<Long> reportedLocationIds = new ArrayList<>();
+        Answer<Void> recordLocation = invocation -> {
+            reportedLocationIds.add(invocation.<CarListing>getArgument(0).getLocation().getId());
+            return null;
+        };
+        doAnswer(recordLocation).when(listingChanges).listingChanging(any(CarListing.class));
+        doAnswer(recordLocation).when(listingChanges).listingSaved(any(CarListing.class));
+
+        when(carListingRepository.findById(TEST_LISTING_ID)).thenReturn(Optional.of(testListing));
+        when(locationRepository.findById(2L)).thenReturn(Optional.of(newLocation));
+        when(carListingRepository.save(any(CarListing.class))).thenReturn(testListing);
+        when(carListingMapper.toCarListingResponse(any(CarListing.class))).thenReturn(testListingResponse);
+
+        // Act
+        carListingService.updateListing(TEST_LISTING_ID, updateRequest, TEST_USERNAME);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), reportedLocationIds);
+    }
+
     @Test
     void updateListing_notOwnedByUser_shouldThrowSecurityException() {
         // Arrange
@@ -5,20 +5,45 @@ import com.autotrader.autotraderbackend.exception.StorageException;
 import com.autotrader.autotraderbackend.mapper.CarListingMapper;
 import com.autotrader.autotraderbackend.model.CarListing;
 import com.autotrader.autotraderbackend.model.ListingMedia;
+import com.autotrader.autotraderbackend.model.ListingStatus;
 import com.autotrader.autotraderbackend.model.Location;
 import com.autotrader.autotraderbackend.model.User;
 import com.autotrader.autotraderbackend.payload.request.CreateListingRequest;
 import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.payload.request.UpdateListingRequest;
 import com.autotrader.autotraderbackend.payload.response.CarListingResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingClustersResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingSummaryResponse;
 import com.autotrader.autotraderbackend.payload.response.LocationResponse;
 import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.ListingMediaRepository;
 import com.autotrader.autotraderbackend.repository.UserRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingDataStamp;
+import com.autotrader.autotraderbackend.repository.projection.ListingFacetRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingImageKey;
+import com.autotrader.autotraderbackend.repository.projection.ListingStatusCount;
+import com.autotrader.autotraderbackend.repository.specification.CatalogFilter;
+import com.autotrader.autotraderbackend.service.export.ListingExporter;
+import com.autotrader.autotraderbackend.service.paging.CountStrategy;
+import com.autotrader.autotraderbackend.service.paging.CursorPage;
+import com.autotrader.autotraderbackend.service.paging.ListingCursor;
+import com.autotrader.autotraderbackend.service.search.ListingChanges;
+import com.autotrader.autotraderbackend.service.search.ListingFacetCounter;
+import com.autotrader.autotraderbackend.service.search.ListingSearchHits;
+import com.autotrader.autotraderbackend.service.search.ListingKeywordIndex;
+import com.autotrader.autotraderbackend.service.search.ListingLocationCounts;
+import com.autotrader.autotraderbackend.service.search.ListingResultCache;
+import com.autotrader.autotraderbackend.service.search.ListingSearchIndex;
+import com.autotrader.autotraderbackend.service.search.LocationGeoIndex;
+import com.autotrader.autotraderbackend.service.search.TrendingListings;
 import com.autotrader.autotraderbackend.service.storage.StorageService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers; // Import ArgumentMatchers
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -26,23 +51,37 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -63,6 +102,42 @@ class CarListingServiceTest {
     @Mock // Add mock for the mapper
     private CarListingMapper carListingMapper;
 
+    @Mock
+    private ListingCountEstimator listingCountEstimator;
+
+    @Mock
+    private ListingMediaRepository listingMediaRepository;
+
+    @Mock
+    private ListingSearchIndex listingSearchIndex;
+
+    @Mock
+    private ListingKeywordIndex listingKeywordIndex;
+
+    @Mock
+    private ListingCatalogLinker listingCatalogLinker;
+
+    @Mock
+    private ListingResultCache listingResultCache;
+
+    @Mock
+    private LocationGeoIndex locationGeoIndex;
+
+    @Mock
+    private ListingLocationCounts listingLocationCounts;
+
+    @Mock
+    private TrendingListings trendingListings;
+
+    @Mock
+    private ListingChanges listingChanges;
+
+    @Mock
+    private SavedSearchService savedSearchService;
+
+    @Mock
+    private ListingExporter listingExporter;
+
     @InjectMocks // Ensure this injects all mocks into the service
     private CarListingService carListingService;
 
@@ -189,6 +264,45 @@ class CarListingServiceTest {
         verify(carListingMapper).toCarListingResponse(savedListing);
     }
 
+    @Test
+    void createListing_WithTrim_LinksCatalogBeforeSaving() {
+        // Arrange
+        CreateListingRequest request = new CreateListingRequest();
+        request.setTitle("Honda Civic");
+        request.setBrand("Honda");
+        request.setModel("Civic");
+        request.setTrimId(7L);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(carListingRepository.save(any(CarListing.class))).thenReturn(savedListing);
+        when(carListingMapper.toCarListingResponse(savedListing)).thenReturn(expectedResponse);
+
+        // Act
+        carListingService.createListing(request, null, "testuser");
+
+        // Assert
+        ArgumentCaptor<CarListing> linked = ArgumentCaptor.forClass(CarListing.class);
+        InOrder inOrder = inOrder(listingCatalogLinker, carListingRepository);
+        inOrder.verify(listingCatalogLinker).link(linked.capture(), eq(7L));
+        inOrder.verify(carListingRepository).save(linked.getValue());
+        assertEquals("Honda", linked.getValue().getBrand());
+    }
+
+    @Test
+    void createListing_TrimOfAnotherModel_ThrowsWithoutSaving() {
+        // Arrange
+        CreateListingRequest request = new CreateListingRequest();
+        request.setBrand("Honda");
+        request.setModel("Civic");
+        request.setTrimId(99L);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        doThrow(new IllegalArgumentException("Trim 99 does not belong to the listing's model."))
+                .when(listingCatalogLinker).link(any(CarListing.class), eq(99L));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> carListingService.createListing(request, null, "testuser"));
+        verify(carListingRepository, never()).save(any());
+    }
+
     @Test
     void createListing_WithNonExistentUser_ShouldThrowException() {
         // Arrange
@@ -247,6 +361,93 @@ class CarListingServiceTest {
         verify(carListingMapper, never()).toCarListingResponse(any()); // Mapper should not be called
     }
 
+    @Test
+    void createListing_WithImage_SavesOnceWithCascadedMedia() {
+        CreateListingRequest request = new CreateListingRequest();
+        request.setTitle("Honda Civic");
+        request.setBrand("Honda");
+        request.setModel("Civic");
+        MockMultipartFile image = new MockMultipartFile("image", "civic.jpg", "image/jpeg", new byte[]{1, 2, 3});
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(carListingRepository.save(any(CarListing.class))).thenReturn(savedListing);
+        when(carListingMapper.toCarListingResponse(savedListing)).thenReturn(expectedResponse);
+
+        carListingService.createListing(request, image, "testuser");
+
+        verify(carListingRepository, times(1)).save(any(CarListing.class));
+        assertEquals(1, savedListing.getMedia().size());
+        assertSame(savedListing, savedListing.getMedia().get(0).getCarListing());
+    }
+
+    // --- Tests for createListings ---
+    @Test
+    void createListings_LoadsLocationsOnceAndSavesAllTogether() {
+        Location damascus = new Location();
+        damascus.setId(1L);
+        damascus.setSlug("damascus");
+        CreateListingRequest first = bulkRequest("Civic", 1L, 7L);
+        CreateListingRequest second = bulkRequest("Accord", 1L, null);
+        CreateListingRequest third = bulkRequest("Jazz", null, null);
+        CarListing savedFirst = new CarListing();
+        savedFirst.setId(11L);
+        CarListing savedSecond = new CarListing();
+        savedSecond.setId(12L);
+        CarListing savedThird = new CarListing();
+        savedThird.setId(13L);
+        CarListingResponse firstResponse = new CarListingResponse();
+        CarListingResponse secondResponse = new CarListingResponse();
+        CarListingResponse thirdResponse = new CarListingResponse();
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(locationRepository.findAllById(Set.of(1L))).thenReturn(List.of(damascus));
+        when(carListingRepository.saveAll(anyList())).thenReturn(List.of(savedFirst, savedSecond, savedThird));
+        when(carListingMapper.toCarListingResponse(savedFirst)).thenReturn(firstResponse);
+        when(carListingMapper.toCarListingResponse(savedSecond)).thenReturn(secondResponse);
+        when(carListingMapper.toCarListingResponse(savedThird)).thenReturn(thirdResponse);
+
+        List<CarListingResponse> responses = carListingService.createListings(List.of(first, second, third), "testuser");
+
+        assertEquals(List.of(firstResponse, secondResponse, thirdResponse), responses);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CarListing>> built = ArgumentCaptor.forClass(List.class);
+        InOrder inOrder = inOrder(listingCatalogLinker, carListingRepository);
+        inOrder.verify(listingCatalogLinker).linkAll(built.capture(), eq(Arrays.asList(7L, null, null)));
+        inOrder.verify(carListingRepository).saveAll(built.getValue());
+        List<CarListing> listings = built.getValue();
+        assertEquals(List.of("Civic", "Accord", "Jazz"), listings.stream().map(CarListing::getModel).toList());
+        assertSame(damascus, listings.get(0).getLocation());
+        assertSame(damascus, listings.get(1).getLocation());
+        assertNull(listings.get(2).getLocation());
+        assertTrue(listings.stream().allMatch(listing -> listing.getSeller() == testUser && !listing.getApproved()));
+        verify(userRepository, times(1)).findByUsername("testuser");
+        verify(locationRepository, never()).findById(anyLong());
+        verify(carListingRepository, never()).save(any());
+        verify(listingChanges).listingSaved(savedFirst);
+        verify(listingChanges).listingSaved(savedThird);
+    }
+
+    @Test
+    void createListings_UnknownLocation_ThrowsWithoutSaving() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(locationRepository.findAllById(Set.of(5L))).thenReturn(List.of());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> carListingService.createListings(List.of(bulkRequest("Civic", 5L, null)), "testuser"));
+        verify(carListingRepository, never()).saveAll(anyList());
+    }
+
+    private CreateListingRequest bulkRequest(String model, Long locationId, Long trimId) {
+        CreateListingRequest request = new CreateListingRequest();
+        request.setTitle("Honda " + model);
+        request.setBrand("Honda");
+        request.setModel(model);
+        request.setModelYear(2019);
+        request.setPrice(new BigDecimal("12000"));
+        request.setMileage(40000);
+        request.setLocationId(locationId);
+        request.setTrimId(trimId);
+        return request;
+    }
+
     // --- Tests for getListingById ---
     @Test
     void getListingById_Success_WhenApproved() { // Renamed for clarity
@@ -376,6 +577,7 @@ class CarListingServiceTest {
         verify(carListingRepository).findById(listingId);
         verify(carListingRepository).save(argThat(listing -> listing.getId().equals(listingId) && Boolean.TRUE.equals(listing.getApproved())));
         verify(carListingMapper).toCarListingResponse(approvedListing);
+        verify(savedSearchService).queueMatches(approvedListing);
     }
 
     @Test
@@ -562,6 +764,582 @@ class CarListingServiceTest {
         verify(carListingMapper, never()).toCarListingResponse(any());
     }
 
+    @Test
+    void getAllApprovedListingsByCursor_FirstPage_ReturnsNextCursorWhenMoreRowsExist() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("price").ascending());
+        CarListing first = new CarListing();
+        first.setId(1L);
+        first.setPrice(new BigDecimal("1000.00"));
+        CarListing second = new CarListing();
+        second.setId(2L);
+        second.setPrice(new BigDecimal("2000.00"));
+        CarListing third = new CarListing();
+        third.setId(3L);
+        third.setPrice(new BigDecimal("3000.00"));
+        when(carListingRepository.findAllSeek(ArgumentMatchers.<Specification<CarListing>>any(),
+                eq(SortableCarListingField.PRICE), eq(Sort.Direction.ASC), eq(3)))
+                .thenReturn(Arrays.asList(first, second, third));
+        when(carListingMapper.toCarListingResponse(any(CarListing.class))).thenReturn(new CarListingResponse());
+
+        // Act
+        CursorPage<CarListingResponse> page = carListingService.getAllApprovedListingsByCursor("", pageable);
+
+        // Assert
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.hasNext());
+        ListingCursor next = ListingCursor.decode(page.getNextCursor());
+        assertEquals(SortableCarListingField.PRICE, next.getField());
+        assertEquals(Sort.Direction.ASC, next.getDirection());
+        assertEquals(2L, next.getLastId());
+        assertEquals(new BigDecimal("2000.00"), next.getValue());
+        verify(carListingRepository, never()).findAll(ArgumentMatchers.<Specification<CarListing>>any(), any(Pageable.class));
+    }
+
+    @Test
+    void getAllApprovedListingsByCursor_LastPage_HasNoNextCursor() {
+        // Arrange
+        Pageable pageable = PageRequest.of(5, 10, Sort.by("createdAt").descending());
+        CarListing listing = new CarListing();
+        listing.setId(9L);
+        listing.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        String after = new ListingCursor(SortableCarListingField.CREATED_AT, Sort.Direction.DESC,
+                LocalDateTime.of(2024, 2, 1, 0, 0), 10L).encode();
+        when(carListingRepository.findAllSeek(ArgumentMatchers.<Specification<CarListing>>any(),
+                eq(SortableCarListingField.CREATED_AT), eq(Sort.Direction.DESC), eq(11)))
+                .thenReturn(Collections.singletonList(listing));
+        when(carListingMapper.toCarListingResponse(listing)).thenReturn(new CarListingResponse());
+
+        // Act
+        CursorPage<CarListingResponse> page = carListingService.getAllApprovedListingsByCursor(after, pageable);
+
+        // Assert
+        assertEquals(1, page.getContent().size());
+        assertFalse(page.hasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getFilteredListingsByCursor_CursorFromDifferentSort_ThrowsIllegalArgumentException() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("price").descending());
+        String after = new ListingCursor(SortableCarListingField.CREATED_AT, Sort.Direction.DESC,
+                LocalDateTime.of(2024, 2, 1, 0, 0), 10L).encode();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> carListingService.getFilteredListingsByCursor(new ListingFilterRequest(), after, pageable));
+        verify(carListingRepository, never()).findAllSeek(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getFilteredListingsByCursor_NonWhitelistedSort_ThrowsIllegalArgumentException() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("description"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> carListingService.getFilteredListingsByCursor(new ListingFilterRequest(), "", pageable));
+    }
+
+    @Test
+    void getAllApprovedListings_CountNone_ReturnsSliceWithoutCountQuery() {
+        // Arrange
+        Pageable pageable = PageRequest.of(1, 10);
+        when(carListingRepository.findSlice(ArgumentMatchers.<Specification<CarListing>>any(), eq(pageable)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(savedListing), pageable, true));
+        when(carListingMapper.toCarListingResponse(savedListing)).thenReturn(expectedResponse);
+
+        // Act
+        Slice<CarListingResponse> result = carListingService.getAllApprovedListings(pageable, CountStrategy.NONE);
+
+        // Assert
+        assertFalse(result instanceof Page);
+        assertTrue(result.hasNext());
+        assertEquals(Collections.singletonList(expectedResponse), result.getContent());
+        verify(carListingRepository, never()).findAll(ArgumentMatchers.<Specification<CarListing>>any(), any(Pageable.class));
+        verifyNoInteractions(listingCountEstimator);
+    }
+
+    @Test
+    void getFilteredListings_CountApproximate_UsesCachedEstimateForTotal() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 1);
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setBrand("Toyota");
+        when(carListingRepository.findSlice(ArgumentMatchers.<Specification<CarListing>>any(), eq(pageable)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(savedListing), pageable, true));
+        when(carListingMapper.toCarListingResponse(savedListing)).thenReturn(expectedResponse);
+        when(listingCountEstimator.estimate(eq("filter:brand=toyota"), ArgumentMatchers.<Specification<CarListing>>any()))
+                .thenReturn(250L);
+
+        // Act
+        Slice<CarListingResponse> result = carListingService.getFilteredListings(filter, pageable, CountStrategy.APPROXIMATE);
+
+        // Assert
+        Page<CarListingResponse> page = assertInstanceOf(Page.class, result);
+        assertEquals(250L, page.getTotalElements());
+        verify(carListingRepository, never()).count(ArgumentMatchers.<Specification<CarListing>>any());
+    }
+
+    @Test
+    void getFilteredListings_CountApproximateOnLastPage_ReportsExactTotalWithoutEstimate() {
+        // Arrange
+        Pageable pageable = PageRequest.of(3, 10);
+        when(carListingRepository.findSlice(ArgumentMatchers.<Specification<CarListing>>any(), eq(pageable)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(savedListing), pageable, false));
+        when(carListingMapper.toCarListingResponse(savedListing)).thenReturn(expectedResponse);
+
+        // Act
+        Slice<CarListingResponse> result = carListingService.getFilteredListings(new ListingFilterRequest(), pageable, CountStrategy.APPROXIMATE);
+
+        // Assert
+        Page<CarListingResponse> page = assertInstanceOf(Page.class, result);
+        assertEquals(31L, page.getTotalElements());
+        verifyNoInteractions(listingCountEstimator);
+    }
+
+    @Test
+    void getFilteredListingSummaries_AttachesFirstImageKeyPerListing() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("price").ascending());
+        ListingSummaryResponse withImages = new ListingSummaryResponse(1L, "Camry", "Toyota", "Camry", 2020,
+                new BigDecimal("15000.00"), 30000, LocalDateTime.of(2024, 1, 1, 0, 0), null, null, null, null, 5L, "seller");
+        ListingSummaryResponse withoutImages = new ListingSummaryResponse(2L, "Civic", "Honda", "Civic", 2019,
+                new BigDecimal("16000.00"), 40000, LocalDateTime.of(2024, 1, 2, 0, 0), null, null, null, null, 5L, "seller");
+        when(carListingRepository.findSummaries(ArgumentMatchers.<Specification<CarListing>>any(), eq(pageable)))
+                .thenReturn(new PageImpl<>(Arrays.asList(withImages, withoutImages), pageable, 2));
+        when(listingMediaRepository.findImageKeysByListingIds(Arrays.asList(1L, 2L)))
+                .thenReturn(Arrays.asList(new ListingImageKey(1L, "primary.jpg"), new ListingImageKey(1L, "second.jpg")));
+        when(carListingMapper.withPrimaryImage(any(ListingSummaryResponse.class), any()))
+                .thenAnswer(invocation -> {
+                    ListingSummaryResponse summary = invocation.getArgument(0);
+                    String key = invocation.getArgument(1);
+                    return summary.withPrimaryImageUrl(key != null ? "signed/" + key : null);
+                });
+
+        // Act
+        Page<ListingSummaryResponse> result = carListingService.getFilteredListingSummaries(new ListingFilterRequest(), pageable);
+
+        // Assert
+        assertEquals(2, result.getTotalElements());
+        assertEquals("signed/primary.jpg", result.getContent().get(0).primaryImageUrl());
+        assertNull(result.getContent().get(1).primaryImageUrl());
+        verify(carListingRepository, never()).findAll(ArgumentMatchers.<Specification<CarListing>>any(), any(Pageable.class));
+    }
+
+    @Test
+    void getFilteredListingSummaries_NonWhitelistedSort_ThrowsIllegalArgumentException() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("description"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> carListingService.getFilteredListingSummaries(new ListingFilterRequest(), pageable));
+        verify(carListingRepository, never()).findSummaries(any(), any());
+    }
+
+    @Test
+    void getFilteredListings_WhenSearchIndexReady_HydratesOnlyIndexedPageIds() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("price").ascending());
+        ListingFilterRequest filter = new ListingFilterRequest();
+        CarListing cheaper = new CarListing();
+        cheaper.setId(7L);
+        CarListing pricier = new CarListing();
+        pricier.setId(3L);
+        CarListingResponse cheaperResponse = new CarListingResponse();
+        CarListingResponse pricierResponse = new CarListingResponse();
+        when(listingSearchIndex.isReady()).thenReturn(true);
+        when(listingSearchIndex.search(filter, null, CatalogFilter.NONE, pageable))
+                .thenReturn(Optional.of(new ListingSearchHits(Arrays.asList(7L, 3L), 40)));
+        // The database may return the rows in any order
+        when(carListingRepository.findWithDetailsByIdIn(Arrays.asList(7L, 3L))).thenReturn(Arrays.asList(pricier, cheaper));
+        when(carListingMapper.toCarListingResponse(cheaper)).thenReturn(cheaperResponse);
+        when(carListingMapper.toCarListingResponse(pricier)).thenReturn(pricierResponse);
+
+        // Act
+        Page<CarListingResponse> result = carListingService.getFilteredListings(filter, pageable);
+
+        // Assert
+        assertEquals(Arrays.asList(cheaperResponse, pricierResponse), result.getContent());
+        assertEquals(40, result.getTotalElements());
+        verify(carListingRepository, never()).findAll(ArgumentMatchers.<Specification<CarListing>>any(), any(Pageable.class));
+    }
+
+    @Test
+    void getFilteredListings_CachedPage_HydratesCachedIdsWithoutFiltering() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 2);
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setBrand("Honda");
+        CarListing cached = new CarListing();
+        cached.setId(5L);
+        CarListingResponse cachedResponse = new CarListingResponse();
+        when(listingResultCache.keyFor(filter, pageable)).thenReturn("brand=honda|page=0");
+        when(listingResultCache.get("brand=honda|page=0")).thenReturn(Optional.of(new ListingSearchHits(List.of(5L), 9)));
+        when(carListingRepository.findWithDetailsByIdIn(List.of(5L))).thenReturn(List.of(cached));
+        when(carListingMapper.toCarListingResponse(cached)).thenReturn(cachedResponse);
+
+        // Act
+        Page<CarListingResponse> result = carListingService.getFilteredListings(filter, pageable);
+
+        // Assert
+        assertEquals(List.of(cachedResponse), result.getContent());
+        assertEquals(9, result.getTotalElements());
+        verify(carListingRepository, never()).findAll(ArgumentMatchers.<Specification<CarListing>>any(), any(Pageable.class));
+        verify(listingResultCache, never()).put(any(), any(), any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void getFilteredListings_CacheMiss_CachesPageIdsTaggedWithBrandAndLocation() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setBrand("Honda");
+        filter.setLocationId(8L);
+        Location city = new Location();
+        city.setId(8L);
+        CarListing listing = new CarListing();
+        listing.setId(4L);
+        when(listingResultCache.keyFor(filter, pageable)).thenReturn("key");
+        when(listingResultCache.get("key")).thenReturn(Optional.empty());
+        when(listingResultCache.stamp()).thenReturn(3L);
+        when(locationRepository.findById(8L)).thenReturn(Optional.of(city));
+        when(carListingRepository.findAll(ArgumentMatchers.<Specification<CarListing>>any(), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(listing), pageable, 1));
+
+        // Act
+        carListingService.getFilteredListings(filter, pageable);
+
+        // Assert
+        verify(listingResultCache).put("key", new ListingSearchHits(List.of(4L), 1), null, "Honda", 8L, 3L);
+    }
+
+    @Test
+    void getFilteredListings_RadiusAndBox_QueriesTheDatabaseForLocationsInBoth() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setNearLat(33.51);
+        filter.setNearLon(36.29);
+        filter.setRadiusKm(25.0);
+        filter.setMinLat(33.0);
+        filter.setMaxLat(34.0);
+        filter.setMinLon(36.0);
+        filter.setMaxLon(36.5);
+        when(locationGeoIndex.findWithinRadius(33.51, 36.29, 25.0)).thenReturn(Set.of(1L, 2L));
+        when(locationGeoIndex.findWithinBox(33.0, 36.0, 34.0, 36.5)).thenReturn(Set.of(2L, 3L));
+        when(carListingRepository.findAll(ArgumentMatchers.<Specification<CarListing>>any(), eq(pageable)))
+                .thenReturn(new PageImpl<>(Collections.emptyList(), pageable, 0));
+
+        // Act
+        carListingService.getFilteredListings(filter, pageable);
+
+        // Assert
+        verify(carListingRepository).findAll(ArgumentMatchers.<Specification<CarListing>>any(), eq(pageable));
+        // The search index cannot restrict by a set of locations
+        verify(listingSearchIndex, never()).search(any(), any(), any(), any());
+    }
+
+    @Test
+    void getFilteredListings_NoLocationInRadius_ReturnsEmptyPageWithoutQuery() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setNearLat(10.0);
+        filter.setNearLon(10.0);
+        filter.setRadiusKm(5.0);
+        when(locationGeoIndex.findWithinRadius(10.0, 10.0, 5.0)).thenReturn(Set.of());
+
+        // Act
+        Page<CarListingResponse> result = carListingService.getFilteredListings(filter, pageable);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(carListingRepository, never()).findAll(ArgumentMatchers.<Specification<CarListing>>any(), any(Pageable.class));
+    }
+
+    @Test
+    void getFilteredListings_IncompleteRadius_ThrowsIllegalArgumentException() {
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setNearLat(33.51);
+        filter.setRadiusKm(25.0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> carListingService.getFilteredListings(filter, PageRequest.of(0, 10)));
+        verifyNoInteractions(locationGeoIndex);
+    }
+
+    @Test
+    void getAllApprovedListings_WhenSearchIndexCannotServeSort_FallsBackToDatabase() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("title"));
+        when(listingSearchIndex.isReady()).thenReturn(true);
+        when(listingSearchIndex.search(any(ListingFilterRequest.class), eq(null), eq(CatalogFilter.NONE), eq(pageable))).thenReturn(Optional.empty());
+        when(carListingRepository.findAll(ArgumentMatchers.<Specification<CarListing>>any(), eq(pageable)))
+                .thenReturn(new PageImpl<>(Collections.emptyList(), pageable, 0));
+
+        // Act
+        Page<CarListingResponse> result = carListingService.getAllApprovedListings(pageable);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(carListingRepository).findAll(ArgumentMatchers.<Specification<CarListing>>any(), eq(pageable));
+    }
+
+    @Test
+    void getFilteredListings_CatalogSlugsAndIds_AreResolvedAndMergedForTheSearchIndex() {
+        // Arrange
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setBrandIds(List.of(2L));
+        filter.setBrandSlugs(List.of("toyota", "no-such-brand"));
+        filter.setModelSlugs(List.of("toyota-camry"));
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("createdAt").descending());
+        CatalogFilter expectedCatalog = new CatalogFilter(Set.of(1L, 2L), Set.of(5L), null);
+        when(listingCatalogLinker.findBrandIdsBySlugs(List.of("toyota", "no-such-brand"))).thenReturn(Set.of(1L));
+        when(listingCatalogLinker.findModelIdsBySlugs(List.of("toyota-camry"))).thenReturn(Set.of(5L));
+        when(listingSearchIndex.isReady()).thenReturn(true);
+        when(listingSearchIndex.search(filter, null, expectedCatalog, pageable))
+                .thenReturn(Optional.of(new ListingSearchHits(Collections.emptyList(), 0)));
+
+        // Act
+        Page<CarListingResponse> result = carListingService.getFilteredListings(filter, pageable);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(listingSearchIndex).search(filter, null, expectedCatalog, pageable);
+    }
+
+    @Test
+    void getFilteredListings_OnlyUnknownCatalogSlugs_ReturnsEmptyPageWithoutQuery() {
+        // Arrange
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setModelSlugs(List.of("no-such-model"));
+        Pageable pageable = PageRequest.of(0, 10);
+        when(listingCatalogLinker.findModelIdsBySlugs(List.of("no-such-model"))).thenReturn(Set.of());
+
+        // Act
+        Page<CarListingResponse> result = carListingService.getFilteredListings(filter, pageable);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(carListingRepository, never()).findAll(ArgumentMatchers.<Specification<CarListing>>any(), any(Pageable.class));
+        verifyNoInteractions(listingSearchIndex);
+    }
+
+    @Test
+    void backfillCatalogLinks_RebuildsSearchIndexOnlyWhenLinksWereSet() {
+        when(listingCatalogLinker.backfill()).thenReturn(12, 0);
+
+        assertEquals(12, carListingService.backfillCatalogLinks());
+        assertEquals(0, carListingService.backfillCatalogLinks());
+
+        verify(listingSearchIndex, times(1)).rebuild();
+    }
+
+    @Test
+    void getListingFacets_WithoutSearchIndex_AggregatesGroupedRows() {
+        // Arrange
+        ListingFilterRequest filter = new ListingFilterRequest();
+        Location damascus = new Location();
+        damascus.setId(10L);
+        damascus.setSlug("damascus");
+        when(carListingRepository.findDataStamp(any(LocalDateTime.class)))
+                .thenReturn(new ListingDataStamp(3L, 42L, 7L, LocalDateTime.of(2025, 1, 1, 0, 0), 0L));
+        when(carListingRepository.findFacetRows(ArgumentMatchers.<Specification<CarListing>>any(), eq(ListingFacetCounter.PRICE_BOUNDARIES)))
+                .thenReturn(Arrays.asList(
+                        new ListingFacetRow("Toyota", "Camry", 10L, 2019, 2, new long[] {0, 0, 2, 0, 0, 0, 0, 0}),
+                        new ListingFacetRow("toyota", "Corolla", null, 2021, 1, new long[] {0, 1, 0, 0, 0, 0, 0, 0})));
+        when(locationRepository.findAllById(Set.of(10L))).thenReturn(List.of(damascus));
+
+        // Act
+        ListingFacetsResponse facets = carListingService.getListingFacets(filter);
+
+        // Assert
+        assertEquals(new ListingDataStamp(3L, 42L, 7L, LocalDateTime.of(2025, 1, 1, 0, 0), 0L).toVersion(), facets.version());
+        assertEquals(3, facets.total());
+        assertEquals(List.of(new ListingFacetsResponse.ValueCount("Toyota", 3)), facets.brands());
+        assertEquals(2, facets.models().size());
+        assertEquals("damascus", facets.locations().get(0).slug());
+        assertEquals(2, facets.locations().get(0).count());
+        assertEquals(List.of(new ListingFacetsResponse.YearRangeCount(2015, 2019, 2), new ListingFacetsResponse.YearRangeCount(2020, 2024, 1)),
+                facets.years());
+        assertEquals(2, facets.prices().size());
+        assertEquals(2, facets.prices().get(1).count());
+    }
+
+    @Test
+    void getListingFacets_WhenSearchIndexReady_SkipsDatabaseQuery() {
+        // Arrange
+        ListingFilterRequest filter = new ListingFilterRequest();
+        when(carListingRepository.findDataStamp(any(LocalDateTime.class))).thenReturn(new ListingDataStamp(5L, 5L, 9L, null, 1L));
+        when(listingSearchIndex.countFacets(eq(filter), isNull(), eq(CatalogFilter.NONE), any(ListingFacetCounter.class))).thenReturn(true);
+
+        // Act
+        ListingFacetsResponse facets = carListingService.getListingFacets(filter);
+
+        // Assert
+        assertEquals("5.5.9.0.1", facets.version());
+        verify(carListingRepository, never()).findFacetRows(any(), any());
+    }
+
+    @Test
+    void getListingFacets_UnknownLocation_ReturnsEmptyFacets() {
+        // Arrange
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setLocation("nowhere");
+        when(locationRepository.findBySlug("nowhere")).thenReturn(Optional.empty());
+        when(carListingRepository.findDataStamp(any(LocalDateTime.class))).thenReturn(new ListingDataStamp(0L, null, 0L, null, 0L));
+
+        // Act
+        ListingFacetsResponse facets = carListingService.getListingFacets(filter);
+
+        // Assert
+        assertEquals(0, facets.total());
+        assertTrue(facets.brands().isEmpty());
+        verify(carListingRepository, never()).findFacetRows(any(), any());
+    }
+
+    @Test
+    void getListingClusters_Unfiltered_RollsUpPrecomputedLocationCounts() {
+        // Arrange
+        when(listingLocationCounts.snapshot()).thenReturn(new HashMap<>(Map.of(1L, 4L, 2L, 1L, 3L, 2L)));
+        when(locationGeoIndex.coordinatesOf(any())).thenReturn(Map.of(
+                1L, new LocationGeoIndex.Coordinates(33.5138, 36.2765, "svcy9mp8p9nu"),
+                2L, new LocationGeoIndex.Coordinates(33.45, 36.25, "svcy2ckkq5zn"),
+                3L, new LocationGeoIndex.Coordinates(36.2021, 37.1343, "sy6mvn2kebsf")));
+
+        // Act
+        ListingClustersResponse clusters = carListingService.getListingClusters(new ListingFilterRequest(), 3);
+
+        // Assert
+        assertEquals(2, clusters.precision());
+        assertEquals(7, clusters.total());
+        assertEquals(2, clusters.clusters().size());
+        ListingClustersResponse.Cluster damascus = clusters.clusters().get(0);
+        assertEquals("sv", damascus.geohash());
+        assertEquals(5, damascus.count());
+        assertEquals(2, damascus.locationCount());
+        assertNull(damascus.locationId());
+        assertEquals((33.5138 * 4 + 33.45) / 5, damascus.latitude(), 1e-9);
+        ListingClustersResponse.Cluster aleppo = clusters.clusters().get(1);
+        assertEquals("sy", aleppo.geohash());
+        assertEquals(3L, aleppo.locationId());
+        verify(listingSearchIndex, never()).countByLocation(any(), any(), any());
+        verify(carListingRepository, never()).countByLocation(any());
+    }
+
+    @Test
+    void getListingClusters_FilteredWithViewport_KeepsOnlyLocationsInTheViewport() {
+        // Arrange
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setBrand("Toyota");
+        filter.setMinLat(33.0);
+        filter.setMaxLat(34.0);
+        filter.setMinLon(36.0);
+        filter.setMaxLon(37.0);
+        when(locationGeoIndex.findWithinBox(33.0, 36.0, 34.0, 37.0)).thenReturn(Set.of(1L));
+        when(listingSearchIndex.countByLocation(eq(filter), isNull(), any(CatalogFilter.class)))
+                .thenReturn(Optional.of(new HashMap<>(Map.of(1L, 2L, 3L, 5L))));
+        when(locationGeoIndex.coordinatesOf(Set.of(1L))).thenReturn(Map.of(
+                1L, new LocationGeoIndex.Coordinates(33.5138, 36.2765, "svcy9mp8p9nu")));
+
+        // Act
+        ListingClustersResponse clusters = carListingService.getListingClusters(filter, 12);
+
+        // Assert
+        assertEquals(5, clusters.precision());
+        assertEquals(2, clusters.total());
+        assertEquals(List.of(new ListingClustersResponse.Cluster("svcy9", 33.5138, 36.2765, 2, 1, 1L)), clusters.clusters());
+        verify(listingLocationCounts, never()).snapshot();
+        verify(carListingRepository, never()).countByLocation(any());
+    }
+
+    @Test
+    void getListingClusters_WhenSearchIndexNotReady_CountsWithGroupedQuery() {
+        // Arrange
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setMinPrice(new BigDecimal("10000"));
+        when(listingSearchIndex.countByLocation(eq(filter), isNull(), any(CatalogFilter.class))).thenReturn(Optional.empty());
+        when(carListingRepository.countByLocation(ArgumentMatchers.<Specification<CarListing>>any())).thenReturn(Map.of(3L, 4L));
+        when(locationGeoIndex.coordinatesOf(Set.of(3L))).thenReturn(Map.of());
+
+        // Act
+        ListingClustersResponse clusters = carListingService.getListingClusters(filter, 0);
+
+        // Assert: a location without coordinates is not clustered
+        assertEquals(1, clusters.precision());
+        assertEquals(0, clusters.total());
+        assertTrue(clusters.clusters().isEmpty());
+    }
+
+    @Test
+    void getListingClusters_ZoomOutOfRange_ThrowsIllegalArgumentException() {
+        ListingFilterRequest filter = new ListingFilterRequest();
+
+        assertThrows(IllegalArgumentException.class, () -> carListingService.getListingClusters(filter, -1));
+        assertThrows(IllegalArgumentException.class, () -> carListingService.getListingClusters(filter, CarListingService.MAX_CLUSTER_ZOOM + 1));
+        verifyNoInteractions(listingLocationCounts);
+    }
+
+    @Test
+    void getFilteredListings_KeywordSortedByRelevance_KeepsRankOfFilteredMatches() {
+        // Arrange
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setKeyword("camry automatic");
+        Pageable pageable = PageRequest.of(0, 2, Sort.by(CarListingService.RELEVANCE_SORT));
+        CarListing best = new CarListing();
+        best.setId(9L);
+        CarListing second = new CarListing();
+        second.setId(4L);
+        CarListingResponse bestResponse = new CarListingResponse();
+        CarListingResponse secondResponse = new CarListingResponse();
+        // The index passes its matches, most relevant first, through the filter
+        when(listingKeywordIndex.search(eq("camry automatic"), any())).thenAnswer(invocation -> {
+            Function<List<Long>, Collection<Long>> accept = invocation.getArgument(1);
+            List<Long> ranked = Arrays.asList(9L, 2L, 4L, 7L);
+            Set<Long> accepted = new HashSet<>(accept.apply(ranked));
+            return ranked.stream().filter(accepted::contains).collect(Collectors.toList());
+        });
+        // Listing 2 is filtered out (e.g. sold); the database returns ids in any order
+        when(carListingRepository.findIds(ArgumentMatchers.<Specification<CarListing>>any())).thenReturn(Arrays.asList(7L, 4L, 9L));
+        when(carListingRepository.findWithDetailsByIdIn(Arrays.asList(9L, 4L))).thenReturn(Arrays.asList(second, best));
+        when(carListingMapper.toCarListingResponse(best)).thenReturn(bestResponse);
+        when(carListingMapper.toCarListingResponse(second)).thenReturn(secondResponse);
+
+        // Act
+        Page<CarListingResponse> result = carListingService.getFilteredListings(filter, pageable);
+
+        // Assert
+        assertEquals(Arrays.asList(bestResponse, secondResponse), result.getContent());
+        assertEquals(3, result.getTotalElements());
+        verify(listingSearchIndex, never()).search(any(), any(), any());
+    }
+
+    @Test
+    void getFilteredListings_KeywordWithoutMatches_ReturnsEmptyPageWithoutQuery() {
+        // Arrange
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setKeyword("lamborghini");
+        Pageable pageable = PageRequest.of(0, 10);
+        when(listingKeywordIndex.search(eq("lamborghini"), any())).thenReturn(Collections.emptyList());
+
+        // Act
+        Page<CarListingResponse> result = carListingService.getFilteredListings(filter, pageable);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(carListingRepository, never()).findAll(ArgumentMatchers.<Specification<CarListing>>any(), any(Pageable.class));
+    }
+
+    @Test
+    void getFilteredListings_RelevanceSortWithoutKeyword_ThrowsIllegalArgumentException() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10, Sort.by(CarListingService.RELEVANCE_SORT));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> carListingService.getFilteredListings(new ListingFilterRequest(), pageable));
+        verifyNoInteractions(listingKeywordIndex);
+    }
+
     // --- Tests for uploadListingImage ---
     @Test
     void uploadListingImage_Success() throws IOException {
@@ -864,14 +1642,60 @@ class CarListingServiceTest {
         verify(carListingMapper, never()).toCarListingResponse(any()); // Mapper not called for empty list
     }
 
+    @Test
+    void getMyListings_ByStatusAndCursor_LoadsOnlyOnePage() {
+        String username = testUser.getUsername();
+        CarListing first = new CarListing();
+        first.setId(7L);
+        first.setCreatedAt(LocalDateTime.of(2024, 5, 1, 10, 0));
+        CarListing second = new CarListing();
+        second.setId(5L);
+        second.setCreatedAt(LocalDateTime.of(2024, 4, 1, 10, 0));
+        CarListing third = new CarListing();
+        third.setId(3L);
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(testUser));
+        when(carListingRepository.findAllSeek(ArgumentMatchers.<Specification<CarListing>>any(),
+                eq(SortableCarListingField.CREATED_AT), eq(Sort.Direction.DESC), eq(3)))
+                .thenReturn(Arrays.asList(first, second, third));
+        when(carListingMapper.toCarListingResponse(any(CarListing.class))).thenReturn(new CarListingResponse());
+
+        CursorPage<CarListingResponse> page = carListingService.getMyListings(username, ListingStatus.PAUSED, null,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.hasNext());
+        assertEquals(5L, ListingCursor.decode(page.getNextCursor()).getLastId());
+        verify(carListingRepository, never()).findBySeller(any());
+        verify(carListingMapper, times(2)).toCarListingResponse(any(CarListing.class));
+    }
+
+    @Test
+    void getMyListingCounts_FoldsFlagCombinationsIntoStatuses() {
+        String username = testUser.getUsername();
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(testUser));
+        when(carListingRepository.countStatusesBySellerId(testUser.getId())).thenReturn(List.of(
+                new ListingStatusCount(true, false, false, true, 4L),
+                new ListingStatusCount(true, true, true, true, 2L),
+                new ListingStatusCount(false, false, true, true, 1L),
+                new ListingStatusCount(false, false, false, true, 3L)));
+
+        Map<ListingStatus, Long> counts = carListingService.getMyListingCounts(username);
+
+        assertEquals(4L, counts.get(ListingStatus.ACTIVE));
+        assertEquals(3L, counts.get(ListingStatus.ARCHIVED));
+        assertEquals(3L, counts.get(ListingStatus.PENDING));
+        assertEquals(0L, counts.get(ListingStatus.PAUSED));
+        assertEquals(0L, counts.get(ListingStatus.SOLD));
+    }
+
     // --- Tests for markListingAsSold ---
     @Test
     void markListingAsSold_Success() {
         // Arrange
         Long listingId = 1L;
         String username = testUser.getUsername();
-        savedListing.setSold(false); // Ensure it's not already sold
-        savedListing.setArchived(false); // Ensure it's not archived
+        savedListing.setSold(true); // As read back after the update
+        savedListing.setArchived(false);
 
         CarListingResponse expectedResponse = new CarListingResponse();
         expectedResponse.setId(listingId);
@@ -879,12 +1703,8 @@ class CarListingServiceTest {
         expectedResponse.setIsArchived(false);
 
         when(userRepository.findByUsername(username)).thenReturn(Optional.of(testUser));
+        when(carListingRepository.markSold(eq(listingId), eq(testUser.getId()), any(LocalDateTime.class))).thenReturn(1);
         when(carListingRepository.findById(listingId)).thenReturn(Optional.of(savedListing));
-        when(carListingRepository.save(any(CarListing.class))).thenAnswer(invocation -> {
-            CarListing listingToSave = invocation.getArgument(0);
-            assertTrue(listingToSave.getSold());
-            return listingToSave;
-        });
         when(carListingMapper.toCarListingResponse(savedListing)).thenReturn(expectedResponse);
 
         // Act
@@ -895,8 +1715,9 @@ class CarListingServiceTest {
         assertTrue(response.getIsSold());
         assertEquals(expectedResponse, response);
         verify(userRepository).findByUsername(username);
+        verify(carListingRepository).markSold(eq(listingId), eq(testUser.getId()), any(LocalDateTime.class));
         verify(carListingRepository).findById(listingId);
-        verify(carListingRepository).save(argThat(l -> Boolean.TRUE.equals(l.getSold())));
+        verify(carListingRepository, never()).save(any());
         verify(carListingMapper).toCarListingResponse(savedListing);
     }
 
@@ -1002,15 +1823,11 @@ class CarListingServiceTest {
     @Test
     void markListingAsSoldByAdmin_Success() {
         // Setup
-        savedListing.setSold(false); // Ensure not already sold
-        savedListing.setArchived(false); // Not archived
+        savedListing.setSold(true); // As read back after the update
+        savedListing.setArchived(false);
 
+        when(carListingRepository.markSold(eq(savedListing.getId()), isNull(), any(LocalDateTime.class))).thenReturn(1);
         when(carListingRepository.findById(savedListing.getId())).thenReturn(Optional.of(savedListing));
-        when(carListingRepository.save(any())).thenAnswer(invocation -> {
-            CarListing savedListing = invocation.getArgument(0);
-            assertTrue(savedListing.getSold()); // Verify it's now marked sold
-            return savedListing;
-        });
         
         // Mock the mapper response
         CarListingResponse mockResponse = new CarListingResponse();
@@ -1024,8 +1841,8 @@ class CarListingServiceTest {
         // Verify
         assertNotNull(response);
         assertTrue(response.getIsSold());
-        verify(carListingRepository).findById(savedListing.getId());
-        verify(carListingRepository).save(any(CarListing.class));
+        verify(carListingRepository).markSold(eq(savedListing.getId()), isNull(), any(LocalDateTime.class));
+        verify(carListingRepository, never()).save(any(CarListing.class));
         verify(carListingMapper).toCarListingResponseForAdmin(any(CarListing.class));
     }
 
@@ -1090,14 +1907,10 @@ class CarListingServiceTest {
     @Test
     void archiveListingByAdmin_Success() {
         // Setup
-        savedListing.setArchived(false); // Not already archived
+        savedListing.setArchived(true); // As read back after the update
         
+        when(carListingRepository.archive(eq(savedListing.getId()), isNull(), any(LocalDateTime.class))).thenReturn(1);
         when(carListingRepository.findById(savedListing.getId())).thenReturn(Optional.of(savedListing));
-        when(carListingRepository.save(any())).thenAnswer(invocation -> {
-            CarListing savedListing = invocation.getArgument(0);
-            assertTrue(savedListing.getArchived()); // Verify it's now archived
-            return savedListing;
-        });
         
         // Mock the mapper response
         CarListingResponse mockResponse = new CarListingResponse();
@@ -1111,8 +1924,8 @@ class CarListingServiceTest {
         // Verify
         assertNotNull(response);
         assertTrue(response.getIsArchived());
-        verify(carListingRepository).findById(savedListing.getId());
-        verify(carListingRepository).save(any(CarListing.class));
+        verify(carListingRepository).archive(eq(savedListing.getId()), isNull(), any(LocalDateTime.class));
+        verify(carListingRepository, never()).save(any(CarListing.class));
     }
     
     @Test
@@ -1157,14 +1970,10 @@ class CarListingServiceTest {
     @Test
     void unarchiveListingByAdmin_Success() {
         // Setup
-        savedListing.setArchived(true); // Currently archived
+        savedListing.setArchived(false); // As read back after the update
         
+        when(carListingRepository.unarchive(eq(savedListing.getId()), isNull(), any(LocalDateTime.class))).thenReturn(1);
         when(carListingRepository.findById(savedListing.getId())).thenReturn(Optional.of(savedListing));
-        when(carListingRepository.save(any())).thenAnswer(invocation -> {
-            CarListing savedListing = invocation.getArgument(0);
-            assertFalse(savedListing.getArchived()); // Verify it's now unarchived
-            return savedListing;
-        });
         when(carListingMapper.toCarListingResponse(any())).thenAnswer(invocation -> {
             CarListing listing = invocation.getArgument(0);
             CarListingResponse response = new CarListingResponse();
@@ -1179,8 +1988,8 @@ class CarListingServiceTest {
         // Verify
         assertNotNull(response);
         assertFalse(response.getIsArchived());
-        verify(carListingRepository).findById(savedListing.getId());
-        verify(carListingRepository).save(any(CarListing.class));
+        verify(carListingRepository).unarchive(eq(savedListing.getId()), isNull(), any(LocalDateTime.class));
+        verify(carListingRepository, never()).save(any(CarListing.class));
     }
     
     @Test
@@ -1221,19 +2030,13 @@ class CarListingServiceTest {
         // Arrange
         Long listingId = 1L;
         String username = "testuser";
-        savedListing.setSeller(testUser);
-        savedListing.setApproved(true);
-        savedListing.setSold(false);
-        savedListing.setArchived(false);
-        savedListing.setIsUserActive(true);
-
         CarListing pausedListing = new CarListing();
         pausedListing.setId(listingId);
         pausedListing.setSeller(testUser);
         pausedListing.setApproved(true);
         pausedListing.setSold(false);
         pausedListing.setArchived(false);
-        pausedListing.setIsUserActive(false); // Paused
+        pausedListing.setIsUserActive(false); // Paused, as read back after the update
 
         CarListingResponse pausedResponse = new CarListingResponse();
         pausedResponse.setId(listingId);
@@ -1241,8 +2044,8 @@ class CarListingServiceTest {
 
 
         when(userRepository.findByUsername(username)).thenReturn(Optional.of(testUser));
-        when(carListingRepository.findById(listingId)).thenReturn(Optional.of(savedListing));
-        when(carListingRepository.save(any(CarListing.class))).thenReturn(pausedListing);
+        when(carListingRepository.pause(eq(listingId), eq(testUser.getId()), any(LocalDateTime.class))).thenReturn(1);
+        when(carListingRepository.findById(listingId)).thenReturn(Optional.of(pausedListing));
         when(carListingMapper.toCarListingResponse(pausedListing)).thenReturn(pausedResponse);
 
         // Act
@@ -1251,7 +2054,8 @@ class CarListingServiceTest {
         // Assert
         assertNotNull(response);
         assertFalse(response.getIsUserActive());
-        verify(carListingRepository).save(argThat(listing -> !listing.getIsUserActive()));
+        verify(carListingRepository).pause(eq(listingId), eq(testUser.getId()), any(LocalDateTime.class));
+        verify(carListingRepository, never()).save(any());
         verify(carListingMapper).toCarListingResponse(pausedListing);
     }
 
@@ -1385,27 +2189,21 @@ class CarListingServiceTest {
         // Arrange
         Long listingId = 1L;
         String username = "testuser";
-        savedListing.setSeller(testUser);
-        savedListing.setApproved(true);
-        savedListing.setSold(false);
-        savedListing.setArchived(false);
-        savedListing.setIsUserActive(false); // Paused
-
         CarListing resumedListing = new CarListing();
         resumedListing.setId(listingId);
         resumedListing.setSeller(testUser);
         resumedListing.setApproved(true);
         resumedListing.setSold(false);
         resumedListing.setArchived(false);
-        resumedListing.setIsUserActive(true); // Resumed
+        resumedListing.setIsUserActive(true); // Resumed, as read back after the update
 
         CarListingResponse resumedResponse = new CarListingResponse();
         resumedResponse.setId(listingId);
         resumedResponse.setIsUserActive(true);
 
         when(userRepository.findByUsername(username)).thenReturn(Optional.of(testUser));
-        when(carListingRepository.findById(listingId)).thenReturn(Optional.of(savedListing));
-        when(carListingRepository.save(any(CarListing.class))).thenReturn(resumedListing);
+        when(carListingRepository.resume(eq(listingId), eq(testUser.getId()), any(LocalDateTime.class))).thenReturn(1);
+        when(carListingRepository.findById(listingId)).thenReturn(Optional.of(resumedListing));
         when(carListingMapper.toCarListingResponse(resumedListing)).thenReturn(resumedResponse);
 
         // Act
@@ -1414,10 +2212,51 @@ class CarListingServiceTest {
         // Assert
         assertNotNull(response);
         assertTrue(response.getIsUserActive());
-        verify(carListingRepository).save(argThat(listing -> listing.getIsUserActive()));
+        verify(carListingRepository).resume(eq(listingId), eq(testUser.getId()), any(LocalDateTime.class));
+        verify(carListingRepository, never()).save(any());
         verify(carListingMapper).toCarListingResponse(resumedListing);
     }
 
+    @Test
+    void updateListing_StaleVersion_ThrowsOptimisticLockingFailure() {
+        // Arrange
+        savedListing.setSeller(testUser);
+        savedListing.setVersion(3L);
+        UpdateListingRequest request = new UpdateListingRequest();
+        request.setTitle("Edited on an old copy");
+        request.setVersion(2L);
+
+        when(carListingRepository.findById(savedListing.getId())).thenReturn(Optional.of(savedListing));
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> {
+            carListingService.updateListing(savedListing.getId(), request, testUser.getUsername());
+        });
+        assertNotEquals("Edited on an old copy", savedListing.getTitle());
+        verify(carListingRepository, never()).save(any());
+    }
+
+    @Test
+    void resumeListing_ChangedConcurrently_ThrowsConflict() {
+        // Arrange: the UPDATE matched nothing, yet the listing reads back as resumable
+        Long listingId = 1L;
+        String username = testUser.getUsername();
+        savedListing.setSold(false);
+        savedListing.setArchived(false);
+        savedListing.setIsUserActive(false);
+
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(testUser));
+        when(carListingRepository.findById(listingId)).thenReturn(Optional.of(savedListing));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+            carListingService.resumeListing(listingId, username);
+        });
+        assertEquals("Listing with ID " + listingId + " was changed by another request. Please reload it and try again.",
+                exception.getMessage());
+        verify(carListingMapper, never()).toCarListingResponse(any(CarListing.class));
+    }
+
     @Test
     void resumeListing_ThrowsSecurityException_IfNotOwner() {
         // Arrange
@@ -1480,4 +2319,52 @@ class CarListingServiceTest {
         assertEquals("CarListing not found with id : '999'", exception.getMessage());
         verify(carListingRepository, never()).save(any());
     }
+
+    @Test
+    void getTrendingListings_KeepsTheRankingAndSkipsListingsHiddenSinceTheRefresh() {
+        Location damascus = new Location();
+        damascus.setId(7L);
+        CarListing first = trendingListing(3L);
+        CarListing sold = trendingListing(1L);
+        sold.setSold(true);
+        CarListing second = trendingListing(2L);
+        CarListingResponse firstResponse = new CarListingResponse();
+        firstResponse.setId(3L);
+        CarListingResponse secondResponse = new CarListingResponse();
+        secondResponse.setId(2L);
+
+        when(trendingListings.size()).thenReturn(100);
+        when(locationRepository.findBySlug("damascus")).thenReturn(Optional.of(damascus));
+        when(listingCatalogLinker.findBrandIdsBySlugs(List.of("toyota"))).thenReturn(Set.of(4L));
+        when(trendingListings.top(7L, 4L, 3)).thenReturn(List.of(3L, 1L, 2L));
+        when(carListingRepository.findWithDetailsByIdIn(List.of(3L, 1L, 2L))).thenReturn(List.of(second, sold, first));
+        when(carListingMapper.toCarListingResponse(first)).thenReturn(firstResponse);
+        when(carListingMapper.toCarListingResponse(second)).thenReturn(secondResponse);
+
+        List<CarListingResponse> trending = carListingService.getTrendingListings("damascus", "toyota", 3);
+
+        assertEquals(List.of(firstResponse, secondResponse), trending);
+    }
+
+    @Test
+    void getTrendingListings_UnknownSlugOrBadSize_ReadsNoListings() {
+        when(trendingListings.size()).thenReturn(100);
+        when(locationRepository.findBySlug("atlantis")).thenReturn(Optional.empty());
+
+        assertTrue(carListingService.getTrendingListings("atlantis", null, 20).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> carListingService.getTrendingListings(null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> carListingService.getTrendingListings(null, null, 101));
+        verify(trendingListings, never()).top(any(), any(), anyInt());
+        verify(carListingRepository, never()).findWithDetailsByIdIn(any());
+    }
+
+    private static CarListing trendingListing(Long id) {
+        CarListing listing = new CarListing();
+        listing.setId(id);
+        listing.setApproved(true);
+        listing.setSold(false);
+        listing.setArchived(false);
+        listing.setIsUserActive(true);
+        return listing;
+    }
 }
@@ -0,0 +1,61 @@
+package com.autotrader.autotraderbackend.service;
+
+import com.autotrader.autotraderbackend.repository.JobLockRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two job lock services stand in for two application instances sharing one database.
+ * Leases are taken in their own transactions, so every test uses its own job name.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class JobLockServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Test
+    void tryAcquire_OnlyOneInstanceHoldsTheLeaseUntilReleased() {
+        String job = "job-" + UUID.randomUUID();
+        JobLockService first = instance("first", NOW);
+        JobLockService second = instance("second", NOW);
+
+        assertTrue(first.tryAcquire(job, Duration.ofMinutes(10)));
+        assertFalse(second.tryAcquire(job, Duration.ofMinutes(10)));
+        assertFalse(first.tryAcquire(job, Duration.ofMinutes(10)));
+
+        second.release(job);
+        assertFalse(second.tryAcquire(job, Duration.ofMinutes(10)), "Only the holder can release a lease");
+
+        first.release(job);
+        assertTrue(second.tryAcquire(job, Duration.ofMinutes(10)));
+    }
+
+    @Test
+    void tryAcquire_ExpiredLease_IsTakenOver() {
+        String job = "job-" + UUID.randomUUID();
+        assertTrue(instance("crashed", NOW).tryAcquire(job, Duration.ofMinutes(10)));
+
+        assertFalse(instance("other", NOW.plus(Duration.ofMinutes(9))).tryAcquire(job, Duration.ofMinutes(10)));
+        assertTrue(instance("other", NOW.plus(Duration.ofMinutes(10))).tryAcquire(job, Duration.ofMinutes(10)));
+    }
+
+    private JobLockService instance(String owner, Instant now) {
+        return new JobLockService(jobLockRepository, Clock.fixed(now, ZoneOffset.UTC), owner);
+    }
+}
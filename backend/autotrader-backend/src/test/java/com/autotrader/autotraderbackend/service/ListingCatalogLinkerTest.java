@@ -0,0 +1,185 @@
+package com.autotrader.autotraderbackend.service;
+
+import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
+import com.autotrader.autotraderbackend.model.CarBrand;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.CarModel;
+import com.autotrader.autotraderbackend.model.CarTrim;
+import com.autotrader.autotraderbackend.repository.CarBrandRepository;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.CarModelRepository;
+import com.autotrader.autotraderbackend.repository.CarTrimRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListingCatalogLinkerTest {
+
+    @Mock
+    private CarListingRepository carListingRepository;
+
+    @Mock
+    private CarBrandRepository carBrandRepository;
+
+    @Mock
+    private CarModelRepository carModelRepository;
+
+    @Mock
+    private CarTrimRepository carTrimRepository;
+
+    private ListingCatalogLinker linker;
+
+    private CarBrand toyota;
+    private CarModel camry;
+    private CarTrim camryLe;
+    private CarListing listing;
+
+    @BeforeEach
+    void setUp() {
+        linker = new ListingCatalogLinker(carListingRepository, carBrandRepository, carModelRepository, carTrimRepository, 100);
+
+        toyota = new CarBrand();
+        toyota.setId(1L);
+        camry = new CarModel();
+        camry.setId(11L);
+        camry.setBrand(toyota);
+        camryLe = new CarTrim();
+        camryLe.setId(111L);
+        camryLe.setModel(camry);
+
+        listing = new CarListing();
+        listing.setBrand(" Toyota ");
+        listing.setModel("CAMRY");
+    }
+
+    @Test
+    void link_MatchingText_SetsBrandModelAndTrim() {
+        when(carBrandRepository.findByListingText("toyota")).thenReturn(List.of(toyota));
+        when(carModelRepository.findByBrandAndListingText(toyota, "camry")).thenReturn(List.of(camry));
+        when(carTrimRepository.findById(111L)).thenReturn(Optional.of(camryLe));
+
+        linker.link(listing, 111L);
+
+        assertSame(toyota, listing.getCarBrand());
+        assertSame(camry, listing.getCarModel());
+        assertSame(camryLe, listing.getCarTrim());
+    }
+
+    @Test
+    void link_UnknownBrand_ClearsLinksWithoutLookingUpModels() {
+        listing.setCarBrand(toyota);
+        listing.setCarModel(camry);
+        listing.setCarTrim(camryLe);
+        when(carBrandRepository.findByListingText("toyota")).thenReturn(List.of());
+
+        linker.link(listing, null);
+
+        assertNull(listing.getCarBrand());
+        assertNull(listing.getCarModel());
+        assertNull(listing.getCarTrim());
+        verifyNoInteractions(carModelRepository);
+    }
+
+    @Test
+    void link_WithoutTrimId_KeepsTrimOfTheSameModel() {
+        listing.setCarTrim(camryLe);
+        when(carBrandRepository.findByListingText("toyota")).thenReturn(List.of(toyota));
+        when(carModelRepository.findByBrandAndListingText(toyota, "camry")).thenReturn(List.of(camry));
+
+        linker.link(listing, null);
+
+        assertSame(camryLe, listing.getCarTrim());
+        verifyNoInteractions(carTrimRepository);
+    }
+
+    @Test
+    void linkAll_LooksUpEachDistinctBrandModelAndTrimOnce() {
+        CarListing second = new CarListing();
+        second.setBrand("toyota");
+        second.setModel("Camry");
+        CarListing unknown = new CarListing();
+        unknown.setBrand("Lada");
+        unknown.setModel("Niva");
+        when(carBrandRepository.findByListingText("toyota")).thenReturn(List.of(toyota));
+        when(carBrandRepository.findByListingText("lada")).thenReturn(List.of());
+        when(carModelRepository.findByBrandAndListingText(toyota, "camry")).thenReturn(List.of(camry));
+        when(carTrimRepository.findById(111L)).thenReturn(Optional.of(camryLe));
+
+        linker.linkAll(List.of(listing, second, unknown), Arrays.asList(111L, 111L, null));
+
+        assertSame(camryLe, listing.getCarTrim());
+        assertSame(camry, second.getCarModel());
+        assertSame(camryLe, second.getCarTrim());
+        assertNull(unknown.getCarBrand());
+        verify(carBrandRepository, times(1)).findByListingText("toyota");
+        verify(carBrandRepository, times(1)).findByListingText("lada");
+        verify(carModelRepository, times(1)).findByBrandAndListingText(toyota, "camry");
+        verify(carTrimRepository, times(1)).findById(111L);
+    }
+
+    @Test
+    void link_TrimOfAnotherModel_ThrowsIllegalArgumentException() {
+        CarModel corolla = new CarModel();
+        corolla.setId(12L);
+        CarTrim corollaGli = new CarTrim();
+        corollaGli.setId(121L);
+        corollaGli.setModel(corolla);
+        when(carBrandRepository.findByListingText("toyota")).thenReturn(List.of(toyota));
+        when(carModelRepository.findByBrandAndListingText(toyota, "camry")).thenReturn(List.of(camry));
+        when(carTrimRepository.findById(121L)).thenReturn(Optional.of(corollaGli));
+
+        assertThrows(IllegalArgumentException.class, () -> linker.link(listing, 121L));
+    }
+
+    @Test
+    void link_UnknownTrim_ThrowsResourceNotFoundException() {
+        when(carBrandRepository.findByListingText("toyota")).thenReturn(List.of(toyota));
+        when(carModelRepository.findByBrandAndListingText(toyota, "camry")).thenReturn(List.of(camry));
+        when(carTrimRepository.findById(999L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> linker.link(listing, 999L));
+    }
+
+    @Test
+    void backfill_WalksTheTableInIdChunks() {
+        when(carListingRepository.findMaxId()).thenReturn(250L);
+        when(carListingRepository.linkCatalogBrands(anyLong(), anyLong())).thenReturn(10);
+        when(carListingRepository.linkCatalogModels(anyLong(), anyLong())).thenReturn(4);
+
+        int linked = linker.backfill();
+
+        assertEquals(42, linked);
+        verify(carListingRepository).linkCatalogBrands(0L, 99L);
+        verify(carListingRepository).linkCatalogBrands(100L, 199L);
+        verify(carListingRepository).linkCatalogBrands(200L, 299L);
+        verify(carListingRepository).linkCatalogModels(200L, 299L);
+    }
+
+    @Test
+    void backfill_EmptyTable_DoesNothing() {
+        when(carListingRepository.findMaxId()).thenReturn(null);
+
+        assertEquals(0, linker.backfill());
+        verify(carListingRepository, never()).linkCatalogBrands(anyLong(), anyLong());
+    }
+
+    @Test
+    void findBrandIdsBySlugs_NormalizesSlugsAndSkipsBlankOnes() {
+        when(carBrandRepository.findBySlugIn(Set.of("toyota"))).thenReturn(List.of(toyota));
+
+        assertEquals(Set.of(1L), linker.findBrandIdsBySlugs(List.of(" Toyota ", " ")));
+        assertEquals(Set.of(), linker.findBrandIdsBySlugs(List.of("")));
+    }
+}
@@ -0,0 +1,98 @@
+package com.autotrader.autotraderbackend.service;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListingCountEstimatorTest {
+
+    @Mock
+    private CarListingRepository carListingRepository;
+
+    private final Specification<CarListing> spec = (root, query, cb) -> null;
+    private MutableClock clock;
+    private ListingCountEstimator estimator;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        estimator = new ListingCountEstimator(carListingRepository, 60, 2, clock);
+    }
+
+    @Test
+    void estimate_WithinTtl_ReusesCachedCount() {
+        when(carListingRepository.count(ArgumentMatchers.<Specification<CarListing>>any())).thenReturn(42L, 43L);
+
+        assertEquals(42L, estimator.estimate("approved", spec));
+        clock.advance(Duration.ofSeconds(59));
+        assertEquals(42L, estimator.estimate("approved", spec));
+
+        verify(carListingRepository, times(1)).count(ArgumentMatchers.<Specification<CarListing>>any());
+    }
+
+    @Test
+    void estimate_AfterTtl_RecomputesCount() {
+        when(carListingRepository.count(ArgumentMatchers.<Specification<CarListing>>any())).thenReturn(42L, 43L);
+
+        estimator.estimate("approved", spec);
+        clock.advance(Duration.ofSeconds(61));
+
+        assertEquals(43L, estimator.estimate("approved", spec));
+    }
+
+    @Test
+    void estimate_DistinctKeys_AreCountedSeparately() {
+        when(carListingRepository.count(ArgumentMatchers.<Specification<CarListing>>any())).thenReturn(1L, 2L, 3L);
+
+        assertEquals(1L, estimator.estimate("filter:brand=toyota", spec));
+        assertEquals(2L, estimator.estimate("filter:brand=bmw", spec));
+        // Cache is bounded at two entries, so a third key evicts the others
+        assertEquals(3L, estimator.estimate("filter:brand=kia", spec));
+
+        verify(carListingRepository, times(3)).count(ArgumentMatchers.<Specification<CarListing>>any());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -4,7 +4,9 @@ import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
 import com.autotrader.autotraderbackend.model.Location;
 import com.autotrader.autotraderbackend.payload.request.LocationRequest;
 import com.autotrader.autotraderbackend.payload.response.LocationResponse;
+import com.autotrader.autotraderbackend.payload.response.NearbyLocationResponse;
 import com.autotrader.autotraderbackend.repository.LocationRepository;
+import com.autotrader.autotraderbackend.service.search.LocationGeoIndex;
 import com.autotrader.autotraderbackend.util.SlugUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,6 +34,9 @@ class LocationServiceTests {
     @Mock
     private LocationRepository locationRepository;
 
+    @Mock
+    private LocationGeoIndex locationGeoIndex;
+
     @InjectMocks
     private LocationService locationService;
 
@@ -274,4 +279,28 @@ class LocationServiceTests {
         assertThrows(ResourceNotFoundException.class, () -> locationService.setLocationActive(1L, true));
         verify(locationRepository, never()).save(any(Location.class));
     }
+
+    @Test
+    void getNearestLocations_shouldKeepIndexOrderAndDistances() {
+        when(locationGeoIndex.findNearest(33.5, 36.3, 2)).thenReturn(List.of(
+                new LocationGeoIndex.NearbyLocation(2L, 1.5),
+                new LocationGeoIndex.NearbyLocation(1L, 12.0)));
+        when(locationRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(location1, location2));
+
+        List<NearbyLocationResponse> nearest = locationService.getNearestLocations(33.5, 36.3, 2);
+
+        assertEquals(2, nearest.size());
+        assertEquals("city-b", nearest.get(0).location().getSlug());
+        assertEquals(1.5, nearest.get(0).distanceKm());
+        assertEquals("city-a", nearest.get(1).location().getSlug());
+        verify(locationRepository, never()).findAll();
+    }
+
+    @Test
+    void getNearestLocations_shouldRejectLimitOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> locationService.getNearestLocations(33.5, 36.3, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> locationService.getNearestLocations(33.5, 36.3, LocationService.MAX_NEAREST_LOCATIONS + 1));
+        verifyNoInteractions(locationGeoIndex);
+    }
 }
@@ -0,0 +1,209 @@
+package com.autotrader.autotraderbackend.service;
+
+import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.SavedSearch;
+import com.autotrader.autotraderbackend.model.SavedSearchMatch;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.payload.request.SavedSearchRequest;
+import com.autotrader.autotraderbackend.payload.response.SavedSearchResponse;
+import com.autotrader.autotraderbackend.repository.LocationRepository;
+import com.autotrader.autotraderbackend.repository.SavedSearchMatchRepository;
+import com.autotrader.autotraderbackend.repository.SavedSearchRepository;
+import com.autotrader.autotraderbackend.repository.UserRepository;
+import com.autotrader.autotraderbackend.service.search.SavedSearchPercolator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SavedSearchServiceTest {
+
+    @Mock
+    private SavedSearchRepository savedSearchRepository;
+
+    @Mock
+    private SavedSearchMatchRepository savedSearchMatchRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LocationRepository locationRepository;
+
+    @Mock
+    private ListingCatalogLinker listingCatalogLinker;
+
+    @Mock
+    private SavedSearchPercolator savedSearchPercolator;
+
+    @InjectMocks
+    private SavedSearchService savedSearchService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(2L);
+        user.setUsername("buyer");
+    }
+
+    @Test
+    void createSavedSearch_ResolvesSlugsAndRegistersTheSearch() {
+        when(userRepository.findByUsername("buyer")).thenReturn(Optional.of(user));
+        when(savedSearchRepository.countByUserId(2L)).thenReturn(0L);
+        when(listingCatalogLinker.findBrandIdsBySlugs(List.of("toyota"))).thenReturn(Set.of(7L));
+        Location damascus = new Location();
+        damascus.setId(5L);
+        when(locationRepository.findBySlug("damascus")).thenReturn(Optional.of(damascus));
+        when(savedSearchRepository.save(any(SavedSearch.class))).thenAnswer(invocation -> {
+            SavedSearch search = invocation.getArgument(0);
+            search.setId(10L);
+            return search;
+        });
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setBrandSlugs(List.of("toyota"));
+        filter.setLocation("damascus");
+        filter.setModel("  Camry ");
+
+        SavedSearchResponse response = savedSearchService.createSavedSearch(request(" Family car ", filter), "buyer");
+
+        assertEquals(10L, response.id());
+        assertEquals("Family car", response.name());
+        assertEquals(List.of(7L), response.filter().getBrandIds());
+        assertNull(response.filter().getBrandSlugs());
+        assertEquals(5L, response.filter().getLocationId());
+        assertNull(response.filter().getLocation());
+        assertEquals("Camry", response.filter().getModel());
+        verify(savedSearchPercolator).onSavedSearchSaved(argThat(search -> search.getId().equals(10L)));
+    }
+
+    @Test
+    void createSavedSearch_InvalidCriteria_ThrowIllegalArgumentException() {
+        when(userRepository.findByUsername("buyer")).thenReturn(Optional.of(user));
+        when(savedSearchRepository.countByUserId(2L)).thenReturn(0L);
+        when(listingCatalogLinker.findBrandIdsBySlugs(List.of("nope"))).thenReturn(Set.of());
+        ListingFilterRequest unknownBrand = new ListingFilterRequest();
+        unknownBrand.setBrandSlugs(List.of("nope"));
+        ListingFilterRequest partialRadius = new ListingFilterRequest();
+        partialRadius.setNearLat(33.5);
+        ListingFilterRequest stopWordsOnly = new ListingFilterRequest();
+        stopWordsOnly.setKeyword("the and");
+
+        assertThrows(IllegalArgumentException.class, () -> savedSearchService.createSavedSearch(request("a", unknownBrand), "buyer"));
+        assertThrows(IllegalArgumentException.class, () -> savedSearchService.createSavedSearch(request("b", partialRadius), "buyer"));
+        assertThrows(IllegalArgumentException.class, () -> savedSearchService.createSavedSearch(request("c", stopWordsOnly), "buyer"));
+        verify(savedSearchRepository, never()).save(any());
+    }
+
+    @Test
+    void createSavedSearch_LimitReached_ThrowsIllegalStateException() {
+        when(userRepository.findByUsername("buyer")).thenReturn(Optional.of(user));
+        when(savedSearchRepository.countByUserId(2L)).thenReturn((long) SavedSearchService.MAX_SAVED_SEARCHES_PER_USER);
+
+        assertThrows(IllegalStateException.class,
+                () -> savedSearchService.createSavedSearch(request("a", new ListingFilterRequest()), "buyer"));
+        verify(savedSearchRepository, never()).save(any());
+    }
+
+    @Test
+    void deleteSavedSearch_OtherUsersSearch_ThrowsResourceNotFoundException() {
+        SavedSearch search = new SavedSearch();
+        search.setId(10L);
+        search.setUserId(3L);
+        when(userRepository.findByUsername("buyer")).thenReturn(Optional.of(user));
+        when(savedSearchRepository.findById(10L)).thenReturn(Optional.of(search));
+
+        assertThrows(ResourceNotFoundException.class, () -> savedSearchService.deleteSavedSearch(10L, "buyer"));
+        verify(savedSearchRepository, never()).delete(any());
+        verifyNoInteractions(savedSearchPercolator);
+    }
+
+    @Test
+    void deleteSavedSearch_DropsMatchesAndUnregisters() {
+        SavedSearch search = new SavedSearch();
+        search.setId(10L);
+        search.setUserId(2L);
+        when(userRepository.findByUsername("buyer")).thenReturn(Optional.of(user));
+        when(savedSearchRepository.findById(10L)).thenReturn(Optional.of(search));
+
+        savedSearchService.deleteSavedSearch(10L, "buyer");
+
+        verify(savedSearchMatchRepository).deleteBySavedSearchId(10L);
+        verify(savedSearchRepository).delete(search);
+        verify(savedSearchPercolator).onSavedSearchDeleted(10L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void queueMatches_PersistsOneMatchPerSavedSearch() {
+        CarListing listing = new CarListing();
+        listing.setId(100L);
+        listing.setApproved(true);
+        when(savedSearchPercolator.match(listing)).thenReturn(List.of(10L, 11L));
+        when(savedSearchRepository.findExistingIds(List.of(10L, 11L))).thenReturn(List.of(10L, 11L));
+        when(savedSearchRepository.getReferenceById(any())).thenAnswer(invocation -> {
+            SavedSearch search = new SavedSearch();
+            search.setId(invocation.getArgument(0));
+            return search;
+        });
+
+        assertEquals(2, savedSearchService.queueMatches(listing));
+
+        ArgumentCaptor<List<SavedSearchMatch>> matches = ArgumentCaptor.forClass(List.class);
+        verify(savedSearchMatchRepository).saveAll(matches.capture());
+        assertEquals(List.of(10L, 11L), matches.getValue().stream().map(match -> match.getSavedSearch().getId()).toList());
+        assertTrue(matches.getValue().stream().allMatch(match -> match.getListingId().equals(100L)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void queueMatches_SearchDeletedThroughAnotherInstance_IsSkipped() {
+        CarListing listing = new CarListing();
+        listing.setId(100L);
+        listing.setApproved(true);
+        when(savedSearchPercolator.match(listing)).thenReturn(List.of(10L, 11L));
+        when(savedSearchRepository.findExistingIds(List.of(10L, 11L))).thenReturn(List.of(11L));
+        when(savedSearchRepository.getReferenceById(11L)).thenReturn(new SavedSearch());
+
+        assertEquals(1, savedSearchService.queueMatches(listing));
+
+        ArgumentCaptor<List<SavedSearchMatch>> matches = ArgumentCaptor.forClass(List.class);
+        verify(savedSearchMatchRepository).saveAll(matches.capture());
+        assertEquals(1, matches.getValue().size());
+        verify(savedSearchRepository, never()).getReferenceById(10L);
+    }
+
+    @Test
+    void queueMatches_HiddenListing_IsNotMatched() {
+        CarListing listing = new CarListing();
+        listing.setId(100L);
+        listing.setApproved(true);
+        listing.setIsUserActive(false);
+
+        assertEquals(0, savedSearchService.queueMatches(listing));
+        verifyNoInteractions(savedSearchPercolator, savedSearchMatchRepository);
+    }
+
+    private static SavedSearchRequest request(String name, ListingFilterRequest filter) {
+        SavedSearchRequest request = new SavedSearchRequest();
+        request.setName(name);
+        request.setFilter(filter);
+        return request;
+    }
+}
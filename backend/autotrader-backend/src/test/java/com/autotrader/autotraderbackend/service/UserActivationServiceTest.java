@@ -0,0 +1,140 @@
+package com.autotrader.autotraderbackend.service;
+
+import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.response.UserStatusResponse;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.UserRepository;
+import com.autotrader.autotraderbackend.security.services.UserDetailsImpl;
+import com.autotrader.autotraderbackend.service.search.ListingChanges;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Deactivates and reactivates a seller in an in-memory database, propagating in chunks of two
+ * listings, and checks which listings are hidden and shown again.
+ */
+@DataJpaTest(properties = "app.users.activation.chunk-size=2")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserActivationService.class)
+class UserActivationServiceTest {
+
+    @Autowired
+    private UserActivationService userActivationService;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @MockBean
+    private ListingChanges listingChanges;
+
+    private User dealer;
+    private User otherSeller;
+    private Location location;
+
+    @BeforeEach
+    void setUp() {
+        dealer = testEntityManager.persist(new User("activation_dealer", "activation@example.com", "password"));
+        otherSeller = testEntityManager.persist(new User("activation_other", "activation-other@example.com", "password"));
+        location = new Location();
+        location.setDisplayNameEn("Idlib");
+        location.setDisplayNameAr("إدلب");
+        location.setSlug("activation-idlib");
+        location.setCountryCode("SY");
+        location = testEntityManager.persist(location);
+        testEntityManager.flush();
+    }
+
+    @Test
+    void setActive_DeactivateThenActivate_HidesAndShowsListingsExceptOwnerPauses() {
+        Long first = persist(dealer, false).getId();
+        Long second = persist(dealer, false).getId();
+        Long third = persist(dealer, false).getId();
+        Long paused = persist(dealer, true).getId();
+        Long others = persist(otherSeller, false).getId();
+
+        UserStatusResponse deactivated = userActivationService.setActive(dealer.getId(), false);
+
+        assertFalse(deactivated.active());
+        assertEquals(3, deactivated.listingsUpdated());
+        assertFalse(userRepository.findById(dealer.getId()).orElseThrow().getActive());
+        assertFalse(UserDetailsImpl.build(userRepository.findById(dealer.getId()).orElseThrow()).isEnabled());
+        for (Long id : new Long[]{first, second, third, paused}) {
+            assertFalse(carListingRepository.findById(id).orElseThrow().getIsUserActive());
+        }
+        assertTrue(carListingRepository.findById(others).orElseThrow().getIsUserActive());
+        // Chunks of 2 and 1
+        verify(listingChanges, times(2)).listingsUpdated(any());
+
+        UserStatusResponse activated = userActivationService.setActive(dealer.getId(), true);
+
+        assertTrue(activated.active());
+        assertEquals(3, activated.listingsUpdated());
+        for (Long id : new Long[]{first, second, third}) {
+            assertTrue(carListingRepository.findById(id).orElseThrow().getIsUserActive());
+        }
+        CarListing stillPaused = carListingRepository.findById(paused).orElseThrow();
+        assertFalse(stillPaused.getIsUserActive());
+        assertTrue(stillPaused.getPausedByOwner());
+    }
+
+    @Test
+    void setActive_SameStatusAgain_OnlyCompletesThePropagation() {
+        persist(dealer, false);
+        userActivationService.setActive(dealer.getId(), false);
+
+        // A listing left shown, e.g. by an interrupted run
+        CarListing leftOver = persist(dealer, false);
+        UserStatusResponse again = userActivationService.setActive(dealer.getId(), false);
+
+        assertEquals(1, again.listingsUpdated());
+        assertFalse(carListingRepository.findById(leftOver.getId()).orElseThrow().getIsUserActive());
+    }
+
+    @Test
+    void setActive_UnknownUser_Throws() {
+        assertThrows(ResourceNotFoundException.class, () -> userActivationService.setActive(999_999L, false));
+    }
+
+    private CarListing persist(User owner, boolean pausedByOwner) {
+        CarListing listing = new CarListing();
+        listing.setTitle("Dealer listing");
+        listing.setBrand("Kia");
+        listing.setModel("Rio");
+        listing.setModelYear(2019);
+        listing.setMileage(42000);
+        listing.setPrice(new BigDecimal("9000"));
+        listing.setDescription("User activation test listing");
+        listing.setSeller(owner);
+        listing.setLocation(location);
+        listing.setApproved(true);
+        listing.setIsUserActive(!pausedByOwner);
+        listing.setPausedByOwner(pausedByOwner);
+        listing = testEntityManager.persist(listing);
+        testEntityManager.flush();
+        return listing;
+    }
+}
@@ -0,0 +1,125 @@
+package com.autotrader.autotraderbackend.service.export;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListingExporterTest {
+
+    @Mock
+    private CarListingRepository carListingRepository;
+
+    private ListingExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new ListingExporter(carListingRepository, 2);
+    }
+
+    @Test
+    void export_Csv_WritesHeaderAndQuotesSpecialCharacters() throws IOException {
+        CarListing plain = listing(1L, "Camry", "Clean car");
+        CarListing quoted = listing(2L, "Camry, \"Hybrid\"", "Line one\nline two");
+        quoted.setLocation(location(7L, "damascus"));
+        stream(null, plain, quoted);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2, exporter.export(null, null, ListingExportFormat.CSV, out));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("id,title,brand,model,modelYear,mileage,price,"));
+        assertTrue(lines[1].startsWith("1,Camry,Toyota,Camry,2020,30000,15000.00,,"));
+        assertTrue(lines[2].startsWith("2,\"Camry, \"\"Hybrid\"\"\",Toyota,"));
+        assertTrue(lines[2].contains("\"Line one\nline two\",7,damascus,false,false,2024-01-02T03:04:05,"));
+    }
+
+    @Test
+    void export_Ndjson_WritesOneObjectPerLineWithNulls() throws IOException {
+        stream(5L, listing(6L, "Corolla", "First"), listing(9L, "Yaris", "Second"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2, exporter.export(null, 5L, ListingExportFormat.NDJSON, out));
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":6,\"title\":\"Corolla\",\"brand\":\"Toyota\""));
+        assertTrue(lines[0].contains("\"price\":15000.00,\"vin\":null"));
+        assertTrue(lines[0].contains("\"sold\":false"));
+        assertTrue(lines[1].contains("\"createdAt\":\"2024-01-02T03:04:05\""));
+    }
+
+    @Test
+    void export_ClientDisconnects_PropagatesIOException() {
+        stream(null, listing(1L, "Camry", "Clean car"));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        IOException thrown = assertThrows(IOException.class,
+                () -> exporter.export(null, null, ListingExportFormat.NDJSON, broken));
+        assertEquals("Broken pipe", thrown.getMessage());
+    }
+
+    @Test
+    void fromParam_ParsesCaseInsensitivelyAndDefaultsToNdjson() {
+        assertEquals(ListingExportFormat.NDJSON, ListingExportFormat.fromParam(null));
+        assertEquals(ListingExportFormat.CSV, ListingExportFormat.fromParam(" Csv "));
+        assertThrows(IllegalArgumentException.class, () -> ListingExportFormat.fromParam("xml"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stream(Long afterId, CarListing... listings) {
+        when(carListingRepository.forEachInIdOrder(any(), eq(afterId), eq(2), any())).thenAnswer(invocation -> {
+            Consumer<CarListing> action = invocation.getArgument(3);
+            List.of(listings).forEach(action);
+            return (long) listings.length;
+        });
+    }
+
+    private CarListing listing(Long id, String title, String description) {
+        CarListing listing = new CarListing();
+        listing.setId(id);
+        listing.setTitle(title);
+        listing.setBrand("Toyota");
+        listing.setModel(title.split(",")[0]);
+        listing.setModelYear(2020);
+        listing.setMileage(30000);
+        listing.setPrice(new BigDecimal("15000.00"));
+        listing.setDescription(description);
+        listing.setCreatedAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        return listing;
+    }
+
+    private Location location(Long id, String slug) {
+        Location location = new Location();
+        location.setId(id);
+        location.setSlug(slug);
+        return location;
+    }
+}
@@ -0,0 +1,119 @@
+package com.autotrader.autotraderbackend.service.feed;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryFeedReaderTest {
+
+    @Test
+    void csv_ReadsQuotedValuesCaseInsensitiveHeadersAndImageUrls() throws IOException {
+        String feed = "\uFEFFStockNumber,VIN,title,brand,model,modelYear,mileage,price,locationId,description,imageUrls\r\n"
+                + "A-1,,\"Camry, \"\"Hybrid\"\"\",Toyota,Camry,2020,30000,15000.50,3,\"Line one\nline two\",https://a/1.jpg | https://a/2.jpg\r\n"
+                + "\r\n"
+                + "A-2,jtd123,Yaris,Toyota,Yaris,2018,70000,7000,3,Small,\n";
+
+        List<InventoryFeedRow> rows = readAll(InventoryFeedFormat.CSV, feed);
+
+        assertEquals(2, rows.size());
+        InventoryFeedRow first = rows.get(0);
+        assertEquals("stock:A-1", first.key());
+        assertNull(first.getVin());
+        assertEquals("Camry, \"Hybrid\"", first.getTitle());
+        assertEquals("Line one\nline two", first.getDescription());
+        assertEquals(new BigDecimal("15000.50"), first.getPrice());
+        assertEquals(3L, first.getLocationId());
+        assertEquals(List.of("https://a/1.jpg", "https://a/2.jpg"), first.getImageUrls());
+        assertEquals("jtd123", rows.get(1).getVin());
+        assertTrue(rows.get(1).getImageUrls().isEmpty());
+    }
+
+    @Test
+    void csv_InvalidValue_ReportsTheRowKeyAndKeepsReading() throws IOException {
+        String feed = "stockNumber,mileage\nA-1,many\nA-2,100\n";
+
+        try (InventoryFeedReader reader = InventoryFeedFormat.CSV.open(stream(feed))) {
+            InvalidFeedRowException invalid = assertThrows(InvalidFeedRowException.class, reader::next);
+            assertEquals("stock:A-1", invalid.getKey());
+            assertEquals("Invalid value for mileage", invalid.getMessage());
+            assertEquals(100, reader.next().getMileage());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void csv_UnterminatedQuote_IsMalformed() throws IOException {
+        try (InventoryFeedReader reader = InventoryFeedFormat.CSV.open(stream("stockNumber,title\nA-1,\"open\n"))) {
+            IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, reader::next);
+            assertFalse(thrown instanceof InvalidFeedRowException);
+        }
+    }
+
+    @Test
+    void json_ReadsArraysAndNdjson() throws IOException {
+        String array = "[{\"stockNumber\":\"A-1\",\"price\":\"9000\",\"unknown\":true},{\"vin\":\"abc\",\"modelYear\":2019}]";
+        String ndjson = "{\"stockNumber\":\"A-1\"}\n{\"stockNumber\":\"A-2\"}\n";
+
+        List<InventoryFeedRow> fromArray = readAll(InventoryFeedFormat.JSON, array);
+        List<InventoryFeedRow> fromNdjson = readAll(InventoryFeedFormat.JSON, ndjson);
+
+        assertEquals(2, fromArray.size());
+        assertEquals(new BigDecimal("9000"), fromArray.get(0).getPrice());
+        assertEquals("vin:ABC", fromArray.get(1).key());
+        assertEquals(List.of("stock:A-1", "stock:A-2"), fromNdjson.stream().map(InventoryFeedRow::key).toList());
+    }
+
+    @Test
+    void json_NotAnObject_IsMalformed() throws IOException {
+        try (InventoryFeedReader reader = InventoryFeedFormat.JSON.open(stream("[1, 2]"))) {
+            assertThrows(IllegalArgumentException.class, reader::next);
+        }
+    }
+
+    @Test
+    void hash_IgnoresImagesAndPriceScale() {
+        InventoryFeedRow row = new InventoryFeedRow();
+        row.setStockNumber("A-1");
+        row.setPrice(new BigDecimal("9000"));
+        InventoryFeedRow same = new InventoryFeedRow();
+        same.setStockNumber("A-1");
+        same.setPrice(new BigDecimal("9000.00"));
+        same.setImageUrls(List.of("https://a/1.jpg"));
+        InventoryFeedRow cheaper = new InventoryFeedRow();
+        cheaper.setStockNumber("A-1");
+        cheaper.setPrice(new BigDecimal("8999"));
+
+        assertEquals(row.hash(), same.hash());
+        assertNotEquals(row.hash(), cheaper.hash());
+        assertEquals(64, row.hash().length());
+    }
+
+    @Test
+    void fromParam_UsesFileExtensionWhenNoFormatIsGiven() {
+        assertEquals(InventoryFeedFormat.CSV, InventoryFeedFormat.fromParam(null, "stock.CSV"));
+        assertEquals(InventoryFeedFormat.JSON, InventoryFeedFormat.fromParam("", "stock.json"));
+        assertEquals(InventoryFeedFormat.JSON, InventoryFeedFormat.fromParam(" Json ", "stock.csv"));
+        assertThrows(IllegalArgumentException.class, () -> InventoryFeedFormat.fromParam("xml", null));
+    }
+
+    private List<InventoryFeedRow> readAll(InventoryFeedFormat format, String feed) throws IOException {
+        List<InventoryFeedRow> rows = new ArrayList<>();
+        try (InventoryFeedReader reader = format.open(stream(feed))) {
+            for (InventoryFeedRow row = reader.next(); row != null; row = reader.next()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private ByteArrayInputStream stream(String feed) {
+        return new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,198 @@
+package com.autotrader.autotraderbackend.service.feed;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.ListingMedia;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.service.ListingCatalogLinker;
+import com.autotrader.autotraderbackend.service.search.ListingChanges;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Applies feeds to a seller's listings in an in-memory database and checks the diff: inserts,
+ * updates, archives, rejected rows and that unchanged rows are not written.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.inventory-feed.batch-size=2"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({InventoryFeedSync.class, ListingCatalogLinker.class, LocalValidatorFactoryBean.class})
+class InventoryFeedSyncTest {
+
+    @Autowired
+    private InventoryFeedSync inventoryFeedSync;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @MockBean
+    private ListingChanges listingChanges;
+
+    private User dealer;
+    private Location location;
+
+    @BeforeEach
+    void setUp() {
+        dealer = testEntityManager.persist(new User("feed_dealer", "dealer@example.com", "password"));
+        location = new Location();
+        location.setDisplayNameEn("Latakia");
+        location.setDisplayNameAr("اللاذقية");
+        location.setSlug("feed-latakia");
+        location.setCountryCode("SY");
+        location = testEntityManager.persist(location);
+        testEntityManager.flush();
+    }
+
+    @Test
+    void apply_NewFeed_InsertsListingsInBatchesWithImagesToFetch() throws IOException {
+        InventoryFeedSync.Outcome outcome = sync(
+                row("S1", "Kia", 9000, "\"imageUrls\":[\"https://img.example.com/s1.jpg\"]"),
+                row("S2", "Kia", 9500, null),
+                row("S3", "Hyundai", 11000, null));
+
+        assertEquals(3, outcome.inserted());
+        assertEquals(0, outcome.rejected());
+        List<CarListing> listings = listingsOfDealer();
+        assertEquals(3, listings.size());
+        CarListing first = listings.stream().filter(l -> "S1".equals(l.getStockNumber())).findFirst().orElseThrow();
+        assertFalse(first.getApproved());
+        assertNotNull(first.getFeedHash());
+        assertEquals(location.getId(), first.getLocation().getId());
+        assertEquals(Map.of(first.getId(), List.of("https://img.example.com/s1.jpg")), outcome.imagesToFetch());
+        verify(listingChanges, times(3)).listingSaved(any());
+    }
+
+    @Test
+    void apply_SameFeedTwice_WritesNothingTheSecondTime() throws IOException {
+        String[] feed = {row("S1", "Kia", 9000, null), row("S2", "Kia", 9500, null)};
+        sync(feed);
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        InventoryFeedSync.Outcome outcome = sync(feed);
+
+        assertEquals(2, outcome.unchanged());
+        assertEquals(0, outcome.inserted() + outcome.updated() + outcome.archived());
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertTrue(outcome.imagesToFetch().isEmpty());
+    }
+
+    @Test
+    void apply_ChangedAndMissingRows_UpdatesAndArchives() throws IOException {
+        sync(row("S1", "Kia", 9000, null), row("S2", "Kia", 9500, null), row("S3", "Kia", 9900, null));
+
+        InventoryFeedSync.Outcome outcome = sync(row("S1", "Kia", 8500, null), row("S2", "Kia", 9500, null));
+
+        assertEquals(1, outcome.updated());
+        assertEquals(1, outcome.unchanged());
+        assertEquals(1, outcome.archived());
+        List<CarListing> listings = listingsOfDealer();
+        CarListing s1 = listings.stream().filter(l -> "S1".equals(l.getStockNumber())).findFirst().orElseThrow();
+        CarListing s3 = listings.stream().filter(l -> "S3".equals(l.getStockNumber())).findFirst().orElseThrow();
+        assertEquals(0, new BigDecimal("8500").compareTo(s1.getPrice()));
+        assertTrue(s3.getArchived());
+
+        // The car is back in stock: its listing is brought back even though the row is unchanged
+        InventoryFeedSync.Outcome back = sync(row("S1", "Kia", 8500, null), row("S2", "Kia", 9500, null), row("S3", "Kia", 9900, null));
+        assertEquals(1, back.updated());
+        assertFalse(carListingRepository.findById(s3.getId()).orElseThrow().getArchived());
+    }
+
+    @Test
+    void apply_InvalidRows_AreRejectedWithoutArchivingTheirListing() throws IOException {
+        sync(row("S1", "Kia", 9000, null), row("S2", "Kia", 9500, null));
+
+        InventoryFeedSync.Outcome outcome = sync(
+                row("S1", "Kia", 9000, null),
+                "{\"stockNumber\":\"S2\",\"title\":\"Kia Rio\",\"brand\":\"Kia\",\"model\":\"Rio\",\"modelYear\":2019,"
+                        + "\"mileage\":\"lots\",\"price\":9500,\"locationId\":" + location.getId() + ",\"description\":\"Clean\"}",
+                row("S1", "Kia", 9000, null),
+                "{\"title\":\"No key\"}",
+                row("S4", "Kia", -5, null));
+
+        assertEquals(4, outcome.rejected());
+        assertEquals(0, outcome.archived());
+        assertEquals(List.of("Row 2: Invalid value for mileage", "Row 3: Duplicate of an earlier row (stock:S1)",
+                "Row 4: A stock number or VIN is required", "Row 5: Price must be a positive number"), outcome.errors());
+        assertEquals(2, listingsOfDealer().size());
+    }
+
+    @Test
+    void attachMedia_SavesMediaForTheNewListings() throws IOException {
+        InventoryFeedSync.Outcome outcome = sync(row("S1", "Kia", 9000, null));
+        Long listingId = listingsOfDealer().get(0).getId();
+        ListingMedia media = new ListingMedia();
+        media.setFileKey("listings/" + listingId + "/1_s1.jpg");
+        media.setFileName("s1.jpg");
+        media.setContentType("image/jpeg");
+        media.setSize(10L);
+        media.setIsPrimary(true);
+        media.setMediaType("image");
+
+        inventoryFeedSync.attachMedia(Map.of(listingId, List.of(media)));
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        assertEquals(1, outcome.inserted());
+        assertEquals(1, carListingRepository.findById(listingId).orElseThrow().getMedia().size());
+        verify(listingChanges, never()).listingDeleted(any());
+    }
+
+    private InventoryFeedSync.Outcome sync(String... rows) throws IOException {
+        String feed = "[" + String.join(",", rows) + "]";
+        try (InventoryFeedReader reader = InventoryFeedFormat.JSON.open(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)))) {
+            InventoryFeedSync.Outcome outcome = inventoryFeedSync.apply(dealer.getId(), reader);
+            testEntityManager.flush();
+            testEntityManager.clear();
+            return outcome;
+        }
+    }
+
+    private String row(String stockNumber, String brand, int price, String extra) {
+        return "{\"stockNumber\":\"" + stockNumber + "\",\"title\":\"" + brand + " " + stockNumber + "\",\"brand\":\"" + brand
+                + "\",\"model\":\"Rio\",\"modelYear\":2019,\"mileage\":42000,\"price\":" + price
+                + ",\"locationId\":" + location.getId() + ",\"description\":\"Dealer car\""
+                + (extra != null ? "," + extra : "") + "}";
+    }
+
+    private List<CarListing> listingsOfDealer() {
+        return carListingRepository.findAll().stream()
+                .filter(listing -> listing.getSeller().getId().equals(dealer.getId()))
+                .toList();
+    }
+
+    private Statistics statistics() {
+        return testEntityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,165 @@
+package com.autotrader.autotraderbackend.service.moderation;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.JobLockRepository;
+import com.autotrader.autotraderbackend.repository.specification.CarListingSpecification;
+import com.autotrader.autotraderbackend.service.JobLockService;
+import com.autotrader.autotraderbackend.service.search.ListingChanges;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Sweeps expired listings in an in-memory database in batches of two and checks which are
+ * archived, the metrics and that a lease held by another instance skips the run.
+ */
+@DataJpaTest(properties = "app.listings.expiration.batch-size=2")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ListingExpirationSweeper.class, JobLockService.class, ListingExpirationSweeperTest.Metrics.class})
+class ListingExpirationSweeperTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private ListingExpirationSweeper sweeper;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @MockBean
+    private ListingChanges listingChanges;
+
+    private User seller;
+    private Location location;
+
+    @BeforeEach
+    void setUp() {
+        seller = testEntityManager.persist(new User("expiring_seller", "expiring@example.com", "password"));
+        location = new Location();
+        location.setDisplayNameEn("Tartus");
+        location.setDisplayNameAr("طرطوس");
+        location.setSlug("expiration-tartus");
+        location.setCountryCode("SY");
+        location = testEntityManager.persist(location);
+        testEntityManager.flush();
+    }
+
+    @Test
+    void sweep_ArchivesExpiredListingsInBatchesAndRecordsMetrics() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> expired = List.of(
+                persist(now.minusDays(3), false).getId(),
+                persist(now.minusDays(2), false).getId(),
+                persist(now.minusDays(1), false).getId(),
+                persist(now.minusMinutes(1), false).getId(),
+                persist(now.minusSeconds(1), false).getId());
+        Long future = persist(now.plusDays(1), false).getId();
+        Long noExpiry = persist(null, false).getId();
+        double archivedBefore = meterRegistry.counter("listings.expiration.archived").count();
+
+        int archived = sweeper.sweep();
+
+        assertEquals(5, archived);
+        expired.forEach(id -> assertTrue(carListingRepository.findById(id).orElseThrow().getArchived()));
+        assertFalse(carListingRepository.findById(future).orElseThrow().getArchived());
+        assertFalse(carListingRepository.findById(noExpiry).orElseThrow().getArchived());
+        // Batches of 2, 2 and 1
+        verify(listingChanges, times(3)).listingsUpdated(any());
+        assertEquals(archivedBefore + 5, meterRegistry.counter("listings.expiration.archived").count());
+        assertEquals(5, meterRegistry.get("listings.expiration.sweep.rows").summary().max());
+
+        assertEquals(0, sweeper.sweep());
+    }
+
+    @Test
+    void sweep_LeaseHeldByAnotherInstance_SkipsTheRun() {
+        Long expired = persist(LocalDateTime.now().minusDays(1), false).getId();
+        LocalDateTime now = LocalDateTime.now();
+        if (jobLockRepository.acquire(ListingExpirationSweeper.LOCK_NAME, "other-instance", now, now.plusHours(1)) == 0) {
+            jobLockRepository.insert(ListingExpirationSweeper.LOCK_NAME, "other-instance", now, now.plusHours(1));
+        }
+        double skippedBefore = meterRegistry.counter("listings.expiration.sweep.skipped").count();
+        try {
+            assertEquals(0, sweeper.sweep());
+        } finally {
+            jobLockRepository.release(ListingExpirationSweeper.LOCK_NAME, "other-instance", now);
+        }
+
+        assertFalse(carListingRepository.findById(expired).orElseThrow().getArchived());
+        assertEquals(skippedBefore + 1, meterRegistry.counter("listings.expiration.sweep.skipped").count());
+        verify(listingChanges, never()).listingsUpdated(any());
+    }
+
+    @Test
+    void isNotExpired_HidesExpiredListingsBeforeTheyAreSwept() {
+        LocalDateTime now = LocalDateTime.now();
+        Long expired = persist(now.minusHours(1), false).getId();
+        Long future = persist(now.plusHours(1), false).getId();
+        Long noExpiry = persist(null, false).getId();
+
+        List<Long> visible = carListingRepository.findAll(CarListingSpecification.isNotExpired()).stream()
+                .map(CarListing::getId)
+                .toList();
+
+        assertFalse(visible.contains(expired));
+        assertTrue(visible.containsAll(List.of(future, noExpiry)));
+    }
+
+    private CarListing persist(LocalDateTime expirationDate, boolean archived) {
+        CarListing listing = new CarListing();
+        listing.setTitle("Expiring listing");
+        listing.setBrand("Kia");
+        listing.setModel("Rio");
+        listing.setModelYear(2019);
+        listing.setMileage(42000);
+        listing.setPrice(new BigDecimal("9000"));
+        listing.setDescription("Expiration sweep test listing");
+        listing.setSeller(seller);
+        listing.setLocation(location);
+        listing.setApproved(true);
+        listing.setArchived(archived);
+        listing.setExpirationDate(expirationDate);
+        listing = testEntityManager.persist(listing);
+        testEntityManager.flush();
+        return listing;
+    }
+}
@@ -0,0 +1,181 @@
+package com.autotrader.autotraderbackend.service.moderation;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.request.BulkModerationRequest;
+import com.autotrader.autotraderbackend.payload.response.BulkModerationResponse;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.service.SavedSearchService;
+import com.autotrader.autotraderbackend.service.search.ListingChanges;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs bulk moderation against an in-memory database, in chunks of two ids, and checks the
+ * per-id outcomes, the resulting flags and what is reported to the indexes.
+ */
+@DataJpaTest(properties = {
+        "app.listings.moderation.chunk-size=2",
+        "app.listings.moderation.max-listings=5"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ListingModerationService.class)
+class ListingModerationServiceTest {
+
+    @Autowired
+    private ListingModerationService listingModerationService;
+
+    @Autowired
+    private CarListingRepository carListingRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @MockBean
+    private SavedSearchService savedSearchService;
+
+    @MockBean
+    private ListingChanges listingChanges;
+
+    private User seller;
+    private User otherSeller;
+    private Location location;
+
+    @BeforeEach
+    void setUp() {
+        seller = testEntityManager.persist(new User("moderated_seller", "moderated@example.com", "password"));
+        otherSeller = testEntityManager.persist(new User("other_seller", "other@example.com", "password"));
+        location = new Location();
+        location.setDisplayNameEn("Hama");
+        location.setDisplayNameAr("حماة");
+        location.setSlug("moderation-hama");
+        location.setCountryCode("SY");
+        location = testEntityManager.persist(location);
+        testEntityManager.flush();
+    }
+
+    @Test
+    void moderate_ApproveIds_ChangesOnlyPendingListingsAndReportsThem() {
+        Long pending = persist(seller, false, false, false).getId();
+        Long otherPending = persist(seller, false, false, false).getId();
+        Long approved = persist(seller, true, false, false).getId();
+
+        BulkModerationResponse response = moderate("approve", List.of(pending, approved, 999_999L, otherPending, pending));
+
+        assertEquals("APPROVE", response.action());
+        assertEquals(List.of(pending, otherPending), response.updated());
+        assertEquals(List.of(approved), response.unchanged());
+        assertEquals(List.of(999_999L), response.notFound());
+        assertTrue(response.conflict().isEmpty());
+        assertTrue(carListingRepository.findById(pending).orElseThrow().getApproved());
+        assertTrue(carListingRepository.findById(otherPending).orElseThrow().getApproved());
+
+        // One report per chunk that changed something, of the listings it changed
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> reported = ArgumentCaptor.forClass(Collection.class);
+        verify(listingChanges, times(2)).listingsUpdated(reported.capture());
+        assertEquals(Set.of(pending, otherPending),
+                reported.getAllValues().stream().flatMap(Collection::stream).collect(Collectors.toSet()));
+        verify(savedSearchService, times(2)).queueMatches(any());
+    }
+
+    @Test
+    void moderate_MarkSold_ReportsArchivedListingsAsConflicts() {
+        Long active = persist(seller, true, false, false).getId();
+        Long sold = persist(seller, true, true, false).getId();
+        Long archived = persist(seller, true, false, true).getId();
+
+        BulkModerationResponse response = moderate("mark-sold", List.of(active, sold, archived));
+
+        assertEquals(List.of(active), response.updated());
+        assertEquals(List.of(sold), response.unchanged());
+        assertEquals(List.of(archived), response.conflict());
+        assertFalse(carListingRepository.findById(archived).orElseThrow().getSold());
+        verify(savedSearchService, never()).queueMatches(any());
+    }
+
+    @Test
+    void moderate_ArchiveByFilter_SelectsOnlyMatchingListingsTheActionChanges() {
+        CarListing old = persist(seller, true, false, false);
+        persist(seller, true, false, true);
+        persist(otherSeller, true, false, false);
+        LocalDateTime cutoff = LocalDateTime.now().plusMinutes(1);
+
+        BulkModerationRequest request = new BulkModerationRequest();
+        request.setAction("ARCHIVE");
+        request.setSellerId(seller.getId());
+        request.setCreatedBefore(cutoff);
+        BulkModerationResponse response = listingModerationService.moderate(request);
+
+        assertEquals(List.of(old.getId()), response.updated());
+        assertTrue(response.unchanged().isEmpty());
+        assertEquals(1, carListingRepository.findAll().stream()
+                .filter(listing -> listing.getSeller().getId().equals(otherSeller.getId()))
+                .filter(listing -> !listing.getArchived())
+                .count());
+    }
+
+    @Test
+    void moderate_InvalidRequests_AreRejected() {
+        BulkModerationRequest both = new BulkModerationRequest();
+        both.setAction("archive");
+        both.setIds(List.of(1L));
+        both.setSellerId(seller.getId());
+        BulkModerationRequest neither = new BulkModerationRequest();
+        neither.setAction("archive");
+
+        assertThrows(IllegalArgumentException.class, () -> listingModerationService.moderate(both));
+        assertThrows(IllegalArgumentException.class, () -> listingModerationService.moderate(neither));
+        assertThrows(IllegalArgumentException.class, () -> moderate("publish", List.of(1L)));
+        assertThrows(IllegalArgumentException.class, () -> moderate("archive", List.of(1L, 2L, 3L, 4L, 5L, 6L)));
+    }
+
+    private BulkModerationResponse moderate(String action, List<Long> ids) {
+        BulkModerationRequest request = new BulkModerationRequest();
+        request.setAction(action);
+        request.setIds(ids);
+        return listingModerationService.moderate(request);
+    }
+
+    private CarListing persist(User owner, boolean approved, boolean sold, boolean archived) {
+        CarListing listing = new CarListing();
+        listing.setTitle("Moderated listing");
+        listing.setBrand("Kia");
+        listing.setModel("Rio");
+        listing.setModelYear(2019);
+        listing.setMileage(42000);
+        listing.setPrice(new BigDecimal("9000"));
+        listing.setDescription("Bulk moderation test listing");
+        listing.setSeller(owner);
+        listing.setLocation(location);
+        listing.setApproved(approved);
+        listing.setSold(sold);
+        listing.setArchived(archived);
+        listing = testEntityManager.persist(listing);
+        testEntityManager.flush();
+        return listing;
+    }
+}
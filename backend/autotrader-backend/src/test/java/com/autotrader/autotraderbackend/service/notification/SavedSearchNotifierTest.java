@@ -0,0 +1,118 @@
+package com.autotrader.autotraderbackend.service.notification;
+
+import com.autotrader.autotraderbackend.model.SavedSearch;
+import com.autotrader.autotraderbackend.model.SavedSearchMatch;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.repository.SavedSearchMatchRepository;
+import com.autotrader.autotraderbackend.service.JobLockService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SavedSearchNotifierTest {
+
+    @Mock
+    private SavedSearchMatchRepository savedSearchMatchRepository;
+
+    @Mock
+    private SavedSearchNotificationSender sender;
+
+    @Mock
+    private JobLockService jobLockService;
+
+    private SavedSearchNotifier notifier;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        notifier = new SavedSearchNotifier(savedSearchMatchRepository, sender, jobLockService, 3, 5, 2, 900, 600);
+        alice = user(1L, "alice");
+        bob = user(2L, "bob");
+    }
+
+    @Test
+    void deliverPending_SendsOneDigestPerUserAndDrainsTheQueue() {
+        SavedSearchMatch a1 = match(1L, alice, 100L);
+        SavedSearchMatch b1 = match(2L, bob, 100L);
+        SavedSearchMatch a2 = match(3L, alice, 101L);
+        SavedSearchMatch b2 = match(4L, bob, 102L);
+        when(jobLockService.tryAcquire(eq(SavedSearchNotifier.LOCK_NAME), any())).thenReturn(true);
+        when(savedSearchMatchRepository.findPending(any(), any()))
+                .thenReturn(List.of(a1, b1, a2))
+                .thenReturn(List.of(b2));
+
+        assertEquals(4, notifier.deliverPending());
+
+        verify(sender).send(alice, List.of(a1, a2));
+        verify(sender).send(bob, List.of(b1));
+        verify(sender).send(bob, List.of(b2));
+        verify(savedSearchMatchRepository).markDelivered(eq(List.of(1L, 3L, 2L)), any());
+        verify(savedSearchMatchRepository).markDelivered(eq(List.of(4L)), any());
+        verify(savedSearchMatchRepository, times(2)).findPending(any(), any());
+        verify(jobLockService).release(SavedSearchNotifier.LOCK_NAME);
+    }
+
+    @Test
+    void deliverPending_FailedDigest_IsPostponedAndLaterBatchesAreStillDelivered() {
+        User carol = user(3L, "carol");
+        SavedSearchMatch a1 = match(1L, alice, 100L);
+        SavedSearchMatch b1 = match(2L, bob, 100L);
+        SavedSearchMatch a2 = match(3L, alice, 101L);
+        SavedSearchMatch c1 = match(4L, carol, 102L);
+        when(jobLockService.tryAcquire(eq(SavedSearchNotifier.LOCK_NAME), any())).thenReturn(true);
+        // Alice's matches are postponed, so the second read starts after them
+        when(savedSearchMatchRepository.findPending(any(), any()))
+                .thenReturn(List.of(a1, b1, a2))
+                .thenReturn(List.of(c1));
+        doThrow(new IllegalStateException("mailbox full")).when(sender).send(eq(alice), any());
+
+        assertEquals(2, notifier.deliverPending());
+
+        verify(savedSearchMatchRepository).markDelivered(eq(List.of(2L)), any());
+        verify(savedSearchMatchRepository).markDelivered(eq(List.of(4L)), any());
+        ArgumentCaptor<LocalDateTime> retryAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(savedSearchMatchRepository).markAttemptFailed(eq(List.of(1L, 3L)), retryAt.capture());
+        assertTrue(retryAt.getValue().isAfter(LocalDateTime.now().plusMinutes(14)));
+        verify(savedSearchMatchRepository).markFailed(eq(List.of(1L, 3L)), eq(2), any());
+    }
+
+    @Test
+    void deliverPending_LeaseHeldByAnotherInstance_DeliversNothing() {
+        when(jobLockService.tryAcquire(eq(SavedSearchNotifier.LOCK_NAME), any())).thenReturn(false);
+
+        assertEquals(0, notifier.deliverPending());
+
+        verifyNoInteractions(savedSearchMatchRepository, sender);
+        verify(jobLockService, never()).release(any());
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+
+    private static SavedSearchMatch match(Long id, User owner, Long listingId) {
+        SavedSearch search = new SavedSearch();
+        search.setUser(owner);
+        search.setUserId(owner.getId());
+        SavedSearchMatch match = new SavedSearchMatch(search, listingId);
+        match.setId(id);
+        return match;
+    }
+}
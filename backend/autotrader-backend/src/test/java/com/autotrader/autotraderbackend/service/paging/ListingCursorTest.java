@@ -0,0 +1,64 @@
+package com.autotrader.autotraderbackend.service.paging;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.service.SortableCarListingField;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListingCursorTest {
+
+    @Test
+    void encodeDecode_RoundTripsEverySortableField() {
+        CarListing listing = new CarListing();
+        listing.setId(42L);
+        listing.setPrice(new BigDecimal("18500.50"));
+        listing.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 30, 15));
+        Location location = new Location();
+        location.setId(7L);
+        listing.setLocation(location);
+
+        for (SortableCarListingField field : SortableCarListingField.values()) {
+            ListingCursor cursor = ListingCursor.after(listing, field, Sort.Direction.DESC);
+
+            ListingCursor decoded = ListingCursor.decode(cursor.encode());
+
+            assertEquals(field, decoded.getField());
+            assertEquals(Sort.Direction.DESC, decoded.getDirection());
+            assertEquals(42L, decoded.getLastId());
+            assertEquals(field.extractValue(listing), decoded.getValue());
+        }
+    }
+
+    @Test
+    void after_ListingWithoutLocation_UsesZeroLocationKey() {
+        CarListing listing = new CarListing();
+        listing.setId(3L);
+
+        ListingCursor cursor = ListingCursor.after(listing, SortableCarListingField.LOCATION_ID, Sort.Direction.ASC);
+
+        assertEquals(0L, ListingCursor.decode(cursor.encode()).getValue());
+    }
+
+    @Test
+    void encode_ProducesUrlSafeToken() {
+        CarListing listing = new CarListing();
+        listing.setId(1L);
+        listing.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+
+        String token = ListingCursor.after(listing, SortableCarListingField.CREATED_AT, Sort.Direction.ASC).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), "Token should only contain URL-safe characters: " + token);
+    }
+
+    @Test
+    void decode_GarbageToken_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> ListingCursor.decode("not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> ListingCursor.decode("%%%"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeohashTest {
+
+    @Test
+    void encode_KnownPoints() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("svc", Geohash.encode(33.5138, 36.2765, 3));
+        assertEquals("7zzzzzzzzzzz", Geohash.encode(-0.0000001, -0.0000001, 12));
+    }
+
+    @Test
+    void encode_ShorterPrecision_IsAPrefix() {
+        String fine = Geohash.encode(36.2021, 37.1343, Geohash.MAX_PRECISION);
+
+        for (int precision = 1; precision < Geohash.MAX_PRECISION; precision++) {
+            assertEquals(fine.substring(0, precision), Geohash.encode(36.2021, 37.1343, precision));
+        }
+    }
+
+    @Test
+    void encode_OutOfRange_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> Geohash.encode(90.5, 0, 5));
+        assertThrows(IllegalArgumentException.class, () -> Geohash.encode(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> Geohash.encode(0, 0, 13));
+    }
+}
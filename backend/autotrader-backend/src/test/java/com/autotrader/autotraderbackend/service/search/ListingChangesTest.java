@@ -0,0 +1,121 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListingChangesTest {
+
+    @Mock
+    private CarListingRepository carListingRepository;
+
+    @Mock
+    private ListingResultCache listingResultCache;
+
+    @Mock
+    private ListingSearchIndex listingSearchIndex;
+
+    @Mock
+    private ListingLocationCounts listingLocationCounts;
+
+    @Test
+    void listingSaved_ReachesEveryListenerWithTheResultCacheLast() {
+        ListingChanges changes = new ListingChanges(carListingRepository,
+                List.of(listingResultCache, listingSearchIndex, listingLocationCounts));
+        CarListing listing = new CarListing();
+        listing.setId(1L);
+
+        changes.listingChanging(listing);
+        changes.listingSaved(listing);
+        changes.listingDeleted(listing);
+
+        InOrder order = inOrder(listingSearchIndex, listingLocationCounts, listingResultCache);
+        order.verify(listingSearchIndex).onListingSaved(listing);
+        order.verify(listingLocationCounts).onListingSaved(listing);
+        order.verify(listingResultCache).onListingSaved(listing);
+        order.verify(listingSearchIndex).onListingDeleted(listing);
+        order.verify(listingLocationCounts).onListingDeleted(listing);
+        order.verify(listingResultCache).onListingDeleted(listing);
+        verify(listingResultCache).onListingChanging(listing);
+    }
+
+    @Test
+    void listingsUpdated_ReadsTheRowsOnceForAllListeners() {
+        ListingChanges changes = new ListingChanges(carListingRepository,
+                List.of(listingSearchIndex, listingResultCache, listingLocationCounts));
+        List<ListingIndexRow> rows = List.of(new ListingIndexRow(2L, "Honda", "Civic", null, null, null, 2020, 10_000,
+                new BigDecimal("21000"), null, null, true, false, true, true, null));
+        when(carListingRepository.findIndexRowsByIdIn(List.of(2L, 3L))).thenReturn(rows);
+
+        changes.listingsUpdated(List.of(2L, 3L));
+        changes.listingsUpdated(List.of());
+
+        verify(carListingRepository, times(1)).findIndexRowsByIdIn(any());
+        verify(listingSearchIndex).onListingsUpdated(rows);
+        verify(listingResultCache).onListingsUpdated(rows);
+        verify(listingLocationCounts).onListingsUpdated(rows);
+    }
+
+    @Test
+    void listingSaved_WithoutId_IsIgnored() {
+        ListingChanges changes = new ListingChanges(carListingRepository, List.of(listingSearchIndex));
+
+        changes.listingSaved(new CarListing());
+        changes.listingDeleted(null);
+
+        verifyNoInteractions(listingSearchIndex);
+        verify(carListingRepository, never()).findIndexRowsByIdIn(any());
+    }
+
+    @Test
+    void reconcile_ReadsIdsThenChangedRowsOnceForAllListeners_AndMovesTheWindowForward() {
+        LocalDateTime beforeStartup = LocalDateTime.now();
+        ListingChanges changes = new ListingChanges(carListingRepository,
+                List.of(listingSearchIndex, listingResultCache, listingLocationCounts));
+        LocalDateTime afterStartup = LocalDateTime.now();
+        List<ListingIndexRow> rows = List.of(new ListingIndexRow(2L, "Honda", "Civic", null, null, null, 2020, 10_000,
+                new BigDecimal("21000"), null, null, true, false, false, true, null));
+        when(carListingRepository.findAllIds()).thenReturn(List.of(1L, 2L));
+        when(carListingRepository.findIndexRowsChangedSince(any())).thenReturn(rows, List.of());
+
+        assertEquals(1, changes.reconcile());
+        LocalDateTime secondStarted = LocalDateTime.now();
+        assertEquals(0, changes.reconcile());
+
+        InOrder order = inOrder(carListingRepository);
+        order.verify(carListingRepository).findAllIds();
+        order.verify(carListingRepository).findIndexRowsChangedSince(any());
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(carListingRepository, times(2)).findIndexRowsChangedSince(since.capture());
+        // The first reconcile reaches back to startup, the second to the start of the first
+        assertFalse(since.getAllValues().get(0).isBefore(beforeStartup.minus(ListingChanges.RECONCILE_OVERLAP)));
+        assertFalse(since.getAllValues().get(0).isAfter(afterStartup.minus(ListingChanges.RECONCILE_OVERLAP)));
+        assertFalse(since.getAllValues().get(1).isBefore(afterStartup.minus(ListingChanges.RECONCILE_OVERLAP)));
+        assertFalse(since.getAllValues().get(1).isAfter(secondStarted.minus(ListingChanges.RECONCILE_OVERLAP)));
+        verify(listingSearchIndex).onListingsReconciled(rows, Set.of(1L, 2L));
+        verify(listingResultCache).onListingsReconciled(rows, Set.of(1L, 2L));
+        verify(listingLocationCounts).onListingsReconciled(rows, Set.of(1L, 2L));
+    }
+}
@@ -0,0 +1,195 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse.LocationCount;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse.PriceRangeCount;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse.ValueCount;
+import com.autotrader.autotraderbackend.payload.response.ListingFacetsResponse.YearRangeCount;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import com.autotrader.autotraderbackend.repository.specification.CatalogFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListingColumnsTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private ListingColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new ListingColumns(0);
+        columns.upsert(row(1L, "Toyota", "Camry", "15000.00", 10L, 1, true, false, false, true));
+        columns.upsert(row(2L, "Toyota", "Corolla", "9000.50", 20L, 2, true, false, false, true));
+        columns.upsert(row(3L, "Honda", "Civic", "12000.00", 10L, 3, true, false, false, true));
+        columns.upsert(row(4L, "Toyota", "Supra", "15000.00", null, 4, true, false, false, true));
+        columns.upsert(row(5L, "Toyota", "Yaris", "7000.00", 10L, 5, false, false, false, true)); // not approved
+        columns.upsert(row(6L, "Toyota", "Hilux", "8000.00", 10L, 6, true, true, false, true));   // sold
+        columns.upsert(row(7L, "Toyota", "Prado", "8000.00", 10L, 7, true, false, false, false)); // paused by seller
+    }
+
+    @Test
+    void search_DefaultFilter_ReturnsApprovedUnsoldActiveListingsNewestFirst() {
+        ListingSearchHits hits = search(new ListingFilterRequest(), null, Sort.by("createdAt").descending(), 0, 10);
+
+        assertEquals(List.of(4L, 3L, 2L, 1L), hits.ids());
+        assertEquals(4, hits.total());
+    }
+
+    @Test
+    void search_BrandContainsAndPriceRange_MatchesLikeTheDatabaseFilter() {
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setBrand("yot");
+        filter.setMinPrice(new BigDecimal("9000.50"));
+        filter.setMaxPrice(new BigDecimal("15000"));
+
+        ListingSearchHits hits = search(filter, null, Sort.by("price").ascending(), 0, 10);
+
+        assertEquals(List.of(2L, 1L, 4L), hits.ids());
+    }
+
+    @Test
+    void search_SoldRequested_ReturnsOnlySoldListings() {
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setIsSold(true);
+
+        ListingSearchHits hits = search(filter, null, Sort.by("createdAt"), 0, 10);
+
+        assertEquals(List.of(6L), hits.ids());
+    }
+
+    @Test
+    void search_ByLocation_ExcludesOtherAndMissingLocations() {
+        ListingSearchHits hits = search(new ListingFilterRequest(), 10L, Sort.by("createdAt"), 0, 10);
+
+        assertEquals(List.of(1L, 3L), hits.ids());
+    }
+
+    @Test
+    void search_PriceDescending_BreaksTiesByIdInSameDirectionAndPages() {
+        Sort sort = Sort.by("price").descending();
+
+        ListingSearchHits first = search(new ListingFilterRequest(), null, sort, 0, 2);
+        ListingSearchHits second = search(new ListingFilterRequest(), null, sort, 2, 2);
+
+        assertEquals(List.of(4L, 1L), first.ids());
+        assertEquals(List.of(3L, 2L), second.ids());
+        assertEquals(4, second.total());
+    }
+
+    @Test
+    void search_OffsetBeyondMatches_ReturnsEmptyPageWithTotal() {
+        ListingSearchHits hits = search(new ListingFilterRequest(), null, Sort.by("price"), 10, 5);
+
+        assertTrue(hits.ids().isEmpty());
+        assertEquals(4, hits.total());
+    }
+
+    @Test
+    void upsertAndRemove_ReflectLatestListingState() {
+        columns.upsert(row(1L, "Toyota", "Camry", "15000.00", 10L, 1, true, true, false, true));
+        columns.remove(2L);
+
+        ListingSearchHits hits = search(new ListingFilterRequest(), null, Sort.by("createdAt"), 0, 10);
+
+        assertEquals(List.of(3L, 4L), hits.ids());
+    }
+
+    @Test
+    void retainAll_RemovesTheListingsNotKept() {
+        int removed = columns.retainAll(id -> id != 2L && id != 3L);
+
+        ListingSearchHits hits = search(new ListingFilterRequest(), null, Sort.by("createdAt"), 0, 10);
+
+        assertEquals(2, removed);
+        assertEquals(List.of(1L, 4L), hits.ids());
+        assertEquals(5, columns.liveCount());
+    }
+
+    @Test
+    void search_UnsupportedSortField_ReturnsEmpty() {
+        Optional<ListingSearchHits> hits = columns.search(new ListingFilterRequest(), null, CatalogFilter.NONE, Sort.by("title"), 0, 10);
+
+        assertTrue(hits.isEmpty());
+    }
+
+    @Test
+    void search_ByCatalogIds_MatchesLinkedListingsOnly() {
+        columns.upsert(new ListingIndexRow(8L, "Toyota", "Camry", 1L, 11L, 111L, 2020, 50000, new BigDecimal("15000"), null,
+                BASE_TIME.plusMinutes(8), true, false, false, true, null));
+        columns.upsert(new ListingIndexRow(9L, "Honda", "Civic", 2L, 21L, null, 2020, 50000, new BigDecimal("12000"), null,
+                BASE_TIME.plusMinutes(9), true, false, false, true, null));
+        Sort sort = Sort.by("createdAt");
+
+        ListingSearchHits byBrands = columns.search(new ListingFilterRequest(), null, new CatalogFilter(Set.of(1L, 2L), null, null), sort, 0, 10).orElseThrow();
+        ListingSearchHits byModelAndTrim = columns.search(new ListingFilterRequest(), null, new CatalogFilter(null, Set.of(11L), Set.of(111L)), sort, 0, 10).orElseThrow();
+        ListingSearchHits none = columns.search(new ListingFilterRequest(), null, new CatalogFilter(Set.of(), null, null), sort, 0, 10).orElseThrow();
+
+        assertEquals(List.of(8L, 9L), byBrands.ids());
+        assertEquals(List.of(8L), byModelAndTrim.ids());
+        assertEquals(0, none.total());
+    }
+
+    @Test
+    void countFacets_CountsMatchingListingsPerFacetInOnePass() {
+        columns.upsert(row(8L, "TOYOTA", "Camry", "4999.99", 20L, 8, true, false, false, true));
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setBrand("toyota");
+        ListingFacetCounter counter = new ListingFacetCounter();
+
+        columns.countFacets(filter, null, CatalogFilter.NONE, counter);
+        ListingFacetsResponse facets = counter.toResponse("v1", Map.of());
+
+        assertEquals(4, facets.total());
+        // Brands merge case-insensitively under the first spelling seen
+        assertEquals(List.of(new ValueCount("Toyota", 4)), facets.brands());
+        assertEquals(new ValueCount("Camry", 2), facets.models().get(0));
+        assertEquals(List.of(new LocationCount(20L, null, null, null, 2), new LocationCount(10L, null, null, null, 1)), facets.locations());
+        assertEquals(List.of(new YearRangeCount(2020, 2024, 4)), facets.years());
+        assertEquals(List.of(
+                new PriceRangeCount(BigDecimal.ZERO, new BigDecimal("4999.99"), 1),
+                new PriceRangeCount(new BigDecimal("5000"), new BigDecimal("9999.99"), 1),
+                new PriceRangeCount(new BigDecimal("10000"), new BigDecimal("19999.99"), 2)), facets.prices());
+    }
+
+    @Test
+    void search_ExpiredListings_AreLeftOutUnlessArchivedOnesAreAsked() {
+        LocalDateTime now = LocalDateTime.now();
+        columns.upsert(new ListingIndexRow(8L, "Kia", "Rio", null, null, null, 2020, 50000, new BigDecimal("5000"), null,
+                BASE_TIME, true, false, false, true, now.minusMinutes(1)));
+        columns.upsert(new ListingIndexRow(9L, "Kia", "Rio", null, null, null, 2020, 50000, new BigDecimal("5000"), null,
+                BASE_TIME, true, false, false, true, now.plusDays(1)));
+        columns.upsert(new ListingIndexRow(10L, "Kia", "Rio", null, null, null, 2020, 50000, new BigDecimal("5000"), null,
+                BASE_TIME, true, false, true, true, now.minusDays(1)));
+        ListingFilterRequest filter = new ListingFilterRequest();
+        filter.setBrand("kia");
+        ListingFilterRequest archived = new ListingFilterRequest();
+        archived.setBrand("kia");
+        archived.setIsArchived(true);
+
+        assertEquals(List.of(9L), search(filter, null, Sort.by("createdAt"), 0, 10).ids());
+        assertEquals(List.of(10L), search(archived, null, Sort.by("createdAt"), 0, 10).ids());
+    }
+
+    private ListingSearchHits search(ListingFilterRequest filter, Long locationId, Sort sort, long offset, int limit) {
+        return columns.search(filter, locationId, CatalogFilter.NONE, sort, offset, limit).orElseThrow();
+    }
+
+    private static ListingIndexRow row(Long id, String brand, String model, String price, Long locationId, int ageRank,
+                                       boolean approved, boolean sold, boolean archived, boolean userActive) {
+        return new ListingIndexRow(id, brand, model, null, null, null, 2020, 50000, new BigDecimal(price), locationId,
+                BASE_TIME.plusMinutes(ageRank), approved, sold, archived, userActive, null);
+    }
+}
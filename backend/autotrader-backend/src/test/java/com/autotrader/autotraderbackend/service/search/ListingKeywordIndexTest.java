@@ -0,0 +1,139 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingTextRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListingKeywordIndexTest {
+
+    @Mock
+    private CarListingRepository carListingRepository;
+
+    private ListingKeywordIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ListingKeywordIndex(carListingRepository, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    void search_BeforeRebuild_ReturnsNoMatches() {
+        assertTrue(index.search("camry").isEmpty());
+    }
+
+    @Test
+    void search_RanksTitleMatchesAboveDescriptionMatches() {
+        rebuildWithSampleListings();
+
+        assertEquals(List.of(1L, 3L), index.search("Camry"));
+    }
+
+    @Test
+    void search_RequiresEveryTermInSomeField() {
+        rebuildWithSampleListings();
+
+        assertEquals(List.of(1L), index.search("camry automatic"));
+    }
+
+    @Test
+    void search_ArabicKeyword_MatchesNormalizedAndStemmedText() {
+        rebuildWithSampleListings();
+
+        assertEquals(List.of(2L), index.search("كامري ٢٠١٨ اوتوماتيك"));
+        assertEquals(List.of(2L), index.search("سيارة"));
+    }
+
+    @Test
+    void search_OnlyStopWords_ReturnsNoMatches() {
+        rebuildWithSampleListings();
+
+        assertTrue(index.search("the").isEmpty());
+    }
+
+    @Test
+    void onListingSavedAndDeleted_OutsideTransaction_ApplyImmediately() {
+        rebuildWithSampleListings();
+        CarListing hybrid = new CarListing();
+        hybrid.setId(4L);
+        hybrid.setTitle("Camry Hybrid");
+
+        CarListing deleted = new CarListing();
+        deleted.setId(1L);
+
+        index.onListingSaved(hybrid);
+        index.onListingDeleted(deleted);
+
+        assertEquals(List.of(4L), index.search("hybrid"));
+        assertEquals(List.of(4L, 3L), index.search("camry"));
+    }
+
+    @Test
+    void search_WithFilter_ReadsPastRejectedMatchesUntilTheCapIsFilled() throws IOException {
+        ListingKeywordIndex capped = new ListingKeywordIndex(carListingRepository, 2);
+        try {
+            when(carListingRepository.findAllTextRows()).thenReturn(LongStream.rangeClosed(1, 5)
+                    .mapToObj(id -> new ListingTextRow(id, "Toyota Camry", "Toyota", "Camry", 2018, null, null, null))
+                    .toList());
+            capped.rebuild();
+            Set<Long> visible = Set.of(2L, 4L, 5L);
+
+            // Equal scores rank in index order; without the filter the cap keeps only 1 and 2
+            assertEquals(List.of(1L, 2L), capped.search("camry"));
+            assertEquals(List.of(2L, 4L), capped.search("camry", ids -> ids.stream().filter(visible::contains).toList()));
+            assertEquals(List.of(), capped.search("camry", ids -> List.of()));
+        } finally {
+            capped.close();
+        }
+    }
+
+    @Test
+    void reconcile_IndexesListingsWrittenElsewhere() {
+        assertEquals(0, index.reconcile());
+        verifyNoMoreInteractions(carListingRepository);
+
+        rebuildWithSampleListings();
+        when(carListingRepository.findTextRowsChangedSince(any(LocalDateTime.class))).thenReturn(List.of(
+                new ListingTextRow(1L, "Toyota Corolla 2018", "Toyota", "Corolla", 2018, null, null, null),
+                new ListingTextRow(4L, "Kia Rio", "Kia", "Rio", 2019, null, null, "Camry-like comfort")));
+
+        assertEquals(2, index.reconcile());
+
+        assertEquals(List.of(1L), index.search("corolla"));
+        // Listing 1 no longer mentions a camry
+        assertEquals(Set.of(3L, 4L), Set.copyOf(index.search("camry")));
+        verify(carListingRepository).findTextRowsChangedSince(any(LocalDateTime.class));
+    }
+
+    private void rebuildWithSampleListings() {
+        when(carListingRepository.findAllTextRows()).thenReturn(List.of(
+                new ListingTextRow(1L, "Toyota Camry 2018", "Toyota", "Camry", 2018, "Automatic", "White", "Clean car, one owner"),
+                new ListingTextRow(2L, "تويوتا كامري ٢٠١٨", "تويوتا", "كامري", 2018, null, null, "السيارة أوتوماتيك نظيفة"),
+                new ListingTextRow(3L, "Honda Civic", "Honda", "Civic", 2016, "Manual", null, "Drives as smoothly as a camry")));
+        index.rebuild();
+    }
+}
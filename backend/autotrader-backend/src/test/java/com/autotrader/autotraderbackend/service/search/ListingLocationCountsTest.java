@@ -0,0 +1,174 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingLocationRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListingLocationCountsTest {
+
+    @Mock
+    private CarListingRepository carListingRepository;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 10, 12, 0);
+
+    private MutableClock clock;
+    private ListingLocationCounts counts;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW.toInstant(ZoneOffset.UTC));
+        counts = new ListingLocationCounts(carListingRepository, clock);
+        when(carListingRepository.findPublicLocationRows()).thenReturn(List.of(
+                new ListingLocationRow(1L, 10L, null),
+                new ListingLocationRow(2L, 10L, NOW.plusHours(1)),
+                new ListingLocationRow(3L, 20L, null),
+                new ListingLocationRow(4L, 20L, NOW.minusHours(1))));
+    }
+
+    @Test
+    void snapshot_BuildsOnFirstUse() {
+        assertEquals(Map.of(10L, 2L, 20L, 1L), counts.snapshot());
+        assertEquals(Map.of(10L, 2L, 20L, 1L), counts.snapshot());
+        verify(carListingRepository, times(1)).findPublicLocationRows();
+    }
+
+    @Test
+    void onListingSaved_MovedListing_IsCountedAtItsNewLocationOnly() {
+        counts.rebuild();
+
+        counts.onListingSaved(listing(3L, 10L, true));
+
+        assertEquals(Map.of(10L, 3L), counts.snapshot());
+    }
+
+    @Test
+    void onListingSaved_HiddenOrNewListings_UpdateTheCounts() {
+        counts.rebuild();
+        CarListing sold = listing(1L, 10L, true);
+        sold.setSold(true);
+
+        counts.onListingSaved(sold);
+        counts.onListingSaved(listing(4L, 30L, true));
+        counts.onListingSaved(listing(5L, 30L, false));
+
+        assertEquals(Map.of(10L, 1L, 20L, 1L, 30L, 1L), counts.snapshot());
+    }
+
+    @Test
+    void onListingsUpdated_RecountsEveryRow() {
+        counts.rebuild();
+
+        counts.onListingsUpdated(List.of(row(1L, 10L, true, true), row(4L, 30L, true, false), row(5L, 30L, false, false)));
+
+        assertEquals(Map.of(10L, 1L, 20L, 1L, 30L, 1L), counts.snapshot());
+    }
+
+    @Test
+    void onListingDeleted_DropsTheListingAndEmptyLocations() {
+        counts.rebuild();
+
+        counts.onListingDeleted(listing(3L, 20L, true));
+        counts.onListingDeleted(listing(99L, 10L, true));
+
+        assertEquals(Map.of(10L, 2L), counts.snapshot());
+    }
+
+    @Test
+    void onListingsReconciled_RecountsChangedRowsAndDropsDeletedListings() {
+        counts.rebuild();
+
+        // 3 was deleted elsewhere; 5 was inserted after the ids were read
+        counts.onListingsReconciled(List.of(row(1L, 10L, true, true), row(5L, 30L, true, false)), Set.of(1L, 2L, 4L));
+
+        assertEquals(Map.of(10L, 1L, 30L, 1L), counts.snapshot());
+    }
+
+    @Test
+    void snapshot_ListingsPastTheirExpirationDate_AreNotCounted() {
+        counts.rebuild();
+        assertEquals(Map.of(10L, 2L, 20L, 1L), counts.snapshot());
+
+        clock.advance(Duration.ofHours(1));
+        assertEquals(Map.of(10L, 1L, 20L, 1L), counts.snapshot());
+    }
+
+    @Test
+    void onListingSaved_ExpirationDateMoved_CountsUntilTheNewDate() {
+        counts.rebuild();
+        CarListing extended = listing(2L, 10L, true);
+        extended.setExpirationDate(NOW.plusHours(3));
+        CarListing expired = listing(3L, 20L, true);
+        expired.setExpirationDate(NOW.minusMinutes(1));
+
+        counts.onListingSaved(extended);
+        counts.onListingSaved(expired);
+        clock.advance(Duration.ofHours(2));
+
+        assertEquals(Map.of(10L, 2L), counts.snapshot());
+    }
+
+    private static CarListing listing(Long id, Long locationId, boolean approved) {
+        CarListing listing = new CarListing();
+        listing.setId(id);
+        listing.setApproved(approved);
+        Location location = new Location();
+        location.setId(locationId);
+        listing.setLocation(location);
+        return listing;
+    }
+
+    private static ListingIndexRow row(Long id, Long locationId, boolean approved, boolean archived) {
+        return new ListingIndexRow(id, "Kia", "Rio", null, null, null, 2019, 1000, null, locationId, null,
+                approved, false, archived, true, null);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarBrand;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListingResultCacheTest {
+
+    private static final ListingSearchHits HITS = new ListingSearchHits(List.of(1L, 2L), 2);
+
+    private final Clock clock = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+    private ListingResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ListingResultCache(10, 60, clock);
+    }
+
+    @Test
+    void keyFor_SameFilterDifferentCase_SharesKeyButNotAcrossPagesOrSorts() {
+        ListingFilterRequest upper = new ListingFilterRequest();
+        upper.setBrand("Toyota");
+        ListingFilterRequest lower = new ListingFilterRequest();
+        lower.setBrand(" toyota ");
+        Pageable firstPage = PageRequest.of(0, 20);
+
+        assertEquals(cache.keyFor(upper, firstPage), cache.keyFor(lower, firstPage));
+        assertNotEquals(cache.keyFor(upper, firstPage), cache.keyFor(upper, PageRequest.of(1, 20)));
+        assertNotEquals(cache.keyFor(upper, firstPage), cache.keyFor(upper, PageRequest.of(0, 20, Sort.by("price"))));
+        assertNull(cache.keyFor(upper, Pageable.unpaged()));
+        assertNull(new ListingResultCache(0, 60, clock).keyFor(upper, firstPage));
+    }
+
+    @Test
+    void onListingSaved_EvictsOnlyEntriesMatchingBrandAndLocation() {
+        cache.put("all", HITS, null, null, null, cache.stamp());
+        cache.put("toyota", HITS, Set.of(1L), null, null, cache.stamp());
+        cache.put("honda", HITS, Set.of(2L), null, null, cache.stamp());
+        cache.put("toyota-city5", HITS, Set.of(1L), null, 5L, cache.stamp());
+        cache.put("toyota-city6", HITS, Set.of(1L), null, 6L, cache.stamp());
+        cache.put("city6", HITS, null, null, 6L, cache.stamp());
+
+        cache.onListingSaved(listing(1L, "Toyota", 5L));
+
+        assertTrue(cache.get("all").isEmpty());
+        assertTrue(cache.get("toyota").isEmpty());
+        assertTrue(cache.get("toyota-city5").isEmpty());
+        assertTrue(cache.get("honda").isPresent());
+        assertTrue(cache.get("toyota-city6").isPresent());
+        assertTrue(cache.get("city6").isPresent());
+    }
+
+    @Test
+    void onListingSaved_BrandTextEntries_EvictedWhenTheListingBrandContainsIt() {
+        cache.put("toy", HITS, null, "Toy", null, cache.stamp());
+        cache.put("kia", HITS, null, "kia", null, cache.stamp());
+
+        cache.onListingSaved(listing(null, "TOYOTA", null));
+
+        assertTrue(cache.get("toy").isEmpty());
+        assertTrue(cache.get("kia").isPresent());
+    }
+
+    @Test
+    void put_AfterAnEvictionSinceTheStamp_IsSkipped() {
+        long stamp = cache.stamp();
+        cache.onListingSaved(listing(1L, "Toyota", 5L));
+
+        cache.put("toyota", HITS, Set.of(1L), null, null, stamp);
+
+        assertTrue(cache.get("toyota").isEmpty());
+    }
+
+    @Test
+    void put_BeyondMaxEntries_DropsLeastRecentlyUsed() {
+        ListingResultCache small = new ListingResultCache(2, 60, clock);
+        small.put("a", HITS, null, null, null, small.stamp());
+        small.put("b", HITS, null, null, null, small.stamp());
+        small.get("a");
+
+        small.put("c", HITS, null, null, null, small.stamp());
+
+        assertEquals(2, small.size());
+        assertTrue(small.get("a").isPresent());
+        assertTrue(small.get("b").isEmpty());
+    }
+
+    @Test
+    void get_AfterTtl_IsAMiss() {
+        ListingResultCache expiring = new ListingResultCache(10, 0, clock);
+        expiring.put("a", HITS, null, null, null, expiring.stamp());
+
+        assertTrue(expiring.get("a").isEmpty());
+    }
+
+    private static CarListing listing(Long brandId, String brand, Long locationId) {
+        CarListing listing = new CarListing();
+        listing.setBrand(brand);
+        if (brandId != null) {
+            CarBrand carBrand = new CarBrand();
+            carBrand.setId(brandId);
+            listing.setCarBrand(carBrand);
+        }
+        if (locationId != null) {
+            Location location = new Location();
+            location.setId(locationId);
+            listing.setLocation(location);
+        }
+        return listing;
+    }
+}
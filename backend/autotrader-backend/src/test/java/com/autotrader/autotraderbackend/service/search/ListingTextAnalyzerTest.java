@@ -0,0 +1,52 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListingTextAnalyzerTest {
+
+    private final ListingTextAnalyzer analyzer = new ListingTextAnalyzer();
+
+    @AfterEach
+    void tearDown() {
+        analyzer.close();
+    }
+
+    @Test
+    void terms_ArabicAlefVariantsAndDiacritics_AreNormalized() {
+        assertEquals(terms("اوتوماتيك"), terms("أوتوماتيك"));
+        assertEquals(terms("كامري"), terms("كَامْرِي"));
+    }
+
+    @Test
+    void terms_ArabicTaaMarbutaAndDefiniteArticle_MatchBareForm() {
+        assertEquals(terms("سياره"), terms("سيارة"));
+        assertEquals(terms("سيارة"), terms("السيارة"));
+    }
+
+    @Test
+    void terms_ArabicIndicDigits_BecomeAsciiDigits() {
+        assertEquals(List.of("2018"), terms("٢٠١٨"));
+    }
+
+    @Test
+    void terms_EnglishWords_AreStemmedAndStopWordsDropped() {
+        assertEquals(terms("car"), terms("The cars"));
+        assertEquals(terms("automatic"), terms("automatics"));
+        assertEquals(terms("toyota"), terms("Toyota's"));
+    }
+
+    @Test
+    void terms_OnlyStopWordsAndPunctuation_ReturnsEmpty() {
+        assertTrue(terms("the, and ... في").isEmpty());
+    }
+
+    private List<String> terms(String text) {
+        return analyzer.terms("description", text);
+    }
+}
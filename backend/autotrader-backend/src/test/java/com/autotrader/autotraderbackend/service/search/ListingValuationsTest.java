@@ -0,0 +1,167 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.payload.response.ValuationResponse;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingPriceRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListingValuationsTest {
+
+    @Mock
+    private CarListingRepository carListingRepository;
+
+    private ListingValuations valuations;
+
+    @BeforeEach
+    void setUp() {
+        valuations = new ListingValuations(carListingRepository, 25_000, 5, 2);
+    }
+
+    @Test
+    void estimate_EnoughPricesInTheCell_ReportsTheirQuartiles() {
+        List<ListingPriceRow> rows = new ArrayList<>();
+        for (int i = 1; i <= 9; i++) {
+            rows.add(new ListingPriceRow((long) i, "Toyota", "Corolla", 2018, 60_000, BigDecimal.valueOf(i * 1_000L + 10_000)));
+        }
+        // Other cells
+        rows.add(new ListingPriceRow(20L, "Toyota", "Corolla", 2018, 120_000, new BigDecimal("5000")));
+        rows.add(new ListingPriceRow(21L, "Toyota", "Camry", 2018, 60_000, new BigDecimal("30000")));
+        when(carListingRepository.findValuationRows()).thenReturn(rows);
+        valuations.rebuild();
+
+        ValuationResponse valuation = valuations.estimate(" toyota ", "COROLLA", 2018, 55_000);
+
+        assertEquals("toyota", valuation.brand());
+        assertEquals(2018, valuation.yearFrom());
+        assertEquals(2018, valuation.yearTo());
+        assertEquals(50_000, valuation.mileageFrom());
+        assertEquals(75_000, valuation.mileageTo());
+        assertEquals(9, valuation.count());
+        assertWithinAccuracy(13_000, valuation.p25());
+        assertWithinAccuracy(15_000, valuation.median());
+        assertWithinAccuracy(17_000, valuation.p75());
+        // Without mileage, all bands of the year count
+        assertEquals(10, valuations.estimate("Toyota", "Corolla", 2018, null).count());
+    }
+
+    @Test
+    void estimate_TooFewPrices_WidensYearsAndMileageBands() {
+        when(carListingRepository.findValuationRows()).thenReturn(List.of(
+                new ListingPriceRow(1L, "Kia", "Rio", 2015, 80_000, new BigDecimal("7000")),
+                new ListingPriceRow(2L, "Kia", "Rio", 2015, 80_000, new BigDecimal("7200")),
+                new ListingPriceRow(3L, "Kia", "Rio", 2016, 60_000, new BigDecimal("7500")),
+                new ListingPriceRow(4L, "Kia", "Rio", 2014, 99_000, new BigDecimal("6500")),
+                new ListingPriceRow(5L, "Kia", "Rio", 2016, 101_000, new BigDecimal("7100")),
+                new ListingPriceRow(6L, "Kia", "Rio", 2019, 80_000, new BigDecimal("9900"))));
+        valuations.rebuild();
+
+        ValuationResponse valuation = valuations.estimate("Kia", "Rio", 2015, 80_000);
+
+        assertEquals(5, valuation.count());
+        assertEquals(2014, valuation.yearFrom());
+        assertEquals(2016, valuation.yearTo());
+        assertEquals(50_000, valuation.mileageFrom());
+        assertEquals(125_000, valuation.mileageTo());
+        assertWithinAccuracy(7_100, valuation.median());
+
+        ValuationResponse none = valuations.estimate("Kia", "Sportage", 2015, 80_000);
+        assertEquals(0, none.count());
+        assertEquals(2013, none.yearFrom());
+        assertNull(none.median());
+    }
+
+    @Test
+    void listingChanges_MoveOrRemoveTheirPrices() {
+        when(carListingRepository.findValuationRows()).thenReturn(List.of(
+                new ListingPriceRow(1L, "Honda", "Civic", 2020, 10_000, new BigDecimal("20000"))));
+        valuations.rebuild();
+
+        // No transaction is active, so changes apply immediately
+        valuations.onListingSaved(listing(2L, "Honda", "Civic", new BigDecimal("22000"), true, false, false));
+        valuations.onListingSaved(listing(3L, "Honda", "Civic", new BigDecimal("24000"), true, true, true));
+        valuations.onListingSaved(listing(4L, "Honda", "Civic", new BigDecimal("99000"), false, false, false));
+        assertEquals(3, valuations.estimate("Honda", "Civic", 2020, 10_000).count());
+
+        // Price lowered, then archived without selling
+        valuations.onListingSaved(listing(2L, "Honda", "Civic", new BigDecimal("21000"), true, false, false));
+        assertEquals(3, valuations.estimate("Honda", "Civic", 2020, 10_000).count());
+        valuations.onListingsUpdated(List.of(new ListingIndexRow(2L, "Honda", "Civic", null, null, null, 2020, 10_000,
+                new BigDecimal("21000"), null, null, true, false, true, true, null)));
+        valuations.onListingDeleted(listing(1L, "Honda", "Civic", new BigDecimal("20000"), true, false, false));
+
+        ValuationResponse valuation = valuations.estimate("Honda", "Civic", 2020, 10_000);
+        assertEquals(1, valuation.count());
+        assertWithinAccuracy(24_000, valuation.median());
+    }
+
+    @Test
+    void onListingsReconciled_RecountsChangedPricesAndDropsDeletedListings() {
+        when(carListingRepository.findValuationRows()).thenReturn(List.of(
+                new ListingPriceRow(1L, "Honda", "Civic", 2020, 10_000, new BigDecimal("20000")),
+                new ListingPriceRow(2L, "Honda", "Civic", 2020, 10_000, new BigDecimal("22000")),
+                new ListingPriceRow(3L, "Honda", "Civic", 2020, 10_000, new BigDecimal("24000"))));
+        valuations.rebuild();
+
+        // 1 was deleted elsewhere; 5 was created after the ids were read
+        valuations.onListingsReconciled(List.of(
+                new ListingIndexRow(2L, "Honda", "Civic", null, null, null, 2020, 10_000,
+                        new BigDecimal("30000"), null, null, true, false, false, true, null),
+                new ListingIndexRow(5L, "Honda", "Civic", null, null, null, 2020, 10_000,
+                        new BigDecimal("26000"), null, null, true, false, false, true, null)),
+                Set.of(2L, 3L));
+
+        ValuationResponse valuation = valuations.estimate("Honda", "Civic", 2020, 10_000);
+        assertEquals(3, valuation.count());
+        assertWithinAccuracy(26_000, valuation.median());
+    }
+
+    @Test
+    void estimate_BeforeBuildOrWithMissingCriteria() {
+        assertEquals(0, valuations.estimate("Honda", "Civic", 2020, null).count());
+        assertThrows(IllegalArgumentException.class, () -> valuations.estimate("Honda", " ", 2020, null));
+        assertThrows(IllegalArgumentException.class, () -> valuations.estimate("Honda", "Civic", null, null));
+        assertThrows(IllegalArgumentException.class, () -> valuations.estimate("Honda", "Civic", 2020, -1));
+
+        when(carListingRepository.findValuationRows()).thenThrow(new IllegalStateException("database down"));
+        valuations.rebuild();
+        verify(carListingRepository).findValuationRows();
+        assertEquals(0, valuations.estimate("Honda", "Civic", 2020, null).count());
+    }
+
+    private static void assertWithinAccuracy(double expected, BigDecimal actual) {
+        assertNotNull(actual);
+        assertEquals(expected, actual.doubleValue(), expected * PriceSketch.RELATIVE_ACCURACY + 1);
+    }
+
+    private static CarListing listing(Long id, String brand, String model, BigDecimal price,
+                                      boolean approved, boolean sold, boolean archived) {
+        CarListing listing = new CarListing();
+        listing.setId(id);
+        listing.setBrand(brand);
+        listing.setModel(model);
+        listing.setModelYear(2020);
+        listing.setMileage(10_000);
+        listing.setPrice(price);
+        listing.setApproved(approved);
+        listing.setSold(sold);
+        listing.setArchived(archived);
+        listing.setIsUserActive(true);
+        return listing;
+    }
+}
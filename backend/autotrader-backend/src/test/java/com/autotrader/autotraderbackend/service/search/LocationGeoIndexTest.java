@@ -0,0 +1,100 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.repository.LocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationGeoIndexTest {
+
+    @Mock
+    private LocationRepository locationRepository;
+
+    private LocationGeoIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new LocationGeoIndex(locationRepository);
+        when(locationRepository.findAll()).thenReturn(List.of(
+                location(1L, 33.5138, 36.2765, true),   // Damascus
+                location(2L, 33.4500, 36.2500, true),   // ~8 km south-west of Damascus
+                location(3L, 36.2021, 37.1343, true),   // Aleppo
+                location(4L, 33.5200, 36.2900, false),  // inactive, next to Damascus
+                location(5L, 34.8959, 35.8867, true),   // Tartus
+                location(6L, null, null, true)));       // no coordinates
+        index.rebuild();
+    }
+
+    @Test
+    void findWithinRadius_ReturnsLocationsWithinTheGreatCircleDistance() {
+        assertEquals(Set.of(1L, 2L, 4L), index.findWithinRadius(33.5138, 36.2765, 10));
+        assertEquals(Set.of(1L, 4L), index.findWithinRadius(33.5138, 36.2765, 5));
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L), index.findWithinRadius(33.5138, 36.2765, 400));
+    }
+
+    @Test
+    void findWithinBox_ReturnsLocationsInsideTheBox() {
+        assertEquals(Set.of(1L, 2L, 4L), index.findWithinBox(33.0, 36.0, 34.0, 36.5));
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L), index.findWithinBox(-90, -180, 90, 180));
+        assertTrue(index.findWithinBox(0, 0, 1, 1).isEmpty());
+    }
+
+    @Test
+    void findNearest_ReturnsActiveLocationsNearestFirst() {
+        List<LocationGeoIndex.NearbyLocation> nearest = index.findNearest(34.0, 36.0, 3);
+
+        assertEquals(List.of(1L, 2L, 5L), nearest.stream().map(LocationGeoIndex.NearbyLocation::locationId).toList());
+        assertTrue(nearest.get(0).distanceKm() < nearest.get(1).distanceKm());
+        assertEquals(LocationGeoIndex.distanceKm(34.0, 36.0, 33.5138, 36.2765), nearest.get(0).distanceKm(), 1e-9);
+    }
+
+    @Test
+    void findNearest_FarFromEveryLocation_StillFindsThem() {
+        List<LocationGeoIndex.NearbyLocation> nearest = index.findNearest(-33.87, 151.21, 10);
+
+        assertEquals(Set.of(1L, 2L, 3L, 5L), Set.copyOf(nearest.stream().map(LocationGeoIndex.NearbyLocation::locationId).toList()));
+    }
+
+    @Test
+    void onLocationSaved_OutsideATransaction_UpdatesTheIndexImmediately() {
+        index.onLocationSaved(location(3L, 33.51, 36.28, true));
+        index.onLocationDeleted(2L);
+
+        assertEquals(Set.of(1L, 3L, 4L), index.findWithinRadius(33.5138, 36.2765, 10));
+        verify(locationRepository, times(1)).findAll();
+    }
+
+    @Test
+    void lookups_OutOfRangeArguments_ThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> index.findWithinRadius(91, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.findWithinRadius(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> index.findWithinBox(34, 36, 33, 37));
+        assertThrows(IllegalArgumentException.class, () -> index.findNearest(0, 181, 1));
+    }
+
+    @Test
+    void distanceKm_DamascusToAleppo_IsAbout310Km() {
+        assertEquals(310, LocationGeoIndex.distanceKm(33.5138, 36.2765, 36.2021, 37.1343), 5);
+    }
+
+    private static Location location(Long id, Double latitude, Double longitude, boolean active) {
+        Location location = new Location();
+        location.setId(id);
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        location.setIsActive(active);
+        return location;
+    }
+}
@@ -0,0 +1,62 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceSketchTest {
+
+    @Test
+    void quantile_IsWithinTheRelativeAccuracyOfTheExactValue() {
+        Random random = new Random(42);
+        List<Double> prices = new ArrayList<>();
+        PriceSketch sketch = new PriceSketch();
+        for (int i = 0; i < 10_000; i++) {
+            double price = 2_000 + random.nextInt(98_000);
+            prices.add(price);
+            sketch.add(PriceSketch.bucketOf(price));
+        }
+        prices.sort(null);
+
+        for (double q : new double[] {0, 0.25, 0.5, 0.75, 1}) {
+            double exact = prices.get((int) Math.floor(q * (prices.size() - 1)));
+            double estimate = sketch.quantile(q);
+            assertEquals(exact, estimate, exact * PriceSketch.RELATIVE_ACCURACY + 1e-6, "quantile " + q);
+        }
+        assertEquals(10_000, sketch.count());
+    }
+
+    @Test
+    void merge_AddsCountsAndRemoveTakesAPriceOutAgain() {
+        PriceSketch low = new PriceSketch();
+        low.add(PriceSketch.bucketOf(10_000));
+        low.add(PriceSketch.bucketOf(11_000));
+        PriceSketch high = new PriceSketch();
+        high.add(PriceSketch.bucketOf(20_000));
+
+        low.merge(high);
+
+        assertEquals(3, low.count());
+        assertEquals(11_000, low.quantile(0.5), 110);
+        low.remove(PriceSketch.bucketOf(20_000));
+        low.remove(PriceSketch.bucketOf(50_000));
+        assertEquals(2, low.count());
+        assertEquals(11_000, low.quantile(1), 110);
+        assertEquals(1, high.count());
+    }
+
+    @Test
+    void emptySketchAndNonPositivePrices_AreRejected() {
+        PriceSketch sketch = new PriceSketch();
+        sketch.add(PriceSketch.bucketOf(500));
+        sketch.remove(PriceSketch.bucketOf(500));
+
+        assertTrue(sketch.isEmpty());
+        assertThrows(IllegalStateException.class, () -> sketch.quantile(0.5));
+        assertThrows(IllegalArgumentException.class, () -> PriceSketch.bucketOf(0));
+    }
+}
@@ -0,0 +1,178 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarBrand;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.SavedSearch;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.request.ListingFilterRequest;
+import com.autotrader.autotraderbackend.repository.SavedSearchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SavedSearchPercolatorTest {
+
+    private static final long SELLER_ID = 1L;
+    private static final long BUYER_ID = 2L;
+
+    @Mock
+    private SavedSearchRepository savedSearchRepository;
+
+    @Mock
+    private LocationGeoIndex locationGeoIndex;
+
+    private SavedSearchPercolator percolator;
+    private final List<SavedSearch> searches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        percolator = new SavedSearchPercolator(savedSearchRepository, locationGeoIndex);
+        when(savedSearchRepository.findAll()).thenReturn(searches);
+    }
+
+    @Test
+    void match_TextCriteria_MatchCaseInsensitiveSubstrings() {
+        searches.add(search(10L, BUYER_ID, f -> f.setBrand("toyo")));
+        searches.add(search(11L, BUYER_ID, f -> { f.setBrand("Toyota"); f.setModel("CAM"); }));
+        searches.add(search(12L, BUYER_ID, f -> f.setBrand("Honda")));
+
+        assertEquals(Set.of(10L, 11L), Set.copyOf(percolator.match(listing(100L, "Toyota", "Camry", 25_000, 2020))));
+        assertEquals(List.of(10L), percolator.match(listing(101L, "Toyota", "Corolla", 25_000, 2020)));
+    }
+
+    @Test
+    void match_RangesAndIds_AreVerifiedAgainstTheFullFilter() {
+        searches.add(search(10L, BUYER_ID, f -> { f.setMinPrice(new BigDecimal("20000")); f.setMaxPrice(new BigDecimal("30000")); }));
+        searches.add(search(11L, BUYER_ID, f -> { f.setMinYear(2019); f.setMaxYear(2021); f.setMaxMileage(50_000); }));
+        searches.add(search(12L, BUYER_ID, f -> { f.setBrandIds(List.of(7L)); f.setMaxPrice(new BigDecimal("26000")); }));
+        CarListing listing = listing(100L, "Toyota", "Camry", 25_000, 2020);
+        CarBrand brand = new CarBrand();
+        brand.setId(7L);
+        listing.setCarBrand(brand);
+
+        assertEquals(Set.of(10L, 11L, 12L), Set.copyOf(percolator.match(listing)));
+        listing.setPrice(new BigDecimal("31000"));
+        listing.setMileage(80_000);
+        assertTrue(percolator.match(listing).isEmpty());
+    }
+
+    @Test
+    void match_KeywordCriteria_RequireEveryTerm() {
+        searches.add(search(10L, BUYER_ID, f -> f.setKeyword("automatic sunroof")));
+        searches.add(search(11L, BUYER_ID, f -> f.setKeyword("automatic diesel")));
+        CarListing listing = listing(100L, "Toyota", "Camry", 25_000, 2020);
+        listing.setTransmission("Automatic");
+        listing.setDescription("Clean car with sunroofs and leather seats");
+
+        assertEquals(List.of(10L), percolator.match(listing));
+    }
+
+    @Test
+    void match_GeoCriteria_UseTheLocationCoordinates() {
+        searches.add(search(10L, BUYER_ID, f -> { f.setNearLat(33.5); f.setNearLon(36.3); f.setRadiusKm(20.0); }));
+        searches.add(search(11L, BUYER_ID, f -> { f.setMinLat(36.0); f.setMaxLat(36.5); f.setMinLon(37.0); f.setMaxLon(37.5); }));
+        searches.add(search(12L, BUYER_ID, f -> f.setLocationId(5L)));
+        CarListing listing = listing(100L, "Toyota", "Camry", 25_000, 2020);
+        Location damascus = new Location();
+        damascus.setId(5L);
+        listing.setLocation(damascus);
+        when(locationGeoIndex.coordinatesOf(any())).thenReturn(Map.of(5L, new LocationGeoIndex.Coordinates(33.5138, 36.2765, "svc")));
+
+        assertEquals(Set.of(10L, 12L), Set.copyOf(percolator.match(listing)));
+    }
+
+    @Test
+    void match_SearchWithoutCriteria_MatchesUnsoldListingsOnly() {
+        searches.add(search(10L, BUYER_ID, f -> { }));
+        searches.add(search(11L, BUYER_ID, f -> f.setIsSold(true)));
+        CarListing listing = listing(100L, "Toyota", "Camry", 25_000, 2020);
+
+        assertEquals(List.of(10L), percolator.match(listing));
+        listing.setSold(true);
+        assertEquals(List.of(11L), percolator.match(listing));
+    }
+
+    @Test
+    void match_SkipsTheSellersOwnSearches() {
+        searches.add(search(10L, SELLER_ID, f -> f.setBrand("Toyota")));
+
+        assertTrue(percolator.match(listing(100L, "Toyota", "Camry", 25_000, 2020)).isEmpty());
+    }
+
+    @Test
+    void onSavedSearchSavedAndDeleted_OutsideATransaction_UpdateTheIndexImmediately() {
+        searches.add(search(10L, BUYER_ID, f -> f.setBrand("Toyota")));
+        percolator.rebuild();
+
+        percolator.onSavedSearchSaved(search(10L, BUYER_ID, f -> f.setBrand("Honda")));
+        percolator.onSavedSearchSaved(search(11L, BUYER_ID, f -> f.setModel("Camry")));
+        percolator.onSavedSearchDeleted(12L);
+
+        assertEquals(List.of(11L), percolator.match(listing(100L, "Toyota", "Camry", 25_000, 2020)));
+        assertEquals(2, percolator.size());
+        percolator.onSavedSearchDeleted(11L);
+        assertTrue(percolator.match(listing(100L, "Toyota", "Camry", 25_000, 2020)).isEmpty());
+        verify(savedSearchRepository, times(1)).findAll();
+    }
+
+    @Test
+    void reconcile_PicksUpSearchesSavedAndDeletedElsewhere() {
+        searches.add(search(10L, BUYER_ID, f -> f.setBrand("Toyota")));
+        searches.add(search(11L, BUYER_ID, f -> f.setModel("Camry")));
+        percolator.rebuild();
+        SavedSearch savedElsewhere = search(12L, BUYER_ID, f -> f.setMaxPrice(new BigDecimal("30000")));
+        when(savedSearchRepository.findAllIds()).thenReturn(List.of(11L, 12L));
+        when(savedSearchRepository.findAllById(List.of(12L))).thenReturn(List.of(savedElsewhere));
+
+        assertEquals(2, percolator.reconcile());
+
+        assertEquals(Set.of(11L, 12L), Set.copyOf(percolator.match(listing(100L, "Toyota", "Camry", 25_000, 2020))));
+        assertEquals(2, percolator.size());
+        assertEquals(0, percolator.reconcile());
+        verify(savedSearchRepository, times(1)).findAllById(any());
+    }
+
+    private static SavedSearch search(Long id, Long userId, Consumer<ListingFilterRequest> criteria) {
+        ListingFilterRequest filter = new ListingFilterRequest();
+        criteria.accept(filter);
+        SavedSearch search = new SavedSearch();
+        search.setId(id);
+        search.setUserId(userId);
+        search.setName("search " + id);
+        search.setCriteria(filter);
+        return search;
+    }
+
+    private static CarListing listing(Long id, String brand, String model, int price, int modelYear) {
+        User seller = new User();
+        seller.setId(SELLER_ID);
+        CarListing listing = new CarListing();
+        listing.setId(id);
+        listing.setTitle(brand + " " + model);
+        listing.setBrand(brand);
+        listing.setModel(model);
+        listing.setPrice(BigDecimal.valueOf(price));
+        listing.setModelYear(modelYear);
+        listing.setMileage(40_000);
+        listing.setApproved(true);
+        listing.setSeller(seller);
+        return listing;
+    }
+}
@@ -0,0 +1,249 @@
+package com.autotrader.autotraderbackend.service.search;
+
+import com.autotrader.autotraderbackend.model.CarBrand;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.ListingViewDay;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.repository.CarListingRepository;
+import com.autotrader.autotraderbackend.repository.ListingViewDayRepository;
+import com.autotrader.autotraderbackend.repository.projection.ListingIndexRow;
+import com.autotrader.autotraderbackend.repository.projection.ListingTrendRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ranks listings with a controllable clock: seeding from the database, decay, scopes, and
+ * listings leaving a full top list.
+ */
+@ExtendWith(MockitoExtension.class)
+class TrendingListingsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+    private static final LocalDateTime NOW = DAY.atTime(12, 0);
+
+    @Mock
+    private CarListingRepository carListingRepository;
+
+    @Mock
+    private ListingViewDayRepository listingViewDayRepository;
+
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW.toInstant(ZoneOffset.UTC));
+    }
+
+    @Test
+    void rebuild_ScoresNewListingsAndRecentViewsPerScope() {
+        when(carListingRepository.findPublicTrendRows()).thenReturn(List.of(
+                new ListingTrendRow(1L, 10L, 20L, NOW, null),
+                new ListingTrendRow(2L, 10L, 21L, NOW, null),
+                new ListingTrendRow(3L, 11L, 20L, NOW, null)));
+        when(listingViewDayRepository.findByViewDateGreaterThanEqual(DAY.minusDays(6))).thenReturn(List.of(
+                // Half as much a day later
+                new ListingViewDay(2L, DAY.minusDays(1), 5),
+                new ListingViewDay(3L, DAY, 2),
+                new ListingViewDay(99L, DAY, 1000)));
+        TrendingListings trending = trending(1, 100);
+
+        trending.rebuild();
+
+        assertEquals(List.of(2L, 3L, 1L), trending.top(null, null, 10));
+        assertEquals(List.of(2L), trending.top(null, null, 1));
+        assertEquals(List.of(2L, 1L), trending.top(10L, null, 10));
+        assertEquals(List.of(3L, 1L), trending.top(null, 20L, 10));
+        assertEquals(List.of(1L), trending.top(10L, 20L, 10));
+        assertEquals(List.of(), trending.top(12L, null, 10));
+    }
+
+    @Test
+    void refresh_RecentViewsOutweighOlderOnes() {
+        when(carListingRepository.findPublicTrendRows()).thenReturn(List.of(
+                new ListingTrendRow(1L, null, null, NOW, null),
+                new ListingTrendRow(2L, null, null, NOW, null)));
+        TrendingListings trending = trending(0, 100);
+        trending.rebuild();
+        for (int i = 0; i < 10; i++) {
+            trending.recordView(1L);
+        }
+        trending.refresh();
+        assertEquals(List.of(1L, 2L), trending.top(null, null, 10));
+
+        // Two half-lives later, three views weigh more than the ten earlier ones
+        clock.advance(Duration.ofHours(48));
+        for (int i = 0; i < 3; i++) {
+            trending.recordView(2L);
+        }
+        assertEquals(List.of(1L, 2L), trending.top(null, null, 10));
+        trending.refresh();
+        assertEquals(List.of(2L, 1L), trending.top(null, null, 10));
+    }
+
+    @Test
+    void refresh_ListingHiddenFromAFullTopList_IsReplacedByTheNextBest() {
+        when(carListingRepository.findPublicTrendRows()).thenReturn(List.of(
+                new ListingTrendRow(1L, null, null, NOW, null),
+                new ListingTrendRow(2L, null, null, NOW, null),
+                new ListingTrendRow(3L, null, null, NOW, null)));
+        TrendingListings trending = trending(0, 2);
+        trending.rebuild();
+        recordViews(trending, 1L, 3);
+        recordViews(trending, 2L, 2);
+        recordViews(trending, 3L, 1);
+        trending.refresh();
+        assertEquals(List.of(1L, 2L), trending.top(null, null, 10));
+
+        trending.onListingsUpdated(List.of(indexRow(1L, true)));
+        trending.refresh();
+
+        assertEquals(List.of(2L, 3L), trending.top(null, null, 10));
+        trending.recordView(1L);
+        trending.refresh();
+        assertEquals(List.of(2L, 3L), trending.top(null, null, 10));
+    }
+
+    @Test
+    void onListingSaved_NewPublicListing_IsRankedInItsScopesOnRefresh() {
+        when(carListingRepository.findPublicTrendRows()).thenReturn(List.of(
+                new ListingTrendRow(1L, 10L, 20L, NOW.minusDays(2), null)));
+        TrendingListings trending = trending(1, 100);
+        trending.rebuild();
+
+        trending.onListingSaved(listing(5L, 10L, 20L));
+        assertEquals(List.of(1L), trending.top(null, null, 10));
+        trending.refresh();
+
+        assertEquals(List.of(5L, 1L), trending.top(null, null, 10));
+        assertEquals(List.of(5L, 1L), trending.top(10L, 20L, 10));
+        trending.onListingDeleted(listing(5L, 10L, 20L));
+        trending.refresh();
+        assertEquals(List.of(1L), trending.top(10L, 20L, 10));
+    }
+
+    @Test
+    void onListingsReconciled_RanksListingsChangedElsewhereAndDropsDeletedOnes() {
+        when(carListingRepository.findPublicTrendRows()).thenReturn(List.of(
+                new ListingTrendRow(1L, null, null, NOW, null),
+                new ListingTrendRow(2L, null, null, NOW, null),
+                new ListingTrendRow(3L, null, null, NOW, null)));
+        TrendingListings trending = trending(1, 100);
+        trending.rebuild();
+
+        // 2 was sold and 3 deleted elsewhere; 4 was created after the ids were read
+        trending.onListingsReconciled(List.of(indexRow(4L, false), indexRow(2L, true)), Set.of(1L, 2L));
+        trending.refresh();
+
+        assertEquals(List.of(4L, 1L), trending.top(null, null, 10));
+    }
+
+    @Test
+    void rebuild_DatabaseDown_KeepsThePreviousRanking() {
+        when(carListingRepository.findPublicTrendRows())
+                .thenReturn(List.of(new ListingTrendRow(1L, null, null, NOW, null)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        when(listingViewDayRepository.findByViewDateGreaterThanEqual(any())).thenReturn(List.of());
+        TrendingListings trending = trending(1, 100);
+        trending.recordView(1L);
+        assertEquals(List.of(), trending.top(null, null, 10));
+
+        trending.rebuild();
+        trending.rebuild();
+
+        assertEquals(List.of(1L), trending.top(null, null, 10));
+    }
+
+    @Test
+    void refresh_ListingsPastTheirExpirationDate_LeaveTheRanking() {
+        when(carListingRepository.findPublicTrendRows()).thenReturn(List.of(
+                new ListingTrendRow(1L, 10L, null, NOW, NOW.plusHours(1)),
+                new ListingTrendRow(2L, 10L, null, NOW, null),
+                new ListingTrendRow(3L, 10L, null, NOW, NOW.minusHours(1))));
+        TrendingListings trending = trending(1, 100);
+        trending.rebuild();
+        assertEquals(List.of(2L, 1L), trending.top(null, null, 10));
+
+        clock.advance(Duration.ofHours(1));
+        trending.refresh();
+
+        assertEquals(List.of(2L), trending.top(null, null, 10));
+        assertEquals(List.of(2L), trending.top(10L, null, 10));
+    }
+
+    private TrendingListings trending(double newListingWeight, int size) {
+        return new TrendingListings(carListingRepository, listingViewDayRepository, clock, 24, newListingWeight, size, 7);
+    }
+
+    private static void recordViews(TrendingListings trending, Long listingId, int views) {
+        for (int i = 0; i < views; i++) {
+            trending.recordView(listingId);
+        }
+    }
+
+    private static ListingIndexRow indexRow(Long id, boolean sold) {
+        return new ListingIndexRow(id, "Toyota", "Corolla", null, null, null, 2020, 10000, null, null, NOW,
+                true, sold, false, true, null);
+    }
+
+    private static CarListing listing(Long id, Long locationId, Long brandId) {
+        Location location = new Location();
+        location.setId(locationId);
+        CarBrand brand = new CarBrand();
+        brand.setId(brandId);
+        CarListing listing = new CarListing();
+        listing.setId(id);
+        listing.setLocation(location);
+        listing.setCarBrand(brand);
+        listing.setCreatedAt(NOW);
+        listing.setApproved(true);
+        listing.setSold(false);
+        listing.setArchived(false);
+        listing.setIsUserActive(true);
+        return listing;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.autotrader.autotraderbackend.service.views;
+
+import com.autotrader.autotraderbackend.repository.ListingViewDayRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Records views from several threads and checks what the flushes write, on which day, and
+ * what happens to views the database does not take.
+ */
+@ExtendWith(MockitoExtension.class)
+class ListingViewCounterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    @Mock
+    private ListingViewDayRepository listingViewDayRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(DAY.atTime(12, 0).toInstant(ZoneOffset.UTC));
+    }
+
+    @Test
+    void flush_ViewsFromManyThreads_AreWrittenOncePerListing() throws Exception {
+        ListingViewCounter counter = counter(500, 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        counter.record(1L + i % 3);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        counter.record(null);
+
+        assertEquals(8000, counter.flush());
+
+        verify(listingViewDayRepository).addViews(DAY, Map.of(1L, 2672L, 2L, 2664L, 3L, 2664L));
+        assertEquals(0, counter.flush());
+        verify(listingViewDayRepository, times(1)).addViews(any(), any());
+        assertEquals(8000, meterRegistry.counter("listings.views.flushed").count());
+    }
+
+    @Test
+    void flush_InBatches_RetriesABatchWhoseRowWasInsertedByAnotherInstance() {
+        ListingViewCounter counter = counter(2, 1000);
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .doNothing()
+                .when(listingViewDayRepository).addViews(eq(DAY), any());
+        counter.record(1L);
+        counter.record(2L);
+        counter.record(3L);
+
+        assertEquals(3, counter.flush());
+
+        // Batches of two and one listings, the first one written twice
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, Long>> batches = ArgumentCaptor.forClass(Map.class);
+        verify(listingViewDayRepository, times(3)).addViews(eq(DAY), batches.capture());
+        assertEquals(batches.getAllValues().get(0), batches.getAllValues().get(1));
+        assertEquals(2, batches.getAllValues().get(0).size());
+        assertEquals(1, batches.getAllValues().get(2).size());
+    }
+
+    @Test
+    void flush_DatabaseDown_KeepsViewsForTheNextFlush() {
+        ListingViewCounter counter = counter(500, 1000);
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .doNothing()
+                .when(listingViewDayRepository).addViews(any(), any());
+        counter.record(7L);
+        counter.record(7L);
+
+        assertEquals(0, counter.flush());
+        assertEquals(1, meterRegistry.get("listings.views.pending").gauge().value());
+
+        counter.record(7L);
+        assertEquals(3, counter.flush());
+        verify(listingViewDayRepository).addViews(DAY, Map.of(7L, 3L));
+        assertEquals(0, meterRegistry.get("listings.views.pending").gauge().value());
+    }
+
+    @Test
+    void flush_AfterMidnight_CountsViewsTowardsTheDayTheirGenerationStarted() {
+        clock = new MutableClock(DAY.atTime(23, 59).toInstant(ZoneOffset.UTC));
+        ListingViewCounter counter = counter(500, 1000);
+        counter.record(5L);
+        clock.advance(Duration.ofMinutes(2));
+        counter.record(5L);
+
+        counter.flush();
+        counter.record(5L);
+        counter.flush();
+
+        verify(listingViewDayRepository).addViews(DAY, Map.of(5L, 2L));
+        verify(listingViewDayRepository).addViews(DAY.plusDays(1), Map.of(5L, 1L));
+    }
+
+    @Test
+    void flush_TooManyViewsWaiting_DropsTheOldestDays() {
+        ListingViewCounter counter = counter(500, 1);
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .when(listingViewDayRepository).addViews(any(), any());
+        counter.record(1L);
+        counter.flush();
+        clock.advance(Duration.ofDays(1));
+        counter.flush();
+        counter.record(2L);
+        counter.record(2L);
+
+        counter.flush();
+
+        assertEquals(1, meterRegistry.counter("listings.views.dropped").count());
+        assertEquals(1, meterRegistry.get("listings.views.pending").gauge().value());
+    }
+
+    private ListingViewCounter counter(int batchSize, int maxPending) {
+        return new ListingViewCounter(listingViewDayRepository, transactionManager, meterRegistry, clock, batchSize, maxPending);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.autotrader.autotraderbackend.service.views;
+
+import com.autotrader.autotraderbackend.exception.ResourceNotFoundException;
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.User;
+import com.autotrader.autotraderbackend.payload.response.ListingViewDayResponse;
+import com.autotrader.autotraderbackend.repository.ListingViewDayRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes view counts through the repository's UPDATE-then-INSERT batches and reads them back
+ * the way the seller dashboard does.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ListingViewStats.class)
+class ListingViewStatsTest {
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private ListingViewDayRepository listingViewDayRepository;
+
+    @Autowired
+    private ListingViewStats listingViewStats;
+
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        seller = testEntityManager.persist(new User("views_seller", "views@example.com", "password"));
+        testEntityManager.flush();
+    }
+
+    @Test
+    void addViews_AddsToExistingRowsAndInsertsMissingOnes() {
+        Long first = persist().getId();
+        Long second = persist().getId();
+        Long unseen = persist().getId();
+        LocalDate today = LocalDate.now();
+
+        listingViewDayRepository.addViews(today, Map.of(first, 2L));
+        listingViewDayRepository.addViews(today, Map.of(first, 3L, second, 1L));
+        // Outside the dashboard window
+        listingViewDayRepository.addViews(today.minusDays(40), Map.of(second, 100L));
+
+        Map<Long, Long> views = listingViewStats.countRecentViews(List.of(first, second, unseen));
+
+        assertEquals(List.of(first, second, unseen), List.copyOf(views.keySet()));
+        assertEquals(5L, views.get(first));
+        assertEquals(1L, views.get(second));
+        assertEquals(0L, views.get(unseen));
+        assertTrue(listingViewStats.countRecentViews(List.of()).isEmpty());
+    }
+
+    @Test
+    void getDailyViews_FillsDaysWithoutViews() {
+        Long id = persist().getId();
+        LocalDate today = LocalDate.now();
+        listingViewDayRepository.addViews(today.minusDays(2), Map.of(id, 4L));
+        listingViewDayRepository.addViews(today, Map.of(id, 1L));
+
+        List<ListingViewDayResponse> series = listingViewStats.getDailyViews(id, "views_seller", 3);
+
+        assertEquals(List.of(
+                new ListingViewDayResponse(today.minusDays(2), 4),
+                new ListingViewDayResponse(today.minusDays(1), 0),
+                new ListingViewDayResponse(today, 1)), series);
+    }
+
+    @Test
+    void getDailyViews_RejectsOtherUsersMissingListingsAndBadRanges() {
+        Long id = persist().getId();
+
+        assertThrows(SecurityException.class, () -> listingViewStats.getDailyViews(id, "someone_else", 30));
+        assertThrows(ResourceNotFoundException.class, () -> listingViewStats.getDailyViews(999_999L, "views_seller", 30));
+        assertThrows(IllegalArgumentException.class, () -> listingViewStats.getDailyViews(id, "views_seller", 0));
+        assertThrows(IllegalArgumentException.class, () -> listingViewStats.getDailyViews(id, "views_seller", 366));
+    }
+
+    private CarListing persist() {
+        CarListing listing = new CarListing();
+        listing.setTitle("Viewed listing");
+        listing.setBrand("Honda");
+        listing.setModel("Jazz");
+        listing.setModelYear(2019);
+        listing.setMileage(40000);
+        listing.setPrice(new BigDecimal("9000"));
+        listing.setDescription("View count test listing");
+        listing.setSeller(seller);
+        listing.setApproved(true);
+        listing = testEntityManager.persist(listing);
+        testEntityManager.flush();
+        return listing;
+    }
+}
@@ -0,0 +1,101 @@
+package com.autotrader.autotraderbackend.testutil;
+
+import com.autotrader.autotraderbackend.model.CarListing;
+import com.autotrader.autotraderbackend.model.ListingMedia;
+import com.autotrader.autotraderbackend.model.Location;
+import com.autotrader.autotraderbackend.model.User;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+/**
+ * Persists the sellers, locations, listings and media the repository tests ({@code @DataJpaTest})
+ * run against. Listings start from valid defaults, an approved 2018 Toyota Camry at 12000,
+ * and each test only sets the fields it asserts on.
+ */
+public class ListingFixtures {
+
+    private final TestEntityManager testEntityManager;
+
+    public ListingFixtures(TestEntityManager testEntityManager) {
+        this.testEntityManager = testEntityManager;
+    }
+
+    /**
+     * Persists a seller with the email {@code <username>@example.com}.
+     */
+    public User seller(String username) {
+        return testEntityManager.persist(new User(username, username + "@example.com", "password"));
+    }
+
+    /**
+     * Persists a Syrian location with the given slug and English display name.
+     */
+    public Location location(String slug, String displayNameEn) {
+        Location location = new Location();
+        location.setDisplayNameEn(displayNameEn);
+        location.setDisplayNameAr(displayNameEn);
+        location.setSlug(slug);
+        location.setCountryCode("SY");
+        return testEntityManager.persist(location);
+    }
+
+    /**
+     * Persists a listing of the seller with the default fields, after applying the customizer.
+     */
+    public CarListing listing(User seller, Consumer<CarListing> customizer) {
+        CarListing listing = newListing(seller);
+        customizer.accept(listing);
+        return testEntityManager.persist(listing);
+    }
+
+    /**
+     * Persists an image of the listing.
+     */
+    public ListingMedia image(CarListing listing, String fileKey, int sortOrder, boolean primary) {
+        ListingMedia media = newImage(fileKey, sortOrder, primary);
+        media.setCarListing(listing);
+        return testEntityManager.persist(media);
+    }
+
+    /**
+     * Writes the fixtures and detaches them, so tests read what the database returns.
+     */
+    public void flushAndClear() {
+        testEntityManager.flush();
+        testEntityManager.clear();
+    }
+
+    /**
+     * A listing of the seller with the default fields, not persisted.
+     */
+    public static CarListing newListing(User seller) {
+        CarListing listing = new CarListing();
+        listing.setTitle("Test listing");
+        listing.setBrand("Toyota");
+        listing.setModel("Camry");
+        listing.setModelYear(2018);
+        listing.setMileage(50000);
+        listing.setPrice(new BigDecimal("12000.00"));
+        listing.setDescription("Repository test listing");
+        listing.setApproved(true);
+        listing.setSeller(seller);
+        return listing;
+    }
+
+    /**
+     * A JPEG image, not persisted and not attached to a listing.
+     */
+    public static ListingMedia newImage(String fileKey, int sortOrder, boolean primary) {
+        ListingMedia media = new ListingMedia();
+        media.setFileKey(fileKey);
+        media.setFileName(fileKey.substring(fileKey.lastIndexOf('/') + 1));
+        media.setContentType("image/jpeg");
+        media.setSize(1024L);
+        media.setSortOrder(sortOrder);
+        media.setIsPrimary(primary);
+        media.setMediaType("image");
+        return media;
+    }
+}